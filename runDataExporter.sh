@@ -24,16 +24,57 @@ while (( "$#" )); do
 			generate_config_file="--generate-config-file"
 			shift
 			;;
+		-j|--jfr_recording)
+			jfr_recording="--jfr-recording"
+			shift
+			;;
 		-s|--skip_integration_tests)
 			skip_integration_tests="-DskipITs=true"
 			shift
 			;;
+		-p|--profile_queries)
+			if [ -n "$2" ] && [ ${2:0:1} != "-" ]; then
+				profile_queries="--profile-queries $2"
+				shift 2
+			else
+				echo "Error: Argument for $1 is missing" >&2
+				exit 1
+			fi
+			;;
+		--only)
+			if [ -n "$2" ] && [ ${2:0:1} != "-" ]; then
+				only_stages="--only $2"
+				shift 2
+			else
+				echo "Error: Argument for $1 is missing" >&2
+				exit 1
+			fi
+			;;
+		--skip)
+			if [ -n "$2" ] && [ ${2:0:1} != "-" ]; then
+				skip_stages="--skip $2"
+				shift 2
+			else
+				echo "Error: Argument for $1 is missing" >&2
+				exit 1
+			fi
+			;;
+		-m|--memory_budget)
+			if [ -n "$2" ] && [ ${2:0:1} != "-" ]; then
+				memory_budget="--memory-budget $2"
+				shift 2
+			else
+				echo "Error: Argument for $1 is missing" >&2
+				exit 1
+			fi
+			;;
 		-h|--help)
 			help=1
 			shift
 			;;
-		--) # end argument parsing
+		--) # end argument parsing; the remaining arguments are passed to the Java program as they are
 			shift
+			jar_arguments=("$@")
 			break
 			;;
 		-*|--*=) # unsupported flags
@@ -63,7 +104,9 @@ the jar file, and pass to the jar relevant command-line options) and run the pro
 exports for submission to NCBI, UCSC, and Europe PMC.  For more details about the program, the files, or the external
 resources, please see the README file at the base directory of the release-data-exporter repository.
 
-Usage: $0 [-b|--build_jar] [-g|--generate_config_file] [-s|--skip_integration_tests] [-h|--help]
+Usage: $0 [-b|--build_jar] [-c|--config_file <path>] [-g|--generate_config_file] [-j|--jfr_recording]
+	[-p|--profile_queries <query names>] [--only <stages>] [--skip <stages>] [-m|--memory_budget <size>]
+	[-s|--skip_integration_tests] [-h|--help] [-- <Java program options>]
 
 The -b|--build_jar option will force a (re)build of the jar file for the release-data-exporter.  If this option is not
 included, the existing jar file will be used (only be built if it does not already exist).
@@ -74,6 +117,19 @@ The -g|--generate_config_file option will attempt to (re)create the configuratio
 If this option is not included, the existing configuration file will be used (with the file being created only if it
 does not exist).  NOTE:  This option will be ignored if a configuration file is provided by -c|--config_file_path.
 
+The -j|--jfr_recording option will start a Java Flight Recorder recording for the run of the release-data-exporter
+and write it to a "data-exporter-<timestamp>.jfr" file in the configured output directory.
+
+The -p|--profile_queries option will capture the PROFILE plan of the comma separated query names provided (or "all"
+queries) in the configured output directory.
+
+The --only and --skip options will run only, or skip, the comma separated export stages provided (e.g.
+"ncbi-generate,ncbi-upload").
+
+The -m|--memory_budget option will run the export within the heap size provided (e.g. "4g").
+
+Any options following -- are passed to the Java program unchanged.
+
 The -s|--skip_integration_tests option will skip integration tests (i.e. test classes starting or ending with 'IT')
 during the Maven "test" Lifecycle Phase. If this option is not included, integration tests will be run by default.
 NOTE: This option only affects integration tests; Unit tests will always be run during a Maven build executed from this
@@ -119,4 +175,5 @@ fi
 jar_path=$(ls target/data-exporter*-jar-with-dependencies.jar)
 ln -sf $jar_path $jar_file
 
-java -jar $jar_file $generate_config_file $config_file_path
+java -jar $jar_file $generate_config_file $config_file_path $jfr_recording $profile_queries $only_stages $skip_stages \
+	$memory_budget "${jar_arguments[@]}"
@@ -8,17 +8,37 @@ import org.neo4j.driver.Driver;
 import org.neo4j.driver.GraphDatabase;
 import org.neo4j.driver.Session;
 import org.reactome.release.common.ReleaseStep;
+import org.reactome.release.dataexport.archive.ExportArchive;
+import org.reactome.release.dataexport.archive.ExportManifest;
 import org.reactome.release.dataexport.datastructures.NCBIEntry;
+import org.reactome.release.dataexport.datastructures.ReactomeEvent;
+import org.reactome.release.dataexport.datastructures.UniProtReactomeEntry;
+import org.reactome.release.dataexport.datastructures.UniProtReactomeEntryRegistry;
 import org.reactome.release.dataexport.fileuploaders.EuropePMCFileUploader;
 import org.reactome.release.dataexport.fileuploaders.NCBIFileUploader;
+import org.reactome.release.dataexport.index.UniProtEventIndexWriter;
+import org.reactome.release.dataexport.monitoring.ExportPhaseEvent;
+import org.reactome.release.dataexport.queries.GraphQueryExecutor;
+import org.reactome.release.dataexport.queries.IndexAdvisor;
+import org.reactome.release.dataexport.queries.PaginatedExtraction;
+import org.reactome.release.dataexport.queries.QueryParameters;
 import org.reactome.release.dataexport.resources.EuropePMC;
 import org.reactome.release.dataexport.resources.NCBIGene;
 import org.reactome.release.dataexport.resources.NCBIProtein;
 import org.reactome.release.dataexport.resources.UCSC;
+import org.reactome.release.dataexport.stages.ExportStage;
+import org.reactome.release.dataexport.stages.ExportStageCheckpoints;
+import org.reactome.release.dataexport.stages.ExportStagePlan;
+import org.reactome.release.dataexport.utilities.LineDeduplicator;
+import org.reactome.release.dataexport.utilities.MemoryBudget;
+import org.reactome.release.dataexport.utilities.PathwayHierarchyUtilities;
 
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -47,6 +67,9 @@ public class DataExporterStep extends ReleaseStep {
 	 *     Short XML file identifying Reactome as a data provider to Europe PMC
 	 * Europe PMC Link File
 	 *     "Link" XML nodes describing Reactome Pathways connected to PubMed literature references
+	 *
+	 * The work is split into the stages of ExportStage.  Stages which completed in an earlier run for the same release
+	 * (and whose files are unchanged) are skipped, so a rerun resumes with the stages which did not complete.
 	 * @param props Configuration options for connecting to the graph database and writing output files
 	 * @throws IOException Thrown if unable to create the output directory or write files
 	 */
@@ -60,31 +83,175 @@ public class DataExporterStep extends ReleaseStep {
 		logger.info("Files for Reactome Release Number {} will be output to the directory {}",
 			reactomeReleaseNumber, outputDir);
 
-		try (Driver graphDBDriver = getGraphDBDriver(props); Session graphDBSession = graphDBDriver.session()) {
-			List<NCBIEntry> ncbiEntries = NCBIEntry.getUniProtToNCBIGeneEntries(graphDBSession);
+		// The memory budget sets the low-memory defaults of the settings read by the classes configured after it
+		MemoryBudget.configure(props);
+		QueryParameters.configure(props);
+		ReactomeEvent.configure(props);
+		UniProtReactomeEntryRegistry.startNewRun();
+		NCBIGene.configure(props);
+		LineDeduplicator.configure(props);
+		ExportArchive.configure(props);
+		ExportManifest.configure(props);
+		UniProtEventIndexWriter.configure(props);
+
+		ExportStageCheckpoints checkpoints = new ExportStageCheckpoints(Paths.get(outputDir), reactomeReleaseNumber);
+		ExportStagePlan stagePlan = ExportStagePlan.getInstance(props, checkpoints);
+
+		if (stagePlan.requiresGraphDatabase()) {
+			try (Driver graphDBDriver = getGraphDBDriver(props); Session graphDBSession = graphDBDriver.session()) {
+				GraphQueryExecutor.configure(props, graphDBDriver);
+				PaginatedExtraction.configure(props, graphDBDriver);
+				UCSC.configure(props, graphDBDriver);
+
+				try {
+					runGraphDatabaseStages(
+						props, stagePlan, checkpoints, graphDBSession, outputDir, reactomeReleaseNumber
+					);
+				} finally {
+					ReactomeEvent.releaseLazyEvents(graphDBSession);
+				}
+			}
+		}
+
+		// Record the checksums and sizes of the files, and the compressed sizes of their archive copies, computed while
+		// generating the files (the uploaders only upload files listed with their current size in the export manifest)
+		ExportManifest.writeManifest();
+		ExportArchive.writeManifest();
+
+		// Upload Europe PMC Profile and Link Files (and delete previous release Europe PMC Profile and Link Files)
+		runStage(ExportStage.EUROPE_PMC_UPLOAD, stagePlan, checkpoints,
+			() -> EuropePMCFileUploader.getInstance(props).updateFilesOnServer()
+		);
+
+		// Upload NCBI Gene and Protein Files (and delete previous release NCBI Gene and Protein Files)
+		runStage(ExportStage.NCBI_UPLOAD, stagePlan, checkpoints,
+			() -> NCBIFileUploader.getInstance(props).updateFilesOnServer()
+		);
+
+		MemoryBudget.logPeakHeapUsage();
+		logger.info("Finished NCBI, UCSC, and Europe PMC export step");
+	}
+
+	/**
+	 * Runs the planned stages which query the graph database: extracting the data, building the in-memory indexes
+	 * and generating the files for each target
+	 * @param props Configuration options for the export
+	 * @param stagePlan Plan of the stages to run
+	 * @param checkpoints Checkpoints of the stages generating files
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @param outputDir Directory to which the export files are written
+	 * @param reactomeReleaseNumber Reactome release number of the export
+	 * @throws IOException Thrown if unable to write files or checkpoints
+	 */
+	private void runGraphDatabaseStages(Properties props, ExportStagePlan stagePlan, ExportStageCheckpoints checkpoints,
+										Session graphDBSession, String outputDir, int reactomeReleaseNumber)
+		throws IOException {
+
+		List<NCBIEntry> ncbiEntries = new ArrayList<>();
+		runStage(ExportStage.EXTRACT, stagePlan, checkpoints, () -> {
+			// Check the graph database has the indexes the export queries need, and plan the queries, before any file
+			// is written
+			runPhase("Query Pre-flight", () -> {
+				IndexAdvisor.getInstance(props).checkIndexes(graphDBSession);
+				GraphQueryExecutor.warmUpQueryPlans(graphDBSession);
+			});
+
+			runPhase("NCBI Entries", () -> ncbiEntries.addAll(NCBIEntry.getUniProtToNCBIGeneEntries(graphDBSession)));
+		});
+
+		runStage(ExportStage.BUILD_INDEXES, stagePlan, checkpoints, () -> {
+			PathwayHierarchyUtilities.getTopLevelPathwayIds(graphDBSession);
+			if (!ReactomeEvent.isLazyLoading()) {
+				UniProtReactomeEntry.fetchUniProtReactomeEntryToTopLevelPathways(graphDBSession);
+			}
+			// Persist the UniProt to events mappings for other release steps
+			if (UniProtEventIndexWriter.isEnabled()) {
+				UniProtEventIndexWriter.writeIndex(graphDBSession);
+			}
+		});
+
+		runStage(ExportStage.NCBI_GENERATE, stagePlan, checkpoints, () -> {
+			if (!stagePlan.shouldRun(ExportStage.EXTRACT)) {
+				ncbiEntries.addAll(NCBIEntry.getUniProtToNCBIGeneEntries(graphDBSession));
+			}
 
 			// Write NCBI Gene related Protein File
-			NCBIGene.getInstance(ncbiEntries, outputDir, reactomeReleaseNumber).writeProteinFile();
+			runPhase("NCBI Gene Protein File",
+				() -> NCBIGene.getInstance(ncbiEntries, outputDir, reactomeReleaseNumber).writeProteinFile()
+			);
 
 			// Write NCBI Gene Files (split into multiple files to conform with 15MB upload maximum)
-			NCBIGene.getInstance(ncbiEntries, outputDir, reactomeReleaseNumber).writeGeneXMLFiles(graphDBSession);
+			runPhase("NCBI Gene XML Files", () ->
+				NCBIGene.getInstance(ncbiEntries, outputDir, reactomeReleaseNumber).writeGeneXMLFiles(graphDBSession)
+			);
 
 			// Write NCBI Protein File
-			NCBIProtein.getInstance(ncbiEntries, outputDir, reactomeReleaseNumber).writeNCBIProteinFile();
+			runPhase("NCBI Protein File",
+				() -> NCBIProtein.getInstance(ncbiEntries, outputDir, reactomeReleaseNumber).writeNCBIProteinFile()
+			);
+		});
 
-			// Write UCSC Entity and Event Files
-			UCSC.getInstance(outputDir, reactomeReleaseNumber).writeUCSCFiles(graphDBSession);
-			// Write Europe PMC Profile and Link Files
-			EuropePMC.getInstance(outputDir, reactomeReleaseNumber).writeEuropePMCFiles(graphDBSession);
+		// Write UCSC Entity and Event Files
+		runStage(ExportStage.UCSC_GENERATE, stagePlan, checkpoints,
+			() -> UCSC.getInstance(outputDir, reactomeReleaseNumber).writeUCSCFiles(graphDBSession)
+		);
+
+		// Write Europe PMC Profile and Link Files
+		runStage(ExportStage.EUROPE_PMC_GENERATE, stagePlan, checkpoints,
+			() -> EuropePMC.getInstance(outputDir, reactomeReleaseNumber).writeEuropePMCFiles(graphDBSession)
+		);
+	}
+
+	/**
+	 * Runs a stage, if planned, and records its checkpoint.  The checkpoint of a stage generating files records the
+	 * files it created or modified in the output directory and the checkpoint of an upload stage records the files
+	 * of the stage which generated them.
+	 * @param exportStage Stage to run
+	 * @param stagePlan Plan of the stages to run
+	 * @param checkpoints Checkpoints of the stages
+	 * @param stageAction Work of the stage
+	 * @throws IOException Thrown if the stage is unable to write or upload files or its checkpoint can not be written
+	 */
+	private void runStage(ExportStage exportStage, ExportStagePlan stagePlan, ExportStageCheckpoints checkpoints,
+						  StageAction stageAction) throws IOException {
+		if (!stagePlan.shouldRun(exportStage)) {
+			return;
 		}
 
-		// Upload Europe PMC Profile and Link Files (and delete previous release Europe PMC Profile and Link Files)
-		EuropePMCFileUploader.getInstance(props).updateFilesOnServer();
+		logger.info("Running stage {}", exportStage);
+		Map<Path, String> outputFilesBeforeStage = checkpoints.snapshotOutputFiles();
 
-		// Upload NCBI Gene and Protein Files (and delete previous release NCBI Gene and Protein Files)
-		NCBIFileUploader.getInstance(props).updateFilesOnServer();
+		runPhase(exportStage.getDescription(), stageAction);
 
-		logger.info("Finished NCBI, UCSC, and Europe PMC export step");
+		if (exportStage.isUpload()) {
+			checkpoints.writeCheckpoint(exportStage, checkpoints.getCheckpointedFiles(exportStage.getSourceStage()));
+		} else {
+			checkpoints.writeCheckpoint(exportStage, checkpoints.getFilesChangedSince(outputFilesBeforeStage));
+		}
+	}
+
+	/**
+	 * Runs the work of an export phase, recording an export phase event for it (whether or not the work succeeds, so
+	 * a flight recording of a failed run shows the phase which failed)
+	 * @param phase Name of the export phase
+	 * @param phaseAction Work of the phase
+	 * @throws IOException Thrown if the work of the phase is unable to write or upload files
+	 */
+	private static void runPhase(String phase, StageAction phaseAction) throws IOException {
+		ExportPhaseEvent phaseEvent = ExportPhaseEvent.start(phase);
+		try {
+			phaseAction.run();
+		} finally {
+			phaseEvent.finish();
+		}
+	}
+
+	/**
+	 * Work of an export stage or phase
+	 */
+	@FunctionalInterface
+	private interface StageAction {
+		void run() throws IOException;
 	}
 
 	/**
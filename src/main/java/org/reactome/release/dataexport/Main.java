@@ -4,8 +4,12 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
 
 import org.reactome.release.dataexport.configuration.ConfigurationManager;
+import org.reactome.release.dataexport.monitoring.ExportFlightRecording;
 
 /**
  * Generates post-release export files for NCBI, UCSC and Europe PMC.
@@ -18,12 +22,31 @@ public class Main {
 	@Parameter(names={"--config-file-path", "-c"})
 	private String configFilePath; // Default is null and a "default configuration file path" is used later
 
+	@Parameter(names={"--jfr-recording", "-j"})
+	private boolean jfrRecording = false; // Default is to not start a Java Flight Recorder recording
+
+	@Parameter(names={"--profile-queries", "-p"})
+	private String profileQueries; // Default is null and the "profileQueries" configuration value (if any) is used
+
+	@Parameter(names={"--only"})
+	private String onlyStages; // Default is null and the "onlyStages" configuration value (if any) is used
+
+	@Parameter(names={"--skip"})
+	private String skipStages; // Default is null and the "skipStages" configuration value (if any) is used
+
+	@Parameter(names={"--memory-budget", "-m"})
+	private String memoryBudget; // Default is null and the "memoryBudget" configuration value (if any) is used
+
 	/**
 	 * Main method to process configuration file and run the executeStep method of the DataExporterStep class
 	 *
 	 * @param args Command line arguments for the post-release data files export (currently the only arguments are,
-	 * optionally, "--generate-config-file" or "-g" to indicate the configuration file should be (re)created and
-	 * "--config-file-path" or "-c"
+	 * optionally, "--generate-config-file" or "-g" to indicate the configuration file should be (re)created,
+	 * "--config-file-path" or "-c", "--jfr-recording" or "-j" to record a Java Flight Recorder file of the run in
+	 * the output directory, "--profile-queries" or "-p" with comma separated query names (or "all") to capture
+	 * PROFILE plans for, and "--only" and "--skip" with comma separated export stage names (e.g.
+	 * "ncbi-upload" or "extract") to run only, or to skip, those stages, and "--memory-budget" or "-m" with a heap
+	 * size (e.g. "4g") to export within
 	 * @throws IOException Thrown if unable to create and/or read the configuration file, create output directory
 	 * or write files
 	 */
@@ -51,8 +74,32 @@ public class Main {
 		ConfigurationManager configurationManager = new ConfigurationManager(configFilePath);
 		configurationManager.validateAndPotentiallyCreateConfigurationFile(!configFilePathExists() && generateConfigFile);
 
-		DataExporterStep dataExporterStep = new DataExporterStep();
-		dataExporterStep.executeStep(configurationManager.getProps());
+		Properties props = configurationManager.getProps();
+		if (profileQueries != null) {
+			props.setProperty("profileQueries", profileQueries);
+		}
+		if (onlyStages != null) {
+			props.setProperty("onlyStages", onlyStages);
+		}
+		if (skipStages != null) {
+			props.setProperty("skipStages", skipStages);
+		}
+		if (memoryBudget != null) {
+			props.setProperty("memoryBudget", memoryBudget);
+		}
+
+		ExportFlightRecording flightRecording = jfrRecording ? ExportFlightRecording.start(getOutputDir(props)) : null;
+		try {
+			new DataExporterStep().executeStep(props);
+		} finally {
+			if (flightRecording != null) {
+				flightRecording.close();
+			}
+		}
+	}
+
+	private Path getOutputDir(Properties props) {
+		return Paths.get(props.getProperty("outputDir", "output"));
 	}
 
 	private boolean configFilePathExists() {
@@ -0,0 +1,133 @@
+package org.reactome.release.dataexport.archive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Compression codecs for the archive copies of the export files
+ */
+public enum ArchiveCodec {
+	NONE("none", "", 0),
+	GZIP("gzip", ".gz", 6),
+	ZSTD("zstd", ".zst", 3);
+
+	private static final String ZSTD_OUTPUT_STREAM_CLASS = "com.github.luben.zstd.ZstdOutputStream";
+
+	private final String name;
+	private final String fileExtension;
+	private final int defaultCompressionLevel;
+
+	ArchiveCodec(String name, String fileExtension, int defaultCompressionLevel) {
+		this.name = name;
+		this.fileExtension = fileExtension;
+		this.defaultCompressionLevel = defaultCompressionLevel;
+	}
+
+	/**
+	 * Retrieves the codec with the name provided (case insensitive)
+	 * @param name Name of the codec (i.e. "none", "gzip" or "zstd")
+	 * @return Archive codec
+	 * @throws IllegalArgumentException Thrown if no codec has the name provided
+	 */
+	public static ArchiveCodec getCodec(String name) {
+		for (ArchiveCodec archiveCodec : values()) {
+			if (archiveCodec.name.equalsIgnoreCase(name.trim())) {
+				return archiveCodec;
+			}
+		}
+		throw new IllegalArgumentException("Unknown archive codec " + name + " (expected one of " +
+			Arrays.stream(values()).map(ArchiveCodec::getName).collect(Collectors.joining(", ")) + ")");
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Retrieves the extension added to the name of an export file for its archive copy
+	 * @return File extension, including the leading '.'
+	 */
+	public String getFileExtension() {
+		return this.fileExtension;
+	}
+
+	public int getDefaultCompressionLevel() {
+		return this.defaultCompressionLevel;
+	}
+
+	/**
+	 * Checks the codec can be used in this Java runtime.  The zstd codec is provided by the zstd-jni library
+	 * (com.github.luben:zstd-jni), which is optional and must be added to the classpath to archive with zstd.
+	 * @throws IllegalStateException Thrown if the codec is zstd and zstd-jni is not on the classpath
+	 */
+	public void checkAvailable() {
+		if (this != ZSTD) {
+			return;
+		}
+
+		try {
+			Class.forName(ZSTD_OUTPUT_STREAM_CLASS);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(
+				"The zstd archive codec requires zstd-jni (com.github.luben:zstd-jni) on the classpath", e
+			);
+		}
+	}
+
+	/**
+	 * Creates a stream compressing the data written to it with the codec
+	 * @param outputStream Stream to which to write the compressed data (closed when the returned stream is closed)
+	 * @param compressionExecutor Executor on which gzip compresses blocks of the data
+	 * @param compressionThreads Number of threads compressing the data of the stream at a time
+	 * @param blockSize Number of uncompressed bytes compressed by each gzip task
+	 * @param compressionLevel Compression level of the codec
+	 * @return Compressing output stream
+	 * @throws IOException Thrown if unable to write the header of the compressed data
+	 * @throws IllegalStateException Thrown if the codec is none or zstd-jni can not create the zstd stream
+	 */
+	OutputStream newCompressingStream(OutputStream outputStream, ExecutorService compressionExecutor,
+									  int compressionThreads, int blockSize, int compressionLevel) throws IOException {
+		switch (this) {
+			case GZIP:
+				// Twice the threads keeps every thread busy while the writer waits for the oldest block
+				return new ParallelGzipOutputStream(
+					outputStream, compressionExecutor, blockSize, compressionLevel, 2 * compressionThreads
+				);
+			case ZSTD:
+				return newZstdOutputStream(outputStream, compressionThreads, compressionLevel);
+			default:
+				throw new IllegalStateException("Codec " + this.name + " does not compress");
+		}
+	}
+
+	/**
+	 * Creates a zstd-jni ZstdOutputStream, through reflection so zstd-jni is only needed when the codec is used.  The
+	 * stream compresses with zstd's own worker threads (if the zstd-jni version supports them).
+	 */
+	private static OutputStream newZstdOutputStream(OutputStream outputStream, int compressionThreads,
+													int compressionLevel) throws IOException {
+		try {
+			Class<?> zstdOutputStreamClass = Class.forName(ZSTD_OUTPUT_STREAM_CLASS);
+			OutputStream zstdOutputStream = (OutputStream) zstdOutputStreamClass
+				.getConstructor(OutputStream.class, int.class)
+				.newInstance(outputStream, compressionLevel);
+			try {
+				zstdOutputStreamClass.getMethod("setWorkers", int.class).invoke(zstdOutputStream, compressionThreads);
+			} catch (NoSuchMethodException e) {
+				// Versions of zstd-jni before 1.4.0 compress on the writing thread only
+			}
+			return zstdOutputStream;
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException("Unable to create zstd output stream", e.getCause());
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Unable to create zstd output stream", e);
+		}
+	}
+}
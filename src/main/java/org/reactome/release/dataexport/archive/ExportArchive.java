@@ -0,0 +1,276 @@
+package org.reactome.release.dataexport.archive;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compressed archive copies of the export files.  When an archive codec is configured, the bytes of each export file
+ * written through ExportManifest are also written to a compressed copy of the file in the archive directory (the
+ * "archive" sub-directory, suffixed with the release number, of the output directory), so the files are archived in
+ * the same pass which writes them rather than by re-reading them afterwards.  Gzip copies are
+ * compressed block-parallel on a shared pool of compression threads (see ParallelGzipOutputStream) and zstd copies
+ * with zstd's worker threads.
+ *
+ * The sizes of the files archived are recorded and written, with those of files archived by earlier runs for the
+ * same release (e.g. by stages which were skipped), to a tab delimited manifest in the archive directory.
+ */
+public class ExportArchive {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+
+	private static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+	private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+	private static final String MANIFEST_HEADER = "File\tArchive File\tCodec\tSize\tCompressed Size";
+
+	private static ArchiveCodec archiveCodec = ArchiveCodec.NONE;
+	private static int compressionThreads = DEFAULT_THREADS;
+	private static int blockSize = DEFAULT_BLOCK_SIZE;
+	private static int compressionLevel;
+	private static Path archiveDirectory;
+	private static ExecutorService compressionExecutor;
+	private static final Map<String, ArchivedFile> fileNameToArchivedFile = new ConcurrentHashMap<>();
+
+	private ExportArchive() {}
+
+	/**
+	 * Sets the archive codec (archiveCodec: none, gzip or zstd; default none), the number of compression threads
+	 * (archiveThreads; default number of processors), the gzip block size (archiveBlockSize; default 128KB) and the
+	 * compression level (archiveCompressionLevel; default that of the codec) from the configuration properties of the
+	 * data export.  The archive directory is derived from the outputDir and releaseNumber properties.
+	 * @param props Configuration properties for the data export
+	 * @throws IllegalArgumentException Thrown if the codec is unknown or the number of threads or the block size is not
+	 * positive
+	 * @throws IllegalStateException Thrown if the zstd codec is configured but zstd-jni is not on the classpath
+	 */
+	public static synchronized void configure(Properties props) {
+		ArchiveCodec configuredCodec = ArchiveCodec.getCodec(props.getProperty("archiveCodec", "none"));
+		configuredCodec.checkAvailable();
+
+		int configuredThreads = Integer.parseInt(
+			props.getProperty("archiveThreads", Integer.toString(DEFAULT_THREADS))
+		);
+		if (configuredThreads <= 0) {
+			throw new IllegalArgumentException("archiveThreads must be positive but was " + configuredThreads);
+		}
+		int configuredBlockSize = Integer.parseInt(
+			props.getProperty("archiveBlockSize", Integer.toString(DEFAULT_BLOCK_SIZE))
+		);
+		if (configuredBlockSize <= 0) {
+			throw new IllegalArgumentException("archiveBlockSize must be positive but was " + configuredBlockSize);
+		}
+
+		if (compressionExecutor != null) {
+			compressionExecutor.shutdown();
+			compressionExecutor = null;
+		}
+		archiveCodec = configuredCodec;
+		compressionThreads = configuredThreads;
+		blockSize = configuredBlockSize;
+		compressionLevel = Integer.parseInt(props.getProperty(
+			"archiveCompressionLevel", Integer.toString(configuredCodec.getDefaultCompressionLevel())
+		));
+		archiveDirectory = Paths.get(
+			props.getProperty("outputDir", "output"), "archive" + props.getProperty("releaseNumber", "")
+		);
+		fileNameToArchivedFile.clear();
+
+		if (isEnabled()) {
+			compressionExecutor = Executors.newFixedThreadPool(compressionThreads, newCompressionThreadFactory());
+			logger.info("Export files will be archived with {} to {}", archiveCodec.getName(), archiveDirectory);
+		}
+	}
+
+	/**
+	 * Checks if the export files are archived
+	 * @return <code>true</code> if an archive codec is configured; <code>false</code> otherwise
+	 */
+	public static boolean isEnabled() {
+		return archiveCodec != ArchiveCodec.NONE;
+	}
+
+	/**
+	 * Opens the archive copy of an export file, if archiving is enabled.  The copy is written to a temporary file
+	 * which replaces the archive copy when published.
+	 * @param filePath Path of the export file being written
+	 * @return Archive copy to which to write the bytes of the export file or null if archiving is not enabled
+	 * @throws IOException Thrown if unable to create the archive directory or the archive copy
+	 */
+	static ArchiveCopy openArchiveCopy(Path filePath) throws IOException {
+		synchronized (ExportArchive.class) {
+			if (!isEnabled()) {
+				return null;
+			}
+
+			Files.createDirectories(archiveDirectory);
+			Path archiveFilePath = archiveDirectory.resolve(filePath.getFileName() + archiveCodec.getFileExtension());
+			Path temporaryArchiveFilePath = archiveFilePath.resolveSibling(archiveFilePath.getFileName() + ".tmp");
+			OutputStream temporaryFileOutputStream =
+				new BufferedOutputStream(Files.newOutputStream(temporaryArchiveFilePath));
+			try {
+				OutputStream compressingOutputStream = archiveCodec.newCompressingStream(
+					temporaryFileOutputStream, compressionExecutor, compressionThreads, blockSize, compressionLevel
+				);
+				return new ArchiveCopy(
+					filePath, archiveFilePath, temporaryArchiveFilePath, compressingOutputStream, archiveCodec
+				);
+			} catch (IOException | RuntimeException e) {
+				temporaryFileOutputStream.close();
+				Files.deleteIfExists(temporaryArchiveFilePath);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Writes the manifest of the archived files to the archive directory, if archiving is enabled.  Entries of the
+	 * existing manifest are kept for files which were not archived again by this run and whose archive copies still
+	 * exist.
+	 * @return Path of the manifest or null if archiving is not enabled
+	 * @throws IOException Thrown if unable to read the existing manifest or write the manifest
+	 */
+	public static synchronized Path writeManifest() throws IOException {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		Files.createDirectories(archiveDirectory);
+		Path manifestPath = archiveDirectory.resolve("archive_manifest.tsv");
+		SortedMap<String, String> fileNameToManifestLine = new TreeMap<>();
+		if (Files.isRegularFile(manifestPath)) {
+			for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+				String[] fields = line.split("\t");
+				if (!line.equals(MANIFEST_HEADER) && fields.length == 5 &&
+					Files.isRegularFile(archiveDirectory.resolve(fields[1]))) {
+					fileNameToManifestLine.put(fields[0], line);
+				}
+			}
+		}
+		for (ArchivedFile archivedFile : fileNameToArchivedFile.values()) {
+			fileNameToManifestLine.put(archivedFile.fileName, archivedFile.getManifestLine());
+		}
+
+		List<String> manifestLines = new ArrayList<>();
+		manifestLines.add(MANIFEST_HEADER);
+		manifestLines.addAll(fileNameToManifestLine.values());
+
+		Path temporaryManifestPath = archiveDirectory.resolve(manifestPath.getFileName() + ".tmp");
+		Files.write(temporaryManifestPath, manifestLines, StandardCharsets.UTF_8);
+		Files.move(temporaryManifestPath, manifestPath, StandardCopyOption.REPLACE_EXISTING);
+
+		logger.info("Wrote archive manifest {} with {} file(s)", manifestPath, fileNameToManifestLine.size());
+		return manifestPath;
+	}
+
+	private static void recordArchivedFile(ArchivedFile archivedFile) {
+		fileNameToArchivedFile.put(archivedFile.fileName, archivedFile);
+		logger.info("Archived {} ({} bytes) as {} ({} bytes)", archivedFile.fileName, archivedFile.size,
+			archivedFile.archiveFileName, archivedFile.compressedSize);
+	}
+
+	private static ThreadFactory newCompressionThreadFactory() {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "archive-compression-" + threadNumber.incrementAndGet());
+			// Compression threads only run tasks of open archive streams, so they must not keep the JVM alive
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Compressed copy of an export file being written
+	 */
+	static class ArchiveCopy {
+		private final Path filePath;
+		private final Path archiveFilePath;
+		private final Path temporaryArchiveFilePath;
+		private final OutputStream compressingOutputStream;
+		private final ArchiveCodec codec;
+
+		private ArchiveCopy(Path filePath, Path archiveFilePath, Path temporaryArchiveFilePath,
+							OutputStream compressingOutputStream, ArchiveCodec codec) {
+			this.filePath = filePath;
+			this.archiveFilePath = archiveFilePath;
+			this.temporaryArchiveFilePath = temporaryArchiveFilePath;
+			this.compressingOutputStream = compressingOutputStream;
+			this.codec = codec;
+		}
+
+		/**
+		 * Retrieves the stream to which to write the (uncompressed) bytes of the export file
+		 * @return Compressing output stream of the archive copy
+		 */
+		OutputStream getOutputStream() {
+			return this.compressingOutputStream;
+		}
+
+		/**
+		 * Completes the compressed data and moves it, atomically, to the archive copy
+		 * @param size Number of bytes of the export file
+		 * @throws IOException Thrown if unable to complete the compressed data or move it to the archive copy
+		 */
+		void publish(long size) throws IOException {
+			this.compressingOutputStream.close();
+			Files.move(this.temporaryArchiveFilePath, this.archiveFilePath,
+				StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+			recordArchivedFile(new ArchivedFile(
+				this.filePath.getFileName().toString(), this.archiveFilePath.getFileName().toString(), this.codec,
+				size, Files.size(this.archiveFilePath)
+			));
+		}
+
+		/**
+		 * Discards the compressed data written (e.g. if writing the export file failed), keeping any existing archive
+		 * copy
+		 * @throws IOException Thrown if unable to delete the compressed data
+		 */
+		void discard() throws IOException {
+			try {
+				this.compressingOutputStream.close();
+			} catch (IOException e) {
+				logger.warn("Unable to close discarded archive copy {}", this.temporaryArchiveFilePath, e);
+			}
+			Files.deleteIfExists(this.temporaryArchiveFilePath);
+		}
+	}
+
+	/**
+	 * Sizes of an export file and of its archive copy
+	 */
+	private static class ArchivedFile {
+		private final String fileName;
+		private final String archiveFileName;
+		private final ArchiveCodec codec;
+		private final long size;
+		private final long compressedSize;
+
+		private ArchivedFile(String fileName, String archiveFileName, ArchiveCodec codec, long size,
+							 long compressedSize) {
+			this.fileName = fileName;
+			this.archiveFileName = archiveFileName;
+			this.codec = codec;
+			this.size = size;
+			this.compressedSize = compressedSize;
+		}
+
+		private String getManifestLine() {
+			return String.join("\t", this.fileName, this.archiveFileName, this.codec.getName(),
+				Long.toString(this.size), Long.toString(this.compressedSize));
+		}
+	}
+}
@@ -0,0 +1,335 @@
+package org.reactome.release.dataexport.archive;
+
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.newSHA256Digest;
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.toHexString;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Publication of the export files.  Each export file is written to a temporary file next to it which, once all its
+ * content is written and synced to disk, is atomically renamed to the export file, so an export file is either the
+ * complete file of a run or absent (a crash or failure mid-write never leaves a partial file to be uploaded).  The
+ * SHA-256 checksum and size of each file are computed as its bytes are written, and the bytes are also written to
+ * the file's archive copy (if archiving is enabled, see ExportArchive).
+ *
+ * The checksums and sizes are written to the export manifest, export_manifest_&lt;releaseNumber&gt;.json in the output
+ * directory, which the stage checkpoints and the uploaders use rather than reading the files again.
+ */
+public class ExportManifest {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+
+	private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final Pattern MANIFEST_ENTRY_PATTERN = Pattern.compile(
+		"\\{\"file\": \"((?:[^\"\\\\]|\\\\.)*)\", \"size\": (\\d+), \"sha256\": \"([0-9a-f]{64})\"}"
+	);
+
+	private static Path outputDirectory = Paths.get("output");
+	private static int reactomeReleaseNumber;
+	private static final Map<Path, Entry> filePathToEntry = new ConcurrentHashMap<>();
+
+	private ExportManifest() {}
+
+	/**
+	 * Sets the output directory (outputDir) and release number (releaseNumber) of the export manifest from the
+	 * configuration properties of the data export and clears the files recorded by any previous run
+	 * @param props Configuration properties for the data export
+	 */
+	public static synchronized void configure(Properties props) {
+		outputDirectory = Paths.get(props.getProperty("outputDir", "output"));
+		reactomeReleaseNumber = Integer.parseInt(props.getProperty("releaseNumber"));
+		filePathToEntry.clear();
+	}
+
+	/**
+	 * Writes an export file, replacing it atomically if it exists, and records its checksum and size.  If writing the
+	 * content fails, the export file (and its archive copy) are left unchanged.
+	 * @param filePath Path of the export file to write
+	 * @param fileContentWriter Writes the content of the file to a (buffered) output stream
+	 * @throws IOException Thrown if unable to write, sync or rename the file or its archive copy
+	 */
+	public static void writeFile(Path filePath, FileContentWriter<OutputStream> fileContentWriter) throws IOException {
+		Path temporaryFilePath = filePath.resolveSibling(filePath.getFileName() + TEMPORARY_FILE_EXTENSION);
+		ExportArchive.ArchiveCopy archiveCopy = ExportArchive.openArchiveCopy(filePath);
+
+		boolean published = false;
+		try {
+			PublishingOutputStream publishingOutputStream;
+			try (FileChannel fileChannel = FileChannel.open(temporaryFilePath,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+				publishingOutputStream = new PublishingOutputStream(
+					Channels.newOutputStream(fileChannel), archiveCopy != null ? archiveCopy.getOutputStream() : null
+				);
+				OutputStream outputStream = new BufferedOutputStream(publishingOutputStream, BUFFER_SIZE);
+				fileContentWriter.write(outputStream);
+				outputStream.flush();
+				fileChannel.force(true);
+			}
+
+			if (archiveCopy != null) {
+				archiveCopy.publish(publishingOutputStream.size);
+			}
+			Files.move(temporaryFilePath, filePath,
+				StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			published = true;
+
+			Entry entry = new Entry(
+				filePath.getFileName().toString(), publishingOutputStream.size,
+				toHexString(publishingOutputStream.messageDigest.digest())
+			);
+			filePathToEntry.put(filePath.toAbsolutePath().normalize(), entry);
+		} finally {
+			if (!published) {
+				Files.deleteIfExists(temporaryFilePath);
+				if (archiveCopy != null) {
+					archiveCopy.discard();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes an export file of UTF-8 encoded text, replacing it atomically if it exists, and records its checksum and
+	 * size
+	 * @param filePath Path of the export file to write
+	 * @param fileContentWriter Writes the content of the file to a (buffered) writer
+	 * @throws IOException Thrown if unable to write, sync or rename the file or its archive copy
+	 * @see #writeFile(Path, FileContentWriter)
+	 */
+	public static void writeTextFile(Path filePath, FileContentWriter<Writer> fileContentWriter) throws IOException {
+		writeFile(filePath, outputStream -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+			fileContentWriter.write(writer);
+			writer.flush();
+		});
+	}
+
+	/**
+	 * Retrieves the SHA-256 checksum computed when a file was written by this run, if the file still has the size it
+	 * was written with
+	 * @param filePath Path of the export file
+	 * @return SHA-256 checksum as a lower case hexadecimal String or null if the file was not written by this run or
+	 * its size has changed
+	 * @throws IOException Thrown if unable to read the size of the file
+	 */
+	public static String getChecksum(Path filePath) throws IOException {
+		Entry entry = filePathToEntry.get(filePath.toAbsolutePath().normalize());
+		if (entry == null || !Files.isRegularFile(filePath) || Files.size(filePath) != entry.getSize()) {
+			return null;
+		}
+		return entry.getSha256();
+	}
+
+	/**
+	 * Writes the export manifest of the files written by this run and, for files not written again, of the files in
+	 * the existing manifest which still have their recorded size (e.g. files of stages which were skipped)
+	 * @return Path of the manifest
+	 * @throws IOException Thrown if unable to read the existing manifest or write the manifest
+	 */
+	public static synchronized Path writeManifest() throws IOException {
+		Path manifestPath = getManifestPath(outputDirectory, reactomeReleaseNumber);
+
+		SortedMap<String, Entry> sortedFileNameToEntry = new TreeMap<>();
+		Map<String, Entry> existingFileNameToEntry = readManifest(outputDirectory, reactomeReleaseNumber);
+		if (existingFileNameToEntry != null) {
+			for (Entry existingEntry : existingFileNameToEntry.values()) {
+				Path filePath = outputDirectory.resolve(existingEntry.getFileName());
+				if (Files.isRegularFile(filePath) && Files.size(filePath) == existingEntry.getSize()) {
+					sortedFileNameToEntry.put(existingEntry.getFileName(), existingEntry);
+				}
+			}
+		}
+		Path absoluteOutputDirectory = outputDirectory.toAbsolutePath().normalize();
+		for (Map.Entry<Path, Entry> filePathAndEntry : filePathToEntry.entrySet()) {
+			if (filePathAndEntry.getKey().getParent().equals(absoluteOutputDirectory)) {
+				sortedFileNameToEntry.put(filePathAndEntry.getValue().getFileName(), filePathAndEntry.getValue());
+			}
+		}
+
+		List<String> manifestLines = new ArrayList<>();
+		manifestLines.add("{");
+		manifestLines.add("  \"releaseNumber\": " + reactomeReleaseNumber + ",");
+		manifestLines.add("  \"files\": [");
+		Iterator<Entry> entries = sortedFileNameToEntry.values().iterator();
+		while (entries.hasNext()) {
+			manifestLines.add("    " + entries.next().toJSON() + (entries.hasNext() ? "," : ""));
+		}
+		manifestLines.add("  ]");
+		manifestLines.add("}");
+
+		Files.createDirectories(outputDirectory);
+		Path temporaryManifestPath = manifestPath.resolveSibling(manifestPath.getFileName() + TEMPORARY_FILE_EXTENSION);
+		Files.write(temporaryManifestPath, manifestLines, StandardCharsets.UTF_8);
+		Files.move(temporaryManifestPath, manifestPath,
+			StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+		logger.info("Wrote export manifest {} with {} file(s)", manifestPath, sortedFileNameToEntry.size());
+		return manifestPath;
+	}
+
+	/**
+	 * Reads the export manifest of a release from an output directory
+	 * @param outputDirectory Directory to which the export files were written
+	 * @param reactomeReleaseNumber Reactome release number of the export
+	 * @return Map of file name to manifest entry or null if the output directory has no manifest for the release
+	 * @throws IOException Thrown if unable to read the manifest
+	 */
+	public static Map<String, Entry> readManifest(Path outputDirectory, int reactomeReleaseNumber)
+		throws IOException {
+
+		Path manifestPath = getManifestPath(outputDirectory, reactomeReleaseNumber);
+		if (!Files.isRegularFile(manifestPath)) {
+			return null;
+		}
+
+		Map<String, Entry> fileNameToManifestEntry = new LinkedHashMap<>();
+		for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+			Matcher entryMatcher = MANIFEST_ENTRY_PATTERN.matcher(line);
+			if (entryMatcher.find()) {
+				Entry entry = new Entry(
+					fromJSONString(entryMatcher.group(1)), Long.parseLong(entryMatcher.group(2)), entryMatcher.group(3)
+				);
+				fileNameToManifestEntry.put(entry.getFileName(), entry);
+			}
+		}
+		return fileNameToManifestEntry;
+	}
+
+	/**
+	 * Retrieves the path of the export manifest of a release
+	 * @param outputDirectory Directory to which the export files are written
+	 * @param reactomeReleaseNumber Reactome release number of the export
+	 * @return Path of the export manifest
+	 */
+	public static Path getManifestPath(Path outputDirectory, int reactomeReleaseNumber) {
+		return outputDirectory.resolve("export_manifest_" + reactomeReleaseNumber + ".json");
+	}
+
+	private static String toJSONString(String text) {
+		StringBuilder jsonString = new StringBuilder("\"");
+		for (char character : text.toCharArray()) {
+			if (character == '"' || character == '\\') {
+				jsonString.append('\\').append(character);
+			} else if (character < 0x20) {
+				jsonString.append(String.format("\\u%04x", (int) character));
+			} else {
+				jsonString.append(character);
+			}
+		}
+		return jsonString.append('"').toString();
+	}
+
+	private static String fromJSONString(String escapedText) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < escapedText.length(); i++) {
+			char character = escapedText.charAt(i);
+			if (character != '\\') {
+				text.append(character);
+			} else if (escapedText.charAt(++i) == 'u') {
+				text.append((char) Integer.parseInt(escapedText.substring(i + 1, i + 5), 16));
+				i += 4;
+			} else {
+				text.append(escapedText.charAt(i));
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Writes the content of an export file
+	 * @param <T> Type of the output (stream or writer) to which the content is written
+	 */
+	@FunctionalInterface
+	public interface FileContentWriter<T> {
+		void write(T output) throws IOException;
+	}
+
+	/**
+	 * Checksum and size of an export file
+	 */
+	public static class Entry {
+		private final String fileName;
+		private final long size;
+		private final String sha256;
+
+		private Entry(String fileName, long size, String sha256) {
+			this.fileName = fileName;
+			this.size = size;
+			this.sha256 = sha256;
+		}
+
+		public String getFileName() {
+			return this.fileName;
+		}
+
+		public long getSize() {
+			return this.size;
+		}
+
+		/**
+		 * Retrieves the SHA-256 checksum of the file
+		 * @return SHA-256 checksum as a lower case hexadecimal String
+		 */
+		public String getSha256() {
+			return this.sha256;
+		}
+
+		private String toJSON() {
+			return "{\"file\": " + toJSONString(this.fileName) + ", \"size\": " + this.size +
+				", \"sha256\": \"" + this.sha256 + "\"}";
+		}
+	}
+
+	/**
+	 * Stream writing to the temporary file of an export file, and to its archive copy, while computing the checksum
+	 * and size of the bytes written
+	 */
+	private static class PublishingOutputStream extends OutputStream {
+		private final OutputStream fileOutputStream;
+		private final OutputStream archiveOutputStream;
+		private final MessageDigest messageDigest = newSHA256Digest();
+		private long size;
+
+		private PublishingOutputStream(OutputStream fileOutputStream, OutputStream archiveOutputStream) {
+			this.fileOutputStream = fileOutputStream;
+			this.archiveOutputStream = archiveOutputStream;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			this.fileOutputStream.write(bytes, offset, length);
+			if (this.archiveOutputStream != null) {
+				this.archiveOutputStream.write(bytes, offset, length);
+			}
+			this.messageDigest.update(bytes, offset, length);
+			this.size += length;
+		}
+	}
+}
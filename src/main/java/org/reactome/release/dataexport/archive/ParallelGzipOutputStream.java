@@ -0,0 +1,212 @@
+package org.reactome.release.dataexport.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip output stream compressing blocks of its input concurrently (as pigz does).  The input is split into blocks
+ * which are each deflated by a task on an executor, primed with the last 32KB of the previous block as the
+ * dictionary so the compression ratio is close to that of a single deflater.  Each block but the last ends on a byte
+ * boundary (a sync flush), so the compressed blocks are concatenated, in order, into a single gzip member whose CRC-32
+ * and size are computed on the writing thread.  The output can be read by any gzip reader.
+ *
+ * At most a fixed number of blocks are compressed at a time, so the memory used does not grow with the input size.
+ * The stream is not thread safe, but any number of streams can share an executor.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+	private final OutputStream outputStream;
+	private final ExecutorService compressionExecutor;
+	private final int compressionLevel;
+	private final int maxBlocksInFlight;
+	private final Deque<Future<byte[]>> compressedBlocks = new ArrayDeque<>();
+	private final CRC32 crc = new CRC32();
+
+	private byte[] block;
+	private int blockLength;
+	private byte[] previousBlock;
+	private long uncompressedSize;
+	private boolean closed;
+
+	/**
+	 * Creates a stream writing gzip compressed data to an output stream
+	 * @param outputStream Stream to which to write the compressed data (closed when this stream is closed)
+	 * @param compressionExecutor Executor on which to compress the blocks
+	 * @param blockSize Number of uncompressed bytes in each block
+	 * @param compressionLevel Deflate compression level (0-9 or -1 for the default level)
+	 * @param maxBlocksInFlight Maximum number of blocks being compressed at a time
+	 * @throws IOException Thrown if unable to write the gzip header
+	 * @throws IllegalArgumentException Thrown if the block size or the maximum number of blocks in flight is not
+	 * positive
+	 */
+	public ParallelGzipOutputStream(OutputStream outputStream, ExecutorService compressionExecutor, int blockSize,
+									int compressionLevel, int maxBlocksInFlight) throws IOException {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Block size must be positive but was " + blockSize);
+		}
+		if (maxBlocksInFlight <= 0) {
+			throw new IllegalArgumentException("Blocks in flight must be positive but was " + maxBlocksInFlight);
+		}
+
+		this.outputStream = outputStream;
+		this.compressionExecutor = compressionExecutor;
+		this.compressionLevel = compressionLevel;
+		this.maxBlocksInFlight = maxBlocksInFlight;
+		this.block = new byte[blockSize];
+
+		this.outputStream.write(GZIP_HEADER);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream is closed");
+		}
+
+		while (length > 0) {
+			int bytesToCopy = Math.min(length, this.block.length - this.blockLength);
+			System.arraycopy(bytes, offset, this.block, this.blockLength, bytesToCopy);
+			this.blockLength += bytesToCopy;
+			offset += bytesToCopy;
+			length -= bytesToCopy;
+
+			if (this.blockLength == this.block.length) {
+				submitBlock(false);
+			}
+		}
+	}
+
+	/**
+	 * Compresses the remaining input as the last block and writes all the compressed blocks and the gzip trailer
+	 * before closing the underlying stream
+	 * @throws IOException Thrown if unable to compress a block or write to the underlying stream
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+
+		try {
+			submitBlock(true);
+			while (!this.compressedBlocks.isEmpty()) {
+				writeNextCompressedBlock();
+			}
+			writeTrailer();
+		} finally {
+			for (Future<byte[]> compressedBlock : this.compressedBlocks) {
+				compressedBlock.cancel(true);
+			}
+			this.outputStream.close();
+		}
+	}
+
+	/**
+	 * Retrieves the number of uncompressed bytes written to the stream
+	 * @return Number of bytes written
+	 */
+	public long getUncompressedSize() {
+		return this.uncompressedSize;
+	}
+
+	private void submitBlock(boolean lastBlock) throws IOException {
+		if (this.compressedBlocks.size() >= this.maxBlocksInFlight) {
+			writeNextCompressedBlock();
+		}
+
+		byte[] blockToCompress = this.blockLength == this.block.length ?
+			this.block : Arrays.copyOf(this.block, this.blockLength);
+		byte[] dictionary = this.previousBlock;
+		this.crc.update(blockToCompress, 0, blockToCompress.length);
+		this.uncompressedSize += blockToCompress.length;
+
+		this.compressedBlocks.add(this.compressionExecutor.submit(
+			() -> compressBlock(blockToCompress, dictionary, this.compressionLevel, lastBlock)
+		));
+
+		this.previousBlock = blockToCompress;
+		this.block = new byte[this.block.length];
+		this.blockLength = 0;
+	}
+
+	private void writeNextCompressedBlock() throws IOException {
+		try {
+			this.outputStream.write(this.compressedBlocks.poll().get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a block to be compressed", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Compressing a block failed", e.getCause());
+		}
+	}
+
+	private void writeTrailer() throws IOException {
+		byte[] trailer = new byte[8];
+		writeIntLittleEndian(trailer, 0, this.crc.getValue());
+		// The gzip trailer holds the uncompressed size modulo 2^32
+		writeIntLittleEndian(trailer, 4, this.uncompressedSize);
+		this.outputStream.write(trailer);
+	}
+
+	/**
+	 * Deflates a block as raw deflate data
+	 * @param block Uncompressed bytes of the block
+	 * @param dictionary Uncompressed bytes of the previous block, whose last 32KB prime the deflater, or null for the
+	 * first block
+	 * @param compressionLevel Deflate compression level
+	 * @param lastBlock <code>true</code> if the block ends the deflate stream; <code>false</code> if it ends with a
+	 * sync flush so the next block can follow it
+	 * @return Deflated bytes of the block
+	 */
+	static byte[] compressBlock(byte[] block, byte[] dictionary, int compressionLevel, boolean lastBlock) {
+		Deflater deflater = new Deflater(compressionLevel, true);
+		try {
+			if (dictionary != null) {
+				int dictionaryLength = Math.min(dictionary.length, DICTIONARY_SIZE);
+				deflater.setDictionary(dictionary, dictionary.length - dictionaryLength, dictionaryLength);
+			}
+			deflater.setInput(block);
+
+			ByteArrayOutputStream compressedBlock = new ByteArrayOutputStream(block.length / 2 + 64);
+			byte[] buffer = new byte[64 * 1024];
+			if (lastBlock) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					compressedBlock.write(buffer, 0, deflater.deflate(buffer));
+				}
+			} else {
+				int bytesDeflated;
+				do {
+					bytesDeflated = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					compressedBlock.write(buffer, 0, bytesDeflated);
+				} while (bytesDeflated == buffer.length);
+			}
+			return compressedBlock.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static void writeIntLittleEndian(byte[] bytes, int offset, long value) {
+		for (int i = 0; i < 4; i++) {
+			bytes[offset + i] = (byte) (value >>> (8 * i));
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package org.reactome.release.dataexport.datastructures;
+
+import org.neo4j.driver.Session;
+import org.reactome.release.dataexport.queries.ExportQuery;
+import org.reactome.release.dataexport.queries.GraphQueryExecutor;
+import org.reactome.release.dataexport.utilities.CoalescingBatchLoader;
+
+import java.util.*;
+
+/**
+ * Resolves, on demand, the Reactome Events in which UniProt entries participate for the "lazy" event loading strategy.
+ * The ReactionlikeEvent ids of UniProt entries, the Pathway ids of ReactionlikeEvents and the Events themselves are
+ * each retrieved by a coalescing batch loader (one UNWIND query per batch of identifiers) backed by a least recently
+ * used cache, so only the data for the UniProt entries actually exported is loaded and memory use is bounded.
+ *
+ * Neo4j sessions are not thread safe, so the queries of the loaders of a session are run one at a time.  The resolver
+ * of a session is released when the session is closed (see ReactomeEvent#releaseLazyEvents(Session)), so only the
+ * caches of the open sessions are held.
+ * @see ReactomeEvent
+ */
+class LazyEventResolver {
+	private static final Map<Session, LazyEventResolver> resolvers = new HashMap<>();
+
+	private static final int RLE_UNIPROT_ID_COLUMN = ExportQuery.RLE_IDS_BY_UNIPROT_DB_ID.getColumn("rgp.dbId");
+	private static final int RLE_ID_COLUMN = ExportQuery.RLE_IDS_BY_UNIPROT_DB_ID.getColumn("rle.dbId");
+	private static final int PATHWAY_RLE_ID_COLUMN = ExportQuery.PATHWAY_IDS_BY_RLE_DB_ID.getColumn("rle.dbId");
+	private static final int PATHWAY_ID_COLUMN = ExportQuery.PATHWAY_IDS_BY_RLE_DB_ID.getColumn("p.dbId");
+
+	private final Session graphDBSession;
+	private final CoalescingBatchLoader<Long, Set<Long>> uniProtDbIdToRLEIds;
+	private final CoalescingBatchLoader<Long, Set<Long>> rleIdToPathwayIds;
+	private final CoalescingBatchLoader<Long, ReactomeEvent> eventDbIdToEvent;
+
+	/**
+	 * Returns the resolver for a session, creating it with the configured event batch and cache sizes
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @return LazyEventResolver for the session
+	 */
+	static synchronized LazyEventResolver getInstance(Session graphDBSession) {
+		return resolvers.computeIfAbsent(graphDBSession, session ->
+			new LazyEventResolver(session, ReactomeEvent.getEventBatchSize(), ReactomeEvent.getEventCacheSize())
+		);
+	}
+
+	/**
+	 * Releases the resolver, and the caches, of a session
+	 * @param graphDBSession Neo4J Driver Session object being closed
+	 */
+	static synchronized void release(Session graphDBSession) {
+		resolvers.remove(graphDBSession);
+	}
+
+	private LazyEventResolver(Session graphDBSession, int batchSize, int cacheSize) {
+		this.graphDBSession = graphDBSession;
+		this.uniProtDbIdToRLEIds = new CoalescingBatchLoader<>(this::queryRLEIds, batchSize, cacheSize);
+		this.rleIdToPathwayIds = new CoalescingBatchLoader<>(this::queryPathwayIds, batchSize, cacheSize);
+		this.eventDbIdToEvent = new CoalescingBatchLoader<>(this::queryEvents, batchSize, cacheSize);
+	}
+
+	/**
+	 * Retrieves the events (ReactionlikeEvents and the Pathways containing them) in which each UniProt entry
+	 * participates
+	 * @param uniProtDbIds Database identifiers of the UniProt entries
+	 * @return Map of UniProt entry database identifier to the set of its events (entries in no event are mapped to an
+	 * empty set)
+	 */
+	Map<Long, Set<ReactomeEvent>> getUniProtEvents(Collection<Long> uniProtDbIds) {
+		Map<Long, Set<Long>> uniProtDbIdToRLEIdsMap = uniProtDbIdToRLEIds.loadAll(uniProtDbIds);
+
+		Set<Long> rleIds = new HashSet<>();
+		uniProtDbIdToRLEIdsMap.values().forEach(rleIds::addAll);
+		Map<Long, Set<Long>> rleIdToPathwayIdsMap = rleIdToPathwayIds.loadAll(rleIds);
+
+		Set<Long> eventDbIds = new HashSet<>(rleIds);
+		rleIdToPathwayIdsMap.values().forEach(eventDbIds::addAll);
+		Map<Long, ReactomeEvent> events = getEvents(eventDbIds);
+
+		Map<Long, Set<ReactomeEvent>> uniProtDbIdToEvents = new HashMap<>();
+		for (Long uniProtDbId : uniProtDbIds) {
+			Set<ReactomeEvent> uniProtEvents = new HashSet<>();
+			for (Long rleId : uniProtDbIdToRLEIdsMap.getOrDefault(uniProtDbId, Collections.emptySet())) {
+				addIfPresent(uniProtEvents, events.get(rleId));
+				for (Long pathwayId : rleIdToPathwayIdsMap.getOrDefault(rleId, Collections.emptySet())) {
+					addIfPresent(uniProtEvents, events.get(pathwayId));
+				}
+			}
+			uniProtDbIdToEvents.put(uniProtDbId, uniProtEvents);
+		}
+		return uniProtDbIdToEvents;
+	}
+
+	/**
+	 * Retrieves the events for the passed event database identifiers
+	 * @param eventDbIds Database identifiers of the events
+	 * @return Map of event database identifier to ReactomeEvent object (identifiers without an event are not included)
+	 */
+	Map<Long, ReactomeEvent> getEvents(Collection<Long> eventDbIds) {
+		return eventDbIdToEvent.loadAll(eventDbIds);
+	}
+
+	private Map<Long, Set<Long>> queryRLEIds(List<Long> uniProtDbIds) {
+		return queryIdPairs(ExportQuery.RLE_IDS_BY_UNIPROT_DB_ID, "uniprotDbIds", uniProtDbIds,
+			RLE_UNIPROT_ID_COLUMN, RLE_ID_COLUMN);
+	}
+
+	private Map<Long, Set<Long>> queryPathwayIds(List<Long> rleIds) {
+		return queryIdPairs(ExportQuery.PATHWAY_IDS_BY_RLE_DB_ID, "rleDbIds", rleIds,
+			PATHWAY_RLE_ID_COLUMN, PATHWAY_ID_COLUMN);
+	}
+
+	private Map<Long, ReactomeEvent> queryEvents(List<Long> eventDbIds) {
+		synchronized (graphDBSession) {
+			return ReactomeEvent.queryEventsByDbId(eventDbIds, graphDBSession);
+		}
+	}
+
+	private Map<Long, Set<Long>> queryIdPairs(ExportQuery exportQuery, String idsParameterName, List<Long> ids,
+											  int keyColumn, int valueColumn) {
+		Map<Long, Set<Long>> idToRelatedIds = new HashMap<>();
+		// Identifiers without results are mapped to an empty set so they are cached rather than queried again
+		ids.forEach(id -> idToRelatedIds.put(id, new HashSet<>()));
+
+		synchronized (graphDBSession) {
+			GraphQueryExecutor.forEachRecord(graphDBSession, exportQuery,
+				Collections.singletonMap(idsParameterName, ids),
+				record -> idToRelatedIds.get(record.get(keyColumn).asLong()).add(record.get(valueColumn).asLong())
+			);
+		}
+		return idToRelatedIds;
+	}
+
+	private static void addIfPresent(Set<ReactomeEvent> events, ReactomeEvent event) {
+		if (event != null) {
+			events.add(event);
+		}
+	}
+}
@@ -2,11 +2,19 @@ package org.reactome.release.dataexport.datastructures;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.neo4j.driver.Record;
 import org.neo4j.driver.Session;
-import org.neo4j.driver.Result;
+import org.reactome.release.dataexport.queries.ExportQuery;
+import org.reactome.release.dataexport.queries.GraphQueryExecutor;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.escapeXML;
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.getUTF8Length;
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.parallelSortByKey;
 
 /**
  * This class describes the relationship between a UniProt entry in Reactome
@@ -18,14 +26,39 @@ import java.util.*;
 public class NCBIEntry implements Comparable<NCBIEntry> {
 	private static final Logger logger = LogManager.getLogger("mainLog");
 
-	private static int linkId = 1;
+	private static final int UNIPROT_DB_ID_COLUMN = ExportQuery.UNIPROT_TO_NCBI_GENE.getColumn("rgp.dbId");
+	private static final int UNIPROT_DISPLAY_NAME_COLUMN =
+		ExportQuery.UNIPROT_TO_NCBI_GENE.getColumn("rgp.displayName");
+	private static final int UNIPROT_ACCESSION_COLUMN = ExportQuery.UNIPROT_TO_NCBI_GENE.getColumn("rgp_accession");
+	private static final int NCBI_GENE_ID_COLUMN = ExportQuery.UNIPROT_TO_NCBI_GENE.getColumn("rds.identifier");
+
+	private static final String ENTITY_BASE = "&entity.base.url;";
+	private static final String EVENT_BASE = "&event.base.url;";
+	private static final String ENTITY_URL_NAME_PREFIX = "Reactome Entity:";
+	private static final String EVENT_URL_NAME_PREFIX = "Reactome Event:";
+	// Encoded Link XML nodes of entities and events split around their variable parts (the LinkId, gene, rule and
+	// URL name), so the fixed parts are copied rather than encoded for each link
+	private static final byte[][] ENTITY_LINK_XML_PIECES = getLinkXMLPieces(ENTITY_BASE, ENTITY_URL_NAME_PREFIX);
+	private static final byte[][] EVENT_LINK_XML_PIECES = getLinkXMLPieces(EVENT_BASE, EVENT_URL_NAME_PREFIX);
+	private static final int ENTITY_LINK_XML_TEMPLATE_SIZE = getSize(ENTITY_LINK_XML_PIECES);
+	private static final int EVENT_LINK_XML_TEMPLATE_SIZE = getSize(EVENT_LINK_XML_PIECES);
+
+	private static long linkId = 1;
 
-	private UniProtReactomeEntry uniProtReactomeEntry;
-	private Set<String> ncbiGeneIds;
+	private final UniProtReactomeEntry uniProtReactomeEntry;
+	private final Set<String> ncbiGeneIds;
+	private final int hashCode;
 
+	/**
+	 * Creates an (immutable) NCBI Entry for a UniProt entry and its NCBI Gene identifiers
+	 * @param uniProtReactomeEntry UniProt entry in Reactome
+	 * @param ncbiGeneIds NCBI Gene identifiers of the UniProt entry (copied so later changes to the set passed have no
+	 * effect)
+	 */
 	public NCBIEntry(UniProtReactomeEntry uniProtReactomeEntry, Set<String> ncbiGeneIds) {
 		this.uniProtReactomeEntry = uniProtReactomeEntry;
-		this.ncbiGeneIds = ncbiGeneIds;
+		this.ncbiGeneIds = Collections.unmodifiableSet(new LinkedHashSet<>(ncbiGeneIds));
+		this.hashCode = Objects.hash(getUniprotAccession(), getUniprotDisplayName(), this.ncbiGeneIds);
 	}
 
 	public NCBIEntry(long uniprotDbId, String uniprotAccession, String uniprotDisplayName, Set<String> ncbiGeneIds) {
@@ -53,6 +86,30 @@ public class NCBIEntry implements Comparable<NCBIEntry> {
 		return uniProtReactomeEntry.getTopLevelPathways(graphDBSession);
 	}
 
+	/**
+	 * Resolves, together, the top level pathways of the UniProt entries of the passed NCBI Entries
+	 * @param ncbiEntries NCBI Entry objects for which to resolve top level pathways
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @return Map of the passed NCBI Entry objects to the set of top level pathways of their UniProt entries
+	 * @see UniProtReactomeEntry#resolveTopLevelPathways(Collection, Session)
+	 */
+	public static Map<NCBIEntry, Set<ReactomeEvent>> resolveTopLevelPathways(Collection<NCBIEntry> ncbiEntries,
+																		   Session graphDBSession) {
+		Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniProtReactomeEntryToTopLevelPathways =
+			UniProtReactomeEntry.resolveTopLevelPathways(
+				ncbiEntries.stream().map(ncbiEntry -> ncbiEntry.uniProtReactomeEntry).collect(Collectors.toList()),
+				graphDBSession
+			);
+
+		Map<NCBIEntry, Set<ReactomeEvent>> ncbiEntryToTopLevelPathways = new HashMap<>();
+		for (NCBIEntry ncbiEntry : ncbiEntries) {
+			ncbiEntryToTopLevelPathways.put(
+				ncbiEntry, uniProtReactomeEntryToTopLevelPathways.get(ncbiEntry.uniProtReactomeEntry)
+			);
+		}
+		return ncbiEntryToTopLevelPathways;
+	}
+
 	/**
 	 * Retrieves the list of NCBI Entry objects from UniProt entries in the Reactome graph database
 	 * which have NCBI Gene identifiers
@@ -62,35 +119,27 @@ public class NCBIEntry implements Comparable<NCBIEntry> {
 	public static List<NCBIEntry> getUniProtToNCBIGeneEntries(Session graphDBSession) {
 		logger.info("Generating UniProt accession to NCBI Gene mapping");
 
-		Result result = graphDBSession.run(
-			String.join(System.lineSeparator(),
-				"MATCH (rgp:ReferenceGeneProduct)-[:referenceDatabase]->(rd:ReferenceDatabase)",
-				"MATCH (rgp)-[:referenceGene]->(rds:ReferenceDNASequence)",
-				"WHERE rd.displayName = 'UniProt' AND rds.databaseName = 'NCBI Gene'",
-				"RETURN DISTINCT rgp.dbId, rgp.displayName, "
-					+ "coalesce(rgp.variantIdentifier, rgp.identifier) as rgp_accession, rds.identifier",
-				"ORDER BY rgp_accession"
-			)
-		);
-
 		Map<UniProtReactomeEntry, Set<String>> uniprotToNCBIGene = new HashMap<>();
-		while (result.hasNext()) {
-			Record record = result.next();
-			long uniprotDbId = record.get("rgp.dbId").asLong();
-			String uniprotDisplayName = record.get("rgp.displayName").asString();
-			String uniprotAccession = record.get("rgp_accession").asString();
-			String ncbiGeneID = record.get("rds.identifier").asString();
-
-			if (uniprotAccession.contains("PRO")) {
-				logger.error(String.format("UniProt Accession %s (dbId %d) contains PRO identifier",
-					uniprotAccession, uniprotDbId));
-				continue;
-			}
+		GraphQueryExecutor.forEachRecord(graphDBSession, ExportQuery.UNIPROT_TO_NCBI_GENE,
+			record -> {
+				long uniprotDbId = record.get(UNIPROT_DB_ID_COLUMN).asLong();
+				String uniprotDisplayName = record.get(UNIPROT_DISPLAY_NAME_COLUMN).asString();
+				String uniprotAccession = record.get(UNIPROT_ACCESSION_COLUMN).asString();
+				String ncbiGeneID = record.get(NCBI_GENE_ID_COLUMN).asString();
 
-			UniProtReactomeEntry uniprot = UniProtReactomeEntry.get(uniprotDbId, uniprotAccession, uniprotDisplayName);
-			Set<String> ncbiGeneIDs = uniprotToNCBIGene.computeIfAbsent(uniprot, k -> new HashSet<>());
-			ncbiGeneIDs.add(ncbiGeneID);
-		}
+				if (uniprotAccession.contains("PRO")) {
+					logger.error(String.format("UniProt Accession %s (dbId %d) contains PRO identifier",
+						uniprotAccession, uniprotDbId));
+					return;
+				}
+
+				UniProtReactomeEntry uniprot = UniProtReactomeEntry.get(
+					uniprotDbId, uniprotAccession, uniprotDisplayName
+				);
+				Set<String> ncbiGeneIDs = uniprotToNCBIGene.computeIfAbsent(uniprot, k -> new HashSet<>());
+				ncbiGeneIDs.add(ncbiGeneID);
+			}
+		);
 
 		List<NCBIEntry> ncbiEntries = new ArrayList<>();
 		for (UniProtReactomeEntry uniprot : uniprotToNCBIGene.keySet()) {
@@ -98,7 +147,7 @@ public class NCBIEntry implements Comparable<NCBIEntry> {
 				new NCBIEntry(uniprot, uniprotToNCBIGene.get(uniprot))
 			);
 		}
-		Collections.sort(ncbiEntries);
+		ncbiEntries = parallelSortByKey(ncbiEntries, ncbiEntry -> ncbiEntry.uniProtReactomeEntry);
 
 		logger.info("Finished generating UniProt accession to NCBI Gene mapping");
 
@@ -106,13 +155,13 @@ public class NCBIEntry implements Comparable<NCBIEntry> {
 	}
 
 	/**
-	 * Compares UniProt accession values of this object and parameter
+	 * Compares UniProt accession values of this object and parameter (using their packed keys)
 	 * @param obj NCBIEntry object to compare
 	 * @return Value of String compare between this UniProt accession and the parameter's UniProt accession
 	 */
 	@Override
 	public int compareTo(NCBIEntry obj) {
-		return this.getUniprotAccession().compareTo(obj.getUniprotAccession());
+		return this.uniProtReactomeEntry.compareTo(obj.uniProtReactomeEntry);
 	}
 
 	/**
@@ -133,18 +182,20 @@ public class NCBIEntry implements Comparable<NCBIEntry> {
 
 		NCBIEntry other = (NCBIEntry) obj;
 
-		return other.getUniprotAccession().equals(this.getUniprotAccession()) &&
+		// The cached hash codes differ for almost all unequal entries, avoiding comparing the NCBI Gene id sets
+		return other.hashCode() == this.hashCode() &&
+			   other.getUniprotAccession().equals(this.getUniprotAccession()) &&
 			   other.getUniprotDisplayName().equals(this.getUniprotDisplayName()) &&
 			   other.getNcbiGeneIds().equals(this.getNcbiGeneIds());
 	}
 
 	/**
-	 * Retrieves a hash code based on the object's set fields
+	 * Retrieves the hash code based on the object's fields, computed once when the object is created
 	 * @return Hash code of NCBI Entry object
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(getUniprotAccession(), getUniprotDisplayName(), getNcbiGeneIds());
+		return this.hashCode;
 	}
 
 	/**
@@ -157,38 +208,151 @@ public class NCBIEntry implements Comparable<NCBIEntry> {
 	}
 
 	/**
-	 * Returns the XML String describing the relationship between the object's UniProt entry and an NCBI Gene
+	 * Returns the XML String describing the relationship between the object's UniProt entry and an NCBI Gene, with
+	 * the next LinkId of a global counter
 	 * @param ncbiGene NCBI Gene identifier
 	 * @return XML String for NCBI Gene Entity Link
 	 */
 	public String getEntityLinkXML(String ncbiGene) {
+		return getEntityLinkXML(ncbiGene, nextLinkId());
+	}
+
+	/**
+	 * Returns the XML String describing the relationship between the object's UniProt entry and an NCBI Gene
+	 * @param ncbiGene NCBI Gene identifier
+	 * @param linkId LinkId of the Link XML node
+	 * @return XML String for NCBI Gene Entity Link
+	 */
+	public String getEntityLinkXML(String ncbiGene, long linkId) {
 		return getLinkXML(
-			ncbiGene,
-			"&entity.base.url;",
-			getUniprotAccession(),
-			"Reactome Entity:" + getUniprotAccession()
+			ncbiGene, ENTITY_BASE, getUniprotAccession(), ENTITY_URL_NAME_PREFIX + getUniprotAccession(),
+			Long.toString(linkId)
 		);
 	}
 
 	/**
-	 * Returns the XML String describing the relationship between a Reactome pathway and an NCBI Gene
+	 * Writes, UTF-8 encoded, the XML describing the relationship between the object's UniProt entry and an NCBI Gene
+	 * @param ncbiGene NCBI Gene identifier
+	 * @param linkId LinkId of the Link XML node
+	 * @param outputStream Stream to which to write the Link XML node
+	 * @throws IOException Thrown if unable to write to the stream
+	 * @see #getEntityLinkXML(String, long)
+	 */
+	public void writeEntityLinkXML(String ncbiGene, long linkId, OutputStream outputStream) throws IOException {
+		byte[] accession = getUniprotAccession().getBytes(StandardCharsets.UTF_8);
+		writeLinkXML(ENTITY_LINK_XML_PIECES, linkId, ncbiGene, accession, accession, outputStream);
+	}
+
+	/**
+	 * Returns the size, in bytes when encoded as UTF-8, of the XML String describing the relationship between the
+	 * object's UniProt entry and an NCBI Gene
+	 * @param ncbiGene NCBI Gene identifier
+	 * @param linkId LinkId of the Link XML node
+	 * @return Encoded size of the XML String for NCBI Gene Entity Link
+	 * @see #getEntityLinkXML(String, long)
+	 */
+	public long getEntityLinkXMLSize(String ncbiGene, long linkId) {
+		return ENTITY_LINK_XML_TEMPLATE_SIZE + Long.toString(linkId).length() + getUTF8Length(ncbiGene) +
+			2L * getUTF8Length(getUniprotAccession());
+	}
+
+	/**
+	 * Returns the XML String describing the relationship between a Reactome pathway and an NCBI Gene, with the next
+	 * LinkId of a global counter
 	 * @param ncbiGene NCBI Gene identifier
 	 * @param pathway Reactome Event representing a pathway
 	 * @return XML String for NCBI Gene Entity Link
 	 */
 	public String getEventLinkXML(String ncbiGene, ReactomeEvent pathway) {
+		return getEventLinkXML(ncbiGene, pathway, nextLinkId());
+	}
+
+	/**
+	 * Returns the XML String describing the relationship between a Reactome pathway and an NCBI Gene
+	 * @param ncbiGene NCBI Gene identifier
+	 * @param pathway Reactome Event representing a pathway
+	 * @param linkId LinkId of the Link XML node
+	 * @return XML String for NCBI Gene Entity Link
+	 */
+	public String getEventLinkXML(String ncbiGene, ReactomeEvent pathway, long linkId) {
 		return getLinkXML(
-			ncbiGene,
-			"&event.base.url;",
-			pathway.getStableIdentifier(),
-			"Reactome Event:" + pathway.getName()
+			ncbiGene, EVENT_BASE, escapeXML(pathway.getStableIdentifier()),
+			EVENT_URL_NAME_PREFIX + escapeXML(pathway.getName()), Long.toString(linkId)
+		);
+	}
+
+	/**
+	 * Writes, UTF-8 encoded, the XML describing the relationship between a Reactome pathway and an NCBI Gene.  The
+	 * pathway's parts of the XML are copied from the fragments it encoded when created.
+	 * @param ncbiGene NCBI Gene identifier
+	 * @param pathway Reactome Event representing a pathway
+	 * @param linkId LinkId of the Link XML node
+	 * @param outputStream Stream to which to write the Link XML node
+	 * @throws IOException Thrown if unable to write to the stream
+	 * @see #getEventLinkXML(String, ReactomeEvent, long)
+	 */
+	public void writeEventLinkXML(String ncbiGene, ReactomeEvent pathway, long linkId, OutputStream outputStream)
+		throws IOException {
+		writeLinkXML(
+			EVENT_LINK_XML_PIECES, linkId, ncbiGene, pathway.getXMLStableIdentifierFragment(),
+			pathway.getXMLNameFragment(), outputStream
 		);
 	}
 
-	private String getLinkXML(String ncbiGene, String base, String rule, String urlName) {
+	/**
+	 * Returns the size, in bytes when encoded as UTF-8, of the XML String describing the relationship between a
+	 * Reactome pathway and an NCBI Gene
+	 * @param ncbiGene NCBI Gene identifier
+	 * @param pathway Reactome Event representing a pathway
+	 * @param linkId LinkId of the Link XML node
+	 * @return Encoded size of the XML String for NCBI Gene Event Link
+	 * @see #getEventLinkXML(String, ReactomeEvent, long)
+	 */
+	public long getEventLinkXMLSize(String ncbiGene, ReactomeEvent pathway, long linkId) {
+		return EVENT_LINK_XML_TEMPLATE_SIZE + Long.toString(linkId).length() + getUTF8Length(ncbiGene) +
+			pathway.getXMLStableIdentifierFragment().length + pathway.getXMLNameFragment().length;
+	}
+
+	private static synchronized long nextLinkId() {
+		return linkId++;
+	}
+
+	private static void writeLinkXML(byte[][] linkXMLPieces, long linkId, String ncbiGene, byte[] rule,
+									 byte[] urlName, OutputStream outputStream) throws IOException {
+		outputStream.write(linkXMLPieces[0]);
+		outputStream.write(Long.toString(linkId).getBytes(StandardCharsets.UTF_8));
+		outputStream.write(linkXMLPieces[1]);
+		outputStream.write(ncbiGene.getBytes(StandardCharsets.UTF_8));
+		outputStream.write(linkXMLPieces[2]);
+		outputStream.write(rule);
+		outputStream.write(linkXMLPieces[3]);
+		outputStream.write(urlName);
+		outputStream.write(linkXMLPieces[4]);
+	}
+
+	/**
+	 * Splits the encoded Link XML node, with a base and URL name prefix, around its LinkId, gene, rule and URL name
+	 * @param base Base of the Link XML node's URL
+	 * @param urlNamePrefix Text preceding the variable part of the URL name
+	 * @return The five encoded pieces of the Link XML node around its four variable parts
+	 */
+	private static byte[][] getLinkXMLPieces(String base, String urlNamePrefix) {
+		final String VARIABLE_PART_MARKER = "\u0000";
+
+		String[] linkXMLPieces = getLinkXML(
+			VARIABLE_PART_MARKER, base, VARIABLE_PART_MARKER, urlNamePrefix + VARIABLE_PART_MARKER, VARIABLE_PART_MARKER
+		).split(VARIABLE_PART_MARKER, -1);
+		return Arrays.stream(linkXMLPieces).map(piece -> piece.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+	}
+
+	private static int getSize(byte[][] linkXMLPieces) {
+		return Arrays.stream(linkXMLPieces).mapToInt(piece -> piece.length).sum();
+	}
+
+	private static String getLinkXML(String ncbiGene, String base, String rule, String urlName, String linkIdText) {
 		return String.join(System.lineSeparator(),
 			"\t<Link>",
-			"\t\t<LinkId>" + linkId++ + "</LinkId>",
+			"\t\t<LinkId>" + linkIdText + "</LinkId>",
 			"\t\t<ProviderId>4914</ProviderId>",
 			"\t\t<ObjectSelector>",
 			"\t\t\t<Database>Gene</Database>",
@@ -204,4 +368,4 @@ public class NCBIEntry implements Comparable<NCBIEntry> {
 			"\t</Link>"
 		).concat(System.lineSeparator());
 	}
-}
\ No newline at end of file
+}
@@ -3,41 +3,139 @@ package org.reactome.release.dataexport.datastructures;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.neo4j.driver.Session;
+import org.reactome.release.dataexport.queries.ExportQuery;
+import org.reactome.release.dataexport.queries.GraphQueryExecutor;
+import org.reactome.release.dataexport.utilities.NameNormalizer;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.escapeXML;
 
 /**
  * Class for describing Events (Pathways and Reaction Like Events) in Reactome.
+ *
+ * Events are loaded from the graph database according to the "eventLoading" configuration property (optional):
+ * all - Every Event in the database is loaded, once, into a single map
+ * reachable - Only the Events requested by the exports (those reachable from the exported UniProt entries) are loaded,
+ * in batches of "eventBatchSize" (default 10000) database identifiers (default)
+ * lazy - The Events of each UniProt entry (and the ReactionlikeEvents and Pathways they come from) are resolved when
+ * first requested, in coalesced batches of "eventBatchSize" identifiers, and kept in least recently used caches of
+ * "eventCacheSize" (default 100000) identifiers, so memory scales with the entries exported rather than the database
  * @author jweiser
  */
 public class ReactomeEvent {
-	private static Map<String, String> namePatternToReplacement;
+	private static final int DEFAULT_EVENT_BATCH_SIZE = 10000;
+	private static final int DEFAULT_EVENT_CACHE_SIZE = 100000;
+
+	private static final NameNormalizer NAME_NORMALIZER = NameNormalizer.fromResource("event_name_normalization.tsv");
+
 	private static Map<Session, Map<Long, ReactomeEvent>> eventCache = new HashMap<>();
+	private static Map<Session, Map<Long, ReactomeEvent>> reachableEventCache = new HashMap<>();
+	private static EventLoading eventLoading = EventLoading.REACHABLE;
+	private static int eventBatchSize = DEFAULT_EVENT_BATCH_SIZE;
+	private static int eventCacheSize = DEFAULT_EVENT_CACHE_SIZE;
 	private static Logger logger = LogManager.getLogger("mainLog");
 
-	private long dbId;
-	private String name;
-	private String stableIdentifier;
+	private static final int EVENT_ID_COLUMN = ExportQuery.EVENTS.getColumn("e.dbId");
+	private static final int EVENT_NAME_COLUMN = ExportQuery.EVENTS.getColumn("e.displayName");
+	private static final int EVENT_STABLE_ID_COLUMN = ExportQuery.EVENTS.getColumn("e.stId");
+	// EVENTS_BY_DB_ID returns the same columns as EVENTS, so the column indexes above decode both
 
-	static {
-		namePatternToReplacement = new TreeMap<>();
-		namePatternToReplacement.put("amino acids", "Metabolism of nitrogenous molecules");
-		namePatternToReplacement.put("Cycle, Mitotic", "Cell Cycle (Mitotic)");
-		namePatternToReplacement.put("L13a-mediated translational", "L13a-mediated translation");
-		namePatternToReplacement.put("Abortive initiation after", "Abortive initiation");
-		namePatternToReplacement.put("Formation of the Cleavage and Polyadenylation", "Cleavage and Polyadenylation");
-		namePatternToReplacement.put("energy metabolism", "Energy Metabolism");
-		namePatternToReplacement.put("sugars", "Metabolism of sugars");
-	}
+	private final long dbId;
+	private final String name;
+	private final String stableIdentifier;
+	private final int hashCode;
+	private final byte[] tsvFragment;
+	private final byte[] xmlStableIdentifierFragment;
+	private final byte[] xmlNameFragment;
 
+	/**
+	 * Creates a ReactomeEvent, standardizing its name once (events whose names contain key words or phrases listed in
+	 * the "event_name_normalization.tsv" resource are given the standardized name for those words or phrases).  The
+	 * UTF-8 encoded fragments of the export files which depend only on the event are also computed once, here, so
+	 * writers copy them rather than re-encoding them for each line.
+	 * @param dbId Reactome database identifier of the event
+	 * @param name Reactome display name of the event
+	 * @param stableIdentifier Reactome Stable Identifier of the event
+	 */
 	public ReactomeEvent(long dbId, String name, String stableIdentifier) {
 		this.dbId = dbId;
-		this.name = name;
+		this.name = NAME_NORMALIZER.normalize(name);
 		this.stableIdentifier = stableIdentifier;
+		this.hashCode = Objects.hash(this.dbId, this.name, this.stableIdentifier);
+		this.tsvFragment = ("\t" + this.stableIdentifier + "\t" + this.name).getBytes(StandardCharsets.UTF_8);
+		this.xmlStableIdentifierFragment = escapeXML(this.stableIdentifier).getBytes(StandardCharsets.UTF_8);
+		this.xmlNameFragment = escapeXML(this.name).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Strategies for loading Events from the graph database
+	 */
+	public enum EventLoading {
+		ALL,
+		REACHABLE,
+		LAZY;
+
+		/**
+		 * Parses the event loading strategy from its (case-insensitive) configuration value
+		 * @param eventLoadingValue Configuration value of the strategy (e.g. "reachable")
+		 * @return EventLoading for the configuration value
+		 * @throws IllegalArgumentException Thrown if the configuration value is not a known strategy
+		 */
+		public static EventLoading fromConfigurationValue(String eventLoadingValue) {
+			try {
+				return EventLoading.valueOf(eventLoadingValue.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException(
+					"Unknown eventLoading '" + eventLoadingValue + "' - expected one of " + Arrays.toString(values()), e
+				);
+			}
+		}
+	}
+
+	/**
+	 * Sets the event loading strategy, batch size and (lazy loading) cache size from the configuration properties of
+	 * the data export
+	 * @param props Configuration properties for the data export
+	 * @throws IllegalArgumentException Thrown if the eventLoading property is not a known strategy or the
+	 * eventBatchSize or eventCacheSize property is not positive
+	 */
+	public static void configure(Properties props) {
+		eventLoading = EventLoading.fromConfigurationValue(props.getProperty("eventLoading", "reachable"));
+		eventBatchSize = Integer.parseInt(
+			props.getProperty("eventBatchSize", Integer.toString(DEFAULT_EVENT_BATCH_SIZE))
+		);
+		eventCacheSize = Integer.parseInt(
+			props.getProperty("eventCacheSize", Integer.toString(DEFAULT_EVENT_CACHE_SIZE))
+		);
+		if (eventBatchSize <= 0) {
+			throw new IllegalArgumentException("eventBatchSize must be positive but was " + eventBatchSize);
+		}
+		if (eventCacheSize <= 0) {
+			throw new IllegalArgumentException("eventCacheSize must be positive but was " + eventCacheSize);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if events are resolved lazily, per UniProt entry, when first requested
+	 * @return <code>true</code> if the "lazy" event loading strategy is configured; <code>false</code> otherwise
+	 */
+	public static boolean isLazyLoading() {
+		return eventLoading == EventLoading.LAZY;
+	}
+
+	/**
+	 * Retrieves the number of event database identifiers looked up per query (and the number of UniProt entries whose
+	 * events are resolved together)
+	 * @return Event batch size
+	 */
+	public static int getEventBatchSize() {
+		return eventBatchSize;
+	}
+
+	static int getEventCacheSize() {
+		return eventCacheSize;
 	}
 
 	/**
@@ -53,21 +151,17 @@ public class ReactomeEvent {
 
 		logger.info("Computing Event map");
 
-		Map<Long, ReactomeEvent> eventMap = graphDBSession.run(
-			String.join(System.lineSeparator(),
-				"MATCH (e:Event)",
-				"RETURN e.dbId, e.displayName, e.stId"
-			)
-		)
-		.stream()
-		.collect(Collectors.toMap(
-			record -> record.get("e.dbId").asLong(),
-			record -> new ReactomeEvent(
-				record.get("e.dbId").asLong(),
-				record.get("e.displayName").asString(),
-				record.get("e.stId").asString()
-			)
-		));
+		Map<Long, ReactomeEvent> eventMap = new HashMap<>();
+		GraphQueryExecutor.forEachRecord(graphDBSession, ExportQuery.EVENTS,
+			record -> {
+				long eventId = record.get(EVENT_ID_COLUMN).asLong();
+				eventMap.put(eventId, new ReactomeEvent(
+					eventId,
+					record.get(EVENT_NAME_COLUMN).asString(),
+					record.get(EVENT_STABLE_ID_COLUMN).asString()
+				));
+			}
+		);
 		eventCache.put(graphDBSession, eventMap);
 
 		logger.info("Finished computing Event map");
@@ -75,6 +169,101 @@ public class ReactomeEvent {
 		return eventMap;
 	}
 
+	/**
+	 * Retrieves the ReactomeEvent objects for the passed event database identifiers.  With the "all" event loading
+	 * strategy, the map of all events is loaded (once) and the requested events taken from it.  With the "reachable"
+	 * and "lazy" strategies, only the requested events not already loaded for the session are retrieved from the graph
+	 * database, in batches.
+	 * @param eventDbIds Database identifiers of the Reactome Events (Pathways and Reaction Like Events) to retrieve
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @return Map of the requested event database identifiers to their ReactomeEvent objects (identifiers which do not
+	 * correspond to an event in the graph database are not included)
+	 */
+	public static Map<Long, ReactomeEvent> fetchReactomeEvents(Collection<Long> eventDbIds, Session graphDBSession) {
+		if (eventLoading == EventLoading.LAZY) {
+			return LazyEventResolver.getInstance(graphDBSession).getEvents(eventDbIds);
+		}
+
+		Map<Long, ReactomeEvent> loadedEvents = eventLoading == EventLoading.ALL ?
+			fetchReactomeEventMap(graphDBSession) :
+			loadReachableEvents(eventDbIds, graphDBSession);
+
+		Map<Long, ReactomeEvent> requestedEvents = new HashMap<>();
+		for (Long eventDbId : eventDbIds) {
+			ReactomeEvent reactomeEvent = loadedEvents.get(eventDbId);
+			if (reactomeEvent != null) {
+				requestedEvents.put(eventDbId, reactomeEvent);
+			}
+		}
+		return requestedEvents;
+	}
+
+	/**
+	 * Releases the events, and the ids of the ReactionlikeEvents and Pathways of UniProt entries, lazily loaded for a
+	 * session.  This is called when a session used with the "lazy" event loading strategy is closed, so its caches are
+	 * not held for the rest of the run.
+	 * @param graphDBSession Neo4J Driver Session object being closed
+	 */
+	public static void releaseLazyEvents(Session graphDBSession) {
+		LazyEventResolver.release(graphDBSession);
+	}
+
+	private static Map<Long, ReactomeEvent> loadReachableEvents(Collection<Long> eventDbIds, Session graphDBSession) {
+		Map<Long, ReactomeEvent> reachableEvents =
+			reachableEventCache.computeIfAbsent(graphDBSession, k -> new HashMap<>());
+
+		List<Long> eventDbIdsToLoad = new ArrayList<>();
+		for (Long eventDbId : new LinkedHashSet<>(eventDbIds)) {
+			if (!reachableEvents.containsKey(eventDbId)) {
+				eventDbIdsToLoad.add(eventDbId);
+			}
+		}
+		if (eventDbIdsToLoad.isEmpty()) {
+			return reachableEvents;
+		}
+
+		logger.info("Loading {} reachable Events in batches of {}", eventDbIdsToLoad.size(), eventBatchSize);
+
+		for (int batchStart = 0; batchStart < eventDbIdsToLoad.size(); batchStart += eventBatchSize) {
+			List<Long> eventDbIdBatch = eventDbIdsToLoad.subList(
+				batchStart, Math.min(batchStart + eventBatchSize, eventDbIdsToLoad.size())
+			);
+			reachableEvents.putAll(queryEventsByDbId(eventDbIdBatch, graphDBSession));
+			// Identifiers without an Event are remembered (as null) so they are not queried again
+			for (Long eventDbId : eventDbIdBatch) {
+				if (!reachableEvents.containsKey(eventDbId)) {
+					reachableEvents.put(eventDbId, null);
+				}
+			}
+		}
+
+		logger.info("Finished loading reachable Events");
+
+		return reachableEvents;
+	}
+
+	/**
+	 * Retrieves, from the graph database, the ReactomeEvent objects for a batch of event database identifiers
+	 * @param eventDbIds Database identifiers of the events to retrieve
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @return Map of event database identifier to ReactomeEvent object (identifiers without an event are not included)
+	 */
+	static Map<Long, ReactomeEvent> queryEventsByDbId(List<Long> eventDbIds, Session graphDBSession) {
+		Map<Long, ReactomeEvent> events = new HashMap<>();
+		GraphQueryExecutor.forEachRecord(graphDBSession, ExportQuery.EVENTS_BY_DB_ID,
+			Collections.singletonMap("eventDbIds", eventDbIds),
+			record -> {
+				long eventId = record.get(EVENT_ID_COLUMN).asLong();
+				events.put(eventId, new ReactomeEvent(
+					eventId,
+					record.get(EVENT_NAME_COLUMN).asString(),
+					record.get(EVENT_STABLE_ID_COLUMN).asString()
+				));
+			}
+		);
+		return events;
+	}
+
 	/**
 	 * Retrieves the Reactome database identifier for the represented event
 	 * @return Reactome event database identifier
@@ -84,27 +273,12 @@ public class ReactomeEvent {
 	}
 
 	/**
-	 * Retrieves the Reactome display name for the represented event.  The name is standardized before being returned.
+	 * Retrieves the Reactome display name for the represented event.  The name is standardized when the event is
+	 * created.
 	 * @return Reactome event display name
 	 */
 	public String getName() {
-		return fixName(this.name);
-	}
-
-	/**
-	 * Transforms Reactome event names that contain key words or phrases to standardized names
-	 * @param name Name to be considered for standardization
-	 * @return Standardized Reactome event display name if it contains pre-set words or phrases or the name passed as
-	 * a parameter, otherwise.
-	 */
-	private String fixName(String name) {
-		return namePatternToReplacement
-			.keySet()
-			.stream()
-			.filter(name::contains)
-			.map(namePatternToReplacement::get)
-			.reduce((first, second) -> second) // Get last element in stream
-			.orElse(name); // Default to original name if no replacement
+		return this.name;
 	}
 
 	/**
@@ -115,6 +289,34 @@ public class ReactomeEvent {
 		return stableIdentifier;
 	}
 
+	/**
+	 * Retrieves the UTF-8 encoded tab delimited columns of the event (a tab, the stable identifier, a tab and the
+	 * display name) which end a line of a tab delimited export file (e.g. UCSC Events).  The array is shared and must
+	 * not be modified.
+	 * @return Encoded tab delimited columns of the event
+	 */
+	public byte[] getTSVFragment() {
+		return this.tsvFragment;
+	}
+
+	/**
+	 * Retrieves the UTF-8 encoded stable identifier of the event, escaped for the text of an XML element.  The array
+	 * is shared and must not be modified.
+	 * @return Encoded, XML escaped, stable identifier
+	 */
+	public byte[] getXMLStableIdentifierFragment() {
+		return this.xmlStableIdentifierFragment;
+	}
+
+	/**
+	 * Retrieves the UTF-8 encoded display name of the event, escaped for the text of an XML element.  The array is
+	 * shared and must not be modified.
+	 * @return Encoded, XML escaped, display name
+	 */
+	public byte[] getXMLNameFragment() {
+		return this.xmlNameFragment;
+	}
+
 	/**
 	 * Checks equality based on object type and value of event db id, display name and stable identifier
 	 * @param obj Object to check for equality with the calling ReactomeEvent
@@ -133,18 +335,20 @@ public class ReactomeEvent {
 
 		ReactomeEvent oRE = (ReactomeEvent) obj;
 
-		return	getDbId() == oRE.getDbId() &&
+		// The cached hash codes differ for almost all unequal events, avoiding the string comparisons
+		return	hashCode() == oRE.hashCode() &&
+				getDbId() == oRE.getDbId() &&
 				getName().equals(oRE.getName()) &&
 				getStableIdentifier().equals(oRE.getStableIdentifier());
 	}
 
 	/**
-	 * Retrieves a hash code based on the object's set fields
+	 * Retrieves the hash code based on the object's fields, computed once when the object is created
 	 * @return Hash code of ReactomeEvent object
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(getDbId(), getName(), getStableIdentifier());
+		return this.hashCode;
 	}
 
 	/**
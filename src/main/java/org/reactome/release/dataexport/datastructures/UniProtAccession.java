@@ -0,0 +1,231 @@
+package org.reactome.release.dataexport.datastructures;
+
+/**
+ * Validates and packs UniProt accessions without allocating objects.  A valid accession is a canonical accession of 6
+ * or 10 alphanumeric characters matching "[OPQ][0-9][A-Z0-9]{3}[0-9]|[A-NR-Z][0-9]([A-Z][A-Z0-9]{2}[0-9]){1,2}" (as
+ * defined at https://www.uniprot.org/help/accession_numbers as of October 2019), optionally followed by a dash and the
+ * (1 to 9 digit) number of an isoform.  E.g. P12345 or P12345-1
+ *
+ * An accession is packed into two longs: an accession key for the canonical part and an isoform key for the isoform
+ * suffix (0 for a canonical accession).  Comparing the keys (accession key first) orders accessions exactly as
+ * comparing the accession Strings does, so the keys can be used as compact map and sort keys.
+ */
+public final class UniProtAccession {
+	private static final int MAX_CANONICAL_LENGTH = 10;
+	private static final int SHORT_CANONICAL_LENGTH = 6;
+	private static final int MAX_ISOFORM_DIGITS = 9;
+
+	// Each character of the canonical part is a base 37 digit: 0 past the end of the accession, then 0-9, then A-Z
+	private static final int ACCESSION_RADIX = 37;
+	// Each digit of the isoform number is a base 11 digit: 0 past the end of the number, then 0-9
+	private static final int ISOFORM_RADIX = 11;
+
+	private static final int INVALID = -1;
+
+	private UniProtAccession() {}
+
+	/**
+	 * Checks if a String is a valid canonical or isoform UniProt accession
+	 * @param accession Accession to check
+	 * @return <code>true</code> if the accession is valid; <code>false</code> otherwise
+	 */
+	public static boolean isValid(CharSequence accession) {
+		return accession != null && getCanonicalLength(accession) != INVALID && isValidSuffix(accession);
+	}
+
+	/**
+	 * Checks if a String is a valid canonical (i.e. not an isoform) UniProt accession.  E.g. P12345
+	 * @param accession Accession to check
+	 * @return <code>true</code> if the accession is a valid canonical accession; <code>false</code> otherwise
+	 */
+	public static boolean isValidCanonical(CharSequence accession) {
+		return isValid(accession) && getCanonicalLength(accession) == accession.length();
+	}
+
+	/**
+	 * Checks if a String is a valid isoform UniProt accession.  E.g. P12345-1
+	 * @param accession Accession to check
+	 * @return <code>true</code> if the accession is a valid isoform accession; <code>false</code> otherwise
+	 */
+	public static boolean isValidIsoform(CharSequence accession) {
+		return isValid(accession) && getCanonicalLength(accession) < accession.length();
+	}
+
+	/**
+	 * Packs the canonical part of a UniProt accession into a long
+	 * @param accession Valid UniProt accession
+	 * @return Accession key of the accession (the same for all isoforms of a canonical accession)
+	 * @throws IllegalArgumentException Thrown if the accession is not valid
+	 */
+	public static long getAccessionKey(CharSequence accession) {
+		checkValid(accession);
+
+		int canonicalLength = getCanonicalLength(accession);
+		long accessionKey = 0;
+		for (int i = 0; i < MAX_CANONICAL_LENGTH; i++) {
+			accessionKey = accessionKey * ACCESSION_RADIX + (i < canonicalLength ? toSymbol(accession.charAt(i)) : 0);
+		}
+		return accessionKey;
+	}
+
+	/**
+	 * Packs the isoform suffix of a UniProt accession into a long
+	 * @param accession Valid UniProt accession
+	 * @return Isoform key of the accession (0 for a canonical accession)
+	 * @throws IllegalArgumentException Thrown if the accession is not valid
+	 */
+	public static long getIsoformKey(CharSequence accession) {
+		checkValid(accession);
+
+		int firstDigitIndex = getCanonicalLength(accession) + 1; // Skips the dash
+		long isoformKey = 0;
+		for (int i = 0; i < MAX_ISOFORM_DIGITS; i++) {
+			int index = firstDigitIndex + i;
+			isoformKey = isoformKey * ISOFORM_RADIX + (index < accession.length() ? accession.charAt(index) - '0' + 1 : 0);
+		}
+		return isoformKey;
+	}
+
+	/**
+	 * Compares two packed accessions.  The result has the same sign as comparing the accession Strings.
+	 * @param accessionKey Accession key of the first accession
+	 * @param isoformKey Isoform key of the first accession
+	 * @param otherAccessionKey Accession key of the second accession
+	 * @param otherIsoformKey Isoform key of the second accession
+	 * @return Negative, zero or positive if the first accession sorts before, the same as or after the second
+	 */
+	public static int compare(long accessionKey, long isoformKey, long otherAccessionKey, long otherIsoformKey) {
+		int accessionComparison = Long.compare(accessionKey, otherAccessionKey);
+		return accessionComparison != 0 ? accessionComparison : Long.compare(isoformKey, otherIsoformKey);
+	}
+
+	/**
+	 * Unpacks a UniProt accession from its keys
+	 * @param accessionKey Accession key of the accession
+	 * @param isoformKey Isoform key of the accession
+	 * @return UniProt accession
+	 */
+	public static String toAccession(long accessionKey, long isoformKey) {
+		char[] characters = new char[MAX_CANONICAL_LENGTH + 1 + MAX_ISOFORM_DIGITS];
+		int length = 0;
+
+		long divisor = pow(ACCESSION_RADIX, MAX_CANONICAL_LENGTH - 1);
+		for (int i = 0; i < MAX_CANONICAL_LENGTH; i++, divisor /= ACCESSION_RADIX) {
+			int symbol = (int) (accessionKey / divisor % ACCESSION_RADIX);
+			if (symbol != 0) {
+				characters[length++] = toCharacter(symbol);
+			}
+		}
+
+		if (isoformKey != 0) {
+			characters[length++] = '-';
+			divisor = pow(ISOFORM_RADIX, MAX_ISOFORM_DIGITS - 1);
+			for (int i = 0; i < MAX_ISOFORM_DIGITS; i++, divisor /= ISOFORM_RADIX) {
+				int symbol = (int) (isoformKey / divisor % ISOFORM_RADIX);
+				if (symbol != 0) {
+					characters[length++] = (char) ('0' + symbol - 1);
+				}
+			}
+		}
+
+		return new String(characters, 0, length);
+	}
+
+	/**
+	 * Retrieves the length of the canonical part at the start of the accession
+	 * @param accession Accession to check
+	 * @return 6 or 10 if the accession starts with a valid canonical accession of that length followed by its end
+	 * or a dash; INVALID otherwise
+	 */
+	private static int getCanonicalLength(CharSequence accession) {
+		if (accession.length() < SHORT_CANONICAL_LENGTH) {
+			return INVALID;
+		}
+
+		char first = accession.charAt(0);
+		boolean opqAccession = first == 'O' || first == 'P' || first == 'Q';
+		if (!opqAccession && !(isUpperCaseLetter(first))) {
+			return INVALID;
+		}
+
+		if (!isDigit(accession.charAt(1)) ||
+			!(opqAccession ? isAlphanumeric(accession.charAt(2)) : isUpperCaseLetter(accession.charAt(2))) ||
+			!isAlphanumeric(accession.charAt(3)) ||
+			!isAlphanumeric(accession.charAt(4)) ||
+			!isDigit(accession.charAt(5))) {
+			return INVALID;
+		}
+
+		if (endsOrContinuesWithDash(accession, SHORT_CANONICAL_LENGTH)) {
+			return SHORT_CANONICAL_LENGTH;
+		}
+
+		if (opqAccession ||
+			accession.length() < MAX_CANONICAL_LENGTH ||
+			!isUpperCaseLetter(accession.charAt(6)) ||
+			!isAlphanumeric(accession.charAt(7)) ||
+			!isAlphanumeric(accession.charAt(8)) ||
+			!isDigit(accession.charAt(9)) ||
+			!endsOrContinuesWithDash(accession, MAX_CANONICAL_LENGTH)) {
+			return INVALID;
+		}
+		return MAX_CANONICAL_LENGTH;
+	}
+
+	private static boolean isValidSuffix(CharSequence accession) {
+		int canonicalLength = getCanonicalLength(accession);
+		if (canonicalLength == accession.length()) {
+			return true;
+		}
+
+		// The character at the canonical length is a dash, followed by the digits of the isoform number
+		int numberOfDigits = accession.length() - canonicalLength - 1;
+		if (numberOfDigits < 1 || numberOfDigits > MAX_ISOFORM_DIGITS) {
+			return false;
+		}
+		for (int i = canonicalLength + 1; i < accession.length(); i++) {
+			if (!isDigit(accession.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean endsOrContinuesWithDash(CharSequence accession, int index) {
+		return accession.length() == index || accession.charAt(index) == '-';
+	}
+
+	private static void checkValid(CharSequence accession) {
+		if (!isValid(accession)) {
+			throw new IllegalArgumentException(accession + " is not a legal UniProt accession");
+		}
+	}
+
+	private static int toSymbol(char character) {
+		return isDigit(character) ? character - '0' + 1 : character - 'A' + 11;
+	}
+
+	private static char toCharacter(int symbol) {
+		return symbol <= 10 ? (char) ('0' + symbol - 1) : (char) ('A' + symbol - 11);
+	}
+
+	private static boolean isDigit(char character) {
+		return character >= '0' && character <= '9';
+	}
+
+	private static boolean isUpperCaseLetter(char character) {
+		return character >= 'A' && character <= 'Z';
+	}
+
+	private static boolean isAlphanumeric(char character) {
+		return isDigit(character) || isUpperCaseLetter(character);
+	}
+
+	private static long pow(int base, int exponent) {
+		long result = 1;
+		for (int i = 0; i < exponent; i++) {
+			result *= base;
+		}
+		return result;
+	}
+}
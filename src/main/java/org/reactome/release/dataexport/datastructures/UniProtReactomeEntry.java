@@ -3,18 +3,21 @@ package org.reactome.release.dataexport.datastructures;
 import static org.reactome.release.dataexport.utilities.PathwayHierarchyUtilities.fetchRLEIdToPathwayId;
 
 import java.util.Map.Entry;
-import java.util.regex.Pattern;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.neo4j.driver.Record;
 import org.neo4j.driver.Session;
-import org.neo4j.driver.Result;
+import org.neo4j.driver.Value;
+import org.reactome.release.dataexport.monitoring.IndexBuildEvent;
+import org.reactome.release.dataexport.monitoring.ProgressTracker;
+import org.reactome.release.dataexport.queries.ExportQuery;
+import org.reactome.release.dataexport.queries.GraphQueryExecutor;
+import org.reactome.release.dataexport.queries.PaginatedExtraction;
 import org.reactome.release.dataexport.utilities.PathwayHierarchyUtilities;
 
-import java.time.LocalTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -23,89 +26,41 @@ import java.util.stream.Collectors;
  * @author jweiser
  */
 public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
-	private final Pattern PARENT_ACCESSION_REGEX = Pattern.compile(
-		"([OPQ][0-9][A-Z0-9]{3}[0-9]|[A-NR-Z][0-9]([A-Z][A-Z0-9]{2}[0-9]){1,2})"
-	); // As defined at https://www.uniprot.org/help/accession_numbers (October 2019)
-
-	private final Pattern ANCHORED_PARENT_ACCESSION_REGEX =
-		Pattern.compile("^" + PARENT_ACCESSION_REGEX.pattern() + "$");
-
-	private final Pattern ISOFORM_SUFFIX_REGEX = Pattern.compile("-[0-9]+");
-	private final Pattern ISOFORM_REGEX =
-		Pattern.compile("^" + PARENT_ACCESSION_REGEX.pattern() + ISOFORM_SUFFIX_REGEX.pattern() + "$");
-
-
-	private static Map<Long, UniProtReactomeEntry> uniProtReactomeEntryMap = new HashMap<>();
-
+	// The indexes are built once per session and then only read, from any thread (e.g. the UCSC partition writers)
 	private static Map<Session, Map<UniProtReactomeEntry, Set<ReactomeEvent>>>
-		uniprotReactomeEntryToTopLevelPathwaysCache = new HashMap<>();
+		uniprotReactomeEntryToTopLevelPathwaysCache = new ConcurrentHashMap<>();
 	private static Map<Session, Map<UniProtReactomeEntry, Set<ReactomeEvent>>>
-		uniprotReactomeEntryToReactomeEventCache = new HashMap<>();
+		uniprotReactomeEntryToReactomeEventCache = new ConcurrentHashMap<>();
 	private static Map<Session, Map<UniProtReactomeEntry, Set<Long>>>
-		uniprotReactomeEntryToReactionLikeEventIdCache = new HashMap<>();
+		uniprotReactomeEntryToReactionLikeEventIdCache = new ConcurrentHashMap<>();
 
 	private static Logger logger = LogManager.getLogger("mainLog");
 
-	private long dbId;
-	private String accession;
-	private String displayName;
-	private Set<ReactomeEvent> reactomeEvents;
-	private Set<ReactomeEvent> topLevelPathways;
+	private static final int UNIPROT_DB_ID_COLUMN = ExportQuery.UNIPROT_TO_RLE.getColumn("rgp.dbId");
+	private static final int UNIPROT_ACCESSION_COLUMN = ExportQuery.UNIPROT_TO_RLE.getColumn("rgp_accession");
+	private static final int UNIPROT_DISPLAY_NAME_COLUMN = ExportQuery.UNIPROT_TO_RLE.getColumn("rgp.displayName");
+	private static final int RLE_ID_COLUMN = ExportQuery.UNIPROT_TO_RLE.getColumn("rle.dbId");
+
+	private final long dbId;
+	private final String accession;
+	private final long accessionKey;
+	private final long isoformKey;
+	private final String displayName;
+	private final int hashCode;
 
 	/**
-	 * Creates/retrieves UniProtReactomeEntry object
+	 * Creates/retrieves UniProtReactomeEntry object.  There is only one (immutable) UniProtReactomeEntry object for
+	 * each UniProt database identifier in the registry of the current export run, so the objects can be compared by
+	 * identity.  The events of an entry are not held by the entry: they are looked up in the indexes of the session
+	 * (or resolved lazily) when requested, so an entry can be shared by any number of threads.
 	 * @param uniprotDbId UniProt instance database identifier in Reactome
 	 * @param uniprotAccession UniProt instance accession (e.g. "P01234")
 	 * @param uniprotDisplayName UniProt instance display name in Reactome (e.g. "UniProt:P01234 GENE_NAME")
 	 * @return UniProtReactomeEntry describing UniProt instance
+	 * @see UniProtReactomeEntryRegistry
 	 */
 	public static UniProtReactomeEntry get(long uniprotDbId, String uniprotAccession, String uniprotDisplayName) {
-		UniProtReactomeEntry uniProtReactomeEntry = uniProtReactomeEntryMap.computeIfAbsent(
-			uniprotDbId, k -> new UniProtReactomeEntry(uniprotDbId, uniprotAccession, uniprotDisplayName)
-		);
-
-		if (accessionOrNameMismatched(uniProtReactomeEntry, uniprotAccession, uniprotDisplayName)) {
-			throw new IllegalArgumentException(getExceptionMessage(
-				uniProtReactomeEntry, uniprotDbId, uniprotAccession, uniprotDisplayName
-			));
-		}
-
-		return uniProtReactomeEntry;
-	}
-
-	/**
-	 * Checks if the UniProt accession or display name of the UniProtReactomeEntry does not match the expected values
-	 * @param uniProtReactomeEntry UniProtReactomeEntry to check for mis-matches
-	 * @param uniprotAccession Expected UniProt accession
-	 * @param uniprotDisplayName Expected UniProt display name
-	 * @return <code>true</code> if either the accession or display name of the UniProtReactomeEntry object does not
-	 * match the expected values and <code>false</code> otherwise
-	 */
-	private static boolean accessionOrNameMismatched(UniProtReactomeEntry uniProtReactomeEntry,
-													 String uniprotAccession, String uniprotDisplayName) {
-		return !uniProtReactomeEntry.getAccession().equals(uniprotAccession) ||
-			   !uniProtReactomeEntry.getDisplayName().equals(uniprotDisplayName);
-	}
-
-	/**
-	 * Generates the exception message for a UniProtReactomeEntry that has unexpected values
-	 * @param uniProtReactomeEntry UniProtReactomeEntry with unexpected values
-	 * @param dbId Expected UniProt instance Reactome database identifier
-	 * @param uniprotAccession Expected UniProt accession
-	 * @param uniprotDisplayName Expected UniProt display name
-	 * @return Exception message for mis-matching values of a UniProtReactomeEntry and other expected values
-	 */
-	private static String getExceptionMessage(UniProtReactomeEntry uniProtReactomeEntry, long dbId,
-											  String uniprotAccession, String uniprotDisplayName) {
-		return String.join(System.lineSeparator(),
-			"Cached UniProt Reactome Entry was " + uniProtReactomeEntry,
-			" but passed values were ",
-			String.join(System.lineSeparator(),
-				"Db id: " + dbId,
-				"Accession: " + uniprotAccession,
-				"Display name: " + uniprotDisplayName
-			)
-		);
+		return UniProtReactomeEntryRegistry.current().get(uniprotDbId, uniprotAccession, uniprotDisplayName);
 	}
 
 	/**
@@ -114,10 +69,13 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 	 * @param accession UniProt accession (e.g. P04367)
 	 * @param displayName UniProt display name (e.g. UniProt:P04367 TP53)
 	 */
-	private UniProtReactomeEntry(long dbId, String accession, String displayName) {
-		setDbId(dbId);
-		setAccession(accession);
-		setDisplayName(displayName);
+	UniProtReactomeEntry(long dbId, String accession, String displayName) {
+		this.dbId = dbId;
+		this.accession = checkAccession(accession);
+		this.accessionKey = UniProtAccession.getAccessionKey(accession);
+		this.isoformKey = UniProtAccession.getIsoformKey(accession);
+		this.displayName = checkDisplayName(displayName);
+		this.hashCode = Objects.hash(this.dbId, this.accession, this.displayName);
 	}
 
 	/**
@@ -154,12 +112,18 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 	public static Map<UniProtReactomeEntry, Set<ReactomeEvent>> fetchUniProtReactomeEntryToTopLevelPathways(
 		Session graphDBSession
 	) {
-		if (uniprotReactomeEntryToTopLevelPathwaysCache.containsKey(graphDBSession)) {
-			return uniprotReactomeEntryToTopLevelPathwaysCache.get(graphDBSession);
-		}
+		return getIndex(
+			uniprotReactomeEntryToTopLevelPathwaysCache, graphDBSession,
+			UniProtReactomeEntry::computeUniProtReactomeEntryToTopLevelPathways
+		);
+	}
 
+	private static Map<UniProtReactomeEntry, Set<ReactomeEvent>> computeUniProtReactomeEntryToTopLevelPathways(
+		Session graphDBSession
+	) {
 		logger.info("Computing UniProt to Top Level Pathways");
 
+		IndexBuildEvent indexBuildEvent = IndexBuildEvent.start("UniProt to Top Level Pathways");
 		Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniprotReactomeEntryToTopLevelPathways =
 			fetchUniProtReactomeEntryToReactomeEvents(graphDBSession).entrySet().stream().collect(Collectors.toMap(
 			Map.Entry::getKey,
@@ -172,7 +136,7 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 					)
 					.collect(Collectors.toSet())
 		));
-		uniprotReactomeEntryToTopLevelPathwaysCache.put(graphDBSession, uniprotReactomeEntryToTopLevelPathways);
+		indexBuildEvent.finish(uniprotReactomeEntryToTopLevelPathways.size());
 
 		logger.info("Finished computing UniProt to Top Level Pathways");
 
@@ -212,19 +176,29 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 	public static Map<UniProtReactomeEntry, Set<ReactomeEvent>> fetchUniProtReactomeEntryToReactomeEvents(
 		Session graphDBSession
 	) {
-		if (uniprotReactomeEntryToReactomeEventCache.containsKey(graphDBSession)) {
-			return uniprotReactomeEntryToReactomeEventCache.get(graphDBSession);
-		}
+		return getIndex(
+			uniprotReactomeEntryToReactomeEventCache, graphDBSession,
+			UniProtReactomeEntry::computeUniProtReactomeEntryToReactomeEvents
+		);
+	}
 
+	private static Map<UniProtReactomeEntry, Set<ReactomeEvent>> computeUniProtReactomeEntryToReactomeEvents(
+		Session graphDBSession
+	) {
 		logger.info("Computing UniProt to Reactome events");
 
+		IndexBuildEvent indexBuildEvent = IndexBuildEvent.start("UniProt to Reactome events");
 		Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniprotReactomeEntryToReactomeEvent = new ConcurrentHashMap<>();
-		AtomicInteger uniProtReactomeEntriesProcessed = new AtomicInteger(0);
+		Map<UniProtReactomeEntry, Set<Long>> uniProtReactomeEntryToRLEIds = fetchUniProtReactomeEntryToRLEId(graphDBSession);
+		// Load, in bulk, only the events reachable from the UniProt entries (unless all events are to be loaded)
+		ReactomeEvent.fetchReactomeEvents(
+			getReachableEventIds(uniProtReactomeEntryToRLEIds.values(), graphDBSession), graphDBSession
+		);
+		ProgressTracker progressTracker = ProgressTracker.start(
+			logger, "UniProt to Reactome events", "UniProt entries", uniProtReactomeEntryToRLEIds.size()
+		);
 
-		for (
-			Entry<UniProtReactomeEntry, Set<Long>> uniProtToRLEIdsEntry :
-			fetchUniProtReactomeEntryToRLEId(graphDBSession).entrySet()
-		) {
+		for (Entry<UniProtReactomeEntry, Set<Long>> uniProtToRLEIdsEntry : uniProtReactomeEntryToRLEIds.entrySet()) {
 			UniProtReactomeEntry uniProtReactomeEntry = uniProtToRLEIdsEntry.getKey();
 			Set<Long> reactionLikeEventIds = uniProtToRLEIdsEntry.getValue();
 
@@ -233,21 +207,65 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 				uniProtReactomeEntry, k -> new HashSet<>()
 			).addAll(reactomeEvents);
 
-			if (uniProtReactomeEntriesProcessed.getAndIncrement() % 10000 == 0) {
-				logNumberOfUniProtEntriesProcessed(
-					uniProtReactomeEntriesProcessed,
-					fetchUniProtReactomeEntryToRLEId(graphDBSession).size()
-				);
-			}
+			progressTracker.increment();
 		}
+		progressTracker.finish();
 
-		logger.info("Finished computing UniProt to Reactome events");
+		indexBuildEvent.finish(uniprotReactomeEntryToReactomeEvent.size());
 
-		uniprotReactomeEntryToReactomeEventCache.put(graphDBSession, uniprotReactomeEntryToReactomeEvent);
+		logger.info("Finished computing UniProt to Reactome events");
 
 		return uniprotReactomeEntryToReactomeEvent;
 	}
 
+	/**
+	 * Retrieves the index of a session, building it on first request.  An index is built once even if requested from
+	 * several threads at once, and the cached index is retrieved without locking.
+	 */
+	private static <V> Map<UniProtReactomeEntry, V> getIndex(
+		Map<Session, Map<UniProtReactomeEntry, V>> indexCache, Session graphDBSession,
+		Function<Session, Map<UniProtReactomeEntry, V>> indexBuilder) {
+
+		Map<UniProtReactomeEntry, V> index = indexCache.get(graphDBSession);
+		if (index != null) {
+			return index;
+		}
+
+		// The indexes build on each other, so they are all built under one lock rather than inside computeIfAbsent
+		synchronized (UniProtReactomeEntry.class) {
+			index = indexCache.get(graphDBSession);
+			if (index == null) {
+				index = indexBuilder.apply(graphDBSession);
+				indexCache.put(graphDBSession, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Retrieves the database identifiers of the passed ReactionlikeEvents and of all Pathways containing them
+	 * @param reactionLikeEventIdSets Sets of ReactionlikeEvent db ids
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @return Set of ReactionlikeEvent and Pathway db ids
+	 */
+	private static Set<Long> getReachableEventIds(
+		Collection<Set<Long>> reactionLikeEventIdSets, Session graphDBSession
+	) {
+		Map<Long, Set<Long>> rleIdToPathwayIds = fetchRLEIdToPathwayId(graphDBSession);
+
+		Set<Long> reachableEventIds = new HashSet<>();
+		for (Set<Long> reactionLikeEventIds : reactionLikeEventIdSets) {
+			for (Long reactionLikeEventId : reactionLikeEventIds) {
+				if (reachableEventIds.add(reactionLikeEventId)) {
+					reachableEventIds.addAll(
+						rleIdToPathwayIds.getOrDefault(reactionLikeEventId, Collections.emptySet())
+					);
+				}
+			}
+		}
+		return reachableEventIds;
+	}
+
 	/**
 	 * Retrieves, from the graph database for the passed ReactionlikeEvent db ids, the set of ReactomeEvent objects
 	 * representing all associated events. The events will include both ReactionlikeEvents, as well as Pathways
@@ -313,7 +331,7 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 		long reactionLikeEventId, Session graphDBSession
 	) {
 		Map<Long, Set<Long>> rleIdToPathwayIds = fetchRLEIdToPathwayId(graphDBSession);
-		Set<Long> pathwayIds = rleIdToPathwayIds.computeIfAbsent(reactionLikeEventId, k -> new HashSet<>());
+		Set<Long> pathwayIds = rleIdToPathwayIds.getOrDefault(reactionLikeEventId, Collections.emptySet());
 
 		return pathwayIds
 			.stream()
@@ -329,9 +347,7 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 	 * @return ReactomeEvent object corresponding to the database identifier value passed
 	 */
 	private static ReactomeEvent convertDbIdToReactomeEvent(Long dbId, Session graphDBSession) {
-		return convertDbIdsToReactomeEvents(new HashSet<>(
-			Collections.singletonList(dbId)), graphDBSession
-		).iterator().next();
+		return ReactomeEvent.fetchReactomeEvents(Collections.singleton(dbId), graphDBSession).get(dbId);
 	}
 
 	/**
@@ -342,31 +358,7 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 	 * @return Set of ReactomeEvent objects corresponding to the database identifier values passed
 	 */
 	private static Set<ReactomeEvent> convertDbIdsToReactomeEvents(Set<Long> dbIds, Session graphDBSession) {
-		Map<Long, ReactomeEvent> dbIdToReactomeEvent = ReactomeEvent.fetchReactomeEventMap(graphDBSession);
-
-		return dbIds.stream().map(dbIdToReactomeEvent::get).collect(Collectors.toSet());
-	}
-
-	/**
-	 * Logs the number of UniProt entries in Reactome for which associated Reactome Events (ReactionlikeEvents and
-	 * Pathway) have been retrieved.  The number of entries processed (i.e. for which Reactome Events have been
-	 * retrieved) divided by the total number of entries to process will give the percentage of UniProt entries
-	 * processed at the time of this method call.
-	 * @param entriesProcessed Number of UniProt entries processed
-	 * @param totalEntries Total number of UniProt entries to process
-	 */
-	private static void logNumberOfUniProtEntriesProcessed(AtomicInteger entriesProcessed, int totalEntries) {
-		final String TWO_DECIMAL_PLACES = "%.2f";
-		double percentage = (entriesProcessed.doubleValue() / totalEntries) * 100;
-		String percentageString = String.format(TWO_DECIMAL_PLACES, percentage) + "%";
-
-		logger.info(
-			"Processed {} UniProt entries in Reactome out of {} ({}): {}",
-			entriesProcessed.get(),
-			totalEntries,
-			percentageString,
-			LocalTime.now()
-		);
+		return new HashSet<>(ReactomeEvent.fetchReactomeEvents(dbIds, graphDBSession).values());
 	}
 
 	/**
@@ -376,52 +368,100 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 	 * @return Map of UniProtReactomeEntry objects to set of database identifiers for ReactionlikeEvents in Reactome
 	 */
 	private static Map<UniProtReactomeEntry, Set<Long>> fetchUniProtReactomeEntryToRLEId(Session graphDBSession) {
-		if (uniprotReactomeEntryToReactionLikeEventIdCache.containsKey(graphDBSession)) {
-			return uniprotReactomeEntryToReactionLikeEventIdCache.get(graphDBSession);
-		}
+		return getIndex(
+			uniprotReactomeEntryToReactionLikeEventIdCache, graphDBSession,
+			UniProtReactomeEntry::computeUniProtReactomeEntryToRLEId
+		);
+	}
 
+	private static Map<UniProtReactomeEntry, Set<Long>> computeUniProtReactomeEntryToRLEId(Session graphDBSession) {
 		logger.info("Computing UniProt to RLE id");
 
-		Result result = graphDBSession.run(
-			String.join(System.lineSeparator(),
-				"MATCH " + referenceGeneProductToReactionLikeEventPath(),
-				"MATCH (rgp)-[:referenceDatabase]->(rd:ReferenceDatabase)",
-				"WHERE rd.displayName = 'UniProt'",
-				"RETURN DISTINCT rgp.dbId, coalesce(rgp.variantIdentifier, rgp.identifier) as rgp_accession, "
-					+ "rgp.displayName, rle.dbId",
-				"ORDER BY rgp_accession"
-			)
+		IndexBuildEvent indexBuildEvent = IndexBuildEvent.start("UniProt to RLE id");
+		Map<UniProtReactomeEntry, Set<Long>> uniprotReactomeEntryToReactionLikeEventId =
+			PaginatedExtraction.isEnabled() ?
+			fetchUniProtReactomeEntryToRLEIdByPage(graphDBSession) :
+			fetchUniProtReactomeEntryToRLEIdInSingleQuery(graphDBSession);
+		indexBuildEvent.finish(uniprotReactomeEntryToReactionLikeEventId.size());
+
+		logger.info("Finished computing UniProt to RLE id");
+
+		return uniprotReactomeEntryToReactionLikeEventId;
+	}
+
+	private static Map<UniProtReactomeEntry, Set<Long>> fetchUniProtReactomeEntryToRLEIdInSingleQuery(
+		Session graphDBSession) {
+
+		Map<UniProtReactomeEntry, Set<Long>> uniprotReactomeEntryToReactionLikeEventId = new HashMap<>();
+		GraphQueryExecutor.forEachRecord(graphDBSession, ExportQuery.UNIPROT_TO_RLE,
+			record -> {
+				long uniprotDbId = record.get(UNIPROT_DB_ID_COLUMN).asLong();
+				String uniprotAccession = record.get(UNIPROT_ACCESSION_COLUMN).asString();
+				String uniprotDisplayName = record.get(UNIPROT_DISPLAY_NAME_COLUMN).asString();
+				UniProtReactomeEntry uniProtReactomeEntry = UniProtReactomeEntry.get(
+					uniprotDbId, uniprotAccession, uniprotDisplayName
+				);
+
+				long reactionLikeEventId = record.get(RLE_ID_COLUMN).asLong();
+
+				uniprotReactomeEntryToReactionLikeEventId
+					.computeIfAbsent(uniProtReactomeEntry, k -> new HashSet<>())
+					.add(reactionLikeEventId);
+			}
+		);
+		return uniprotReactomeEntryToReactionLikeEventId;
+	}
+
+	/**
+	 * Extracts the UniProt to RLE id rows by dbId range across parallel sessions (see PaginatedExtraction).  Rows are
+	 * decoded on the extraction threads but the UniProtReactomeEntry objects are created when merging on the calling
+	 * thread.
+	 */
+	private static Map<UniProtReactomeEntry, Set<Long>> fetchUniProtReactomeEntryToRLEIdByPage(
+		Session graphDBSession) {
+
+		List<UniProtToRLEIdRow> rows = PaginatedExtraction.extract(
+			graphDBSession, ExportQuery.UNIPROT_DB_ID_RANGE, ExportQuery.UNIPROT_TO_RLE_PAGE, UniProtToRLEIdRow::new
 		);
 
 		Map<UniProtReactomeEntry, Set<Long>> uniprotReactomeEntryToReactionLikeEventId = new HashMap<>();
-		while (result.hasNext()) {
-			Record record = result.next();
+		for (UniProtToRLEIdRow row : rows) {
+			// UniProt entries which don't participate in any ReactionlikeEvent are not in the single query's result
+			if (row.reactionLikeEventIds.isEmpty()) {
+				continue;
+			}
 
-			long uniprotDbId = record.get("rgp.dbId").asLong();
-			String uniprotAccession = record.get("rgp_accession").asString();
-			String uniprotDisplayName = record.get("rgp.displayName").asString();
 			UniProtReactomeEntry uniProtReactomeEntry = UniProtReactomeEntry.get(
-				uniprotDbId, uniprotAccession, uniprotDisplayName
+				row.uniprotDbId, row.uniprotAccession, row.uniprotDisplayName
 			);
-
-			long reactionLikeEventId = record.get("rle.dbId").asLong();
-
 			uniprotReactomeEntryToReactionLikeEventId
 				.computeIfAbsent(uniProtReactomeEntry, k -> new HashSet<>())
-				.add(reactionLikeEventId);
+				.addAll(row.reactionLikeEventIds);
 		}
-
-		uniprotReactomeEntryToReactionLikeEventIdCache.put(graphDBSession, uniprotReactomeEntryToReactionLikeEventId);
-
-		logger.info("Finished computing UniProt to RLE id");
-
 		return uniprotReactomeEntryToReactionLikeEventId;
 	}
 
-	private static String referenceGeneProductToReactionLikeEventPath() {
-		return "(rgp:ReferenceGeneProduct)<-[:referenceEntity|:referenceSequence|:hasModifiedResidue]-" +
-		"(ewas:EntityWithAccessionedSequence)<-[:hasComponent|hasMember|hasCandidate|repeatedUnit" +
-		"|input|output|catalystActivity|physicalEntity*]-(rle:ReactionLikeEvent)";
+	/**
+	 * Row of the paginated UniProt to RLE id query: a UniProt entry and the ids of all its ReactionlikeEvents
+	 */
+	private static class UniProtToRLEIdRow {
+		private final long uniprotDbId;
+		private final String uniprotAccession;
+		private final String uniprotDisplayName;
+		private final List<Long> reactionLikeEventIds;
+
+		private static final int UNIPROT_DB_ID_COLUMN = ExportQuery.UNIPROT_TO_RLE_PAGE.getColumn("rgp.dbId");
+		private static final int UNIPROT_ACCESSION_COLUMN = ExportQuery.UNIPROT_TO_RLE_PAGE.getColumn("rgp_accession");
+		private static final int UNIPROT_DISPLAY_NAME_COLUMN =
+			ExportQuery.UNIPROT_TO_RLE_PAGE.getColumn("rgp.displayName");
+		private static final int RLE_IDS_COLUMN = ExportQuery.UNIPROT_TO_RLE_PAGE.getColumn("rleDbIds");
+
+		private UniProtToRLEIdRow(Record record) {
+			this.uniprotDbId = record.get(UNIPROT_DB_ID_COLUMN).asLong();
+			this.uniprotAccession = record.get(UNIPROT_ACCESSION_COLUMN).asString();
+			this.uniprotDisplayName = record.get(UNIPROT_DISPLAY_NAME_COLUMN).asString();
+			this.reactionLikeEventIds = record.get(RLE_IDS_COLUMN).asList(Value::asLong);
+		}
 	}
 
 	/**
@@ -449,43 +489,38 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 	}
 
 	/**
-	 * Sets the UniProt database identifier, from the Reactome database, for the UniProtReactomeEntry instance
-	 * @param dbId Database identifier
-	 */
-	private void setDbId(long dbId) {
-		this.dbId = dbId;
-	}
-
-	/**
-	 * Sets the UniProt accession for the UniProtReactomeEntry instance
+	 * Checks the UniProt accession for the UniProtReactomeEntry instance is legal
 	 * @param accession UniProt accession
+	 * @return The UniProt accession passed
 	 * @throws NullPointerException Thrown if the UniProt accession in null
 	 * @throws IllegalArgumentException Thrown if the UniProt accession is not a legal accession (i.e.
 	 * a 6 or 10 character String)
+	 * @see UniProtAccession
 	 */
-	private void setAccession(String accession) {
+	private String checkAccession(String accession) {
 		if (accession == null) {
 			throw new NullPointerException("UniProt Accession is null");
 		}
 
-		if (!isValidCanonicalAccession(accession) && !isValidIsoformAccession(accession)) {
+		if (!UniProtAccession.isValid(accession)) {
 			throw new IllegalArgumentException(
 				accession + " is not a legal UniProt accession.  Must be an alphanumeric string of length 6 or 10 " +
-				"optionally followed by a dash and one or more digits if the UniProt accession is representing an " +
+				"optionally followed by a dash and one to nine digits if the UniProt accession is representing an " +
 				"isoform"
 			);
 		}
 
-		this.accession = accession;
+		return accession;
 	}
 
 	/**
-	 * Sets the UniProt display name, from the Reactome database, for the UniProtReactomeEntry instance
+	 * Checks the UniProt display name, from the Reactome database, for the UniProtReactomeEntry instance is proper
 	 * @param displayName UniProt display name
+	 * @return The UniProt display name passed
 	 * @throws NullPointerException Thrown if the UniProt display name in null
 	 * @throws IllegalArgumentException Thrown if the UniProt display name does not begin with the prefix "UniProt:"
 	 */
-	private void setDisplayName(String displayName) {
+	private String checkDisplayName(String displayName) {
 		final String DISPLAY_NAME_PREFIX = "UniProt:";
 
 		if (displayName == null) {
@@ -498,32 +533,73 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 			);
 		}
 
-		this.displayName = displayName;
+		return displayName;
 	}
 
 	/**
-	 * Checks if a passed String is a valid canonical UniProt accession (i.e. 6 or 10 alphanumeric characters matching
-	 * the regular expression "[OPQ][0-9][A-Z0-9]{3}[0-9]|[A-NR-Z][0-9]([A-Z][A-Z0-9]{2}[0-9]){1,2}" as defined at
-	 * https://www.uniprot.org/help/accession_numbers as of October 2019).
-	 * E.g. P12345
-	 * @param accession UniProt accession to test for validity
-	 * @return true if the accession passed is a valid canonical (i.e. not an isoform) UniProt accession,
-	 * false otherwise
+	 * Resolves, together, the events of the passed UniProtReactomeEntry objects.  With the "lazy" event loading
+	 * strategy, this lets exports which go through many entries resolve them with one query per batch rather than one
+	 * per entry.  The resolved events are returned rather than kept, so the events held by a lazy export are bounded
+	 * by the caches of the resolver and the batches being written.
+	 * @param uniProtReactomeEntries UniProtReactomeEntry objects for which to resolve events
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @return Map of the passed UniProtReactomeEntry objects to the set of events in which each participates
 	 */
-	private boolean isValidCanonicalAccession(String accession) {
-		return ANCHORED_PARENT_ACCESSION_REGEX.matcher(accession).matches();
+	public static Map<UniProtReactomeEntry, Set<ReactomeEvent>> resolveEvents(
+		Collection<UniProtReactomeEntry> uniProtReactomeEntries, Session graphDBSession) {
+
+		Map<UniProtReactomeEntry, Set<ReactomeEvent>> resolvedEvents = new HashMap<>();
+		if (!ReactomeEvent.isLazyLoading()) {
+			for (UniProtReactomeEntry uniProtReactomeEntry : uniProtReactomeEntries) {
+				resolvedEvents.put(uniProtReactomeEntry, uniProtReactomeEntry.getEvents(graphDBSession));
+			}
+			return resolvedEvents;
+		}
+
+		Map<Long, UniProtReactomeEntry> uniProtDbIdToEntry = new HashMap<>();
+		for (UniProtReactomeEntry uniProtReactomeEntry : uniProtReactomeEntries) {
+			uniProtDbIdToEntry.put(uniProtReactomeEntry.getDbId(), uniProtReactomeEntry);
+		}
+
+		LazyEventResolver.getInstance(graphDBSession).getUniProtEvents(uniProtDbIdToEntry.keySet()).forEach(
+			(uniProtDbId, events) -> resolvedEvents.put(uniProtDbIdToEntry.get(uniProtDbId), events)
+		);
+		return resolvedEvents;
 	}
 
 	/**
-	 * Checks if a passed String is a valid isoform UniProt accession (i.e. 6 or 10 alphanumeric characters matching
-	 * the regular expression "[OPQ][0-9][A-Z0-9]{3}[0-9]|[A-NR-Z][0-9]([A-Z][A-Z0-9]{2}[0-9]){1,2}" as defined at
-	 * https://www.uniprot.org/help/accession_numbers as of October 2019, and then followed by a dash and by any number
-	 * of digits).  E.g. P12345-1
-	 * @param accession UniProt accession to test for validity
-	 * @return true if the accession passed is a valid UniProt accession for an isoform, false otherwise
+	 * Resolves, together, the top level pathways of the events of the passed UniProtReactomeEntry objects
+	 * @param uniProtReactomeEntries UniProtReactomeEntry objects for which to resolve top level pathways
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @return Map of the passed UniProtReactomeEntry objects to the set of top level pathways in which each
+	 * participates
+	 * @see #resolveEvents(Collection, Session)
 	 */
-	private boolean isValidIsoformAccession(String accession) {
-		return ISOFORM_REGEX.matcher(accession).matches();
+	public static Map<UniProtReactomeEntry, Set<ReactomeEvent>> resolveTopLevelPathways(
+		Collection<UniProtReactomeEntry> uniProtReactomeEntries, Session graphDBSession) {
+
+		Map<UniProtReactomeEntry, Set<ReactomeEvent>> resolvedTopLevelPathways = new HashMap<>();
+		if (!ReactomeEvent.isLazyLoading()) {
+			for (UniProtReactomeEntry uniProtReactomeEntry : uniProtReactomeEntries) {
+				resolvedTopLevelPathways.put(
+					uniProtReactomeEntry, uniProtReactomeEntry.getTopLevelPathways(graphDBSession)
+				);
+			}
+			return resolvedTopLevelPathways;
+		}
+
+		resolveEvents(uniProtReactomeEntries, graphDBSession).forEach((uniProtReactomeEntry, events) ->
+			resolvedTopLevelPathways.put(uniProtReactomeEntry, filterTopLevelPathways(events, graphDBSession))
+		);
+		return resolvedTopLevelPathways;
+	}
+
+	private static Set<ReactomeEvent> filterTopLevelPathways(Set<ReactomeEvent> events, Session graphDBSession) {
+		Set<Long> topLevelPathwayIds = PathwayHierarchyUtilities.getTopLevelPathwayIds(graphDBSession);
+		return events
+			.stream()
+			.filter(reactomeEvent -> topLevelPathwayIds.contains(reactomeEvent.getDbId()))
+			.collect(Collectors.toSet());
 	}
 
 	/**
@@ -533,12 +609,11 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 	 * @return Set of Reactome Events in Reactome
 	 */
 	public Set<ReactomeEvent> getEvents(Session graphDBSession) {
-		if (this.reactomeEvents == null) {
-			this.reactomeEvents = fetchUniProtReactomeEntryToReactomeEvents(graphDBSession)
-				.computeIfAbsent(this, k -> new HashSet<>());
+		if (ReactomeEvent.isLazyLoading()) {
+			return resolveEvents(Collections.singletonList(this), graphDBSession).get(this);
 		}
 
-		return this.reactomeEvents;
+		return fetchUniProtReactomeEntryToReactomeEvents(graphDBSession).getOrDefault(this, Collections.emptySet());
 	}
 
 	/**
@@ -548,52 +623,81 @@ public class UniProtReactomeEntry implements Comparable<UniProtReactomeEntry> {
 	 * @return Set of Reactome Events representing top level pathways in Reactome
 	 */
 	public Set<ReactomeEvent> getTopLevelPathways(Session graphDBSession) {
-		if (this.topLevelPathways == null) {
-			this.topLevelPathways = fetchUniProtReactomeEntryToTopLevelPathways(graphDBSession)
-				.computeIfAbsent(this, k -> new HashSet<>());
+		if (ReactomeEvent.isLazyLoading()) {
+			return filterTopLevelPathways(getEvents(graphDBSession), graphDBSession);
 		}
 
-		return this.topLevelPathways;
+		return fetchUniProtReactomeEntryToTopLevelPathways(graphDBSession)
+			.getOrDefault(this, Collections.emptySet());
+	}
+
+	/**
+	 * Retrieves the packed key of the canonical part of the UniProt accession (shared by all isoforms of the
+	 * canonical accession)
+	 * @return Accession key
+	 * @see UniProtAccession#getAccessionKey(CharSequence)
+	 */
+	public long getAccessionKey() {
+		return this.accessionKey;
 	}
 
 	/**
-	 * Compares UniProt accession values of this object and parameter
+	 * Retrieves the packed key of the isoform suffix of the UniProt accession (0 for a canonical accession)
+	 * @return Isoform key
+	 * @see UniProtAccession#getIsoformKey(CharSequence)
+	 */
+	public long getIsoformKey() {
+		return this.isoformKey;
+	}
+
+	/**
+	 * Compares UniProt accession values of this object and parameter (using their packed keys, which order the same
+	 * as the accession Strings)
 	 * @param obj UniProtReactomeEntry object to compare
 	 * @return Value of String compare between this UniProt accession and the parameter's UniProt accession
 	 */
 	@Override
 	public int compareTo(UniProtReactomeEntry obj) {
-		return this.getAccession().compareTo(obj.getAccession());
+		return UniProtAccession.compare(this.accessionKey, this.isoformKey, obj.accessionKey, obj.isoformKey);
 	}
 
 	/**
-	 * Checks equality based on object type and value of UniProt db id, accession, and display name
+	 * Checks equality by identity.  UniProtReactomeEntry objects are only created by the get method, which returns
+	 * the same object for a UniProt db id (and rejects a different accession or display name for it), so two entries
+	 * with the same UniProt db id, accession, and display name are always the same object.
 	 * @param obj Object to check for equality with the calling UniProtReactomeEntry.
-	 * @return <code>true</code> if the same object or a UniProtReactomeEntry object with the same UniProt db id,
-	 * accession, and display name.  Returns <code>false</code> otherwise.
+	 * @return <code>true</code> if the same object.  Returns <code>false</code> otherwise.
+	 * @see #structurallyEquals(UniProtReactomeEntry)
 	 */
 	@Override
 	public boolean equals(Object obj) {
-		if (obj == this) {
-			return true;
-		}
+		return obj == this;
+	}
 
-		if (!(obj instanceof UniProtReactomeEntry)) {
-			return false;
+	/**
+	 * Checks equality based on the value of UniProt db id, accession, and display name (e.g. for tests)
+	 * @param other UniProtReactomeEntry to compare with the calling UniProtReactomeEntry
+	 * @return <code>true</code> if the same object or a UniProtReactomeEntry object with the same UniProt db id,
+	 * accession, and display name.  Returns <code>false</code> otherwise.
+	 */
+	public boolean structurallyEquals(UniProtReactomeEntry other) {
+		if (other == this) {
+			return true;
 		}
 
-		return ((UniProtReactomeEntry) obj).getDbId() == this.getDbId() &&
-			   ((UniProtReactomeEntry) obj).getAccession().equals(this.getAccession()) &&
-			   ((UniProtReactomeEntry) obj).getDisplayName().equals(this.getDisplayName());
+		return other != null &&
+			   other.getDbId() == this.getDbId() &&
+			   other.getAccession().equals(this.getAccession()) &&
+			   other.getDisplayName().equals(this.getDisplayName());
 	}
 
 	/**
-	 * Retrieves a hash code based on the object's set fields
+	 * Retrieves the hash code based on the object's fields, computed once when the object is created
 	 * @return Hash code of UniProtReactomeEntry object
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(getDbId(), getAccession(), getDisplayName());
+		return this.hashCode;
 	}
 
 	/**
@@ -0,0 +1,143 @@
+package org.reactome.release.dataexport.datastructures;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+/**
+ * Thread-safe registry of the canonical UniProtReactomeEntry object for each UniProt database identifier.  Lookups of
+ * registered entries take no lock and entries are created under the lock of a single bin of the underlying
+ * ConcurrentHashMap, so UniProt entries can be interned from many threads at once (e.g. while decoding query results
+ * in parallel).
+ *
+ * The registry is scoped to an export run: startNewRun replaces the current registry so entries from a previous run
+ * are not kept for the lifetime of the process.
+ */
+public class UniProtReactomeEntryRegistry {
+	private static final int PARALLEL_INTERN_THRESHOLD = 10000;
+
+	private static volatile UniProtReactomeEntryRegistry currentRegistry = new UniProtReactomeEntryRegistry();
+
+	private final ConcurrentMap<Long, UniProtReactomeEntry> uniProtReactomeEntries;
+
+	/**
+	 * Creates an empty registry
+	 */
+	public UniProtReactomeEntryRegistry() {
+		this.uniProtReactomeEntries = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the registry of the current export run
+	 * @return Current UniProtReactomeEntryRegistry
+	 */
+	public static UniProtReactomeEntryRegistry current() {
+		return currentRegistry;
+	}
+
+	/**
+	 * Replaces the registry of the current export run with an empty registry (entries obtained from the previous
+	 * registry remain valid but are no longer canonical for new lookups)
+	 * @return The new current UniProtReactomeEntryRegistry
+	 */
+	public static UniProtReactomeEntryRegistry startNewRun() {
+		currentRegistry = new UniProtReactomeEntryRegistry();
+		return currentRegistry;
+	}
+
+	/**
+	 * Creates/retrieves the UniProtReactomeEntry object for a UniProt database identifier
+	 * @param uniprotDbId UniProt instance database identifier in Reactome
+	 * @param uniprotAccession UniProt instance accession (e.g. "P01234")
+	 * @param uniprotDisplayName UniProt instance display name in Reactome (e.g. "UniProt:P01234 GENE_NAME")
+	 * @return UniProtReactomeEntry describing UniProt instance
+	 * @throws IllegalArgumentException Thrown if the UniProtReactomeEntry for the database identifier has a different
+	 * accession or display name or if the accession or display name is not legal
+	 */
+	public UniProtReactomeEntry get(long uniprotDbId, String uniprotAccession, String uniprotDisplayName) {
+		UniProtReactomeEntry uniProtReactomeEntry = uniProtReactomeEntries.get(uniprotDbId);
+		if (uniProtReactomeEntry == null) {
+			uniProtReactomeEntry = uniProtReactomeEntries.computeIfAbsent(
+				uniprotDbId, k -> new UniProtReactomeEntry(uniprotDbId, uniprotAccession, uniprotDisplayName)
+			);
+		}
+
+		if (accessionOrNameMismatched(uniProtReactomeEntry, uniprotAccession, uniprotDisplayName)) {
+			throw new IllegalArgumentException(getExceptionMessage(
+				uniProtReactomeEntry, uniprotDbId, uniprotAccession, uniprotDisplayName
+			));
+		}
+
+		return uniProtReactomeEntry;
+	}
+
+	/**
+	 * Creates/retrieves the UniProtReactomeEntry objects for columns of UniProt database identifiers, accessions and
+	 * display names (e.g. from a query result).  Large columns are interned in parallel.
+	 * @param uniprotDbIds UniProt instance database identifiers in Reactome
+	 * @param uniprotAccessions UniProt instance accessions (in the same order as the database identifiers)
+	 * @param uniprotDisplayNames UniProt instance display names (in the same order as the database identifiers)
+	 * @return Array of UniProtReactomeEntry objects in the same order as the database identifiers
+	 * @throws IllegalArgumentException Thrown if the columns have different lengths or any entry has a mismatched or
+	 * illegal accession or display name
+	 */
+	public UniProtReactomeEntry[] internAll(long[] uniprotDbIds, String[] uniprotAccessions,
+											String[] uniprotDisplayNames) {
+		if (uniprotAccessions.length != uniprotDbIds.length || uniprotDisplayNames.length != uniprotDbIds.length) {
+			throw new IllegalArgumentException("UniProt db id, accession and display name columns differ in length");
+		}
+
+		UniProtReactomeEntry[] uniProtReactomeEntryArray = new UniProtReactomeEntry[uniprotDbIds.length];
+		IntStream rows = IntStream.range(0, uniprotDbIds.length);
+		if (uniprotDbIds.length >= PARALLEL_INTERN_THRESHOLD) {
+			rows = rows.parallel();
+		}
+		rows.forEach(row ->
+			uniProtReactomeEntryArray[row] = get(uniprotDbIds[row], uniprotAccessions[row], uniprotDisplayNames[row])
+		);
+		return uniProtReactomeEntryArray;
+	}
+
+	/**
+	 * Retrieves the number of UniProtReactomeEntry objects in the registry
+	 * @return Number of registered entries
+	 */
+	public int size() {
+		return uniProtReactomeEntries.size();
+	}
+
+	/**
+	 * Checks if the UniProt accession or display name of the UniProtReactomeEntry does not match the expected values
+	 * @param uniProtReactomeEntry UniProtReactomeEntry to check for mis-matches
+	 * @param uniprotAccession Expected UniProt accession
+	 * @param uniprotDisplayName Expected UniProt display name
+	 * @return <code>true</code> if either the accession or display name of the UniProtReactomeEntry object does not
+	 * match the expected values and <code>false</code> otherwise
+	 */
+	private static boolean accessionOrNameMismatched(UniProtReactomeEntry uniProtReactomeEntry,
+													 String uniprotAccession, String uniprotDisplayName) {
+		return !uniProtReactomeEntry.getAccession().equals(uniprotAccession) ||
+			   !uniProtReactomeEntry.getDisplayName().equals(uniprotDisplayName);
+	}
+
+	/**
+	 * Generates the exception message for a UniProtReactomeEntry that has unexpected values
+	 * @param uniProtReactomeEntry UniProtReactomeEntry with unexpected values
+	 * @param dbId Expected UniProt instance Reactome database identifier
+	 * @param uniprotAccession Expected UniProt accession
+	 * @param uniprotDisplayName Expected UniProt display name
+	 * @return Exception message for mis-matching values of a UniProtReactomeEntry and other expected values
+	 */
+	private static String getExceptionMessage(UniProtReactomeEntry uniProtReactomeEntry, long dbId,
+											  String uniprotAccession, String uniprotDisplayName) {
+		return String.join(System.lineSeparator(),
+			"Cached UniProt Reactome Entry was " + uniProtReactomeEntry,
+			" but passed values were ",
+			String.join(System.lineSeparator(),
+				"Db id: " + dbId,
+				"Accession: " + uniprotAccession,
+				"Display name: " + uniprotDisplayName
+			)
+		);
+	}
+}
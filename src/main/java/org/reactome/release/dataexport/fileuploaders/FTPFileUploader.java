@@ -8,12 +8,16 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.stream.Collectors;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.reactome.release.dataexport.archive.ExportManifest;
+import org.reactome.release.dataexport.monitoring.FTPOperationEvent;
+import org.reactome.release.dataexport.monitoring.ProgressTracker;
 
 /**
  * Class for updating Reactome export files on an FTP Server.  Classes which extend this abstract class will provide
@@ -128,16 +132,63 @@ public abstract class FTPFileUploader {
 			return false;
 		}
 
+		if (!filesToUploadMatchExportManifest(filesToUpload)) {
+			return false;
+		}
+
+		long totalBytesToUpload = 0;
+		for (String fileToUpload : filesToUpload) {
+			totalBytesToUpload += Files.size(Paths.get(fileToUpload));
+		}
+		ProgressTracker progressTracker = ProgressTracker.start(
+			logger, "Upload to " + getServerHostName(), "bytes", totalBytesToUpload
+		);
+
 		for (String fileToUpload : filesToUpload) {
 			if (!uploadFileToServer(fileToUpload)) {
 				logger.error("Unable to upload file '{}' to the server {}", fileToUpload, getServerHostName());
 				return false; // File failed to upload - indicates not all files were uploaded successfully
 			}
+			progressTracker.add(Files.size(Paths.get(fileToUpload)));
 		}
+		progressTracker.finish();
 
 		return true; // All files uploaded successfully
 	}
 
+	/**
+	 * Checks the files to upload against the export manifest of the release (if the output directory has one), so
+	 * only files which were completely written by the export, and have not changed size since, are uploaded.  The
+	 * sizes are compared with the manifest without reading the files.
+	 *
+	 * @param filesToUpload Names (including path) of the local files to upload
+	 * @return <code>true</code> if there is no export manifest or all the files are listed in it with their current
+	 * size; <code>false</code> otherwise
+	 * @throws IOException Thrown if unable to read the export manifest or the size of a file
+	 */
+	boolean filesToUploadMatchExportManifest(List<String> filesToUpload) throws IOException {
+		Map<String, ExportManifest.Entry> fileNameToManifestEntry =
+			ExportManifest.readManifest(Paths.get(getLocalOutputDirectoryPath()), getReactomeReleaseNumber());
+		if (fileNameToManifestEntry == null) {
+			logger.warn("No export manifest was found in the directory '{}' to check the files to upload against",
+				getLocalOutputDirectoryPath());
+			return true;
+		}
+
+		for (String fileToUpload : filesToUpload) {
+			Path filePath = Paths.get(fileToUpload);
+			ExportManifest.Entry manifestEntry = fileNameToManifestEntry.get(filePath.getFileName().toString());
+			if (manifestEntry == null || manifestEntry.getSize() != Files.size(filePath)) {
+				logger.error("File '{}' is not listed with its current size in the export manifest, so it was not " +
+					"completely written by the export.  No files will be uploaded to {}",
+					fileToUpload, getServerHostName());
+				return false;
+			}
+			logger.info("File '{}' matches the export manifest (SHA-256 {})", fileToUpload, manifestEntry.getSha256());
+		}
+		return true;
+	}
+
 	/**
 	 * Deletes the profile and links files (which match the pattern(s) defined by the method "isPreviousFile" for
 	 * outdated Reactome data on the FTP Server.  Returns true if and only if all files are successfully deleted; false
@@ -263,7 +314,7 @@ public abstract class FTPFileUploader {
 
 	protected List<String> getListingOfReactomeFilesPresentOnServer() throws IOException {
 		return Arrays
-			.stream(getFtpClientToServer().listFiles())
+			.stream(listFilesOnServer())
 			.map(FTPFile::toFormattedString).collect(Collectors.toList());
 	}
 
@@ -332,7 +383,11 @@ public abstract class FTPFileUploader {
 	 * @see #getPassword()
 	 */
 	protected boolean loginToFTPServer() throws IOException {
-		return getFtpClientToServer().login(getUserName(), getPassword());
+		FTPOperationEvent ftpOperationEvent = FTPOperationEvent.start(getServerHostName(), "USER", null);
+		boolean loginSuccessful = getFtpClientToServer().login(getUserName(), getPassword());
+		ftpOperationEvent.finish(0, getFtpClientToServer().getReplyCode());
+
+		return loginSuccessful;
 	}
 
 	/**
@@ -426,8 +481,12 @@ public abstract class FTPFileUploader {
 		logger.info("Uploading file '{}' as {} to server {}", fileToUpload, fileUploadName, getServerHostName());
 
 		boolean isUploadSuccessful;
+		FTPOperationEvent ftpOperationEvent = FTPOperationEvent.start(getServerHostName(), "STOR", fileUploadName);
 		try(InputStream fileToUploadInputStream = new FileInputStream(fileToUpload)) {
-			if (getFtpClientToServer().storeFile(fileUploadName, fileToUploadInputStream)) {
+			boolean fileStored = getFtpClientToServer().storeFile(fileUploadName, fileToUploadInputStream);
+			ftpOperationEvent.finish(Files.size(Paths.get(fileToUpload)), getFtpClientToServer().getReplyCode());
+
+			if (fileStored) {
 				logger.info("Successfully uploaded '{}' as {} to server {}",
 					fileToUpload, fileUploadName, getServerHostName());
 				isUploadSuccessful = true;
@@ -444,7 +503,11 @@ public abstract class FTPFileUploader {
 	boolean deleteOldFileFromServer(String fileToDelete) throws IOException {
 		logger.info("Deleting file '{}' from FTP server {}", fileToDelete, getServerHostName());
 
-		if (getFtpClientToServer().deleteFile(fileToDelete)) {
+		FTPOperationEvent ftpOperationEvent = FTPOperationEvent.start(getServerHostName(), "DELE", fileToDelete);
+		boolean fileDeleted = getFtpClientToServer().deleteFile(fileToDelete);
+		ftpOperationEvent.finish(0, getFtpClientToServer().getReplyCode());
+
+		if (fileDeleted) {
 			logger.info("Successfully deleted '{}' from FTP server {}", fileToDelete, getServerHostName());
 			return true;
 		} else {
@@ -455,11 +518,19 @@ public abstract class FTPFileUploader {
 	}
 
 	private List<String> getAllFilesOnServer() throws IOException {
-		return Arrays.stream(getFtpClientToServer().listFiles())
+		return Arrays.stream(listFilesOnServer())
 			.map(FTPFile::getName)
 			.collect(Collectors.toList());
 	}
 
+	private FTPFile[] listFilesOnServer() throws IOException {
+		FTPOperationEvent ftpOperationEvent = FTPOperationEvent.start(getServerHostName(), "LIST", null);
+		FTPFile[] filesOnServer = getFtpClientToServer().listFiles();
+		ftpOperationEvent.finish(0, getFtpClientToServer().getReplyCode());
+
+		return filesOnServer;
+	}
+
 	private String getFtpClientReplyMessage() {
 		return getFtpClientToServer().getReplyString();
 	}
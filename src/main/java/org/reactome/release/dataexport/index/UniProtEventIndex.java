@@ -0,0 +1,280 @@
+package org.reactome.release.dataexport.index;
+
+import org.reactome.release.dataexport.datastructures.UniProtAccession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped index of the UniProt entries in Reactome to the db ids of the events (ReactionlikeEvents
+ * and the Pathways containing them) in which they participate and of their top level pathways, as written by
+ * UniProtEventIndexWriter for a release.  The index can be opened by other release steps and tools, as well as by the
+ * exporter, to look entries up without querying the graph database.
+ *
+ * Opening the index only maps the file and checks its header; nothing is deserialized.  Entries are looked up by
+ * binary search of the packed accession keys (see UniProtAccession) directly in the mapped file, whose pages the
+ * operating system loads as they are read.  An index can be read by any number of threads.
+ *
+ * The file is big-endian and laid out as:
+ *
+ * - Header (32 bytes): magic number, format version, release number, number of entries, number of event ids, number
+ * of top level pathway ids (4 bytes each after the 8 byte magic number) and 4 reserved bytes
+ * - Accession keys, isoform keys and UniProt db ids of the entries (a long per entry each), sorted by accession
+ * - Event id offsets and top level pathway id offsets of the entries (an int per entry, plus one, each), padded to 8
+ * bytes
+ * - Event ids and top level pathway ids (longs), sorted within each entry
+ */
+public class UniProtEventIndex {
+	static final long MAGIC_NUMBER = 0x5245414354555049L; // "REACTUPI"
+	static final int FORMAT_VERSION = 1;
+	static final int HEADER_SIZE = 32;
+
+	private final Path indexPath;
+	private final ByteBuffer buffer;
+	private final int releaseNumber;
+	private final int numberOfEntries;
+	private final int accessionKeysPosition;
+	private final int isoformKeysPosition;
+	private final int uniProtDbIdsPosition;
+	private final int eventOffsetsPosition;
+	private final int topLevelPathwayOffsetsPosition;
+	private final int eventIdsPosition;
+	private final int topLevelPathwayIdsPosition;
+
+	private UniProtEventIndex(Path indexPath, ByteBuffer buffer) {
+		this.indexPath = indexPath;
+		this.buffer = buffer;
+
+		if (buffer.capacity() < HEADER_SIZE || buffer.getLong(0) != MAGIC_NUMBER) {
+			throw new IllegalStateException(indexPath + " is not a UniProt event index");
+		}
+		if (buffer.getInt(8) != FORMAT_VERSION) {
+			throw new IllegalStateException(
+				indexPath + " has index format version " + buffer.getInt(8) + " (expected " + FORMAT_VERSION + ")"
+			);
+		}
+		this.releaseNumber = buffer.getInt(12);
+		this.numberOfEntries = buffer.getInt(16);
+		int numberOfEventIds = buffer.getInt(20);
+		int numberOfTopLevelPathwayIds = buffer.getInt(24);
+
+		this.accessionKeysPosition = HEADER_SIZE;
+		this.isoformKeysPosition = this.accessionKeysPosition + 8 * this.numberOfEntries;
+		this.uniProtDbIdsPosition = this.isoformKeysPosition + 8 * this.numberOfEntries;
+		this.eventOffsetsPosition = this.uniProtDbIdsPosition + 8 * this.numberOfEntries;
+		this.topLevelPathwayOffsetsPosition = this.eventOffsetsPosition + 4 * (this.numberOfEntries + 1);
+		this.eventIdsPosition = alignTo8Bytes(this.topLevelPathwayOffsetsPosition + 4 * (this.numberOfEntries + 1));
+		this.topLevelPathwayIdsPosition = this.eventIdsPosition + 8 * numberOfEventIds;
+
+		long expectedSize = getIndexSize(this.numberOfEntries, numberOfEventIds, numberOfTopLevelPathwayIds);
+		if (this.numberOfEntries < 0 || numberOfEventIds < 0 || numberOfTopLevelPathwayIds < 0 ||
+			buffer.capacity() != expectedSize) {
+			throw new IllegalStateException(
+				indexPath + " is " + buffer.capacity() + " bytes but its header describes " + expectedSize + " bytes"
+			);
+		}
+	}
+
+	/**
+	 * Opens an index file by mapping it into memory (the file can be deleted or replaced once opened)
+	 * @param indexPath Path of the index file
+	 * @return Index of the file
+	 * @throws IOException Thrown if unable to open or map the file
+	 * @throws IllegalStateException Thrown if the file is not an index of a supported format version or is larger
+	 * than 2GB
+	 */
+	public static UniProtEventIndex open(Path indexPath) throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+			if (fileChannel.size() > Integer.MAX_VALUE) {
+				throw new IllegalStateException(indexPath + " is too large to map (" + fileChannel.size() + " bytes)");
+			}
+			return new UniProtEventIndex(
+				indexPath, fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size())
+			);
+		}
+	}
+
+	/**
+	 * Retrieves the path of the index file of a release
+	 * @param outputDirectory Output directory of the export
+	 * @param reactomeReleaseNumber Reactome release number of the export
+	 * @return Path of the index file
+	 */
+	public static Path getIndexPath(Path outputDirectory, int reactomeReleaseNumber) {
+		return outputDirectory.resolve("uniprot_event_index_" + reactomeReleaseNumber + ".bin");
+	}
+
+	public Path getIndexPath() {
+		return this.indexPath;
+	}
+
+	/**
+	 * Retrieves the Reactome release number for which the index was written
+	 * @return Reactome release number
+	 */
+	public int getReleaseNumber() {
+		return this.releaseNumber;
+	}
+
+	/**
+	 * Retrieves the number of UniProt entries in the index
+	 * @return Number of entries
+	 */
+	public int size() {
+		return this.numberOfEntries;
+	}
+
+	/**
+	 * Finds the index of the entry of a UniProt accession
+	 * @param accession UniProt accession (e.g. "P04637" or "P04637-2")
+	 * @return Index of the entry, from 0 to size() - 1 in accession order, or -1 if the accession is not in the index
+	 * (or is not a valid UniProt accession)
+	 */
+	public int indexOf(String accession) {
+		if (accession == null || !UniProtAccession.isValid(accession)) {
+			return -1;
+		}
+
+		long accessionKey = UniProtAccession.getAccessionKey(accession);
+		long isoformKey = UniProtAccession.getIsoformKey(accession);
+		int low = 0;
+		int high = this.numberOfEntries - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = UniProtAccession.compare(
+				getAccessionKey(middle), getIsoformKey(middle), accessionKey, isoformKey
+			);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks if a UniProt accession is in the index
+	 * @param accession UniProt accession
+	 * @return <code>true</code> if the accession has an entry; <code>false</code> otherwise
+	 */
+	public boolean contains(String accession) {
+		return indexOf(accession) != -1;
+	}
+
+	/**
+	 * Retrieves the db ids of the events in which the entry of a UniProt accession participates
+	 * @param accession UniProt accession
+	 * @return Sorted event db ids (empty if the accession is not in the index)
+	 */
+	public long[] getEventIds(String accession) {
+		int entryIndex = indexOf(accession);
+		return entryIndex != -1 ? getEventIds(entryIndex) : new long[0];
+	}
+
+	/**
+	 * Retrieves the db ids of the top level pathways in which the entry of a UniProt accession participates
+	 * @param accession UniProt accession
+	 * @return Sorted top level pathway db ids (empty if the accession is not in the index)
+	 */
+	public long[] getTopLevelPathwayIds(String accession) {
+		int entryIndex = indexOf(accession);
+		return entryIndex != -1 ? getTopLevelPathwayIds(entryIndex) : new long[0];
+	}
+
+	/**
+	 * Retrieves the UniProt accession of an entry
+	 * @param entryIndex Index of the entry
+	 * @return UniProt accession
+	 * @throws IndexOutOfBoundsException Thrown if the entry index is not between 0 and size() - 1
+	 */
+	public String getAccession(int entryIndex) {
+		checkEntryIndex(entryIndex);
+		return UniProtAccession.toAccession(getAccessionKey(entryIndex), getIsoformKey(entryIndex));
+	}
+
+	/**
+	 * Retrieves the db id, in Reactome, of the UniProt entry
+	 * @param entryIndex Index of the entry
+	 * @return UniProt db id
+	 * @throws IndexOutOfBoundsException Thrown if the entry index is not between 0 and size() - 1
+	 */
+	public long getUniProtDbId(int entryIndex) {
+		checkEntryIndex(entryIndex);
+		return this.buffer.getLong(this.uniProtDbIdsPosition + 8 * entryIndex);
+	}
+
+	/**
+	 * Retrieves the db ids of the events in which an entry participates
+	 * @param entryIndex Index of the entry
+	 * @return Sorted event db ids
+	 * @throws IndexOutOfBoundsException Thrown if the entry index is not between 0 and size() - 1
+	 */
+	public long[] getEventIds(int entryIndex) {
+		checkEntryIndex(entryIndex);
+		return readIds(this.eventOffsetsPosition, this.eventIdsPosition, entryIndex);
+	}
+
+	/**
+	 * Retrieves the db ids of the top level pathways in which an entry participates
+	 * @param entryIndex Index of the entry
+	 * @return Sorted top level pathway db ids
+	 * @throws IndexOutOfBoundsException Thrown if the entry index is not between 0 and size() - 1
+	 */
+	public long[] getTopLevelPathwayIds(int entryIndex) {
+		checkEntryIndex(entryIndex);
+		return readIds(this.topLevelPathwayOffsetsPosition, this.topLevelPathwayIdsPosition, entryIndex);
+	}
+
+	/**
+	 * Computes the size of an index file
+	 * @param numberOfEntries Number of UniProt entries
+	 * @param numberOfEventIds Number of event ids of all entries
+	 * @param numberOfTopLevelPathwayIds Number of top level pathway ids of all entries
+	 * @return Size of the file in bytes
+	 */
+	static long getIndexSize(long numberOfEntries, long numberOfEventIds, long numberOfTopLevelPathwayIds) {
+		long offsetsEnd = HEADER_SIZE + 3 * 8 * numberOfEntries + 2 * 4 * (numberOfEntries + 1);
+		return alignTo8Bytes(offsetsEnd) + 8 * (numberOfEventIds + numberOfTopLevelPathwayIds);
+	}
+
+	static int alignTo8Bytes(int position) {
+		return (position + 7) & ~7;
+	}
+
+	static long alignTo8Bytes(long position) {
+		return (position + 7) & ~7L;
+	}
+
+	private long getAccessionKey(int entryIndex) {
+		return this.buffer.getLong(this.accessionKeysPosition + 8 * entryIndex);
+	}
+
+	private long getIsoformKey(int entryIndex) {
+		return this.buffer.getLong(this.isoformKeysPosition + 8 * entryIndex);
+	}
+
+	private long[] readIds(int offsetsPosition, int idsPosition, int entryIndex) {
+		int start = this.buffer.getInt(offsetsPosition + 4 * entryIndex);
+		int end = this.buffer.getInt(offsetsPosition + 4 * (entryIndex + 1));
+
+		long[] ids = new long[end - start];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = this.buffer.getLong(idsPosition + 8 * (start + i));
+		}
+		return ids;
+	}
+
+	private void checkEntryIndex(int entryIndex) {
+		if (entryIndex < 0 || entryIndex >= this.numberOfEntries) {
+			throw new IndexOutOfBoundsException(
+				"Entry index " + entryIndex + " is out of bounds for size " + this.numberOfEntries
+			);
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package org.reactome.release.dataexport.index;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.Session;
+import org.reactome.release.dataexport.archive.ExportManifest;
+import org.reactome.release.dataexport.datastructures.ReactomeEvent;
+import org.reactome.release.dataexport.datastructures.UniProtReactomeEntry;
+import org.reactome.release.dataexport.monitoring.FileWriteEvent;
+import org.reactome.release.dataexport.utilities.PathwayHierarchyUtilities;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Writes the UniProt to events and UniProt to top level pathways mappings built by the export to a memory-mapped
+ * index file (see UniProtEventIndex), so other release steps and tools can look them up rather than recompute them.
+ * The file is written through ExportManifest, so it is published atomically and listed, with its checksum, in the
+ * export manifest.
+ */
+public class UniProtEventIndexWriter {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+
+	private static boolean enabled;
+	private static Path outputDirectory = Paths.get("output");
+	private static int reactomeReleaseNumber;
+
+	private UniProtEventIndexWriter() {}
+
+	/**
+	 * Sets whether the index is written (uniProtEventIndex; default false) and the output directory and release
+	 * number of the index from the configuration properties of the data export
+	 * @param props Configuration properties for the data export
+	 */
+	public static void configure(Properties props) {
+		enabled = Boolean.parseBoolean(props.getProperty("uniProtEventIndex", "false").trim());
+		outputDirectory = Paths.get(props.getProperty("outputDir", "output"));
+		reactomeReleaseNumber = Integer.parseInt(props.getProperty("releaseNumber"));
+	}
+
+	/**
+	 * Checks if the index is written by the export
+	 * @return <code>true</code> if the uniProtEventIndex property is true; <code>false</code> otherwise
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Writes the index of the UniProt entries to their events and top level pathways, retrieved from the graph
+	 * database, to the output directory.  The index needs the events of all UniProt entries, so it is not written with
+	 * the "lazy" event loading strategy (which only loads the events of the entries exported).
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @return Path of the index file or null if the events are loaded lazily
+	 * @throws IOException Thrown if unable to write the index file
+	 */
+	public static Path writeIndex(Session graphDBSession) throws IOException {
+		if (ReactomeEvent.isLazyLoading()) {
+			logger.warn("The UniProt event index is not written with the lazy event loading strategy");
+			return null;
+		}
+
+		Path indexPath = UniProtEventIndex.getIndexPath(outputDirectory, reactomeReleaseNumber);
+		write(
+			indexPath,
+			UniProtReactomeEntry.fetchUniProtReactomeEntryToReactomeEvents(graphDBSession),
+			PathwayHierarchyUtilities.getTopLevelPathwayIds(graphDBSession),
+			reactomeReleaseNumber
+		);
+		return indexPath;
+	}
+
+	/**
+	 * Writes an index file of UniProt entries to the events in which they participate.  The top level pathways of an
+	 * entry are its events which are top level pathways.  Entries with the same accession (e.g. from different
+	 * species) are indexed as one entry with the events of all of them and the db id of the first.
+	 * @param indexPath Path of the index file to write
+	 * @param uniProtReactomeEntryToEvents Map of UniProt entries to the events in which they participate
+	 * @param topLevelPathwayIds Db ids of the top level pathways
+	 * @param reactomeReleaseNumber Reactome release number of the index
+	 * @throws IOException Thrown if unable to write the index file
+	 */
+	public static void write(Path indexPath, Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniProtReactomeEntryToEvents,
+							 Set<Long> topLevelPathwayIds, int reactomeReleaseNumber) throws IOException {
+		logger.info("Writing UniProt event index {}", indexPath);
+		FileWriteEvent fileWriteEvent = FileWriteEvent.start(indexPath);
+
+		List<IndexEntry> indexEntries = getIndexEntries(uniProtReactomeEntryToEvents, topLevelPathwayIds);
+		long numberOfEventIds = 0;
+		long numberOfTopLevelPathwayIds = 0;
+		for (IndexEntry indexEntry : indexEntries) {
+			numberOfEventIds += indexEntry.eventIds.length;
+			numberOfTopLevelPathwayIds += indexEntry.topLevelPathwayIds.length;
+		}
+		long indexSize = UniProtEventIndex.getIndexSize(
+			indexEntries.size(), numberOfEventIds, numberOfTopLevelPathwayIds
+		);
+		if (indexSize > Integer.MAX_VALUE) {
+			throw new IllegalStateException("UniProt event index of " + indexSize + " bytes is too large to map");
+		}
+
+		final int NUMBER_OF_EVENT_IDS = (int) numberOfEventIds;
+		final int NUMBER_OF_TOP_LEVEL_PATHWAY_IDS = (int) numberOfTopLevelPathwayIds;
+		ExportManifest.writeFile(indexPath, outputStream -> {
+			DataOutputStream indexStream = new DataOutputStream(outputStream);
+			indexStream.writeLong(UniProtEventIndex.MAGIC_NUMBER);
+			indexStream.writeInt(UniProtEventIndex.FORMAT_VERSION);
+			indexStream.writeInt(reactomeReleaseNumber);
+			indexStream.writeInt(indexEntries.size());
+			indexStream.writeInt(NUMBER_OF_EVENT_IDS);
+			indexStream.writeInt(NUMBER_OF_TOP_LEVEL_PATHWAY_IDS);
+			indexStream.writeInt(0);
+
+			for (IndexEntry indexEntry : indexEntries) {
+				indexStream.writeLong(indexEntry.uniProtReactomeEntry.getAccessionKey());
+			}
+			for (IndexEntry indexEntry : indexEntries) {
+				indexStream.writeLong(indexEntry.uniProtReactomeEntry.getIsoformKey());
+			}
+			for (IndexEntry indexEntry : indexEntries) {
+				indexStream.writeLong(indexEntry.uniProtReactomeEntry.getDbId());
+			}
+			writeOffsets(indexEntries, indexEntry -> indexEntry.eventIds, indexStream);
+			writeOffsets(indexEntries, indexEntry -> indexEntry.topLevelPathwayIds, indexStream);
+			while (indexStream.size() % 8 != 0) {
+				indexStream.writeByte(0);
+			}
+			for (IndexEntry indexEntry : indexEntries) {
+				writeIds(indexEntry.eventIds, indexStream);
+			}
+			for (IndexEntry indexEntry : indexEntries) {
+				writeIds(indexEntry.topLevelPathwayIds, indexStream);
+			}
+			indexStream.flush();
+		});
+
+		fileWriteEvent.finish();
+		logger.info("Finished writing UniProt event index with {} entries and {} event ids",
+			indexEntries.size(), NUMBER_OF_EVENT_IDS);
+	}
+
+	/**
+	 * Sorts the UniProt entries by accession, merging the events of entries with the same accession
+	 */
+	private static List<IndexEntry> getIndexEntries(
+		Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniProtReactomeEntryToEvents, Set<Long> topLevelPathwayIds) {
+
+		List<UniProtReactomeEntry> sortedEntries = new ArrayList<>(uniProtReactomeEntryToEvents.keySet());
+		sortedEntries.sort(
+			Comparator.<UniProtReactomeEntry>naturalOrder().thenComparingLong(UniProtReactomeEntry::getDbId)
+		);
+
+		List<IndexEntry> indexEntries = new ArrayList<>();
+		for (int i = 0; i < sortedEntries.size(); ) {
+			UniProtReactomeEntry uniProtReactomeEntry = sortedEntries.get(i);
+			SortedSet<Long> eventIds = new TreeSet<>();
+			for (; i < sortedEntries.size() && sortedEntries.get(i).compareTo(uniProtReactomeEntry) == 0; i++) {
+				for (ReactomeEvent reactomeEvent : uniProtReactomeEntryToEvents.get(sortedEntries.get(i))) {
+					eventIds.add(reactomeEvent.getDbId());
+				}
+			}
+
+			indexEntries.add(new IndexEntry(
+				uniProtReactomeEntry,
+				eventIds.stream().mapToLong(Long::longValue).toArray(),
+				eventIds.stream().filter(topLevelPathwayIds::contains).mapToLong(Long::longValue).toArray()
+			));
+		}
+		return indexEntries;
+	}
+
+	private static void writeOffsets(List<IndexEntry> indexEntries, IdsOfEntry idsOfEntry,
+									 DataOutputStream indexStream) throws IOException {
+		int offset = 0;
+		indexStream.writeInt(offset);
+		for (IndexEntry indexEntry : indexEntries) {
+			offset += idsOfEntry.getIds(indexEntry).length;
+			indexStream.writeInt(offset);
+		}
+	}
+
+	private static void writeIds(long[] ids, DataOutputStream indexStream) throws IOException {
+		for (long id : ids) {
+			indexStream.writeLong(id);
+		}
+	}
+
+	@FunctionalInterface
+	private interface IdsOfEntry {
+		long[] getIds(IndexEntry indexEntry);
+	}
+
+	/**
+	 * UniProt entry of the index and the sorted db ids of its events and top level pathways
+	 */
+	private static class IndexEntry {
+		private final UniProtReactomeEntry uniProtReactomeEntry;
+		private final long[] eventIds;
+		private final long[] topLevelPathwayIds;
+
+		private IndexEntry(UniProtReactomeEntry uniProtReactomeEntry, long[] eventIds, long[] topLevelPathwayIds) {
+			this.uniProtReactomeEntry = uniProtReactomeEntry;
+			this.eventIds = eventIds;
+			this.topLevelPathwayIds = topLevelPathwayIds;
+		}
+	}
+}
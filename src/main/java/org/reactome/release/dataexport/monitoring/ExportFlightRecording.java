@@ -0,0 +1,85 @@
+package org.reactome.release.dataexport.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Java Flight Recorder recording started programmatically for the duration of a data export run.  The recording
+ * uses the JDK's "profile" settings and, in addition, captures the data export specific events (export phases, graph
+ * queries, index builds, file writes, and FTP operations).  The recording is dumped to a timestamped ".jfr" file in
+ * the output directory when closed.
+ */
+public class ExportFlightRecording implements AutoCloseable {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+	private static final String JFR_SETTINGS_NAME = "profile";
+
+	private final Recording recording;
+	private final Path recordingFilePath;
+
+	/**
+	 * Starts a new flight recording which will be written to the output directory provided when closed
+	 * @param outputDir Directory to which the recording file will be dumped
+	 * @return ExportFlightRecording which has been started
+	 * @throws IOException Thrown if unable to create the output directory or to read the JDK's recording settings
+	 */
+	public static ExportFlightRecording start(Path outputDir) throws IOException {
+		Files.createDirectories(outputDir);
+		return new ExportFlightRecording(outputDir.resolve(getRecordingFileName()));
+	}
+
+	private ExportFlightRecording(Path recordingFilePath) throws IOException {
+		try {
+			this.recording = new Recording(Configuration.getConfiguration(JFR_SETTINGS_NAME));
+		} catch (ParseException e) {
+			throw new IOException("Unable to parse the JFR settings " + JFR_SETTINGS_NAME, e);
+		}
+		this.recordingFilePath = recordingFilePath;
+
+		this.recording.setName("data-exporter");
+		this.recording.enable(ExportPhaseEvent.class);
+		this.recording.enable(GraphQueryEvent.class);
+		this.recording.enable(IndexBuildEvent.class);
+		this.recording.enable(FileWriteEvent.class);
+		this.recording.enable(FTPOperationEvent.class);
+		this.recording.start();
+
+		logger.info("Started flight recording (will be written to {})", this.recordingFilePath);
+	}
+
+	/**
+	 * Returns the path of the file to which the recording is written when closed
+	 * @return Path of the recording file
+	 */
+	public Path getRecordingFilePath() {
+		return this.recordingFilePath;
+	}
+
+	/**
+	 * Stops the recording, dumps it to the recording file path and releases its resources
+	 * @throws IOException Thrown if unable to write the recording file
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.recording.stop();
+			this.recording.dump(this.recordingFilePath);
+			logger.info("Flight recording written to {}", this.recordingFilePath);
+		} finally {
+			this.recording.close();
+		}
+	}
+
+	private static String getRecordingFileName() {
+		return "data-exporter-" + DateTimeFormatter.ofPattern("MM-dd-yyyy_HH.mm.ss").format(LocalDateTime.now()) +
+			".jfr";
+	}
+}
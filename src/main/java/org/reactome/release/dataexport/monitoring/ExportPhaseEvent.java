@@ -0,0 +1,45 @@
+package org.reactome.release.dataexport.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event spanning one phase of the data export (e.g. writing the NCBI Gene files or uploading
+ * to the Europe PMC FTP Server).  Other events in a recording (GC pauses, blocked threads, etc.) can be attributed
+ * to the phase during which they occurred.
+ *
+ * When no recording is active, the begin and commit calls are no-ops and the event object does not escape, so
+ * instrumented code pays no cost.
+ */
+@Name("org.reactome.release.dataexport.ExportPhase")
+@Label("Export Phase")
+@Category({"Reactome", "Data Export"})
+@Description("A phase of the NCBI, UCSC, and Europe PMC data export")
+@StackTrace(false)
+public class ExportPhaseEvent extends Event {
+	@Label("Phase")
+	String phase;
+
+	/**
+	 * Creates and begins timing an event for the export phase provided
+	 * @param phase Name of the export phase (e.g. "NCBI Gene XML")
+	 * @return ExportPhaseEvent which has begun timing
+	 */
+	public static ExportPhaseEvent start(String phase) {
+		ExportPhaseEvent exportPhaseEvent = new ExportPhaseEvent();
+		exportPhaseEvent.phase = phase;
+		exportPhaseEvent.begin();
+		return exportPhaseEvent;
+	}
+
+	/**
+	 * Ends timing of the export phase and commits the event to any active recording
+	 */
+	public void finish() {
+		commit();
+	}
+}
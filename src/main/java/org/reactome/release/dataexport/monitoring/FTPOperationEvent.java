@@ -0,0 +1,64 @@
+package org.reactome.release.dataexport.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for a command sent to an external FTP Server (e.g. uploading, deleting, or listing
+ * files on the NCBI or Europe PMC FTP Servers).
+ */
+@Name("org.reactome.release.dataexport.FTPOperation")
+@Label("FTP Operation")
+@Category({"Reactome", "Data Export"})
+@Description("A command sent to an external FTP Server and the server's reply code")
+@StackTrace(false)
+public class FTPOperationEvent extends Event {
+	@Label("Host")
+	String host;
+
+	@Label("Command")
+	String command;
+
+	@Label("File")
+	String file;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	@Label("Reply Code")
+	int replyCode;
+
+	/**
+	 * Creates and begins timing an event for the FTP command provided
+	 * @param host Host name of the FTP Server
+	 * @param command FTP command being issued (e.g. "STOR" or "DELE")
+	 * @param file Name of the file on which the command operates (may be <code>null</code> for commands such as
+	 * "LIST")
+	 * @return FTPOperationEvent which has begun timing
+	 */
+	public static FTPOperationEvent start(String host, String command, String file) {
+		FTPOperationEvent ftpOperationEvent = new FTPOperationEvent();
+		ftpOperationEvent.host = host;
+		ftpOperationEvent.command = command;
+		ftpOperationEvent.file = file;
+		ftpOperationEvent.begin();
+		return ftpOperationEvent;
+	}
+
+	/**
+	 * Ends timing of the FTP command and commits the event to any active recording
+	 * @param bytes Number of bytes transferred by the command (0 if no file content is transferred)
+	 * @param replyCode Reply code returned by the FTP Server for the command
+	 */
+	public void finish(long bytes, int replyCode) {
+		this.bytes = bytes;
+		this.replyCode = replyCode;
+		commit();
+	}
+}
@@ -0,0 +1,56 @@
+package org.reactome.release.dataexport.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Java Flight Recorder event for writing one export file to the local output directory.
+ */
+@Name("org.reactome.release.dataexport.FileWrite")
+@Label("Export File Write")
+@Category({"Reactome", "Data Export"})
+@Description("Generation of an export file in the output directory and its final size")
+@StackTrace(false)
+public class FileWriteEvent extends Event {
+	@Label("Path")
+	String path;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	/**
+	 * Creates and begins timing an event for writing the file at the path provided
+	 * @param filePath Path of the export file being written
+	 * @return FileWriteEvent which has begun timing
+	 */
+	public static FileWriteEvent start(Path filePath) {
+		FileWriteEvent fileWriteEvent = new FileWriteEvent();
+		fileWriteEvent.path = filePath.toString();
+		fileWriteEvent.begin();
+		return fileWriteEvent;
+	}
+
+	/**
+	 * Ends timing of the file write and commits the event to any active recording.  The size of the file is only
+	 * checked if the event will actually be recorded.
+	 * @throws IOException Thrown if unable to determine the size of the written file
+	 */
+	public void finish() throws IOException {
+		end();
+		if (shouldCommit()) {
+			this.bytes = Files.size(Paths.get(this.path));
+			commit();
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package org.reactome.release.dataexport.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for the execution (including full consumption of the result) of a query against the
+ * Reactome graph database.
+ */
+@Name("org.reactome.release.dataexport.GraphQuery")
+@Label("Graph Query")
+@Category({"Reactome", "Data Export"})
+@Description("A Cypher query run against the Reactome graph database and the number of rows it returned")
+@StackTrace(false)
+public class GraphQueryEvent extends Event {
+	@Label("Query Name")
+	String queryName;
+
+	@Label("Rows")
+	long rows;
+
+	/**
+	 * Creates and begins timing an event for the query name provided
+	 * @param queryName Short descriptive name of the query (e.g. "UniProt to RLE id")
+	 * @return GraphQueryEvent which has begun timing
+	 */
+	public static GraphQueryEvent start(String queryName) {
+		GraphQueryEvent graphQueryEvent = new GraphQueryEvent();
+		graphQueryEvent.queryName = queryName;
+		graphQueryEvent.begin();
+		return graphQueryEvent;
+	}
+
+	/**
+	 * Ends timing of the query and commits the event to any active recording
+	 * @param rows Number of rows returned by the query
+	 */
+	public void finish(long rows) {
+		this.rows = rows;
+		commit();
+	}
+}
@@ -0,0 +1,46 @@
+package org.reactome.release.dataexport.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for building an in-memory index (e.g. the map of UniProt entries to Reactome events)
+ * used to produce the export files.
+ */
+@Name("org.reactome.release.dataexport.IndexBuild")
+@Label("Index Build")
+@Category({"Reactome", "Data Export"})
+@Description("Construction of an in-memory map used by the data export and its number of entries")
+@StackTrace(false)
+public class IndexBuildEvent extends Event {
+	@Label("Index Name")
+	String indexName;
+
+	@Label("Entries")
+	long entries;
+
+	/**
+	 * Creates and begins timing an event for the index name provided
+	 * @param indexName Short descriptive name of the index (e.g. "RLE id to Pathway id")
+	 * @return IndexBuildEvent which has begun timing
+	 */
+	public static IndexBuildEvent start(String indexName) {
+		IndexBuildEvent indexBuildEvent = new IndexBuildEvent();
+		indexBuildEvent.indexName = indexName;
+		indexBuildEvent.begin();
+		return indexBuildEvent;
+	}
+
+	/**
+	 * Ends timing of the index build and commits the event to any active recording
+	 * @param entries Number of entries (i.e. keys) in the built index
+	 */
+	public void finish(long entries) {
+		this.entries = entries;
+		commit();
+	}
+}
@@ -0,0 +1,190 @@
+package org.reactome.release.dataexport.monitoring;
+
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks and logs the progress of a long running stage of the data export (e.g. ingesting query results, mapping
+ * UniProt entries to events, or generating the NCBI Gene XML).  Progress is reported on a time basis (by default
+ * every 30 seconds) rather than every N items, with the throughput so far and, if the total number of items is known,
+ * the percentage complete and estimated time remaining.
+ *
+ * The cost of recording an item is one atomic increment; the clock is only read once every 1,024 items and a log
+ * statement is only produced when the report interval has elapsed.  Items may be recorded from multiple threads.
+ */
+public class ProgressTracker {
+	private static final long DEFAULT_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+	private static final long CLOCK_CHECK_MASK = 1024 - 1; // Clock is checked when the count is a multiple of 1024
+	private static final long UNKNOWN_TOTAL = -1;
+
+	private final Logger logger;
+	private final String stageName;
+	private final String itemName;
+	private final long totalItems;
+	private final long reportIntervalNanos;
+	private final LongSupplier nanoClock;
+	private final long startNanos;
+
+	private final AtomicLong itemsProcessed = new AtomicLong(0);
+	private final AtomicLong nextReportNanos;
+
+	/**
+	 * Starts tracking a stage for which the total number of items to process is known
+	 * @param logger Logger to which progress is reported
+	 * @param stageName Name of the stage (e.g. "UniProt to Reactome events")
+	 * @param itemName Name of the items processed, in plural (e.g. "UniProt entries")
+	 * @param totalItems Total number of items the stage will process
+	 * @return ProgressTracker which has started timing the stage
+	 */
+	public static ProgressTracker start(Logger logger, String stageName, String itemName, long totalItems) {
+		return new ProgressTracker(
+			logger, stageName, itemName, totalItems, DEFAULT_REPORT_INTERVAL_NANOS, System::nanoTime
+		);
+	}
+
+	/**
+	 * Starts tracking a stage for which the total number of items to process is not known in advance (e.g. the rows
+	 * of a query result as they are streamed).  Percentage complete and time remaining are not reported.
+	 * @param logger Logger to which progress is reported
+	 * @param stageName Name of the stage (e.g. "UniProt to RLE id query")
+	 * @param itemName Name of the items processed, in plural (e.g. "rows")
+	 * @return ProgressTracker which has started timing the stage
+	 */
+	public static ProgressTracker start(Logger logger, String stageName, String itemName) {
+		return start(logger, stageName, itemName, UNKNOWN_TOTAL);
+	}
+
+	ProgressTracker(Logger logger, String stageName, String itemName, long totalItems, long reportIntervalNanos,
+					LongSupplier nanoClock) {
+		this.logger = logger;
+		this.stageName = stageName;
+		this.itemName = itemName;
+		this.totalItems = totalItems;
+		this.reportIntervalNanos = reportIntervalNanos;
+		this.nanoClock = nanoClock;
+		this.startNanos = nanoClock.getAsLong();
+		this.nextReportNanos = new AtomicLong(this.startNanos + reportIntervalNanos);
+	}
+
+	/**
+	 * Records one processed item and reports progress if the report interval has elapsed
+	 */
+	public void increment() {
+		long processed = itemsProcessed.incrementAndGet();
+		if ((processed & CLOCK_CHECK_MASK) == 0) {
+			reportIfDue();
+		}
+	}
+
+	/**
+	 * Records a number of processed items (e.g. bytes uploaded) and reports progress if the report interval has
+	 * elapsed.  Unlike increment, the clock is checked on every call, so this method is intended for coarse-grained
+	 * updates.
+	 * @param items Number of items processed
+	 */
+	public void add(long items) {
+		itemsProcessed.addAndGet(items);
+		reportIfDue();
+	}
+
+	/**
+	 * Logs the final number of items processed, the elapsed time and the overall throughput of the stage
+	 */
+	public void finish() {
+		logger.info("{}: finished {} {} in {} ({} {}/s)",
+			stageName, getItemsProcessed(), itemName, formatDuration(getElapsed()),
+			formatRate(getThroughputPerSecond()), itemName
+		);
+	}
+
+	/**
+	 * Returns the number of items recorded as processed so far
+	 * @return Number of items processed
+	 */
+	public long getItemsProcessed() {
+		return itemsProcessed.get();
+	}
+
+	/**
+	 * Returns the time elapsed since the tracker was started
+	 * @return Elapsed time of the stage
+	 */
+	public Duration getElapsed() {
+		return Duration.ofNanos(nanoClock.getAsLong() - startNanos);
+	}
+
+	/**
+	 * Returns the average number of items processed per second since the tracker was started
+	 * @return Throughput in items per second (0 if no time has elapsed)
+	 */
+	public double getThroughputPerSecond() {
+		long elapsedNanos = nanoClock.getAsLong() - startNanos;
+		if (elapsedNanos <= 0) {
+			return 0;
+		}
+		return getItemsProcessed() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	/**
+	 * Returns the estimated time remaining for the stage based on the throughput so far
+	 * @return Estimated time remaining or <code>null</code> if the total number of items is unknown or no items have
+	 * been processed yet
+	 */
+	public Duration getEstimatedTimeRemaining() {
+		double throughputPerSecond = getThroughputPerSecond();
+		if (totalItems == UNKNOWN_TOTAL || throughputPerSecond <= 0) {
+			return null;
+		}
+
+		long itemsRemaining = Math.max(totalItems - getItemsProcessed(), 0);
+		return Duration.ofMillis((long) (itemsRemaining / throughputPerSecond * 1000));
+	}
+
+	private void reportIfDue() {
+		long now = nanoClock.getAsLong();
+		long nextReport = nextReportNanos.get();
+
+		// Only the thread which advances the next report time logs, so concurrent callers don't duplicate reports
+		if (now >= nextReport && nextReportNanos.compareAndSet(nextReport, now + reportIntervalNanos)) {
+			report();
+		}
+	}
+
+	private void report() {
+		long processed = getItemsProcessed();
+		String throughput = formatRate(getThroughputPerSecond());
+
+		if (totalItems == UNKNOWN_TOTAL) {
+			logger.info("{}: processed {} {} ({} {}/s)", stageName, processed, itemName, throughput, itemName);
+		} else {
+			logger.info("{}: processed {} of {} {} ({}) - {} {}/s, ETA {}",
+				stageName, processed, totalItems, itemName, formatPercentage(processed, totalItems),
+				throughput, itemName, formatDuration(getEstimatedTimeRemaining())
+			);
+		}
+	}
+
+	private static String formatPercentage(long processed, long total) {
+		final String TWO_DECIMAL_PLACES = "%.2f";
+		double percentage = total > 0 ? (processed / (double) total) * 100 : 100;
+		return String.format(TWO_DECIMAL_PLACES, percentage) + "%";
+	}
+
+	private static String formatRate(double ratePerSecond) {
+		final String ONE_DECIMAL_PLACE = "%.1f";
+		return String.format(ONE_DECIMAL_PLACE, ratePerSecond);
+	}
+
+	static String formatDuration(Duration duration) {
+		if (duration == null) {
+			return "unknown";
+		}
+
+		long seconds = duration.getSeconds();
+		return String.format("%d:%02d:%02d", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+	}
+}
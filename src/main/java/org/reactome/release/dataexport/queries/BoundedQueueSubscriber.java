@@ -0,0 +1,170 @@
+package org.reactome.release.dataexport.queries;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * Reactive streams subscriber which hands the items it receives to a consuming thread through a bounded queue.  The
+ * subscriber never has more than "batchSize" items of outstanding demand, so the publisher (e.g. the Neo4j driver)
+ * only fetches and decodes a bounded number of items ahead of the consumer.  Demand is replenished by the consuming
+ * thread as it drains the queue, so fetching the next items overlaps with processing the current ones.
+ *
+ * Items are received on the publisher's thread and consumed on the thread calling drainTo.
+ * @param <T> Type of the items published
+ */
+class BoundedQueueSubscriber<T> implements Subscriber<T> {
+	private final int batchSize;
+	private final int replenishThreshold;
+	private final BlockingQueue<Object> queue;
+
+	private volatile Subscription subscription;
+
+	/**
+	 * Marks the end of the stream in the queue, with the error which terminated it (if any)
+	 */
+	private static class Terminal {
+		private final Throwable error;
+
+		private Terminal(Throwable error) {
+			this.error = error;
+		}
+	}
+
+	/**
+	 * Creates a subscriber with at most batchSize items of outstanding demand
+	 * @param batchSize Maximum number of items requested but not yet consumed
+	 * @throws IllegalArgumentException Thrown if batchSize is not positive
+	 */
+	BoundedQueueSubscriber(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive but was " + batchSize);
+		}
+
+		this.batchSize = batchSize;
+		this.replenishThreshold = Math.max(batchSize / 2, 1);
+		// Outstanding demand never exceeds the batch size, leaving room for the terminal signal
+		this.queue = new ArrayBlockingQueue<>(batchSize + 1);
+	}
+
+	@Override
+	public void onSubscribe(Subscription subscription) {
+		this.subscription = subscription;
+		subscription.request(batchSize);
+	}
+
+	@Override
+	public void onNext(T item) {
+		if (!queue.offer(item)) {
+			subscription.cancel();
+			throw new IllegalStateException("Publisher sent more items than were requested");
+		}
+	}
+
+	@Override
+	public void onError(Throwable error) {
+		queue.offer(new Terminal(error));
+	}
+
+	@Override
+	public void onComplete() {
+		queue.offer(new Terminal(null));
+	}
+
+	/**
+	 * Passes each item of the stream to the item consumer on the calling thread, blocking until the stream completes.
+	 * If the consumer throws an exception, the subscription is cancelled and the exception is rethrown.
+	 * @param itemConsumer Consumer to which each item is passed
+	 * @throws RuntimeException Thrown (or wrapping the error) if the stream terminates with an error
+	 */
+	@SuppressWarnings("unchecked")
+	void drainTo(Consumer<T> itemConsumer) {
+		int consumedSinceRequest = 0;
+		while (true) {
+			Object next = take();
+			if (next instanceof Terminal) {
+				rethrowIfError(((Terminal) next).error);
+				return;
+			}
+
+			try {
+				itemConsumer.accept((T) next);
+			} catch (RuntimeException e) {
+				subscription.cancel();
+				throw e;
+			}
+
+			consumedSinceRequest++;
+			if (consumedSinceRequest >= replenishThreshold) {
+				subscription.request(consumedSinceRequest);
+				consumedSinceRequest = 0;
+			}
+		}
+	}
+
+	/**
+	 * Subscribes to a publisher whose items are not needed (e.g. the one returned when closing a reactive session)
+	 * and blocks until it completes
+	 * @param publisher Publisher to await
+	 * @throws RuntimeException Thrown (or wrapping the error) if the publisher terminates with an error
+	 */
+	static void awaitCompletion(Publisher<?> publisher) {
+		CountDownLatch completed = new CountDownLatch(1);
+		Throwable[] error = new Throwable[1];
+
+		publisher.subscribe(new Subscriber<Object>() {
+			@Override
+			public void onSubscribe(Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(Object item) {}
+
+			@Override
+			public void onError(Throwable throwable) {
+				error[0] = throwable;
+				completed.countDown();
+			}
+
+			@Override
+			public void onComplete() {
+				completed.countDown();
+			}
+		});
+
+		try {
+			completed.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for publisher to complete", e);
+		}
+		rethrowIfError(error[0]);
+	}
+
+	private Object take() {
+		try {
+			return queue.take();
+		} catch (InterruptedException e) {
+			subscription.cancel();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for query records", e);
+		}
+	}
+
+	private static void rethrowIfError(Throwable error) {
+		if (error == null) {
+			return;
+		}
+
+		if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		}
+		throw new IllegalStateException(error);
+	}
+}
@@ -0,0 +1,194 @@
+package org.reactome.release.dataexport.queries;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Catalog of the Cypher queries run by the data exporter.  Each query has a short name (used in logs, Java Flight
+ * Recorder events, slow query profiles and the index advisor) and is written with parameters (e.g. $species) rather
+ * than literal values so the graph database caches a single plan per query across runs, environments and species
+ * configurations.
+ *
+ * The query text is fixed; the values of its parameters are provided at run time (by default from QueryParameters).
+ * Each query declares the layout of its result columns so rows can be decoded by column index (see getColumn) rather
+ * than by column name lookups for every row.
+ *
+ * Results are not ordered by the graph database (except by dbId for paging); the exporter sorts them client-side, in
+ * parallel, where an order is needed.
+ * @see QueryParameters
+ */
+public enum ExportQuery {
+	RLE_TO_PATHWAY("RLE id to Pathway id",
+		columns("rle.dbId", "p.dbId"),
+		"MATCH (rle:ReactionLikeEvent)<-[:hasEvent*]-(p:Pathway)",
+		"RETURN DISTINCT rle.dbId, p.dbId"
+	),
+	PATHWAY_HIERARCHY("Pathway Hierarchy",
+		columns("p.dbId", "pp.dbId"),
+		"MATCH (p:Pathway)<-[:hasEvent]-(pp:Pathway)",
+		"RETURN DISTINCT p.dbId, pp.dbId"
+	),
+	TOP_LEVEL_PATHWAYS("Top Level Pathway ids",
+		columns("p.dbId"),
+		"MATCH (p:TopLevelPathway)",
+		"RETURN p.dbId"
+	),
+	EVENTS("Event map",
+		columns("e.dbId", "e.displayName", "e.stId"),
+		"MATCH (e:Event)",
+		"RETURN e.dbId, e.displayName, e.stId"
+	),
+	EVENTS_BY_DB_ID("Events by dbId",
+		columns("e.dbId", "e.displayName", "e.stId"),
+		"UNWIND $eventDbIds AS eventDbId",
+		"MATCH (e:Event {dbId: eventDbId})",
+		"RETURN e.dbId, e.displayName, e.stId"
+	),
+	UNIPROT_TO_NCBI_GENE("UniProt to NCBI Gene",
+		columns("rgp.dbId", "rgp.displayName", "rgp_accession", "rds.identifier"),
+		"MATCH (rgp:ReferenceGeneProduct)-[:referenceDatabase]->(rd:ReferenceDatabase)",
+		"MATCH (rgp)-[:referenceGene]->(rds:ReferenceDNASequence)",
+		"WHERE rd.displayName = $referenceDatabase AND rds.databaseName = $geneDatabase",
+		"RETURN DISTINCT rgp.dbId, rgp.displayName, "
+			+ "coalesce(rgp.variantIdentifier, rgp.identifier) as rgp_accession, rds.identifier"
+	),
+	UNIPROT_TO_RLE("UniProt to RLE id",
+		columns("rgp.dbId", "rgp_accession", "rgp.displayName", "rle.dbId"),
+		"MATCH (rgp:ReferenceGeneProduct)<-[:referenceEntity|:referenceSequence|:hasModifiedResidue]-" +
+			"(ewas:EntityWithAccessionedSequence)<-[:hasComponent|hasMember|hasCandidate|repeatedUnit" +
+			"|input|output|catalystActivity|physicalEntity*]-(rle:ReactionLikeEvent)",
+		"MATCH (rgp)-[:referenceDatabase]->(rd:ReferenceDatabase)",
+		"WHERE rd.displayName = $referenceDatabase",
+		"RETURN DISTINCT rgp.dbId, coalesce(rgp.variantIdentifier, rgp.identifier) as rgp_accession, "
+			+ "rgp.displayName, rle.dbId"
+	),
+	RLE_IDS_BY_UNIPROT_DB_ID("RLE ids by UniProt dbId",
+		columns("rgp.dbId", "rle.dbId"),
+		"UNWIND $uniprotDbIds AS uniprotDbId",
+		"MATCH (rgp:ReferenceGeneProduct {dbId: uniprotDbId})<-[:referenceEntity|:referenceSequence" +
+			"|:hasModifiedResidue]-(ewas:EntityWithAccessionedSequence)<-[:hasComponent|hasMember|hasCandidate" +
+			"|repeatedUnit|input|output|catalystActivity|physicalEntity*]-(rle:ReactionLikeEvent)",
+		"RETURN DISTINCT rgp.dbId, rle.dbId"
+	),
+	PATHWAY_IDS_BY_RLE_DB_ID("Pathway ids by RLE dbId",
+		columns("rle.dbId", "p.dbId"),
+		"UNWIND $rleDbIds AS rleDbId",
+		"MATCH (rle:ReactionLikeEvent {dbId: rleDbId})<-[:hasEvent*]-(p:Pathway)",
+		"RETURN DISTINCT rle.dbId, p.dbId"
+	),
+	UNIPROT_DB_ID_RANGE("UniProt dbId range",
+		columns("minDbId", "maxDbId"),
+		"MATCH (rgp:ReferenceGeneProduct)-[:referenceDatabase]->(rd:ReferenceDatabase)",
+		"WHERE rd.displayName = $referenceDatabase",
+		"RETURN min(rgp.dbId) AS minDbId, max(rgp.dbId) AS maxDbId"
+	),
+	UNIPROT_TO_RLE_PAGE("UniProt to RLE id page",
+		columns("pageLastDbId", "rgp.dbId", "rgp_accession", "rgp.displayName", "rleDbIds"),
+		"MATCH (rgp:ReferenceGeneProduct)-[:referenceDatabase]->(rd:ReferenceDatabase)",
+		"WHERE rd.displayName = $referenceDatabase AND rgp.dbId > $lastDbId AND rgp.dbId <= $maxDbId",
+		"WITH rgp ORDER BY rgp.dbId LIMIT $pageSize",
+		"WITH collect(rgp) AS rgps, max(rgp.dbId) AS pageLastDbId",
+		"UNWIND rgps AS rgp",
+		"OPTIONAL MATCH (rgp)<-[:referenceEntity|:referenceSequence|:hasModifiedResidue]-" +
+			"(ewas:EntityWithAccessionedSequence)<-[:hasComponent|hasMember|hasCandidate|repeatedUnit" +
+			"|input|output|catalystActivity|physicalEntity*]-(rle:ReactionLikeEvent)",
+		"RETURN pageLastDbId, rgp.dbId, coalesce(rgp.variantIdentifier, rgp.identifier) as rgp_accession, "
+			+ "rgp.displayName, collect(DISTINCT rle.dbId) AS rleDbIds"
+	),
+	UCSC_UNIPROT_ENTRIES("UniProt Reactome Entries for UCSC",
+		columns("rgp.dbId", "rgp_accession", "rgp.displayName"),
+		"MATCH (ewas:EntityWithAccessionedSequence)-[:referenceEntity]->(rgp:ReferenceGeneProduct)" +
+			"-[:referenceDatabase]->(rd:ReferenceDatabase)",
+		"WHERE ewas.speciesName IN $ucscSpecies AND rd.displayName = $referenceDatabase",
+		"RETURN DISTINCT rgp.dbId, coalesce(rgp.variantIdentifier, rgp.identifier) as rgp_accession,"
+			+ " rgp.displayName"
+	),
+	EUROPE_PMC_LINKS("Europe PMC Links",
+		columns("p.displayName", "p.stId", "lr.pubMedIdentifier"),
+		"MATCH (p:Pathway)-[:literatureReference]->(lr:LiteratureReference)",
+		"WHERE p.speciesName = $europePMCSpecies AND lr.pubMedIdentifier IS NOT NULL",
+		"RETURN DISTINCT p.displayName, p.stId, lr.pubMedIdentifier"
+	);
+
+	private final String name;
+	private final List<String> columns;
+	private final String cypher;
+	private final Set<String> parameterNames;
+
+	ExportQuery(String name, List<String> columns, String... cypherLines) {
+		this.name = name;
+		this.columns = columns;
+		this.cypher = String.join(System.lineSeparator(), cypherLines);
+		this.parameterNames = Collections.unmodifiableSet(findParameterNames(this.cypher));
+	}
+
+	/**
+	 * Retrieves the short descriptive name of the query
+	 * @return Name of the query
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Retrieves the names of the result columns of the query in the order they are returned
+	 * @return List of column names
+	 */
+	public List<String> getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Retrieves the index of a result column of the query, for decoding rows with Record.get(int) instead of by name
+	 * @param columnName Name of the result column (e.g. "rgp.dbId")
+	 * @return Index of the column in each record of the result
+	 * @throws IllegalArgumentException Thrown if the query does not return the column
+	 */
+	public int getColumn(String columnName) {
+		int columnIndex = this.columns.indexOf(columnName);
+		if (columnIndex == -1) {
+			throw new IllegalArgumentException(
+				"Query '" + getName() + "' has no column '" + columnName + "' - columns are " + getColumns()
+			);
+		}
+		return columnIndex;
+	}
+
+	/**
+	 * Retrieves the parameterized Cypher text of the query
+	 * @return Cypher of the query
+	 */
+	public String getCypher() {
+		return this.cypher;
+	}
+
+	/**
+	 * Retrieves the names (without the leading '$') of the parameters used by the query
+	 * @return Set of parameter names in the order they appear in the query
+	 */
+	public Set<String> getParameterNames() {
+		return this.parameterNames;
+	}
+
+	private static List<String> columns(String... columnNames) {
+		return Collections.unmodifiableList(Arrays.asList(columnNames));
+	}
+
+	private static Set<String> findParameterNames(String cypher) {
+		// Compiled here rather than in a static field, which would not yet be initialized when the enum constants are
+		// constructed
+		Pattern parameterPattern = Pattern.compile("\\$(\\w+)");
+
+		Set<String> parameterNames = new LinkedHashSet<>();
+		Matcher parameterMatcher = parameterPattern.matcher(cypher);
+		while (parameterMatcher.find()) {
+			parameterNames.add(parameterMatcher.group(1));
+		}
+		return parameterNames;
+	}
+}
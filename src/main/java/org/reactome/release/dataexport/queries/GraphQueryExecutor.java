@@ -0,0 +1,265 @@
+package org.reactome.release.dataexport.queries;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.reactive.RxSession;
+import org.neo4j.driver.summary.ResultSummary;
+import org.reactome.release.dataexport.monitoring.GraphQueryEvent;
+import org.reactome.release.dataexport.monitoring.ProgressTracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Executes the data exporter's queries against the graph database.  Every query is run through this class so that
+ * it is timed (logged, reported as a Java Flight Recorder event, and tracked for progress as its rows are consumed).
+ *
+ * A query which takes longer than the slow query threshold is logged to the slow query log and re-run once with
+ * Cypher's PROFILE so that its execution plan, with the rows and database hits of each operator, is written to the
+ * "query_profiles" sub-directory of the output directory.  Queries can also be profiled on demand by name.
+ *
+ * The following configuration properties are used (all optional):
+ * slowQueryThresholdMillis - Elapsed time after which a query is considered slow (default 60000)
+ * profileQueries - Comma separated names of queries to always profile or "all" (default none)
+ * outputDir - Directory under which the "query_profiles" directory is created (default "output")
+ * reactiveQueryStreaming - "true" to stream query results through the driver's reactive API (default "false")
+ * reactiveBatchSize - Maximum number of records fetched ahead of the record consumer when streaming (default 1000)
+ *
+ * With reactive streaming, records are fetched with bounded demand from a reactive session and handed to the record
+ * consumer as they arrive, so fetching and decoding the next records overlaps with building the in-memory indexes
+ * and the driver never buffers more than a batch of a large result.
+ */
+public class GraphQueryExecutor {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+	private static final Logger slowQueryLogger = LogManager.getLogger("slowQueryLog");
+
+	private static final long DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS = TimeUnit.MINUTES.toMillis(1);
+	private static final String PROFILE_ALL_QUERIES = "all";
+	private static final String QUERY_PROFILES_DIRECTORY_NAME = "query_profiles";
+	private static final int DEFAULT_REACTIVE_BATCH_SIZE = 1000;
+
+	private static long slowQueryThresholdMillis = DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS;
+	private static Set<String> queryNamesToProfile = new HashSet<>();
+	private static Path queryProfilesDirectory = Paths.get("output", QUERY_PROFILES_DIRECTORY_NAME);
+	private static Set<String> profiledQueryNames = ConcurrentHashMap.newKeySet();
+	private static Driver graphDBDriver;
+	private static boolean reactiveQueryStreaming = false;
+	private static int reactiveBatchSize = DEFAULT_REACTIVE_BATCH_SIZE;
+
+	/**
+	 * Sets the slow query threshold, the queries to profile on demand, the directory to which query profiles
+	 * are written, and whether query results are streamed reactively from the configuration properties of the data
+	 * export
+	 * @param props Configuration properties for the data export
+	 * @param driver Neo4J Driver for the graph database (used to open reactive sessions when streaming reactively)
+	 * @throws IllegalStateException Thrown if reactive streaming is requested but the driver is null
+	 */
+	public static void configure(Properties props, Driver driver) {
+		slowQueryThresholdMillis = Long.parseLong(
+			props.getProperty("slowQueryThresholdMillis", Long.toString(DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS))
+		);
+		queryNamesToProfile = Arrays.stream(props.getProperty("profileQueries", "").split(","))
+			.map(String::trim)
+			.filter(queryName -> !queryName.isEmpty())
+			.collect(Collectors.toSet());
+		queryProfilesDirectory = Paths.get(props.getProperty("outputDir", "output"), QUERY_PROFILES_DIRECTORY_NAME);
+		profiledQueryNames = ConcurrentHashMap.newKeySet();
+
+		reactiveQueryStreaming = Boolean.parseBoolean(props.getProperty("reactiveQueryStreaming", "false"));
+		reactiveBatchSize = Integer.parseInt(
+			props.getProperty("reactiveBatchSize", Integer.toString(DEFAULT_REACTIVE_BATCH_SIZE))
+		);
+		if (reactiveQueryStreaming && driver == null) {
+			throw new IllegalStateException("Reactive query streaming requires a Neo4j driver");
+		}
+		graphDBDriver = driver;
+	}
+
+	/**
+	 * Runs a query from the export query catalog, with its configured parameter values, against the graph database
+	 * and passes each returned record to the record consumer
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @param exportQuery Query from the export query catalog
+	 * @param recordConsumer Consumer to which each record of the result is passed
+	 * @return Number of records returned by the query
+	 * @throws IllegalStateException Thrown if the graphDBSession parameter is null or a parameter of the query has
+	 * no configured value
+	 * @see QueryParameters
+	 */
+	public static long forEachRecord(Session graphDBSession, ExportQuery exportQuery,
+									 Consumer<Record> recordConsumer) {
+		return forEachRecord(graphDBSession, exportQuery, QueryParameters.forQuery(exportQuery), recordConsumer);
+	}
+
+	/**
+	 * Runs a query from the export query catalog, with the given parameter values, against the graph database and
+	 * passes each returned record to the record consumer.  The same cached plan is used whatever the parameter values
+	 * (e.g. for any set of species).
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @param exportQuery Query from the export query catalog
+	 * @param parameters Values for the parameters of the query
+	 * @param recordConsumer Consumer to which each record of the result is passed
+	 * @return Number of records returned by the query
+	 * @throws IllegalStateException Thrown if the graphDBSession parameter is null or the columns of the result do not
+	 * match the column layout declared by the query (which would make decoding by column index unsafe)
+	 */
+	public static long forEachRecord(Session graphDBSession, ExportQuery exportQuery, Map<String, Object> parameters,
+									 Consumer<Record> recordConsumer) {
+		boolean[] columnsChecked = new boolean[1];
+		return forEachRecord(graphDBSession, exportQuery.getName(), exportQuery.getCypher(), parameters, record -> {
+			if (!columnsChecked[0]) {
+				checkColumns(exportQuery, record);
+				columnsChecked[0] = true;
+			}
+			recordConsumer.accept(record);
+		});
+	}
+
+	/**
+	 * Compiles and caches the plans of all queries in the export query catalog by running each with EXPLAIN (which
+	 * plans the query without executing it).  Failure to warm up a query plan is logged but does not stop the export.
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 */
+	public static void warmUpQueryPlans(Session graphDBSession) {
+		logger.info("Warming up query plans");
+
+		for (ExportQuery exportQuery : ExportQuery.values()) {
+			long startNanos = System.nanoTime();
+			try {
+				graphDBSession.run("EXPLAIN " + exportQuery.getCypher(), QueryParameters.forQuery(exportQuery))
+					.consume();
+				logger.info("Planned query '{}' in {} ms",
+					exportQuery.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+			} catch (RuntimeException e) {
+				logger.warn("Unable to plan query '{}'", exportQuery.getName(), e);
+			}
+		}
+
+		logger.info("Finished warming up query plans");
+	}
+
+	private static long forEachRecord(Session graphDBSession, String queryName, String query,
+									  Map<String, Object> parameters, Consumer<Record> recordConsumer) {
+		if (graphDBSession == null) {
+			throw new IllegalStateException("Neo4j driver session parameter is null");
+		}
+
+		GraphQueryEvent queryEvent = GraphQueryEvent.start(queryName);
+		ProgressTracker progressTracker = ProgressTracker.start(logger, queryName + " query", "rows");
+		long startNanos = System.nanoTime();
+
+		Consumer<Record> trackedRecordConsumer = record -> {
+			recordConsumer.accept(record);
+			progressTracker.increment();
+		};
+		if (reactiveQueryStreaming) {
+			streamRecords(query, parameters, trackedRecordConsumer);
+		} else {
+			Result result = graphDBSession.run(query, parameters);
+			while (result.hasNext()) {
+				trackedRecordConsumer.accept(result.next());
+			}
+		}
+
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		long rows = progressTracker.getItemsProcessed();
+		queryEvent.finish(rows);
+		logger.info("Query '{}' returned {} rows in {} ms", queryName, rows, elapsedMillis);
+
+		boolean slowQuery = elapsedMillis >= slowQueryThresholdMillis;
+		if (slowQuery) {
+			slowQueryLogger.warn("Slow query '{}' returned {} rows in {} ms (threshold {} ms){}{}",
+				queryName, rows, elapsedMillis, slowQueryThresholdMillis, System.lineSeparator(), query);
+		}
+
+		if ((slowQuery || profileRequested(queryName)) && profiledQueryNames.add(queryName)) {
+			profileQuery(graphDBSession, queryName, query, parameters, elapsedMillis);
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Returns the directory to which query profiles are written
+	 * @return Path of the query profiles directory
+	 */
+	public static Path getQueryProfilesDirectory() {
+		return queryProfilesDirectory;
+	}
+
+	/**
+	 * Runs the query on a new reactive session and passes the records to the record consumer on the calling thread
+	 * as they arrive, with at most reactiveBatchSize records requested ahead of the consumer
+	 */
+	private static void streamRecords(String query, Map<String, Object> parameters, Consumer<Record> recordConsumer) {
+		RxSession rxSession = graphDBDriver.rxSession(SessionConfig.builder().withFetchSize(reactiveBatchSize).build());
+		try {
+			BoundedQueueSubscriber<Record> recordSubscriber = new BoundedQueueSubscriber<>(reactiveBatchSize);
+			rxSession.run(query, parameters).records().subscribe(recordSubscriber);
+			recordSubscriber.drainTo(recordConsumer);
+		} finally {
+			BoundedQueueSubscriber.awaitCompletion(rxSession.close());
+		}
+	}
+
+	private static void checkColumns(ExportQuery exportQuery, Record record) {
+		if (!record.keys().equals(exportQuery.getColumns())) {
+			throw new IllegalStateException(
+				"Query '" + exportQuery.getName() + "' returned columns " + record.keys() +
+				" but declares columns " + exportQuery.getColumns()
+			);
+		}
+	}
+
+	private static boolean profileRequested(String queryName) {
+		return queryNamesToProfile.contains(PROFILE_ALL_QUERIES) || queryNamesToProfile.contains(queryName);
+	}
+
+	/**
+	 * Re-runs the query with PROFILE and writes the profiled plan to the query profiles directory.  Failure to
+	 * profile a query is logged but does not stop the export.
+	 */
+	private static void profileQuery(Session graphDBSession, String queryName, String query,
+									 Map<String, Object> parameters, long elapsedMillis) {
+		logger.info("Profiling query '{}'", queryName);
+
+		try {
+			ResultSummary resultSummary = graphDBSession.run("PROFILE " + query, parameters).consume();
+			if (!resultSummary.hasProfile()) {
+				logger.warn("No profile was returned for query '{}'", queryName);
+				return;
+			}
+
+			Path queryProfilePath = getQueryProfilePath(queryName);
+			Files.createDirectories(queryProfilePath.getParent());
+			Files.write(queryProfilePath, QueryProfileFormatter.format(
+				queryName, query, parameters, elapsedMillis, resultSummary.profile()
+			).getBytes());
+
+			slowQueryLogger.warn("Profile of query '{}' written to {}", queryName, queryProfilePath);
+		} catch (RuntimeException | IOException e) {
+			logger.error("Unable to profile query '{}'", queryName, e);
+		}
+	}
+
+	private static Path getQueryProfilePath(String queryName) {
+		String fileSafeQueryName = queryName.replaceAll("[^A-Za-z0-9]+", "_");
+		String timeStamp = DateTimeFormatter.ofPattern("MM-dd-yyyy_HH.mm.ss").format(LocalDateTime.now());
+
+		return queryProfilesDirectory.resolve(fileSafeQueryName + "-" + timeStamp + ".txt");
+	}
+}
@@ -0,0 +1,302 @@
+package org.reactome.release.dataexport.queries;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.driver.exceptions.Neo4jException;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Pre-flight check of the graph database indexes on which the exporter's queries rely.  Without these indexes, the
+ * queries fall back to label or all node scans and the export can take hours instead of minutes.
+ *
+ * The indexes present in the graph database (from SHOW INDEXES or, for older Neo4j versions, db.indexes()) are
+ * compared to the catalog of required indexes.  For each missing index, the estimated cost of the scan replacing it
+ * is computed from the node count of its label.  Depending on the "indexAdvisorMode" configuration property, missing
+ * indexes are then:
+ * warn (default) - logged as warnings and the export continues
+ * fail - logged and the export is stopped before any file is written
+ * create - created (and waited on until online); intended only for a scratch copy of the graph database
+ * off - not checked
+ *
+ * If the indexes of the graph database can not be retrieved, the export continues without the check in warn mode and
+ * is stopped in the other modes.
+ */
+public class IndexAdvisor {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+
+	private static final List<RequiredIndex> REQUIRED_INDEXES = Arrays.asList(
+		RequiredIndex.propertyIndex("ReferenceDatabase", "displayName",
+			ExportQuery.UNIPROT_TO_NCBI_GENE.getName(),
+			ExportQuery.UNIPROT_TO_RLE.getName(),
+			ExportQuery.UNIPROT_DB_ID_RANGE.getName(),
+			ExportQuery.UNIPROT_TO_RLE_PAGE.getName(),
+			ExportQuery.UCSC_UNIPROT_ENTRIES.getName()),
+		RequiredIndex.propertyIndex("ReferenceDNASequence", "databaseName",
+			ExportQuery.UNIPROT_TO_NCBI_GENE.getName()),
+		RequiredIndex.propertyIndex("Pathway", "speciesName",
+			ExportQuery.EUROPE_PMC_LINKS.getName()),
+		RequiredIndex.propertyIndex("EntityWithAccessionedSequence", "speciesName",
+			ExportQuery.UCSC_UNIPROT_ENTRIES.getName()),
+		RequiredIndex.propertyIndex("Event", "dbId",
+			ExportQuery.EVENTS_BY_DB_ID.getName()),
+		RequiredIndex.propertyIndex("ReferenceGeneProduct", "dbId",
+			ExportQuery.RLE_IDS_BY_UNIPROT_DB_ID.getName()),
+		RequiredIndex.propertyIndex("ReactionLikeEvent", "dbId",
+			ExportQuery.PATHWAY_IDS_BY_RLE_DB_ID.getName()),
+		RequiredIndex.labelLookup("TopLevelPathway",
+			ExportQuery.TOP_LEVEL_PATHWAYS.getName())
+	);
+
+	private static final int INDEX_CREATION_TIMEOUT_SECONDS = 600;
+	private static final int FIRST_NEO4J_VERSION_WITH_LOOKUP_INDEXES = 43; // i.e. Neo4j 4.3
+
+	private final Mode mode;
+
+	/**
+	 * Action taken by the index advisor when required indexes are missing
+	 */
+	public enum Mode {
+		OFF,
+		WARN,
+		FAIL,
+		CREATE;
+
+		/**
+		 * Parses the mode from its (case-insensitive) configuration value
+		 * @param modeValue Configuration value of the mode (e.g. "warn")
+		 * @return Mode for the configuration value
+		 * @throws IllegalArgumentException Thrown if the configuration value is not a known mode
+		 */
+		public static Mode fromConfigurationValue(String modeValue) {
+			try {
+				return Mode.valueOf(modeValue.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException(
+					"Unknown indexAdvisorMode '" + modeValue + "' - expected one of " + Arrays.toString(values()), e
+				);
+			}
+		}
+	}
+
+	/**
+	 * Returns a new instance of the index advisor with the mode set by the "indexAdvisorMode" configuration property
+	 * (default "warn")
+	 * @param props Configuration properties for the data export
+	 * @return IndexAdvisor object to check the graph database indexes
+	 * @throws IllegalArgumentException Thrown if the indexAdvisorMode property is not a known mode
+	 */
+	public static IndexAdvisor getInstance(Properties props) {
+		return new IndexAdvisor(Mode.fromConfigurationValue(props.getProperty("indexAdvisorMode", "warn")));
+	}
+
+	private IndexAdvisor(Mode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Retrieves the catalog of indexes on which the exporter's queries rely
+	 * @return List of required indexes
+	 */
+	public static List<RequiredIndex> getRequiredIndexes() {
+		return Collections.unmodifiableList(REQUIRED_INDEXES);
+	}
+
+	/**
+	 * Checks the graph database for the required indexes and warns about, fails on, or creates the missing indexes
+	 * according to the mode of the index advisor
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @throws IllegalStateException Thrown if required indexes are missing and the mode is "fail"
+	 * @throws Neo4jException Thrown if the indexes of the graph database can not be retrieved and the mode is not
+	 * "warn"
+	 */
+	public void checkIndexes(Session graphDBSession) {
+		if (mode == Mode.OFF) {
+			logger.info("Index advisor is off - graph database indexes will not be checked");
+			return;
+		}
+
+		logger.info("Checking graph database for indexes required by export queries");
+
+		List<RequiredIndex> missingIndexes;
+		try {
+			missingIndexes = findMissingIndexes(graphDBSession);
+		} catch (Neo4jException e) {
+			if (mode != Mode.WARN) {
+				throw e;
+			}
+			logger.warn("Unable to retrieve the graph database indexes - continuing without the index check", e);
+			return;
+		}
+
+		if (missingIndexes.isEmpty()) {
+			logger.info("All {} indexes required by export queries are present", REQUIRED_INDEXES.size());
+			return;
+		}
+
+		if (mode == Mode.FAIL) {
+			throw new IllegalStateException(
+				"Graph database is missing indexes required by export queries: " + missingIndexes
+			);
+		} else if (mode == Mode.CREATE) {
+			createIndexes(graphDBSession, missingIndexes);
+		}
+	}
+
+	/**
+	 * Retrieves the required indexes which are missing from the graph database, logging each with the estimated cost
+	 * of the scan replacing it
+	 */
+	private List<RequiredIndex> findMissingIndexes(Session graphDBSession) {
+		List<RequiredIndex> missingIndexes = getMissingIndexes(
+			REQUIRED_INDEXES,
+			getOnlinePropertyIndexes(graphDBSession),
+			isLabelLookupAvailable(graphDBSession)
+		);
+
+		for (RequiredIndex missingIndex : missingIndexes) {
+			logger.warn("Missing index {} used by queries {} - {}",
+				missingIndex, missingIndex.getQueryNames(), getEstimatedCost(graphDBSession, missingIndex));
+		}
+		return missingIndexes;
+	}
+
+	/**
+	 * Returns the required indexes which are not present in the graph database
+	 * @param requiredIndexes Indexes on which the exporter's queries rely
+	 * @param onlinePropertyIndexes Single property indexes present and online in the graph database
+	 * @param labelLookupAvailable <code>true</code> if the graph database can look up nodes by label without a
+	 * scan of all nodes; <code>false</code> otherwise
+	 * @return List of the required indexes which are missing
+	 */
+	static List<RequiredIndex> getMissingIndexes(List<RequiredIndex> requiredIndexes,
+												 Set<RequiredIndex> onlinePropertyIndexes,
+												 boolean labelLookupAvailable) {
+		return requiredIndexes
+			.stream()
+			.filter(requiredIndex -> requiredIndex.isLabelLookup() ?
+				!labelLookupAvailable :
+				!onlinePropertyIndexes.contains(requiredIndex)
+			)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Retrieves the online single property node indexes of the graph database.  SHOW INDEXES is used if supported
+	 * by the server; otherwise db.indexes() (Neo4j versions before 4.2), whose columns differ between versions: the
+	 * labels of an index are "tokenNames" before Neo4j 4.0 and "labelsOrTypes" from 4.0, and the entity type of an
+	 * index is only a column from 4.0 (before which relationships only have full-text indexes).
+	 */
+	Set<RequiredIndex> getOnlinePropertyIndexes(Session graphDBSession) {
+		List<Record> indexRecords;
+		try {
+			indexRecords = graphDBSession.run(
+				"SHOW INDEXES YIELD labelsOrTypes, properties, state, type, entityType WHERE entityType = 'NODE'"
+			).list();
+		} catch (ClientException e) {
+			logger.info("SHOW INDEXES is not supported by the graph database - using db.indexes()");
+			indexRecords = graphDBSession.run("CALL db.indexes()").list();
+		}
+
+		Set<RequiredIndex> onlinePropertyIndexes = new HashSet<>();
+		for (Record indexRecord : indexRecords) {
+			List<String> labels = asStringList(
+				indexRecord.get(indexRecord.containsKey("labelsOrTypes") ? "labelsOrTypes" : "tokenNames")
+			);
+			List<String> properties = asStringList(indexRecord.get("properties"));
+
+			// Only single property (not full-text) node indexes are used for the equality predicates of the export
+			// queries
+			if (labels.size() == 1 && properties.size() == 1 && isOnlineNodePropertyIndex(indexRecord)) {
+				onlinePropertyIndexes.add(RequiredIndex.propertyIndex(labels.get(0), properties.get(0)));
+			}
+		}
+		return onlinePropertyIndexes;
+	}
+
+	private static boolean isOnlineNodePropertyIndex(Record indexRecord) {
+		boolean nodeIndex = !indexRecord.containsKey("entityType") ||
+			"NODE".equals(indexRecord.get("entityType").asString());
+		boolean fullTextIndex = indexRecord.containsKey("type") &&
+			indexRecord.get("type").asString().toUpperCase().contains("FULLTEXT");
+
+		return nodeIndex && !fullTextIndex && "ONLINE".equals(indexRecord.get("state").asString());
+	}
+
+	/**
+	 * Neo4j versions before 4.3 always maintain a label scan store.  From 4.3, label lookup is provided by a node
+	 * LOOKUP index which can be dropped.
+	 */
+	private boolean isLabelLookupAvailable(Session graphDBSession) {
+		if (getNeo4jMajorMinorVersion(graphDBSession) < FIRST_NEO4J_VERSION_WITH_LOOKUP_INDEXES) {
+			return true;
+		}
+
+		return graphDBSession.run(
+			"SHOW INDEXES YIELD type, entityType, state " +
+			"WHERE type = 'LOOKUP' AND entityType = 'NODE' AND state = 'ONLINE' RETURN count(*) AS lookupIndexes"
+		).single().get("lookupIndexes").asLong() > 0;
+	}
+
+	private int getNeo4jMajorMinorVersion(Session graphDBSession) {
+		String version = graphDBSession.run(
+			"CALL dbms.components() YIELD name, versions WHERE name = 'Neo4j Kernel' RETURN versions[0] AS version"
+		).single().get("version").asString();
+
+		String[] versionParts = version.split("\\.");
+		return Integer.parseInt(versionParts[0]) * 10 + Integer.parseInt(versionParts[1]);
+	}
+
+	/**
+	 * Estimates the database hits of one lookup without the index: a missing property index is replaced by a scan
+	 * of the nodes with the label (reading the property of each) and a missing label lookup by a scan of all nodes
+	 * (checking the labels of each).  The node counts come from the count store so are cheap to retrieve.
+	 */
+	private String getEstimatedCost(Session graphDBSession, RequiredIndex missingIndex) {
+		final int DB_HITS_PER_SCANNED_NODE = 2;
+
+		String countQuery = missingIndex.isLabelLookup() ?
+			"MATCH (n) RETURN count(n) AS nodes" :
+			"MATCH (n:" + missingIndex.getLabel() + ") RETURN count(n) AS nodes";
+		long scannedNodes = graphDBSession.run(countQuery).single().get("nodes").asLong();
+
+		return String.format("each lookup scans %d %s nodes (~%d db hits)",
+			scannedNodes,
+			missingIndex.isLabelLookup() ? "graph database" : ":" + missingIndex.getLabel(),
+			scannedNodes * DB_HITS_PER_SCANNED_NODE
+		);
+	}
+
+	private void createIndexes(Session graphDBSession, List<RequiredIndex> missingIndexes) {
+		logger.warn("Creating {} missing indexes - this should only be done on a scratch copy of the graph database",
+			missingIndexes.size());
+
+		for (RequiredIndex missingIndex : missingIndexes) {
+			logger.info("Creating index {}", missingIndex);
+			graphDBSession.run(getCreateIndexStatement(missingIndex)).consume();
+		}
+
+		logger.info("Waiting up to {} seconds for created indexes to come online", INDEX_CREATION_TIMEOUT_SECONDS);
+		graphDBSession.run("CALL db.awaitIndexes(" + INDEX_CREATION_TIMEOUT_SECONDS + ")").consume();
+		logger.info("Finished creating missing indexes");
+	}
+
+	static String getCreateIndexStatement(RequiredIndex requiredIndex) {
+		if (requiredIndex.isLabelLookup()) {
+			return "CREATE LOOKUP INDEX data_exporter_node_label_lookup IF NOT EXISTS FOR (n) ON EACH labels(n)";
+		}
+
+		String indexName = "data_exporter_" + requiredIndex.getLabel() + "_" + requiredIndex.getProperty();
+		return "CREATE INDEX " + indexName + " IF NOT EXISTS " +
+			"FOR (n:" + requiredIndex.getLabel() + ") ON (n." + requiredIndex.getProperty() + ")";
+	}
+
+	private static List<String> asStringList(Value value) {
+		return value.isNull() ? Collections.emptyList() : value.asList(Value::asString);
+	}
+}
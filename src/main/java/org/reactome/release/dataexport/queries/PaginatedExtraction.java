@@ -0,0 +1,174 @@
+package org.reactome.release.dataexport.queries;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Optional keyset-paginated extraction of very large query results.  Instead of one long transaction returning
+ * millions of rows, the database identifier (dbId) range of the queried nodes is split into contiguous ranges which
+ * are walked in parallel, each on its own session, one short page at a time:
+ *
+ * WHERE n.dbId > $lastDbId AND n.dbId <= $maxDbId ... ORDER BY n.dbId LIMIT $pageSize
+ *
+ * The rows of each range are decoded on the worker threads and returned to the calling thread in range order to be
+ * merged.  The following configuration properties are used (all optional):
+ * paginatedExtraction - "true" to extract large results by page (default "false")
+ * extractionPageSize - Number of nodes per page (default 10000)
+ * extractionThreads - Number of ranges extracted in parallel, each with its own session (default 4)
+ */
+public class PaginatedExtraction {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+
+	private static final int DEFAULT_EXTRACTION_THREADS = 4;
+	private static final int RANGES_PER_THREAD = 4; // More ranges than threads balances uneven dbId distributions
+
+	private static boolean enabled = false;
+	private static int extractionThreads = DEFAULT_EXTRACTION_THREADS;
+	private static Driver graphDBDriver;
+
+	private PaginatedExtraction() {}
+
+	/**
+	 * Sets whether paginated extraction is used and the number of parallel sessions from the configuration
+	 * properties of the data export
+	 * @param props Configuration properties for the data export
+	 * @param driver Neo4J Driver for the graph database (used to open a session per extraction thread)
+	 * @throws IllegalStateException Thrown if paginated extraction is requested but the driver is null
+	 */
+	public static void configure(Properties props, Driver driver) {
+		enabled = Boolean.parseBoolean(props.getProperty("paginatedExtraction", "false"));
+		extractionThreads = Integer.parseInt(
+			props.getProperty("extractionThreads", Integer.toString(DEFAULT_EXTRACTION_THREADS))
+		);
+		if (enabled && driver == null) {
+			throw new IllegalStateException("Paginated extraction requires a Neo4j driver");
+		}
+		graphDBDriver = driver;
+	}
+
+	/**
+	 * Returns <code>true</code> if large results should be extracted by page
+	 * @return <code>true</code> if paginated extraction is configured; <code>false</code> otherwise
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Extracts the rows of a paginated query across parallel sessions.
+	 *
+	 * The range query must return the columns "minDbId" and "maxDbId" for the nodes being paged.  The page query must
+	 * use the parameters $lastDbId, $maxDbId and $pageSize as described in the class documentation, return one row per
+	 * paged node and return the largest dbId of the page in the column "pageLastDbId" of every row.
+	 *
+	 * @param graphDBSession Neo4J Driver Session object used for the range query
+	 * @param rangeQuery Query returning the dbId range of the nodes to page through
+	 * @param pageQuery Query returning one page of rows
+	 * @param rowDecoder Function decoding a record into a row (called on the extraction threads so must be thread
+	 * safe)
+	 * @param <R> Type of the decoded rows
+	 * @return List of the decoded rows in ascending dbId order
+	 * @throws IllegalStateException Thrown if the extraction of any range fails or is interrupted
+	 */
+	public static <R> List<R> extract(Session graphDBSession, ExportQuery rangeQuery, ExportQuery pageQuery,
+									  Function<Record, R> rowDecoder) {
+		long[] dbIdRange = new long[2];
+		boolean[] nodesFound = new boolean[1];
+		int minDbIdColumn = rangeQuery.getColumn("minDbId");
+		int maxDbIdColumn = rangeQuery.getColumn("maxDbId");
+		GraphQueryExecutor.forEachRecord(graphDBSession, rangeQuery, record -> {
+			nodesFound[0] = !record.get(minDbIdColumn).isNull();
+			if (nodesFound[0]) {
+				dbIdRange[0] = record.get(minDbIdColumn).asLong();
+				dbIdRange[1] = record.get(maxDbIdColumn).asLong();
+			}
+		});
+		if (!nodesFound[0]) {
+			return new ArrayList<>();
+		}
+
+		List<long[]> ranges = splitRange(dbIdRange[0], dbIdRange[1], extractionThreads * RANGES_PER_THREAD);
+		logger.info("Extracting '{}' in {} dbId ranges ({} to {}) with {} threads",
+			pageQuery.getName(), ranges.size(), dbIdRange[0], dbIdRange[1], extractionThreads);
+
+		ExecutorService extractionExecutor = Executors.newFixedThreadPool(extractionThreads);
+		try {
+			List<Future<List<R>>> rangeRows = new ArrayList<>();
+			for (long[] range : ranges) {
+				rangeRows.add(extractionExecutor.submit(() -> extractRange(pageQuery, range, rowDecoder)));
+			}
+
+			List<R> rows = new ArrayList<>();
+			for (Future<List<R>> rangeRow : rangeRows) {
+				rows.addAll(getResult(rangeRow));
+			}
+			return rows;
+		} finally {
+			extractionExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Splits the inclusive range from minimum to maximum into at most numberOfRanges contiguous, inclusive ranges
+	 * @param minimum Smallest value of the range
+	 * @param maximum Largest value of the range
+	 * @param numberOfRanges Number of ranges to split the range into
+	 * @return List of two element arrays holding the first and last value of each range, in ascending order
+	 */
+	static List<long[]> splitRange(long minimum, long maximum, int numberOfRanges) {
+		long rangeWidth = Math.max((maximum - minimum + numberOfRanges) / numberOfRanges, 1);
+
+		List<long[]> ranges = new ArrayList<>();
+		for (long rangeStart = minimum; rangeStart <= maximum; rangeStart += rangeWidth) {
+			ranges.add(new long[] {rangeStart, Math.min(rangeStart + rangeWidth - 1, maximum)});
+		}
+		return ranges;
+	}
+
+	private static <R> List<R> extractRange(ExportQuery pageQuery, long[] range, Function<Record, R> rowDecoder) {
+		int pageLastDbIdColumn = pageQuery.getColumn("pageLastDbId");
+		Map<String, Object> parameters = new HashMap<>(QueryParameters.forQuery(pageQuery));
+		long pageSize = ((Number) parameters.get("pageSize")).longValue();
+
+		List<R> rows = new ArrayList<>();
+		try (Session rangeSession = graphDBDriver.session()) {
+			long lastDbId = range[0] - 1;
+			long[] pageLastDbId = new long[1];
+			long pageRows;
+			do {
+				parameters.put("lastDbId", lastDbId);
+				parameters.put("maxDbId", range[1]);
+				pageRows = GraphQueryExecutor.forEachRecord(rangeSession, pageQuery, parameters, record -> {
+					pageLastDbId[0] = record.get(pageLastDbIdColumn).asLong();
+					rows.add(rowDecoder.apply(record));
+				});
+				lastDbId = pageLastDbId[0];
+			} while (pageRows == pageSize);
+		}
+		return rows;
+	}
+
+	private static <R> List<R> getResult(Future<List<R>> rangeRows) {
+		try {
+			return rangeRows.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for paginated extraction", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Paginated extraction failed", e.getCause());
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package org.reactome.release.dataexport.queries;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Values of the parameters used by the queries in the export query catalog.  The values have defaults matching the
+ * files Reactome provides to NCBI, UCSC and Europe PMC and can be changed through the following (optional)
+ * configuration properties:
+ * ucscSpecies - Comma separated species names for the UCSC files (default "Homo sapiens,Rattus norvegicus,Mus musculus")
+ * europePMCSpecies - Species name of the pathways for the Europe PMC files (default "Homo sapiens")
+ * referenceDatabase - Display name of the reference database of the exported proteins (default "UniProt")
+ * geneDatabase - Database name of the reference genes for the NCBI Gene files (default "NCBI Gene")
+ * extractionPageSize - Number of nodes per page of a paginated query (default 10000)
+ *
+ * The $lastDbId and $maxDbId parameters of paginated queries are set for each page by PaginatedExtraction; their
+ * default values select the first page of all nodes.
+ * The $eventDbIds, $uniprotDbIds and $rleDbIds parameters are set for each batch of identifiers looked up when
+ * loading events; their default values are empty.
+ * @see ExportQuery
+ */
+public class QueryParameters {
+	private static final List<String> DEFAULT_UCSC_SPECIES =
+		Arrays.asList("Homo sapiens", "Rattus norvegicus", "Mus musculus");
+	private static final String DEFAULT_EUROPE_PMC_SPECIES = "Homo sapiens";
+	private static final String DEFAULT_REFERENCE_DATABASE = "UniProt";
+	private static final String DEFAULT_GENE_DATABASE = "NCBI Gene";
+	private static final long DEFAULT_EXTRACTION_PAGE_SIZE = 10000;
+
+	private static Map<String, Object> parameterValues = getParameterValues(new Properties());
+
+	private QueryParameters() {}
+
+	/**
+	 * Sets the values of the query parameters from the configuration properties of the data export (parameters without
+	 * a configuration property keep their default values)
+	 * @param props Configuration properties for the data export
+	 */
+	public static void configure(Properties props) {
+		parameterValues = getParameterValues(props);
+	}
+
+	/**
+	 * Returns the configured values for the parameters used by a query
+	 * @param exportQuery Query from the export query catalog
+	 * @return Map of parameter name to value for the query
+	 * @throws IllegalStateException Thrown if the query uses a parameter for which there is no value
+	 */
+	public static Map<String, Object> forQuery(ExportQuery exportQuery) {
+		Map<String, Object> queryParameters = new HashMap<>();
+		for (String parameterName : exportQuery.getParameterNames()) {
+			if (!parameterValues.containsKey(parameterName)) {
+				throw new IllegalStateException(
+					"No value for parameter $" + parameterName + " of query '" + exportQuery.getName() + "'"
+				);
+			}
+			queryParameters.put(parameterName, parameterValues.get(parameterName));
+		}
+		return queryParameters;
+	}
+
+	/**
+	 * Returns the species names used for the UCSC files
+	 * @return List of species names
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<String> getUCSCSpecies() {
+		return (List<String>) parameterValues.get("ucscSpecies");
+	}
+
+	private static Map<String, Object> getParameterValues(Properties props) {
+		Map<String, Object> parameterValues = new HashMap<>();
+		parameterValues.put("ucscSpecies", getSpeciesList(props.getProperty("ucscSpecies"), DEFAULT_UCSC_SPECIES));
+		parameterValues.put("europePMCSpecies", props.getProperty("europePMCSpecies", DEFAULT_EUROPE_PMC_SPECIES));
+		parameterValues.put("referenceDatabase", props.getProperty("referenceDatabase", DEFAULT_REFERENCE_DATABASE));
+		parameterValues.put("geneDatabase", props.getProperty("geneDatabase", DEFAULT_GENE_DATABASE));
+		parameterValues.put("pageSize", Long.parseLong(
+			props.getProperty("extractionPageSize", Long.toString(DEFAULT_EXTRACTION_PAGE_SIZE))
+		));
+		parameterValues.put("lastDbId", -1L);
+		parameterValues.put("maxDbId", Long.MAX_VALUE);
+		parameterValues.put("eventDbIds", Collections.emptyList());
+		parameterValues.put("uniprotDbIds", Collections.emptyList());
+		parameterValues.put("rleDbIds", Collections.emptyList());
+		return parameterValues;
+	}
+
+	private static List<String> getSpeciesList(String speciesProperty, List<String> defaultSpecies) {
+		if (speciesProperty == null || speciesProperty.trim().isEmpty()) {
+			return defaultSpecies;
+		}
+
+		return Collections.unmodifiableList(
+			Arrays.stream(speciesProperty.split(","))
+				.map(String::trim)
+				.filter(species -> !species.isEmpty())
+				.collect(Collectors.toList())
+		);
+	}
+}
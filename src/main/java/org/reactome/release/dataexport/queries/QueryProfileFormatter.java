@@ -0,0 +1,84 @@
+package org.reactome.release.dataexport.queries;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.summary.ProfiledPlan;
+
+import java.util.Map;
+
+/**
+ * Formats a profiled Cypher execution plan as a plain text report.  Each operator of the plan is listed as an
+ * indented tree with the rows it produced, the database hits it caused and its details (e.g. the label and
+ * properties used by an index seek).
+ */
+class QueryProfileFormatter {
+	private static final String ROW_FORMAT = "%-60s %12s %14s  %s";
+
+	private QueryProfileFormatter() {}
+
+	/**
+	 * Returns the text report for a profiled query
+	 * @param queryName Name of the query
+	 * @param query Cypher of the query
+	 * @param parameters Parameters with which the query was run
+	 * @param elapsedMillis Time taken by the original (non-profiled) execution of the query
+	 * @param profiledPlan Root of the profiled execution plan
+	 * @return Text report of the query's profiled execution plan
+	 */
+	static String format(String queryName, String query, Map<String, Object> parameters, long elapsedMillis,
+						 ProfiledPlan profiledPlan) {
+		StringBuilder report = new StringBuilder();
+
+		appendLine(report, "Query: " + queryName);
+		appendLine(report, "Elapsed time of original execution: " + elapsedMillis + " ms");
+		appendLine(report, "Total database hits: " + getTotalDbHits(profiledPlan));
+		appendLine(report, "Parameters: " + parameters);
+		appendLine(report, "");
+		appendLine(report, query);
+		appendLine(report, "");
+		appendLine(report, String.format(ROW_FORMAT, "Operator", "Rows", "DB Hits", "Details"));
+		appendOperator(report, profiledPlan, 0);
+
+		return report.toString();
+	}
+
+	/**
+	 * Returns the sum of the database hits of an operator and all of its child operators
+	 * @param profiledPlan Operator of a profiled plan
+	 * @return Total number of database hits
+	 */
+	static long getTotalDbHits(ProfiledPlan profiledPlan) {
+		long totalDbHits = profiledPlan.dbHits();
+		for (ProfiledPlan child : profiledPlan.children()) {
+			totalDbHits += getTotalDbHits(child);
+		}
+		return totalDbHits;
+	}
+
+	private static void appendOperator(StringBuilder report, ProfiledPlan profiledPlan, int depth) {
+		StringBuilder operatorName = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			operatorName.append("| ");
+		}
+		operatorName.append('+').append(profiledPlan.operatorType());
+
+		appendLine(report, String.format(ROW_FORMAT,
+			operatorName, profiledPlan.records(), profiledPlan.dbHits(), getDetails(profiledPlan)
+		));
+
+		for (ProfiledPlan child : profiledPlan.children()) {
+			appendOperator(report, child, depth + 1);
+		}
+	}
+
+	private static String getDetails(ProfiledPlan profiledPlan) {
+		Map<String, Value> arguments = profiledPlan.arguments();
+		if (arguments.containsKey("Details")) {
+			return arguments.get("Details").asString();
+		}
+		return String.join(", ", profiledPlan.identifiers());
+	}
+
+	private static void appendLine(StringBuilder report, String line) {
+		report.append(line).append(System.lineSeparator());
+	}
+}
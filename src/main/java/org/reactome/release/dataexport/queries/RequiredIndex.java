@@ -0,0 +1,106 @@
+package org.reactome.release.dataexport.queries;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Describes an index in the graph database on which one or more of the exporter's queries rely.  The index is
+ * either a property index on a node label (e.g. :ReferenceDatabase(displayName)) or, when no property is given, the
+ * node label lookup index used to find all nodes with a label (e.g. :TopLevelPathway).
+ */
+public class RequiredIndex {
+	private final String label;
+	private final String property;
+	private final List<String> queryNames;
+
+	/**
+	 * Creates a required property index on a node label
+	 * @param label Node label of the index
+	 * @param property Node property of the index
+	 * @param queryNames Names of the exporter queries which rely on the index
+	 * @return RequiredIndex for the label and property
+	 */
+	public static RequiredIndex propertyIndex(String label, String property, String... queryNames) {
+		return new RequiredIndex(label, property, Arrays.asList(queryNames));
+	}
+
+	/**
+	 * Creates a required node label lookup index
+	 * @param label Node label queried without a property predicate
+	 * @param queryNames Names of the exporter queries which rely on the index
+	 * @return RequiredIndex for the label
+	 */
+	public static RequiredIndex labelLookup(String label, String... queryNames) {
+		return new RequiredIndex(label, null, Arrays.asList(queryNames));
+	}
+
+	private RequiredIndex(String label, String property, List<String> queryNames) {
+		this.label = label;
+		this.property = property;
+		this.queryNames = Collections.unmodifiableList(queryNames);
+	}
+
+	/**
+	 * Retrieves the node label of the index
+	 * @return Node label
+	 */
+	public String getLabel() {
+		return this.label;
+	}
+
+	/**
+	 * Retrieves the node property of the index
+	 * @return Node property or <code>null</code> if this is a label lookup index
+	 */
+	public String getProperty() {
+		return this.property;
+	}
+
+	/**
+	 * Retrieves the names of the exporter queries which rely on the index
+	 * @return List of query names
+	 */
+	public List<String> getQueryNames() {
+		return this.queryNames;
+	}
+
+	/**
+	 * Returns <code>true</code> if this is a node label lookup index rather than a property index
+	 * @return <code>true</code> if there is no property for the index; <code>false</code> otherwise
+	 */
+	public boolean isLabelLookup() {
+		return this.property == null;
+	}
+
+	/**
+	 * Returns the index in Cypher pattern notation (e.g. ":Pathway(speciesName)" or ":TopLevelPathway")
+	 * @return Description of the index
+	 */
+	@Override
+	public String toString() {
+		return isLabelLookup() ? ":" + getLabel() : ":" + getLabel() + "(" + getProperty() + ")";
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+
+		if (!(obj instanceof RequiredIndex)) {
+			return false;
+		}
+
+		RequiredIndex oRequiredIndex = (RequiredIndex) obj;
+
+		return getLabel().equals(oRequiredIndex.getLabel()) &&
+			Objects.equals(getProperty(), oRequiredIndex.getProperty());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getLabel(), getProperty());
+	}
+}
@@ -3,6 +3,10 @@ package org.reactome.release.dataexport.resources;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.neo4j.driver.Session;
+import org.reactome.release.dataexport.archive.ExportManifest;
+import org.reactome.release.dataexport.monitoring.FileWriteEvent;
+import org.reactome.release.dataexport.queries.ExportQuery;
+import org.reactome.release.dataexport.queries.GraphQueryExecutor;
 import org.reactome.release.dataexport.utilities.ReactomeURLConstants;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -13,7 +17,6 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static org.reactome.release.dataexport.utilities.DataExportUtilities.*;
 
@@ -29,6 +32,10 @@ public class EuropePMC {
 	private static final String rootTag = "links";
 	private static final int reactomeProviderID = 1925;
 
+	private static final int PATHWAY_DISPLAY_NAME_COLUMN = ExportQuery.EUROPE_PMC_LINKS.getColumn("p.displayName");
+	private static final int PATHWAY_STABLE_ID_COLUMN = ExportQuery.EUROPE_PMC_LINKS.getColumn("p.stId");
+	private static final int PUBMED_ID_COLUMN = ExportQuery.EUROPE_PMC_LINKS.getColumn("lr.pubMedIdentifier");
+
 	private String outputDir;
 	private int reactomeReleaseNumber;
 
@@ -54,26 +61,24 @@ public class EuropePMC {
 	public static Set<EuropePMCLink> fetchEuropePMCLinks(Session graphDBSession) {
 		logger.info("Fetching Europe PMC Links from Reactome Pathways");
 
-		Set<EuropePMCLink> europePMCLinks = graphDBSession.run(
-			String.join(System.lineSeparator(),
-				"MATCH (p:Pathway)-[:literatureReference]->(lr:LiteratureReference)",
-				"WHERE p.speciesName = 'Homo sapiens' AND lr.pubMedIdentifier IS NOT NULL",
-				"RETURN DISTINCT p.displayName, p.stId, lr.pubMedIdentifier",
-				"ORDER BY p.displayName"
-			)
-		)
-		.stream()
-		.map(record ->
-			new EuropePMCLink(
-				record.get("p.displayName").asString(),
-				record.get("p.stId").asString(),
-				Integer.toString(record.get("lr.pubMedIdentifier").asInt())
+		List<EuropePMCLink> europePMCLinks = new ArrayList<>();
+		GraphQueryExecutor.forEachRecord(graphDBSession, ExportQuery.EUROPE_PMC_LINKS,
+			record -> europePMCLinks.add(
+				new EuropePMCLink(
+					record.get(PATHWAY_DISPLAY_NAME_COLUMN).asString(),
+					record.get(PATHWAY_STABLE_ID_COLUMN).asString(),
+					Integer.toString(record.get(PUBMED_ID_COLUMN).asInt())
+				)
 			)
-		).collect(Collectors.toCollection(LinkedHashSet::new));
+		);
+
+		Set<EuropePMCLink> sortedEuropePMCLinks = new LinkedHashSet<>(
+			parallelSortByKey(europePMCLinks, EuropePMCLink::getPathwayDisplayName)
+		);
 
 		logger.info("Finished fetching Europe PMC Links from Reactome Pathways");
 
-		return europePMCLinks;
+		return sortedEuropePMCLinks;
 	}
 
 	/**
@@ -99,8 +104,10 @@ public class EuropePMC {
 		logger.info("Writing Europe PMC Profile file");
 
 		Path europePMCProfileFilePath = getEuropePMCProfileFilePath();
-		deleteAndCreateFile(europePMCProfileFilePath);
-		appendWithNewLine(getEuropePMCProfileXML(), europePMCProfileFilePath);
+		FileWriteEvent fileWriteEvent = FileWriteEvent.start(europePMCProfileFilePath);
+		String europePMCProfileXML = getEuropePMCProfileXML();
+		ExportManifest.writeTextFile(europePMCProfileFilePath, writer -> writeWithNewLine(europePMCProfileXML, writer));
+		fileWriteEvent.finish();
 
 		logger.info("Finished writing Europe PMC Profile file");
 	}
@@ -148,8 +155,10 @@ public class EuropePMC {
 		logger.info("Writing Europe PMC Link file");
 
 		Path europePMCLinkFilePath = getEuropePMCLinkFilePath();
-		deleteAndCreateFile(europePMCLinkFilePath);
-		appendWithNewLine(getEuropePMCLinksXML(graphDBSession), europePMCLinkFilePath);
+		FileWriteEvent fileWriteEvent = FileWriteEvent.start(europePMCLinkFilePath);
+		String europePMCLinksXML = getEuropePMCLinksXML(graphDBSession);
+		ExportManifest.writeTextFile(europePMCLinkFilePath, writer -> writeWithNewLine(europePMCLinksXML, writer));
+		fileWriteEvent.finish();
 
 		logger.info("Finished writing Europe PMC Link file");
 	}
@@ -3,16 +3,23 @@ package org.reactome.release.dataexport.resources;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.neo4j.driver.*;
+import org.reactome.release.dataexport.archive.ExportManifest;
 import org.reactome.release.dataexport.datastructures.NCBIEntry;
 import org.reactome.release.dataexport.datastructures.ReactomeEvent;
+import org.reactome.release.dataexport.monitoring.FileWriteEvent;
+import org.reactome.release.dataexport.monitoring.ProgressTracker;
+import org.reactome.release.dataexport.utilities.LineDeduplicator;
 import org.reactome.release.dataexport.utilities.ReactomeURLConstants;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.reactome.release.dataexport.utilities.DataExportUtilities.*;
 
@@ -30,10 +37,30 @@ public class NCBIGene {
 
 	private static final String rootTag = "LinkSet";
 
+	// The limit set by NCBI for individual file uploads is 15MB, but files are kept under 14MB for some buffer space
+	private static final long MAX_FILE_SIZE_IN_BYTES = 14L * 1024 * 1024;
+	private static final int DEFAULT_WRITER_THREADS = Runtime.getRuntime().availableProcessors();
+
+	private static int writerThreads = DEFAULT_WRITER_THREADS;
+
 	private List<NCBIEntry> ncbiEntries;
 	private String outputDir;
 	private int reactomeReleaseNumber;
 
+	/**
+	 * Sets the number of threads writing the NCBI Gene XML files from the configuration properties of the data export
+	 * @param props Configuration properties for the data export
+	 * @throws IllegalArgumentException Thrown if the ncbiGeneWriterThreads property is not positive
+	 */
+	public static void configure(Properties props) {
+		writerThreads = Integer.parseInt(
+			props.getProperty("ncbiGeneWriterThreads", Integer.toString(DEFAULT_WRITER_THREADS))
+		);
+		if (writerThreads <= 0) {
+			throw new IllegalArgumentException("ncbiGeneWriterThreads must be positive but was " + writerThreads);
+		}
+	}
+
 	public static NCBIGene getInstance(List<NCBIEntry> ncbiEntries, String outputDir, int reactomeReleaseNumber) {
 		return new NCBIGene(ncbiEntries, outputDir, reactomeReleaseNumber);
 	}
@@ -46,117 +73,170 @@ public class NCBIGene {
 
 	/**
 	 * Writes NCBI Protein tab-delimited file describing the UniProt to NCBI Gene identifier relationships in
-	 * Reactome to a pre-set output directory
+	 * Reactome to a pre-set output directory.  Repeated lines are written once; the distinct lines are held in a
+	 * LineDeduplicator, which spills them to disk if they exceed its memory budget.
 	 * @throws IOException Thrown if creating or appending for file fails
 	 */
 	public void writeProteinFile() throws IOException {
 		logger.info("Writing proteins_version file");
 
 		Path filePath = getProteinFilePath();
-		deleteAndCreateFile(filePath);
-
-		// Write file header
-		Files.write(
-			filePath,
-			"UniProt ID\tGene id"
-				.concat(System.lineSeparator())
-				.concat(System.lineSeparator())
-				.getBytes()
-		);
+		FileWriteEvent fileWriteEvent = FileWriteEvent.start(filePath);
 
-		// Append map contents
-		Set<String> proteinLines = new LinkedHashSet<>();
-		for (NCBIEntry ncbiEntry : ncbiEntries) {
-			for (String ncbiGeneId : ncbiEntry.getNcbiGeneIds()) {
-				proteinLines.add(ncbiEntry.getUniprotAccession() + "\t" + ncbiGeneId);
+		try (LineDeduplicator proteinLines = LineDeduplicator.getInstance()) {
+			for (NCBIEntry ncbiEntry : ncbiEntries) {
+				for (String ncbiGeneId : ncbiEntry.getNcbiGeneIds()) {
+					proteinLines.add(ncbiEntry.getUniprotAccession() + "\t" + ncbiGeneId);
+				}
 			}
-		}
 
-		for (String line : proteinLines) {
-			appendWithNewLine(line, filePath);
+			ExportManifest.writeTextFile(filePath, proteinFileWriter -> {
+				// Write file header
+				writeWithNewLine("UniProt ID\tGene id" + System.lineSeparator(), proteinFileWriter);
+
+				// Write map contents
+				proteinLines.writeDistinctLines(proteinFileWriter);
+			});
 		}
+		fileWriteEvent.finish();
 
 		logger.info("Finished writing proteins_version file");
 	}
 
 	/**
 	 * Writes NCBI Gene XML files describing the relationships between NCBI Gene identifiers and UniProt entries as
-	 * well as their Reactome pathways to pre-set output directory
+	 * well as their Reactome pathways to pre-set output directory.  The files are planned first (all the links of a
+	 * gene are in the same file and each file is under the NCBI upload size limit) and then written concurrently.
 	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
 	 * @throws IOException Thrown if creating or appending for any file fails
+	 * @see NCBIGeneShardPlan
 	 */
 	public void writeGeneXMLFiles(Session graphDBSession) throws IOException {
 
 		logger.info("Writing gene XML file(s)");
 
-		Path geneErrorFilePath = getGeneErrorFilePath();
-		deleteAndCreateFile(geneErrorFilePath);
-
-		Set<String> ncbiGeneXMLNodeStrings = new LinkedHashSet<>();
-		for (NCBIEntry ncbiEntry : ncbiEntries) {
-			ncbiGeneLogger.info("Working on {}", ncbiEntry.getUniprotAccession());
+		ProgressTracker progressTracker = ProgressTracker.start(
+			ncbiGeneLogger, "NCBI Gene XML", "UniProt entries", ncbiEntries.size()
+		);
+		List<NCBIGeneShardPlan.LinkBlock> linkBlocks = new ArrayList<>();
+		List<String> errorMessages = new ArrayList<>();
+		final int EVENT_BATCH_SIZE = ReactomeEvent.getEventBatchSize();
+		for (int batchStart = 0; batchStart < ncbiEntries.size(); batchStart += EVENT_BATCH_SIZE) {
+			// The top level pathways of the entries are resolved a batch of entries at a time
+			List<NCBIEntry> ncbiEntryBatch =
+				ncbiEntries.subList(batchStart, Math.min(batchStart + EVENT_BATCH_SIZE, ncbiEntries.size()));
+			Map<NCBIEntry, Set<ReactomeEvent>> ncbiEntryToTopLevelPathways =
+				NCBIEntry.resolveTopLevelPathways(ncbiEntryBatch, graphDBSession);
+
+			for (NCBIEntry ncbiEntry : ncbiEntryBatch) {
+				progressTracker.increment();
+
+				Set<ReactomeEvent> topLevelPathways = ncbiEntryToTopLevelPathways.get(ncbiEntry);
+				if (topLevelPathways.isEmpty()) {
+					String errorMessage = ncbiEntry.getUniprotDisplayName() +
+						" participates in Event(s) but no Top-level Pathway can be found, i.e. there seem to be a" +
+						" pathway which contains or is an instance of itself.\n";
+
+					errorMessages.add(errorMessage);
+					continue;
+				}
 
-			Set<ReactomeEvent> topLevelPathways = ncbiEntry.getTopLevelPathways(graphDBSession);
-			if (topLevelPathways.isEmpty()) {
-				String errorMessage = ncbiEntry.getUniprotDisplayName() +
-					" participates in Event(s) but no Top-level Pathway can be found, i.e. there seem to be a" +
-					" pathway which contains or is an instance of itself.\n";
+				linkBlocks.add(new NCBIGeneShardPlan.LinkBlock(ncbiEntry, new ArrayList<>(topLevelPathways)));
+			}
+		}
+		progressTracker.finish();
 
-				Files.write(geneErrorFilePath, errorMessage.getBytes(), StandardOpenOption.APPEND);
-				continue;
+		ExportManifest.writeTextFile(getGeneErrorFilePath(), geneErrorFileWriter -> {
+			for (String errorMessage : errorMessages) {
+				geneErrorFileWriter.write(errorMessage);
 			}
+		});
 
-			for (String ncbiGeneId : ncbiEntry.getNcbiGeneIds()) {
-				ncbiGeneXMLNodeStrings.add(ncbiEntry.getEntityLinkXML(ncbiGeneId));
+		NCBIGeneShardPlan shardPlan = NCBIGeneShardPlan.plan(
+			linkBlocks, MAX_FILE_SIZE_IN_BYTES, getShardOverheadInBytes(), getUTF8Length(System.lineSeparator())
+		);
+		for (NCBIGeneShardPlan.Shard oversizedShard : shardPlan.getOversizedShards()) {
+			logger.warn("{} is {} bytes, more than the {} byte limit, as the links of its genes can not be split",
+				getGeneXMLFilePath(oversizedShard.getShardNumber()).getFileName(), oversizedShard.getSizeInBytes(),
+				MAX_FILE_SIZE_IN_BYTES);
+		}
+		writeShards(shardPlan.getShards());
 
-				for (ReactomeEvent topLevelPathway : topLevelPathways) {
-					ncbiGeneXMLNodeStrings.add(ncbiEntry.getEventLinkXML(ncbiGeneId, topLevelPathway));
-				}
+		logger.info("Finished writing gene XML file(s)");
+	}
+
+	/**
+	 * Writes the planned NCBI Gene XML files, each on its own worker thread
+	 * @param shards Planned NCBI Gene XML files
+	 * @throws IOException Thrown if writing any file fails
+	 */
+	private void writeShards(List<NCBIGeneShardPlan.Shard> shards) throws IOException {
+		int numberOfWriterThreads = Math.min(writerThreads, shards.size());
+		logger.info("Writing {} gene XML file(s) with {} thread(s)", shards.size(), numberOfWriterThreads);
+
+		ExecutorService writerExecutor = Executors.newFixedThreadPool(numberOfWriterThreads);
+		try {
+			List<Future<Void>> shardWrites = new ArrayList<>();
+			for (NCBIGeneShardPlan.Shard shard : shards) {
+				shardWrites.add(writerExecutor.submit(() -> {
+					writeShard(shard);
+					return null;
+				}));
 			}
 
-			ncbiGeneLogger.info("Finished with {}", ncbiEntry.getUniprotAccession());
+			for (Future<Void> shardWrite : shardWrites) {
+				waitForShardWrite(shardWrite);
+			}
+		} finally {
+			writerExecutor.shutdownNow();
 		}
+	}
 
-		int fileCount = 0;
-		int numberOfGeneXMLFiles = getNumberOfGeneXMLFiles(ncbiGeneXMLNodeStrings);
-		for (Set<String> ncbiGeneXMLNodeStringsSubSet : splitSet(ncbiGeneXMLNodeStrings, numberOfGeneXMLFiles)) {
-			Path geneXMLFilePath = getGeneXMLFilePath(++fileCount);
-
-			deleteAndCreateFile(geneXMLFilePath);
+	private void writeShard(NCBIGeneShardPlan.Shard shard) throws IOException {
+		Path geneXMLFilePath = getGeneXMLFilePath(shard.getShardNumber());
+		FileWriteEvent fileWriteEvent = FileWriteEvent.start(geneXMLFilePath);
 
-			logger.info("Generating {}", geneXMLFilePath.getFileName());
+		logger.info("Generating {}", geneXMLFilePath.getFileName());
 
-			appendWithNewLine(getXMLHeader(), geneXMLFilePath);
-			appendWithNewLine(getOpenRootTag(), geneXMLFilePath);
-			for (String ncbiGeneXMLNodeString : ncbiGeneXMLNodeStringsSubSet) {
-				appendWithNewLine(ncbiGeneXMLNodeString, geneXMLFilePath);
+		byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+		ExportManifest.writeFile(geneXMLFilePath, geneXMLFileStream -> {
+			geneXMLFileStream.write(
+				(getXMLHeader() + System.lineSeparator() + getOpenRootTag() + System.lineSeparator())
+					.getBytes(StandardCharsets.UTF_8)
+			);
+			for (NCBIGeneShardPlan.LinkBlock linkBlock : shard.getLinkBlocks()) {
+				linkBlock.writeLinkXMLNodes(geneXMLFileStream, lineSeparator);
 			}
+			geneXMLFileStream.write((getCloseRootTag() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+		});
+		fileWriteEvent.finish();
+	}
 
-			appendWithNewLine(getCloseRootTag(), geneXMLFilePath);
+	private static void waitForShardWrite(Future<Void> shardWrite) throws IOException {
+		try {
+			shardWrite.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for gene XML files to be written", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Writing gene XML files failed", e.getCause());
 		}
-
-		logger.info("Finished writing gene XML file(s)");
 	}
 
 	/**
-	 * The size (in bytes) for the set of all Link XML node strings to include in the final NCBI Gene XML files
-	 * is determined and the minimum number of files to write in order for each to be less than the pre-set limit is
-	 * returned.
-	 * The maximum size of each file is 15MB and is a limit set by NCBI for individual file uploads.
-	 * @param ncbiGeneXMLNodeStrings Set of all the Link XML nodes strings to include in the NCBI Gene XML file(s)
-	 * @return Number of NCBI Gene XML files to create (i.e. split the XML nodes amongst to be under the file size
-	 * limit)
+	 * The size (in bytes) of the content of each NCBI Gene XML file which is not a Link XML node, i.e. the XML header
+	 * and the root tags, each followed by a new line
+	 * @return Size of the fixed content of an NCBI Gene XML file
 	 */
-	private int getNumberOfGeneXMLFiles(Set<String> ncbiGeneXMLNodeStrings) {
-		final int BYTES_TO_KILOBYTES = 1024;
-		final int KILOBYTES_TO_MEGABYTES = 1024;
-		final double MAX_FILE_SIZE_IN_MEGABYTES = 14.0; // Actual limit is 15MB, but set lower for a bit of buffer space
-
-		int sizeInBytes = ncbiGeneXMLNodeStrings.stream().mapToInt(str -> str.getBytes().length).sum();
-		int sizeInMegaBytes = sizeInBytes / BYTES_TO_KILOBYTES / KILOBYTES_TO_MEGABYTES;
-
-		// The number of files is rounded up to ensure the minimum number of files is an integer
-		return (int) Math.ceil(sizeInMegaBytes / MAX_FILE_SIZE_IN_MEGABYTES);
+	private static long getShardOverheadInBytes() {
+		return getUTF8Length(getXMLHeader()) + getUTF8Length(getOpenRootTag()) + getUTF8Length(getCloseRootTag()) +
+			3L * getUTF8Length(System.lineSeparator());
 	}
 
 	private Path getProteinFilePath() {
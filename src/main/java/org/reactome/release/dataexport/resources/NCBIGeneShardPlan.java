@@ -0,0 +1,243 @@
+package org.reactome.release.dataexport.resources;
+
+import org.reactome.release.dataexport.datastructures.NCBIEntry;
+import org.reactome.release.dataexport.datastructures.ReactomeEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Plan of the NCBI Gene XML files (shards).  The Link XML nodes of an NCBI entry (its link block) are never split
+ * across shards, nor are the link blocks of NCBI entries sharing an NCBI Gene identifier, so all the links of a gene
+ * are in the same shard.
+ *
+ * The LinkIds of the link blocks are assigned consecutively, in the order in which the blocks will be written, before
+ * the blocks are packed into shards.  The exact encoded size of each block is then computed and the blocks are
+ * packed, in order, into shards under the maximum shard size.  Each shard therefore has a fixed LinkId range and
+ * content, so the shards can be written concurrently and the output does not depend on the number of writer threads.
+ */
+class NCBIGeneShardPlan {
+	private final List<Shard> shards;
+	private final long maxShardSizeInBytes;
+
+	private NCBIGeneShardPlan(List<Shard> shards, long maxShardSizeInBytes) {
+		this.shards = shards;
+		this.maxShardSizeInBytes = maxShardSizeInBytes;
+	}
+
+	/**
+	 * Plans the shards for the link blocks of NCBI entries
+	 * @param linkBlocks Link blocks of the NCBI entries, in the order in which the NCBI entries are to be written
+	 * @param maxShardSizeInBytes Maximum size of a shard file
+	 * @param shardOverheadInBytes Size of the content of each shard file which is not a link block (e.g. the XML
+	 * header and root tags)
+	 * @param nodeSeparatorSizeInBytes Size of the separator written after each Link XML node
+	 * @return Plan with at least one (possibly empty) shard
+	 */
+	static NCBIGeneShardPlan plan(List<LinkBlock> linkBlocks, long maxShardSizeInBytes, long shardOverheadInBytes,
+								  long nodeSeparatorSizeInBytes) {
+		List<List<LinkBlock>> geneGroups = groupByNCBIGene(linkBlocks);
+
+		long nextLinkId = 1;
+		for (List<LinkBlock> geneGroup : geneGroups) {
+			for (LinkBlock linkBlock : geneGroup) {
+				linkBlock.firstLinkId = nextLinkId;
+				nextLinkId += linkBlock.getNumberOfLinks();
+			}
+		}
+
+		// The LinkIds are fixed, so the encoded size of each block is independent of the others
+		LinkBlock[] orderedLinkBlocks = geneGroups.stream().flatMap(List::stream).toArray(LinkBlock[]::new);
+		IntStream.range(0, orderedLinkBlocks.length).parallel().forEach(
+			i -> orderedLinkBlocks[i].computeSizeInBytes(nodeSeparatorSizeInBytes)
+		);
+
+		List<Shard> shards = new ArrayList<>();
+		List<LinkBlock> shardLinkBlocks = new ArrayList<>();
+		long shardSizeInBytes = shardOverheadInBytes;
+		for (List<LinkBlock> geneGroup : geneGroups) {
+			long geneGroupSizeInBytes = geneGroup.stream().mapToLong(LinkBlock::getSizeInBytes).sum();
+			if (!shardLinkBlocks.isEmpty() && shardSizeInBytes + geneGroupSizeInBytes > maxShardSizeInBytes) {
+				shards.add(new Shard(shards.size() + 1, shardLinkBlocks, shardSizeInBytes));
+				shardLinkBlocks = new ArrayList<>();
+				shardSizeInBytes = shardOverheadInBytes;
+			}
+			shardLinkBlocks.addAll(geneGroup);
+			shardSizeInBytes += geneGroupSizeInBytes;
+		}
+		shards.add(new Shard(shards.size() + 1, shardLinkBlocks, shardSizeInBytes));
+
+		return new NCBIGeneShardPlan(shards, maxShardSizeInBytes);
+	}
+
+	/**
+	 * Retrieves the planned shards
+	 * @return List of shards in file number order
+	 */
+	List<Shard> getShards() {
+		return Collections.unmodifiableList(this.shards);
+	}
+
+	/**
+	 * Retrieves the shards larger than the maximum shard size (i.e. those holding NCBI entries of a single gene group
+	 * whose links alone exceed the maximum)
+	 * @return List of the oversized shards
+	 */
+	List<Shard> getOversizedShards() {
+		List<Shard> oversizedShards = new ArrayList<>();
+		for (Shard shard : this.shards) {
+			if (shard.getSizeInBytes() > this.maxShardSizeInBytes) {
+				oversizedShards.add(shard);
+			}
+		}
+		return oversizedShards;
+	}
+
+	/**
+	 * Groups the link blocks of NCBI entries sharing an NCBI Gene identifier (directly or through other entries).
+	 * Groups are ordered by their first link block and the blocks of a group keep their relative order.
+	 * @param linkBlocks Link blocks to group
+	 * @return List of the groups of link blocks
+	 */
+	private static List<List<LinkBlock>> groupByNCBIGene(List<LinkBlock> linkBlocks) {
+		int[] parents = IntStream.range(0, linkBlocks.size()).toArray();
+		Map<String, Integer> ncbiGeneIdToFirstBlock = new HashMap<>();
+		for (int blockIndex = 0; blockIndex < linkBlocks.size(); blockIndex++) {
+			for (String ncbiGeneId : linkBlocks.get(blockIndex).getNcbiEntry().getNcbiGeneIds()) {
+				Integer firstBlockIndex = ncbiGeneIdToFirstBlock.putIfAbsent(ncbiGeneId, blockIndex);
+				if (firstBlockIndex != null) {
+					union(parents, firstBlockIndex, blockIndex);
+				}
+			}
+		}
+
+		Map<Integer, List<LinkBlock>> rootToGroup = new LinkedHashMap<>();
+		for (int blockIndex = 0; blockIndex < linkBlocks.size(); blockIndex++) {
+			rootToGroup.computeIfAbsent(find(parents, blockIndex), k -> new ArrayList<>())
+				.add(linkBlocks.get(blockIndex));
+		}
+		return new ArrayList<>(rootToGroup.values());
+	}
+
+	private static int find(int[] parents, int index) {
+		while (parents[index] != index) {
+			parents[index] = parents[parents[index]];
+			index = parents[index];
+		}
+		return index;
+	}
+
+	private static void union(int[] parents, int firstIndex, int secondIndex) {
+		int firstRoot = find(parents, firstIndex);
+		int secondRoot = find(parents, secondIndex);
+		// The smaller index is kept as the root so a group's root is its first block
+		parents[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+	}
+
+	/**
+	 * The Link XML nodes of an NCBI entry: for each of its NCBI Gene identifiers, an entity link followed by an event
+	 * link for each top level pathway of its UniProt entry
+	 */
+	static class LinkBlock {
+		private final NCBIEntry ncbiEntry;
+		private final List<ReactomeEvent> topLevelPathways;
+		private long firstLinkId;
+		private long sizeInBytes;
+
+		/**
+		 * Creates the link block of an NCBI entry
+		 * @param ncbiEntry NCBI entry
+		 * @param topLevelPathways Top level pathways of the NCBI entry's UniProt entry, in the order in which their
+		 * links are written
+		 */
+		LinkBlock(NCBIEntry ncbiEntry, List<ReactomeEvent> topLevelPathways) {
+			this.ncbiEntry = ncbiEntry;
+			this.topLevelPathways = topLevelPathways;
+		}
+
+		NCBIEntry getNcbiEntry() {
+			return this.ncbiEntry;
+		}
+
+		int getNumberOfLinks() {
+			return this.ncbiEntry.getNcbiGeneIds().size() * (1 + this.topLevelPathways.size());
+		}
+
+		long getFirstLinkId() {
+			return this.firstLinkId;
+		}
+
+		long getSizeInBytes() {
+			return this.sizeInBytes;
+		}
+
+		/**
+		 * Writes the Link XML nodes of the block, UTF-8 encoded, with the LinkIds assigned by the plan
+		 * @param outputStream Stream to which to write the Link XML nodes
+		 * @param nodeSeparator Encoded separator written after each Link XML node
+		 * @throws IOException Thrown if unable to write to the stream
+		 */
+		void writeLinkXMLNodes(OutputStream outputStream, byte[] nodeSeparator) throws IOException {
+			long linkId = this.firstLinkId;
+			for (String ncbiGeneId : this.ncbiEntry.getNcbiGeneIds()) {
+				this.ncbiEntry.writeEntityLinkXML(ncbiGeneId, linkId++, outputStream);
+				outputStream.write(nodeSeparator);
+				for (ReactomeEvent topLevelPathway : this.topLevelPathways) {
+					this.ncbiEntry.writeEventLinkXML(ncbiGeneId, topLevelPathway, linkId++, outputStream);
+					outputStream.write(nodeSeparator);
+				}
+			}
+		}
+
+		private void computeSizeInBytes(long nodeSeparatorSizeInBytes) {
+			long blockSizeInBytes = 0;
+			long linkId = this.firstLinkId;
+			for (String ncbiGeneId : this.ncbiEntry.getNcbiGeneIds()) {
+				blockSizeInBytes +=
+					this.ncbiEntry.getEntityLinkXMLSize(ncbiGeneId, linkId++) + nodeSeparatorSizeInBytes;
+				for (ReactomeEvent topLevelPathway : this.topLevelPathways) {
+					blockSizeInBytes += this.ncbiEntry.getEventLinkXMLSize(ncbiGeneId, topLevelPathway, linkId++) +
+						nodeSeparatorSizeInBytes;
+				}
+			}
+			this.sizeInBytes = blockSizeInBytes;
+		}
+	}
+
+	/**
+	 * One planned NCBI Gene XML file
+	 */
+	static class Shard {
+		private final int shardNumber;
+		private final List<LinkBlock> linkBlocks;
+		private final long sizeInBytes;
+
+		private Shard(int shardNumber, List<LinkBlock> linkBlocks, long sizeInBytes) {
+			this.shardNumber = shardNumber;
+			this.linkBlocks = linkBlocks;
+			this.sizeInBytes = sizeInBytes;
+		}
+
+		/**
+		 * Retrieves the number of the shard, starting at 1, used in its file name
+		 * @return Shard number
+		 */
+		int getShardNumber() {
+			return this.shardNumber;
+		}
+
+		List<LinkBlock> getLinkBlocks() {
+			return Collections.unmodifiableList(this.linkBlocks);
+		}
+
+		/**
+		 * Retrieves the exact size of the shard file, including the shard overhead
+		 * @return Size of the shard file in bytes
+		 */
+		long getSizeInBytes() {
+			return this.sizeInBytes;
+		}
+	}
+}
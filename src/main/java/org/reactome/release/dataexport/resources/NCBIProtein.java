@@ -3,19 +3,18 @@ package org.reactome.release.dataexport.resources;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.reactome.release.dataexport.archive.ExportManifest;
 import org.reactome.release.dataexport.datastructures.NCBIEntry;
+import org.reactome.release.dataexport.monitoring.FileWriteEvent;
+import org.reactome.release.dataexport.utilities.LineDeduplicator;
 import org.reactome.release.dataexport.utilities.ReactomeURLConstants;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
-import static org.reactome.release.dataexport.utilities.DataExportUtilities.appendWithNewLine;
-import static org.reactome.release.dataexport.utilities.DataExportUtilities.deleteAndCreateFile;
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.writeWithNewLine;
 
 /**
  * File generator for NCBI Protein.  This class has logic for producing a file for
@@ -43,31 +42,30 @@ public class NCBIProtein {
 	/**
 	 * Writes an NCBI Protein file describing the UniProt entries in Reactome with an NCBI Gene identifier (not listed)
 	 * to a pre-set output directory
-	 * @throws IOException Thrown if creating or appending for file fails
+	 * @throws IOException Thrown if creating or writing to the file fails
 	 */
 	public void writeNCBIProteinFile() throws IOException {
 		logger.info("Writing NCBI protein file");
 
 		Path ncbiProteinFilePath = getNCBIProteinFilePath();
-		deleteAndCreateFile(ncbiProteinFilePath);
-
-		appendWithNewLine(getProteinFileHeader(), ncbiProteinFilePath);
-
-		for (String proteinFileLine : getProteinFileLines()) {
-			appendWithNewLine(proteinFileLine, ncbiProteinFilePath);
+		FileWriteEvent fileWriteEvent = FileWriteEvent.start(ncbiProteinFilePath);
+		try (LineDeduplicator proteinFileLines = LineDeduplicator.getInstance()) {
+			addProteinFileLines(proteinFileLines);
+			ExportManifest.writeTextFile(ncbiProteinFilePath, ncbiProteinFileWriter -> {
+				writeWithNewLine(getProteinFileHeader(), ncbiProteinFileWriter);
+				proteinFileLines.writeDistinctLines(ncbiProteinFileWriter);
+				writeWithNewLine(getProteinFileFooter(), ncbiProteinFileWriter);
+			});
 		}
-
-		appendWithNewLine(getProteinFileFooter(), ncbiProteinFilePath);
+		fileWriteEvent.finish();
 
 		logger.info("Finished writing NCBI protein file");
 	}
 
-	private Set<String> getProteinFileLines() {
-		return ncbiEntries
-			.stream()
-			.map(NCBIEntry::getUniprotAccession)
-			.map(uniprotId -> String.join("\t", "query:", uniprotId, "[pacc]"))
-			.collect(Collectors.toCollection(LinkedHashSet::new));
+	private void addProteinFileLines(LineDeduplicator proteinFileLines) throws IOException {
+		for (NCBIEntry ncbiEntry : ncbiEntries) {
+			proteinFileLines.add(String.join("\t", "query:", ncbiEntry.getUniprotAccession(), "[pacc]"));
+		}
 	}
 
 	private Path getNCBIProteinFilePath() {
@@ -3,32 +3,95 @@ package org.reactome.release.dataexport.resources;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.neo4j.driver.*;
+import org.reactome.release.dataexport.archive.ExportManifest;
+import org.reactome.release.dataexport.monitoring.FileWriteEvent;
+import org.reactome.release.dataexport.monitoring.ProgressTracker;
+import org.reactome.release.dataexport.queries.ExportQuery;
+import org.reactome.release.dataexport.queries.GraphQueryExecutor;
+import org.reactome.release.dataexport.queries.QueryParameters;
 import org.reactome.release.dataexport.utilities.ReactomeURLConstants;
+import org.reactome.release.dataexport.utilities.SortedLineMerger;
+import org.reactome.release.dataexport.datastructures.ReactomeEvent;
 import org.reactome.release.dataexport.datastructures.UniProtReactomeEntry;
+import org.reactome.release.dataexport.datastructures.UniProtReactomeEntryRegistry;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static org.reactome.release.dataexport.utilities.DataExportUtilities.appendWithNewLine;
-import static org.reactome.release.dataexport.utilities.DataExportUtilities.deleteAndCreateFile;
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.parallelSortByKey;
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.writeWithNewLine;
 
 /**
  * File generator for UCSC.  This class has logic for producing a file for
- * UCSC Entity, enumerating the UniProt entries (human, mouse, and rat) in Reactome and
- * UCSC Event, describing the relationship between UniProt entries (human, mouse, and rat)
+ * UCSC Entity, enumerating the UniProt entries of the UCSC species (by default human, mouse, and rat) in Reactome and
+ * UCSC Event, describing the relationship between UniProt entries of the UCSC species
  * in Reactome and the events in which they participate.
+ *
+ * Each species is a partition extracted and rendered, to its own sorted partition files, on its own session and
+ * worker thread.  The partitions are then merged in accession order into the UCSC files.  The following configuration
+ * properties are used (all optional):
+ * ucscThreads - Number of species partitions generated in parallel (default the number of processors)
+ * ucscEventBatchSize - Number of UniProt entries whose events are resolved at a time (default 1000)
  * @author jweiser
  */
 public class UCSC {
 	private static final Logger logger = LogManager.getLogger("mainLog");
 
+	private static final int UNIPROT_DB_ID_COLUMN = ExportQuery.UCSC_UNIPROT_ENTRIES.getColumn("rgp.dbId");
+	private static final int UNIPROT_ACCESSION_COLUMN = ExportQuery.UCSC_UNIPROT_ENTRIES.getColumn("rgp_accession");
+	private static final int UNIPROT_DISPLAY_NAME_COLUMN =
+		ExportQuery.UCSC_UNIPROT_ENTRIES.getColumn("rgp.displayName");
+
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+	private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+	private static final int DEFAULT_EVENT_BATCH_SIZE = 1000;
+
+	private static int threads = DEFAULT_THREADS;
+	private static int eventBatchSize = DEFAULT_EVENT_BATCH_SIZE;
+	private static Driver graphDBDriver;
+
 	private Set<UniProtReactomeEntry> ucscUniProtReactomeEntries;
 	private int version;
 	private String outputDir;
 
+	/**
+	 * Sets the number of species partitions generated in parallel and the number of UniProt entries whose events are
+	 * resolved at a time from the configuration properties of the data export
+	 * @param props Configuration properties for the data export
+	 * @param driver Neo4J Driver for the graph database (used to open a session per species partition).  If null, the
+	 * partitions are generated one at a time on the session passed to writeUCSCFiles.
+	 * @throws IllegalArgumentException Thrown if the ucscThreads or ucscEventBatchSize property is not positive
+	 */
+	public static void configure(Properties props, Driver driver) {
+		threads = Integer.parseInt(props.getProperty("ucscThreads", Integer.toString(DEFAULT_THREADS)));
+		if (threads <= 0) {
+			throw new IllegalArgumentException("ucscThreads must be positive but was " + threads);
+		}
+
+		eventBatchSize = Integer.parseInt(
+			props.getProperty("ucscEventBatchSize", Integer.toString(DEFAULT_EVENT_BATCH_SIZE))
+		);
+		if (eventBatchSize <= 0) {
+			throw new IllegalArgumentException("ucscEventBatchSize must be positive but was " + eventBatchSize);
+		}
+		graphDBDriver = driver;
+	}
+
 	public static UCSC getInstance(String outputDir, int version) {
 		return new UCSC(outputDir, version);
 	}
@@ -42,32 +105,40 @@ public class UCSC {
 	 * Writes UCSC files describing the relationships of UniProt entries in Reactome as
 	 * well as their Reactome pathways to pre-set output directory
 	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
-	 * @throws IOException Thrown if creating or appending for any file fails
+	 * @throws IOException Thrown if creating or writing to any file fails
 	 */
 	public void writeUCSCFiles(Session graphDBSession) throws IOException {
 		logger.info("Writing UCSC files");
 
-		writeUCSCEntityFile(graphDBSession);
-		writeUCSCEventFile(graphDBSession);
+		Path partitionDirectory = Paths.get(outputDir, "ucsc_partitions" + version);
+		Files.createDirectories(partitionDirectory);
+		try {
+			List<SpeciesPartition> speciesPartitions = writeSpeciesPartitions(partitionDirectory, graphDBSession);
+			writeUCSCEntityFile(speciesPartitions);
+			writeUCSCEventFile(speciesPartitions);
+		} finally {
+			deletePartitionDirectory(partitionDirectory);
+		}
 
 		logger.info("Finished writing UCSC files");
 	}
 
 	/**
-	 * Writes UCSC Entity file describing UniProt entries in Reactome to pre-set output directory
-	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
-	 * @throws IOException Thrown if creating or appending for file fails
+	 * Writes UCSC Entity file describing UniProt entries in Reactome to pre-set output directory, merging the entity
+	 * partition files of the species
+	 * @param speciesPartitions Written species partitions
+	 * @throws IOException Thrown if reading a partition file or creating or writing to file fails
 	 */
-	private void writeUCSCEntityFile(Session graphDBSession) throws IOException {
+	private void writeUCSCEntityFile(List<SpeciesPartition> speciesPartitions) throws IOException {
 		logger.info("Writing UCSC Entity file");
 
 		Path ucscEntityFilePath = Paths.get(outputDir, "ucsc_entity" + version);
-		deleteAndCreateFile(ucscEntityFilePath);
-		appendWithNewLine(getUCSCEntityHeader(), ucscEntityFilePath);
-
-		for (String line : getUCSCEntityLines(graphDBSession)) {
-			appendWithNewLine(line, ucscEntityFilePath);
-		}
+		FileWriteEvent fileWriteEvent = FileWriteEvent.start(ucscEntityFilePath);
+		ExportManifest.writeTextFile(ucscEntityFilePath, ucscEntityFileWriter -> {
+			writeWithNewLine(getUCSCEntityHeader(), ucscEntityFileWriter);
+			SortedLineMerger.merge(getPartitionFiles(speciesPartitions, p -> p.entityFilePath), ucscEntityFileWriter);
+		});
+		fileWriteEvent.finish();
 
 		logger.info("Finished writing UCSC Entity file");
 	}
@@ -83,51 +154,32 @@ public class UCSC {
 			   System.lineSeparator() + System.lineSeparator();
 	}
 
-	/**
-	 * Retrieves lines for the UCSC Entity File containing the accessions of all UniProt instances
-	 * in Reactome with an EWAS of species human, rat, or mouse
-	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
-	 * @return Set of Strings containing the lines for the UCSC Entity File
-	 */
-	private Set<String> getUCSCEntityLines(Session graphDBSession) {
-		return getUniProtReactomeEntriesForUCSC(graphDBSession)
-			.stream()
-			.map(UniProtReactomeEntry::getAccession)
-			.collect(Collectors.toCollection(LinkedHashSet::new));
-	}
-
 	/**
 	 * Writes UCSC Event file describing UniProt entries in Reactome and the Events in which they participate
-	 * to pre-set output directory
-	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
-	 * @throws IOException Thrown if creating or appending for file fails
+	 * to pre-set output directory, merging the event and error partition files of the species
+	 * @param speciesPartitions Written species partitions
+	 * @throws IOException Thrown if reading a partition file or creating or writing to file fails
 	 */
-	private void writeUCSCEventFile(Session graphDBSession) throws IOException {
+	private void writeUCSCEventFile(List<SpeciesPartition> speciesPartitions) throws IOException {
 		logger.info("Writing UCSC Event file");
 
 		Path ucscEventFilePath = Paths.get(outputDir, "ucsc_events" + version);
-		deleteAndCreateFile(ucscEventFilePath);
-
+		FileWriteEvent fileWriteEvent = FileWriteEvent.start(ucscEventFilePath);
+		ExportManifest.writeTextFile(ucscEventFilePath, ucscEventFileWriter -> {
+			writeWithNewLine(getUCSCEventsHeader(), ucscEventFileWriter);
+			SortedLineMerger.merge(getPartitionFiles(speciesPartitions, p -> p.eventFilePath), ucscEventFileWriter);
+		});
+		fileWriteEvent.finish();
+
+		// The error lines are sorted by the accession they are prefixed with, which is removed when merged
 		Path ucscErrorFilePath = Paths.get(outputDir, "ucsc_" + version + ".err");
-		deleteAndCreateFile(ucscErrorFilePath);
-
-		appendWithNewLine(getUCSCEventsHeader(), ucscEventFilePath);
-
-		Map<UniProtReactomeEntry, Set<String>> uniProtReactomeEntriesToUCSCEventLines =
-			getUniProtReactomeEntriesToUCSCEventLines(graphDBSession);
-
-		for (UniProtReactomeEntry uniProtReactomeEntry : uniProtReactomeEntriesToUCSCEventLines.keySet()) {
-			Set<String> ucscLines = uniProtReactomeEntriesToUCSCEventLines.get(uniProtReactomeEntry);
-
-			if (ucscLines.isEmpty()) {
-				appendWithNewLine(getNoEventsErrorMessage(uniProtReactomeEntry), ucscErrorFilePath);
-				continue;
-			}
-
-			for (String ucscLine : ucscLines) {
-				appendWithNewLine(ucscLine, ucscEventFilePath);
-			}
-		}
+		ExportManifest.writeTextFile(ucscErrorFilePath, ucscErrorFileWriter ->
+			SortedLineMerger.merge(
+				getPartitionFiles(speciesPartitions, p -> p.errorFilePath),
+				ucscErrorFileWriter,
+				errorLine -> errorLine.substring(errorLine.indexOf('\t') + 1)
+			)
+		);
 
 		logger.info("Finished writing UCSC Event file");
 	}
@@ -144,41 +196,138 @@ public class UCSC {
 	}
 
 	/**
-	 * Retrieves Map of Reactome UniProt instance to lines for UCSC Event File for that UniProt instance
+	 * Writes the partition files of each UCSC species, in parallel, each species on its own session
+	 * @param partitionDirectory Directory to which to write the partition files
 	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
-	 * @return Map of UniProt Reactome Entry to Set of Strings containing UCSC Event Lines
+	 * @return List of the written species partitions, in the order of the configured UCSC species
+	 * @throws IOException Thrown if writing any partition file fails
 	 */
-	private Map<UniProtReactomeEntry, Set<String>> getUniProtReactomeEntriesToUCSCEventLines(Session graphDBSession) {
-		return getUniProtReactomeEntriesForUCSC(graphDBSession)
-			.stream()
-			.collect(Collectors.toMap(
-				uniProtReactomeEntry -> uniProtReactomeEntry,
-				uniProtReactomeEntry -> getUCSCEventLines(uniProtReactomeEntry, graphDBSession),
-				(oldValue, newValue) -> newValue,
-				TreeMap::new
-			));
+	private List<SpeciesPartition> writeSpeciesPartitions(Path partitionDirectory, Session graphDBSession)
+		throws IOException {
+
+		if (!ReactomeEvent.isLazyLoading()) {
+			// The events of all UniProt entries are indexed once, on this session, and only read by the partitions
+			UniProtReactomeEntry.fetchUniProtReactomeEntryToReactomeEvents(graphDBSession);
+		}
+
+		List<String> ucscSpecies = QueryParameters.getUCSCSpecies();
+		int numberOfThreads = graphDBDriver != null ? Math.min(threads, ucscSpecies.size()) : 1;
+		logger.info("Generating {} UCSC species partition(s) with {} thread(s)", ucscSpecies.size(), numberOfThreads);
+
+		ExecutorService partitionExecutor = Executors.newFixedThreadPool(Math.max(numberOfThreads, 1));
+		try {
+			List<Future<SpeciesPartition>> partitionWrites = new ArrayList<>();
+			for (int speciesIndex = 0; speciesIndex < ucscSpecies.size(); speciesIndex++) {
+				SpeciesPartition speciesPartition =
+					new SpeciesPartition(ucscSpecies.get(speciesIndex), speciesIndex, partitionDirectory);
+				partitionWrites.add(partitionExecutor.submit(() -> {
+					writeSpeciesPartition(speciesPartition, graphDBSession);
+					return speciesPartition;
+				}));
+			}
+
+			List<SpeciesPartition> speciesPartitions = new ArrayList<>();
+			for (Future<SpeciesPartition> partitionWrite : partitionWrites) {
+				speciesPartitions.add(waitForPartitionWrite(partitionWrite));
+			}
+			return speciesPartitions;
+		} finally {
+			partitionExecutor.shutdownNow();
+		}
 	}
 
 	/**
-	 * Retrieves lines, describing UniProt to Reactome Event relationships (including event stable identifier and
-	 * display name), to include in the UCSC Event file for a given UniProt instance
-	 * @param uniProtReactomeEntry UniProt instance in Reactome
+	 * Writes the partition files of a UCSC species on a session of its own (or on the session passed if no driver is
+	 * configured)
+	 * @param speciesPartition Species partition to write
 	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
-	 * @return Set of UniProt Reactome Entry objects
+	 * @throws IOException Thrown if writing any partition file fails
 	 */
-	private Set<String> getUCSCEventLines(UniProtReactomeEntry uniProtReactomeEntry, Session graphDBSession) {
-		return uniProtReactomeEntry
-			.getEvents(graphDBSession)
-			.stream()
-			.map(event ->
-				String.join(
-					"\t",
-					uniProtReactomeEntry.getAccession(),
-					event.getStableIdentifier(),
-					event.getName()
-				)
-			)
-			.collect(Collectors.toCollection(LinkedHashSet::new));
+	private void writeSpeciesPartition(SpeciesPartition speciesPartition, Session graphDBSession) throws IOException {
+		if (graphDBDriver == null) {
+			writeSpeciesPartition(speciesPartition, graphDBSession, graphDBSession);
+			return;
+		}
+
+		try (Session partitionSession = graphDBDriver.session()) {
+			// Lazily resolved events are queried on the partition's session; otherwise they are read from the index
+			// built on the main session
+			Session eventSession = ReactomeEvent.isLazyLoading() ? partitionSession : graphDBSession;
+			try {
+				writeSpeciesPartition(speciesPartition, partitionSession, eventSession);
+			} finally {
+				ReactomeEvent.releaseLazyEvents(partitionSession);
+			}
+		}
+	}
+
+	/**
+	 * Writes the partition files of a UCSC species: its UniProt accessions, UCSC Event lines and error lines, each
+	 * sorted by accession.  The events of the UniProt entries are resolved a batch of entries at a time and the UCSC
+	 * Event lines are streamed to the partition file.
+	 * @param speciesPartition Species partition to write
+	 * @param partitionSession Neo4J Driver Session object for querying the UniProt entries of the species
+	 * @param eventSession Neo4J Driver Session object for retrieving the events of the UniProt entries
+	 * @throws IOException Thrown if writing any partition file fails
+	 */
+	private void writeSpeciesPartition(SpeciesPartition speciesPartition, Session partitionSession,
+									   Session eventSession) throws IOException {
+		List<UniProtReactomeEntry> uniProtReactomeEntries =
+			getUniProtReactomeEntriesForSpecies(speciesPartition.species, partitionSession);
+
+		ProgressTracker progressTracker = ProgressTracker.start(
+			logger, "UCSC Event lines (" + speciesPartition.species + ")", "UniProt entries",
+			uniProtReactomeEntries.size()
+		);
+		try (BufferedWriter entityWriter = newFileWriter(speciesPartition.entityFilePath);
+			 OutputStream eventStream = new BufferedOutputStream(Files.newOutputStream(speciesPartition.eventFilePath));
+			 BufferedWriter errorWriter = newFileWriter(speciesPartition.errorFilePath)) {
+
+			for (int batchStart = 0; batchStart < uniProtReactomeEntries.size(); batchStart += eventBatchSize) {
+				List<UniProtReactomeEntry> uniProtReactomeEntryBatch = uniProtReactomeEntries.subList(
+					batchStart, Math.min(batchStart + eventBatchSize, uniProtReactomeEntries.size())
+				);
+				Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniProtReactomeEntryToEvents =
+					UniProtReactomeEntry.resolveEvents(uniProtReactomeEntryBatch, eventSession);
+
+				for (UniProtReactomeEntry uniProtReactomeEntry : uniProtReactomeEntryBatch) {
+					progressTracker.increment();
+					Set<ReactomeEvent> reactomeEvents = uniProtReactomeEntryToEvents.get(uniProtReactomeEntry);
+
+					writeWithNewLine(uniProtReactomeEntry.getAccession(), entityWriter);
+					if (reactomeEvents.isEmpty()) {
+						writeWithNewLine(
+							uniProtReactomeEntry.getAccession() + "\t" + getNoEventsErrorMessage(uniProtReactomeEntry),
+							errorWriter
+						);
+						continue;
+					}
+
+					writeUCSCEventLines(uniProtReactomeEntry, reactomeEvents, eventStream);
+				}
+			}
+		}
+		progressTracker.finish();
+	}
+
+	/**
+	 * Writes, UTF-8 encoded, the lines describing UniProt to Reactome Event relationships (including event stable
+	 * identifier and display name) for a given UniProt instance.  Only the accession is encoded here; the rest of each
+	 * line is copied from the fragment the event encoded when created.
+	 * @param uniProtReactomeEntry UniProt instance in Reactome
+	 * @param reactomeEvents Reactome Events in which the UniProt instance participates
+	 * @param eventStream Stream to which to write the UCSC Event lines
+	 * @throws IOException Thrown if unable to write to the stream
+	 * @see ReactomeEvent#getTSVFragment()
+	 */
+	private void writeUCSCEventLines(UniProtReactomeEntry uniProtReactomeEntry, Set<ReactomeEvent> reactomeEvents,
+									 OutputStream eventStream) throws IOException {
+		byte[] accession = uniProtReactomeEntry.getAccession().getBytes(StandardCharsets.UTF_8);
+		for (ReactomeEvent reactomeEvent : reactomeEvents) {
+			eventStream.write(accession);
+			eventStream.write(reactomeEvent.getTSVFragment());
+			eventStream.write(LINE_SEPARATOR);
+		}
 	}
 
 	/**
@@ -194,39 +343,110 @@ public class UCSC {
 	}
 
 	/**
-	 * Retrieves all UniProt instances in Reactome with an EWAS of species human, rat, or mouse
+	 * Retrieves all UniProt instances in Reactome with an EWAS of the UCSC species (by default human, rat, or mouse)
 	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
-	 * @return Set of UniProt Reactome Entry objects
+	 * @return Set of UniProt Reactome Entry objects, sorted by accession
 	 */
 	Set<UniProtReactomeEntry> getUniProtReactomeEntriesForUCSC(Session graphDBSession) {
-		final String UCSC_ACCEPTED_SPECIES = "'Homo sapiens', 'Rattus norvegicus', 'Mus musculus'";
-
 		if (ucscUniProtReactomeEntries != null) {
 			return ucscUniProtReactomeEntries;
 		}
 
-		logger.info("Fetching UniProt Reactome Entries for UCSC");
+		Set<UniProtReactomeEntry> uniProtReactomeEntries = new HashSet<>();
+		for (String species : QueryParameters.getUCSCSpecies()) {
+			uniProtReactomeEntries.addAll(getUniProtReactomeEntriesForSpecies(species, graphDBSession));
+		}
+		ucscUniProtReactomeEntries = new LinkedHashSet<>(
+			parallelSortByKey(new ArrayList<>(uniProtReactomeEntries), Function.identity())
+		);
 
-		ucscUniProtReactomeEntries = graphDBSession.run(
-			String.join(System.lineSeparator(),
-				"MATCH (ewas:EntityWithAccessionedSequence)-[:referenceEntity]->(rgp:ReferenceGeneProduct)" +
-				"-[:referenceDatabase]->(rd:ReferenceDatabase)",
-				"WHERE ewas.speciesName IN [" + UCSC_ACCEPTED_SPECIES + "] AND rd.displayName = 'UniProt'",
-				"RETURN DISTINCT rgp.dbId, coalesce(rgp.variantIdentifier, rgp.identifier) as rgp_accession,"
-					+ " rgp.displayName",
-				"ORDER BY rgp_accession"
-			)
-		)
-		.stream()
-		.map(record -> UniProtReactomeEntry.get(
-			record.get("rgp.dbId").asLong(),
-			record.get("rgp_accession").asString(),
-			record.get("rgp.displayName").asString()
-		))
-		.collect(Collectors.toCollection(LinkedHashSet::new));
+		return ucscUniProtReactomeEntries;
+	}
 
-		logger.info("Finished fetching UniProt Reactome Entries for UCSC");
+	/**
+	 * Retrieves the UniProt instances in Reactome with an EWAS of one species
+	 * @param species Name of the species (e.g. "Homo sapiens")
+	 * @param graphDBSession Neo4J Driver Session object for querying the graph database
+	 * @return List of UniProt Reactome Entry objects, sorted by accession
+	 */
+	private List<UniProtReactomeEntry> getUniProtReactomeEntriesForSpecies(String species, Session graphDBSession) {
+		logger.info("Fetching UniProt Reactome Entries for UCSC species {}", species);
+
+		Map<String, Object> parameters = new HashMap<>(QueryParameters.forQuery(ExportQuery.UCSC_UNIPROT_ENTRIES));
+		parameters.put("ucscSpecies", Collections.singletonList(species));
+
+		// The query columns are decoded first and then interned as a whole, in parallel, into the entry registry
+		List<Long> uniProtDbIds = new ArrayList<>();
+		List<String> uniProtAccessions = new ArrayList<>();
+		List<String> uniProtDisplayNames = new ArrayList<>();
+		GraphQueryExecutor.forEachRecord(graphDBSession, ExportQuery.UCSC_UNIPROT_ENTRIES, parameters, record -> {
+			uniProtDbIds.add(record.get(UNIPROT_DB_ID_COLUMN).asLong());
+			uniProtAccessions.add(record.get(UNIPROT_ACCESSION_COLUMN).asString());
+			uniProtDisplayNames.add(record.get(UNIPROT_DISPLAY_NAME_COLUMN).asString());
+		});
+		UniProtReactomeEntry[] uniProtReactomeEntries = UniProtReactomeEntryRegistry.current().internAll(
+			uniProtDbIds.stream().mapToLong(Long::longValue).toArray(),
+			uniProtAccessions.toArray(new String[0]),
+			uniProtDisplayNames.toArray(new String[0])
+		);
+
+		logger.info("Finished fetching {} UniProt Reactome Entries for UCSC species {}",
+			uniProtReactomeEntries.length, species);
+
+		return parallelSortByKey(Arrays.asList(uniProtReactomeEntries), Function.identity());
+	}
 
-		return ucscUniProtReactomeEntries;
+	private static List<Path> getPartitionFiles(List<SpeciesPartition> speciesPartitions,
+												Function<SpeciesPartition, Path> partitionFile) {
+		return speciesPartitions.stream().map(partitionFile).collect(Collectors.toList());
+	}
+
+	private static BufferedWriter newFileWriter(Path filePath) throws IOException {
+		return Files.newBufferedWriter(filePath, StandardCharsets.UTF_8);
+	}
+
+	private static SpeciesPartition waitForPartitionWrite(Future<SpeciesPartition> partitionWrite)
+		throws IOException {
+		try {
+			return partitionWrite.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for UCSC species partitions to be written", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Writing a UCSC species partition failed", e.getCause());
+		}
+	}
+
+	private static void deletePartitionDirectory(Path partitionDirectory) throws IOException {
+		try (Stream<Path> partitionFilePaths = Files.list(partitionDirectory)) {
+			for (Path partitionFilePath : partitionFilePaths.collect(Collectors.toList())) {
+				Files.delete(partitionFilePath);
+			}
+		}
+		Files.delete(partitionDirectory);
+	}
+
+	/**
+	 * Partition files of one UCSC species, each sorted by UniProt accession
+	 */
+	private static class SpeciesPartition {
+		private final String species;
+		private final Path entityFilePath;
+		private final Path eventFilePath;
+		private final Path errorFilePath;
+
+		private SpeciesPartition(String species, int speciesIndex, Path partitionDirectory) {
+			this.species = species;
+			// Species names have spaces, so the partition files are named by the species' position instead
+			this.entityFilePath = partitionDirectory.resolve("entity" + speciesIndex);
+			this.eventFilePath = partitionDirectory.resolve("events" + speciesIndex);
+			this.errorFilePath = partitionDirectory.resolve("errors" + speciesIndex);
+		}
 	}
-}
\ No newline at end of file
+}
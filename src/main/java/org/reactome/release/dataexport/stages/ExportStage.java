@@ -0,0 +1,128 @@
+package org.reactome.release.dataexport.stages;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Named stages of the data export step, in the order in which they are run.  The preparatory stages (extract and
+ * build indexes) hold their results in memory for the stages generating files, so they are run whenever a file
+ * generating stage is run.  Stages generating or uploading files record a checkpoint when complete so a later run
+ * can skip them.
+ * @see ExportStageCheckpoints
+ * @see ExportStagePlan
+ */
+public enum ExportStage {
+	EXTRACT("extract", "Extract"),
+	BUILD_INDEXES("build-indexes", "Build Indexes"),
+	NCBI_GENERATE("ncbi-generate", "NCBI Files"),
+	UCSC_GENERATE("ucsc-generate", "UCSC Files"),
+	EUROPE_PMC_GENERATE("europe-pmc-generate", "Europe PMC Files"),
+	EUROPE_PMC_UPLOAD("europe-pmc-upload", "Europe PMC Upload", EUROPE_PMC_GENERATE),
+	NCBI_UPLOAD("ncbi-upload", "NCBI Upload", NCBI_GENERATE);
+
+	private final String name;
+	private final String description;
+	private final ExportStage sourceStage;
+
+	ExportStage(String name, String description) {
+		this(name, description, null);
+	}
+
+	ExportStage(String name, String description, ExportStage sourceStage) {
+		this.name = name;
+		this.description = description;
+		this.sourceStage = sourceStage;
+	}
+
+	/**
+	 * Returns the stage with the name passed (e.g. "ncbi-upload")
+	 * @param stageName Name of the stage
+	 * @return ExportStage with the name
+	 * @throws IllegalArgumentException Thrown if no stage has the name
+	 */
+	public static ExportStage fromName(String stageName) {
+		for (ExportStage exportStage : values()) {
+			if (exportStage.getName().equalsIgnoreCase(stageName.trim())) {
+				return exportStage;
+			}
+		}
+
+		throw new IllegalArgumentException(
+			"Unknown export stage '" + stageName + "'.  Valid stages are: " +
+			Arrays.stream(values()).map(ExportStage::getName).collect(Collectors.joining(", "))
+		);
+	}
+
+	/**
+	 * Returns the stages named in a comma separated list
+	 * @param stageNames Comma separated list of stage names (e.g. "extract,ncbi-upload").  May be null or empty.
+	 * @return Set of the ExportStages named (empty if no names are passed)
+	 * @throws IllegalArgumentException Thrown if any name is not the name of a stage
+	 */
+	public static Set<ExportStage> fromNames(String stageNames) {
+		Set<ExportStage> exportStages = EnumSet.noneOf(ExportStage.class);
+		if (stageNames == null || stageNames.trim().isEmpty()) {
+			return exportStages;
+		}
+
+		for (String stageName : stageNames.split(",")) {
+			exportStages.add(fromName(stageName));
+		}
+		return exportStages;
+	}
+
+	/**
+	 * Retrieves the name of the stage used on the command line and for checkpoint files (e.g. "ncbi-upload")
+	 * @return Name of the stage
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Retrieves the description of the stage used for logging and Java Flight Recorder events (e.g. "NCBI Upload")
+	 * @return Description of the stage
+	 */
+	public String getDescription() {
+		return this.description;
+	}
+
+	/**
+	 * Retrieves the stage which generates the files uploaded by this stage
+	 * @return ExportStage generating the files uploaded or null if this stage does not upload files
+	 */
+	public ExportStage getSourceStage() {
+		return this.sourceStage;
+	}
+
+	/**
+	 * Checks if the stage only prepares, in memory, data for the stages generating files
+	 * @return <code>true</code> if the stage is the extract or build indexes stage; <code>false</code> otherwise
+	 */
+	public boolean isPreparatory() {
+		return this == EXTRACT || this == BUILD_INDEXES;
+	}
+
+	/**
+	 * Checks if the stage uploads files generated by an earlier stage
+	 * @return <code>true</code> if the stage uploads files; <code>false</code> otherwise
+	 */
+	public boolean isUpload() {
+		return this.sourceStage != null;
+	}
+
+	/**
+	 * Checks if the stage queries the graph database
+	 * @return <code>true</code> if the stage queries the graph database; <code>false</code> otherwise
+	 */
+	public boolean requiresGraphDatabase() {
+		return !isUpload();
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
@@ -0,0 +1,206 @@
+package org.reactome.release.dataexport.stages;
+
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.sha256;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.reactome.release.dataexport.archive.ExportManifest;
+
+/**
+ * Completion checkpoints of the export stages.  A checkpoint is a tab delimited file, in the "checkpoints"
+ * sub-directory of the output directory, recording the Reactome release number, the completion time and the
+ * SHA-256 checksum of each file the stage produced (or, for upload stages, uploaded).  A stage is complete for a
+ * release only while its checkpoint exists and every file it records is unchanged.
+ */
+public class ExportStageCheckpoints {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+
+	private static final String CHECKPOINT_DIRECTORY_NAME = "checkpoints";
+	private static final String CHECKPOINT_FILE_EXTENSION = ".checkpoint";
+	private static final String RELEASE_NUMBER_KEY = "releaseNumber";
+	private static final String COMPLETED_KEY = "completed";
+	private static final String FILE_KEY = "file";
+
+	private final Path outputDirectory;
+	private final Path checkpointDirectory;
+	private final int reactomeReleaseNumber;
+
+	/**
+	 * Creates an object for reading and writing the checkpoints of the export stages
+	 * @param outputDirectory Directory to which the export files are written
+	 * @param reactomeReleaseNumber Reactome release number of the export
+	 */
+	public ExportStageCheckpoints(Path outputDirectory, int reactomeReleaseNumber) {
+		this.outputDirectory = outputDirectory;
+		this.checkpointDirectory = outputDirectory.resolve(CHECKPOINT_DIRECTORY_NAME);
+		this.reactomeReleaseNumber = reactomeReleaseNumber;
+	}
+
+	/**
+	 * Checks if the stage has a checkpoint for the current release whose recorded files all still have the recorded
+	 * checksums.  An upload stage is only complete if it uploaded exactly the files recorded by the checkpoint of the
+	 * stage generating them.
+	 * @param exportStage Stage to check
+	 * @return <code>true</code> if the stage is complete; <code>false</code> otherwise
+	 * @throws IOException Thrown if unable to read the checkpoint or compute the checksum of a recorded file
+	 */
+	public boolean isComplete(ExportStage exportStage) throws IOException {
+		Map<String, String> fileNameToChecksum = readCheckpoint(exportStage);
+		if (fileNameToChecksum == null) {
+			return false;
+		}
+
+		if (exportStage.isUpload() && !fileNameToChecksum.equals(readCheckpoint(exportStage.getSourceStage()))) {
+			logger.info("Checkpoint of stage {} is out of date: the files of stage {} have changed",
+				exportStage, exportStage.getSourceStage());
+			return false;
+		}
+
+		for (Map.Entry<String, String> fileChecksum : fileNameToChecksum.entrySet()) {
+			Path filePath = outputDirectory.resolve(fileChecksum.getKey());
+			if (!Files.isRegularFile(filePath) || !sha256(filePath).equals(fileChecksum.getValue())) {
+				logger.info("Checkpoint of stage {} is out of date: {} is missing or has changed",
+					exportStage, fileChecksum.getKey());
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Records the completion of a stage, with the checksums of the files it produced or uploaded
+	 * @param exportStage Stage which completed
+	 * @param filePaths Paths of the files (in the output directory) which the stage produced or uploaded
+	 * @throws IOException Thrown if unable to compute the checksum of a file or write the checkpoint
+	 */
+	public void writeCheckpoint(ExportStage exportStage, Collection<Path> filePaths) throws IOException {
+		List<String> checkpointLines = new ArrayList<>();
+		checkpointLines.add(String.join("\t", RELEASE_NUMBER_KEY, Integer.toString(reactomeReleaseNumber)));
+		checkpointLines.add(String.join("\t", COMPLETED_KEY, Instant.now().toString()));
+		for (Path filePath : new TreeSet<>(filePaths)) {
+			checkpointLines.add(
+				String.join("\t", FILE_KEY, outputDirectory.relativize(filePath).toString(), getChecksum(filePath))
+			);
+		}
+
+		Files.createDirectories(checkpointDirectory);
+		Path checkpointPath = getCheckpointPath(exportStage);
+		Path temporaryCheckpointPath = checkpointDirectory.resolve(checkpointPath.getFileName() + ".tmp");
+		Files.write(temporaryCheckpointPath, checkpointLines, StandardCharsets.UTF_8);
+		Files.move(temporaryCheckpointPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING);
+
+		logger.info("Recorded checkpoint for stage {} with {} file(s)", exportStage, filePaths.size());
+	}
+
+	/**
+	 * Retrieves the files recorded in the checkpoint of a stage
+	 * @param exportStage Stage for which to get the files
+	 * @return List of the paths of the files recorded (empty if the stage has no checkpoint for the current release)
+	 * @throws IOException Thrown if unable to read the checkpoint
+	 */
+	public List<Path> getCheckpointedFiles(ExportStage exportStage) throws IOException {
+		Map<String, String> fileNameToChecksum = readCheckpoint(exportStage);
+		if (fileNameToChecksum == null) {
+			return new ArrayList<>();
+		}
+
+		return fileNameToChecksum.keySet().stream().map(outputDirectory::resolve).collect(Collectors.toList());
+	}
+
+	/**
+	 * Takes a snapshot of the last modified time and size of the files directly in the output directory, so the files
+	 * a stage writes can be found afterwards with getFilesChangedSince
+	 * @return Map of file path to a description of its last modified time and size
+	 * @throws IOException Thrown if unable to list the output directory or read the attributes of a file
+	 */
+	public Map<Path, String> snapshotOutputFiles() throws IOException {
+		Map<Path, String> filePathToVersion = new HashMap<>();
+		if (!Files.isDirectory(outputDirectory)) {
+			return filePathToVersion;
+		}
+
+		try (Stream<Path> filePaths = Files.list(outputDirectory)) {
+			for (Path filePath : filePaths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+				BasicFileAttributes fileAttributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+				filePathToVersion.put(filePath, fileAttributes.lastModifiedTime() + "/" + fileAttributes.size());
+			}
+		}
+		return filePathToVersion;
+	}
+
+	/**
+	 * Finds the files directly in the output directory which were created or modified since a snapshot was taken
+	 * @param snapshot Snapshot of the output directory taken by snapshotOutputFiles
+	 * @return List of the paths of the files created or modified
+	 * @throws IOException Thrown if unable to list the output directory or read the attributes of a file
+	 */
+	public List<Path> getFilesChangedSince(Map<Path, String> snapshot) throws IOException {
+		return snapshotOutputFiles().entrySet()
+			.stream()
+			.filter(fileVersion -> !fileVersion.getValue().equals(snapshot.get(fileVersion.getKey())))
+			.map(Map.Entry::getKey)
+			.sorted()
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Reads the file checksums recorded in the checkpoint of a stage
+	 * @param exportStage Stage for which to read the checkpoint
+	 * @return Map of file name (relative to the output directory) to SHA-256 checksum or null if the stage has no
+	 * checkpoint for the current release
+	 * @throws IOException Thrown if unable to read the checkpoint
+	 * @throws IllegalStateException Thrown if the checkpoint is malformed
+	 */
+	private Map<String, String> readCheckpoint(ExportStage exportStage) throws IOException {
+		Path checkpointPath = getCheckpointPath(exportStage);
+		if (!Files.isRegularFile(checkpointPath)) {
+			return null;
+		}
+
+		Map<String, String> fileNameToChecksum = new LinkedHashMap<>();
+		String checkpointReleaseNumber = null;
+		for (String line : Files.readAllLines(checkpointPath, StandardCharsets.UTF_8)) {
+			String[] fields = line.split("\t");
+			if (fields[0].equals(RELEASE_NUMBER_KEY) && fields.length == 2) {
+				checkpointReleaseNumber = fields[1];
+			} else if (fields[0].equals(FILE_KEY) && fields.length == 3) {
+				fileNameToChecksum.put(fields[1], fields[2]);
+			} else if (!fields[0].equals(COMPLETED_KEY)) {
+				throw new IllegalStateException("Malformed line in checkpoint " + checkpointPath + ": " + line);
+			}
+		}
+
+		if (!Integer.toString(reactomeReleaseNumber).equals(checkpointReleaseNumber)) {
+			logger.info("Ignoring checkpoint of stage {} from release {}", exportStage, checkpointReleaseNumber);
+			return null;
+		}
+		return fileNameToChecksum;
+	}
+
+	/**
+	 * Retrieves the checksum of a file, as computed when the file was written if it was written by this run (see
+	 * ExportManifest) so the file is not read again, otherwise by reading the file
+	 * @param filePath Path of the file
+	 * @return SHA-256 checksum of the file as a lower case hexadecimal String
+	 * @throws IOException Thrown if unable to read the file
+	 */
+	private static String getChecksum(Path filePath) throws IOException {
+		String checksum = ExportManifest.getChecksum(filePath);
+		return checksum != null ? checksum : sha256(filePath);
+	}
+
+	private Path getCheckpointPath(ExportStage exportStage) {
+		return checkpointDirectory.resolve(exportStage.getName() + CHECKPOINT_FILE_EXTENSION);
+	}
+}
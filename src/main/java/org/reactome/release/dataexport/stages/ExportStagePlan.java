@@ -0,0 +1,94 @@
+package org.reactome.release.dataexport.stages;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Decides which export stages are run.  The stages selected are those named by the "onlyStages" configuration value
+ * (all stages if not set) except those named by the "skipStages" configuration value.  Of those, a stage generating
+ * or uploading files is run unless it has an up to date checkpoint from an earlier run (stages named by "onlyStages"
+ * are always run and checkpoints are ignored if "resumeFromCheckpoints" is false).  The preparatory stages are run
+ * only if a selected stage generating files is run, since their results are only held in memory.
+ */
+public class ExportStagePlan {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+
+	private final Set<ExportStage> stagesToRun;
+
+	private ExportStagePlan(Set<ExportStage> stagesToRun) {
+		this.stagesToRun = stagesToRun;
+	}
+
+	/**
+	 * Plans the stages to run from the stage selection configuration values and the checkpoints of earlier runs
+	 * @param props Configuration options with the optional "onlyStages", "skipStages" and "resumeFromCheckpoints"
+	 * values
+	 * @param checkpoints Checkpoints of the stages completed by earlier runs
+	 * @return ExportStagePlan of the stages to run
+	 * @throws IOException Thrown if unable to read the checkpoints
+	 * @throws IllegalArgumentException Thrown if an unknown stage is named
+	 */
+	public static ExportStagePlan getInstance(Properties props, ExportStageCheckpoints checkpoints)
+		throws IOException {
+
+		Set<ExportStage> onlyStages = ExportStage.fromNames(props.getProperty("onlyStages"));
+		Set<ExportStage> skipStages = ExportStage.fromNames(props.getProperty("skipStages"));
+		boolean resumeFromCheckpoints = Boolean.parseBoolean(props.getProperty("resumeFromCheckpoints", "true"));
+
+		Set<ExportStage> selectedStages = onlyStages.isEmpty() ? EnumSet.allOf(ExportStage.class) : onlyStages;
+		selectedStages.removeAll(skipStages);
+
+		Set<ExportStage> stagesToRun = EnumSet.noneOf(ExportStage.class);
+		for (ExportStage exportStage : selectedStages) {
+			if (exportStage.isPreparatory()) {
+				continue;
+			}
+
+			if (resumeFromCheckpoints && !onlyStages.contains(exportStage) && checkpoints.isComplete(exportStage)) {
+				logger.info("Skipping stage {}: already complete", exportStage);
+			} else {
+				stagesToRun.add(exportStage);
+			}
+		}
+
+		boolean filesToGenerate = stagesToRun.stream().anyMatch(stage -> !stage.isUpload());
+		for (ExportStage exportStage : selectedStages) {
+			if (exportStage.isPreparatory() && filesToGenerate) {
+				stagesToRun.add(exportStage);
+			}
+		}
+
+		logger.info("Export stages to run: {}", stagesToRun);
+		return new ExportStagePlan(stagesToRun);
+	}
+
+	/**
+	 * Checks if a stage is to be run
+	 * @param exportStage Stage to check
+	 * @return <code>true</code> if the stage is to be run; <code>false</code> otherwise
+	 */
+	public boolean shouldRun(ExportStage exportStage) {
+		return this.stagesToRun.contains(exportStage);
+	}
+
+	/**
+	 * Checks if any stage to be run queries the graph database
+	 * @return <code>true</code> if a stage to be run requires the graph database; <code>false</code> otherwise
+	 */
+	public boolean requiresGraphDatabase() {
+		return this.stagesToRun.stream().anyMatch(ExportStage::requiresGraphDatabase);
+	}
+
+	/**
+	 * Retrieves the stages to be run
+	 * @return Set of the stages to be run, in stage order
+	 */
+	public Set<ExportStage> getStagesToRun() {
+		return EnumSet.copyOf(this.stagesToRun);
+	}
+}
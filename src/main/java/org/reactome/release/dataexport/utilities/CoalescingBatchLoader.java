@@ -0,0 +1,183 @@
+package org.reactome.release.dataexport.utilities;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Loads values by key, on demand, in batches.  Keys requested while a batch is being loaded (e.g. by other threads)
+ * are queued and coalesced into the next batch, so concurrent requests result in one batch query (e.g. one UNWIND
+ * query) rather than one query per request.  Only one batch is loaded at a time, by the thread which finds no batch in
+ * progress; other requesting threads wait for their keys' values.
+ *
+ * Loaded values are kept in a cache bounded to "cacheSize" keys, evicting the least recently used key when full.
+ * Keys for which the batch function returns no value are cached as having no value so they are not loaded again.
+ * @param <K> Type of the keys
+ * @param <V> Type of the values
+ */
+public class CoalescingBatchLoader<K, V> {
+	private final Function<List<K>, Map<K, V>> batchFunction;
+	private final int maxBatchSize;
+	private final Map<K, V> cache;
+	private final Map<K, CompletableFuture<V>> inFlightKeys;
+	private final Deque<K> queuedKeys;
+
+	private boolean batchInProgress;
+	private long batchesLoaded;
+
+	/**
+	 * Creates a loader calling the batch function with at most maxBatchSize keys at a time
+	 * @param batchFunction Function loading the values for a list of keys, returning a map of key to value (keys
+	 * without a value may be omitted)
+	 * @param maxBatchSize Maximum number of keys passed to the batch function at once
+	 * @param cacheSize Maximum number of keys whose values are cached
+	 * @throws IllegalArgumentException Thrown if maxBatchSize or cacheSize is not positive
+	 */
+	public CoalescingBatchLoader(Function<List<K>, Map<K, V>> batchFunction, int maxBatchSize, int cacheSize) {
+		if (maxBatchSize <= 0) {
+			throw new IllegalArgumentException("Maximum batch size must be positive but was " + maxBatchSize);
+		}
+		if (cacheSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive but was " + cacheSize);
+		}
+
+		this.batchFunction = batchFunction;
+		this.maxBatchSize = maxBatchSize;
+		this.cache = new LinkedHashMap<K, V>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > cacheSize;
+			}
+		};
+		this.inFlightKeys = new HashMap<>();
+		this.queuedKeys = new ArrayDeque<>();
+	}
+
+	/**
+	 * Retrieves the value for a key, loading it if it is not cached
+	 * @param key Key for which to retrieve the value
+	 * @return Value for the key or null if the key has no value
+	 * @throws RuntimeException Thrown if loading the batch containing the key fails
+	 */
+	public V load(K key) {
+		return loadAll(Collections.singletonList(key)).get(key);
+	}
+
+	/**
+	 * Retrieves the values for the keys, loading (in batches) those which are not cached
+	 * @param keys Keys for which to retrieve the values
+	 * @return Map of key to value (keys without a value are not included)
+	 * @throws RuntimeException Thrown if loading a batch containing any of the keys fails
+	 */
+	public Map<K, V> loadAll(Collection<K> keys) {
+		Map<K, V> values = new HashMap<>();
+		Map<K, CompletableFuture<V>> pendingValues = new HashMap<>();
+		synchronized (this) {
+			for (K key : keys) {
+				if (cache.containsKey(key)) {
+					putIfNotNull(values, key, cache.get(key));
+				} else if (!pendingValues.containsKey(key)) {
+					pendingValues.put(key, inFlightKeys.computeIfAbsent(key, k -> {
+						queuedKeys.add(k);
+						return new CompletableFuture<>();
+					}));
+				}
+			}
+		}
+		if (pendingValues.isEmpty()) {
+			return values;
+		}
+
+		loadQueuedBatches();
+
+		for (Map.Entry<K, CompletableFuture<V>> pendingValue : pendingValues.entrySet()) {
+			putIfNotNull(values, pendingValue.getKey(), join(pendingValue.getValue()));
+		}
+		return values;
+	}
+
+	/**
+	 * Retrieves the number of batches loaded so far
+	 * @return Number of calls made to the batch function
+	 */
+	public synchronized long getBatchesLoaded() {
+		return this.batchesLoaded;
+	}
+
+	/**
+	 * Retrieves the number of keys currently cached
+	 * @return Number of cached keys
+	 */
+	public synchronized int getCachedKeyCount() {
+		return this.cache.size();
+	}
+
+	private void loadQueuedBatches() {
+		synchronized (this) {
+			if (batchInProgress) {
+				return; // The thread loading the current batch will also load the keys queued by this thread
+			}
+			batchInProgress = true;
+		}
+
+		while (true) {
+			List<K> batch = new ArrayList<>();
+			synchronized (this) {
+				while (!queuedKeys.isEmpty() && batch.size() < maxBatchSize) {
+					batch.add(queuedKeys.poll());
+				}
+				if (batch.isEmpty()) {
+					batchInProgress = false;
+					return;
+				}
+				batchesLoaded++;
+			}
+
+			Map<K, V> batchValues;
+			try {
+				batchValues = batchFunction.apply(batch);
+			} catch (RuntimeException e) {
+				failBatch(batch, e);
+				throw e;
+			}
+			completeBatch(batch, batchValues);
+		}
+	}
+
+	private synchronized void completeBatch(List<K> batch, Map<K, V> batchValues) {
+		for (K key : batch) {
+			V value = batchValues.get(key);
+			cache.put(key, value);
+			inFlightKeys.remove(key).complete(value);
+		}
+	}
+
+	private synchronized void failBatch(List<K> batch, RuntimeException e) {
+		// Keys queued by other threads are failed too as no thread is left to load them; later requests retry them
+		List<K> failedKeys = new ArrayList<>(batch);
+		failedKeys.addAll(queuedKeys);
+		queuedKeys.clear();
+		for (K key : failedKeys) {
+			inFlightKeys.remove(key).completeExceptionally(e);
+		}
+		batchInProgress = false;
+	}
+
+	private static <V> V join(CompletableFuture<V> pendingValue) {
+		try {
+			return pendingValue.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Batch load failed", e.getCause());
+		}
+	}
+
+	private static <K, V> void putIfNotNull(Map<K, V> values, K key, V value) {
+		if (value != null) {
+			values.put(key, value);
+		}
+	}
+}
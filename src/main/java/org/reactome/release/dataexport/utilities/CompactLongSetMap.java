@@ -0,0 +1,305 @@
+package org.reactome.release.dataexport.utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read-only map of long keys to sets of long values (e.g. ReactionlikeEvent db ids to the db ids of their Pathways)
+ * stored in primitive form: the sorted distinct keys, the offset of the values of each key and the sorted distinct
+ * values of all keys.  This takes 16 bytes per key and 8 bytes per value, where a HashMap of HashSets of boxed Longs
+ * takes about 100 bytes per value.  The arrays are held in heap if the memory budget has room for them (see
+ * MemoryBudget) and otherwise in a memory-mapped file outside the heap, whose pages the operating system loads and
+ * evicts as needed.
+ *
+ * Keys are looked up by binary search.  The map and its value sets box the keys and values they return but hold no
+ * boxed values themselves; they can be read by any number of threads.
+ */
+public class CompactLongSetMap extends AbstractMap<Long, Set<Long>> {
+	private final LongBuffer keys;
+	private final LongBuffer offsets;
+	private final LongBuffer values;
+	private final boolean memoryMapped;
+
+	private CompactLongSetMap(LongBuffer keys, LongBuffer offsets, LongBuffer values, boolean memoryMapped) {
+		this.keys = keys;
+		this.offsets = offsets;
+		this.values = values;
+		this.memoryMapped = memoryMapped;
+	}
+
+	/**
+	 * Groups pairs into a map of each first value to the set of second values with which it was paired, held in heap
+	 * if the memory budget can reserve it and memory-mapped otherwise
+	 * @param pairs Pairs to group
+	 * @return Map of first value to set of second values
+	 * @throws UncheckedIOException Thrown if unable to create or map the file of a memory-mapped map
+	 */
+	public static CompactLongSetMap groupByFirst(LongPairBuffer pairs) {
+		return groupByFirst(pairs, MemoryBudget::tryReserve, MemoryBudget.getSpillDirectory());
+	}
+
+	/**
+	 * Groups pairs into a map of each first value to the set of second values with which it was paired
+	 * @param pairs Pairs to group
+	 * @param heapReservation Reserves heap for the arrays of the map, returning <code>false</code> if they should be
+	 * memory-mapped instead
+	 * @param spillDirectory Directory in which to create the file of a memory-mapped map
+	 * @return Map of first value to set of second values
+	 * @throws UncheckedIOException Thrown if unable to create or map the file of a memory-mapped map
+	 */
+	static CompactLongSetMap groupByFirst(LongPairBuffer pairs, HeapReservation heapReservation, Path spillDirectory) {
+		long[] sortedKeys = new long[pairs.size()];
+		for (int i = 0; i < pairs.size(); i++) {
+			sortedKeys[i] = pairs.getFirst(i);
+		}
+		Arrays.sort(sortedKeys);
+		int numberOfKeys = removeRepeatedValues(sortedKeys, 0, sortedKeys.length);
+		long[] keys = Arrays.copyOf(sortedKeys, numberOfKeys);
+
+		// Place the values of each key in its range, then sort and remove repeated values within each range
+		long[] offsets = new long[numberOfKeys + 1];
+		int[] keyIndexes = new int[pairs.size()];
+		for (int i = 0; i < pairs.size(); i++) {
+			keyIndexes[i] = Arrays.binarySearch(keys, pairs.getFirst(i));
+			offsets[keyIndexes[i] + 1]++;
+		}
+		for (int i = 0; i < numberOfKeys; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		long[] values = new long[pairs.size()];
+		int[] nextValueIndexes = new int[numberOfKeys];
+		for (int i = 0; i < numberOfKeys; i++) {
+			nextValueIndexes[i] = (int) offsets[i];
+		}
+		for (int i = 0; i < pairs.size(); i++) {
+			values[nextValueIndexes[keyIndexes[i]]++] = pairs.getSecond(i);
+		}
+
+		int numberOfValues = 0;
+		for (int i = 0; i < numberOfKeys; i++) {
+			int start = (int) offsets[i];
+			int end = (int) offsets[i + 1];
+			Arrays.sort(values, start, end);
+			int distinctValues = removeRepeatedValues(values, start, end);
+			System.arraycopy(values, start, values, numberOfValues, distinctValues);
+			offsets[i] = numberOfValues;
+			numberOfValues += distinctValues;
+		}
+		offsets[numberOfKeys] = numberOfValues;
+
+		long sizeInBytes = 8L * (keys.length + offsets.length + numberOfValues);
+		if (heapReservation.tryReserve(sizeInBytes)) {
+			return new CompactLongSetMap(
+				LongBuffer.wrap(keys), LongBuffer.wrap(offsets), LongBuffer.wrap(Arrays.copyOf(values, numberOfValues)),
+				false
+			);
+		}
+		return mapToFile(keys, offsets, values, numberOfValues, spillDirectory);
+	}
+
+	/**
+	 * Checks if the arrays of the map are held in a memory-mapped file outside the heap
+	 * @return <code>true</code> if the map is memory-mapped; <code>false</code> if it is held in heap
+	 */
+	public boolean isMemoryMapped() {
+		return this.memoryMapped;
+	}
+
+	/**
+	 * Retrieves the number of bytes of heap taken by the arrays of the map
+	 * @return Bytes of heap (0 for a memory-mapped map)
+	 */
+	public long getHeapSizeInBytes() {
+		return this.memoryMapped ? 0 : 8L * (this.keys.limit() + this.offsets.limit() + this.values.limit());
+	}
+
+	@Override
+	public int size() {
+		return this.keys.limit();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof Long && indexOf(this.keys, 0, this.keys.limit(), (Long) key) >= 0;
+	}
+
+	@Override
+	public Set<Long> get(Object key) {
+		if (!(key instanceof Long)) {
+			return null;
+		}
+
+		int keyIndex = indexOf(this.keys, 0, this.keys.limit(), (Long) key);
+		return keyIndex >= 0 ? getValues(keyIndex) : null;
+	}
+
+	@Override
+	public Set<Entry<Long, Set<Long>>> entrySet() {
+		return new AbstractSet<Entry<Long, Set<Long>>>() {
+			@Override
+			public Iterator<Entry<Long, Set<Long>>> iterator() {
+				return new Iterator<Entry<Long, Set<Long>>>() {
+					private int keyIndex;
+
+					@Override
+					public boolean hasNext() {
+						return this.keyIndex < size();
+					}
+
+					@Override
+					public Entry<Long, Set<Long>> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						int currentKeyIndex = this.keyIndex++;
+						return new SimpleImmutableEntry<>(keys.get(currentKeyIndex), getValues(currentKeyIndex));
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return CompactLongSetMap.this.size();
+			}
+		};
+	}
+
+	private Set<Long> getValues(int keyIndex) {
+		return new ValueSet((int) this.offsets.get(keyIndex), (int) this.offsets.get(keyIndex + 1));
+	}
+
+	private static CompactLongSetMap mapToFile(long[] keys, long[] offsets, long[] values, int numberOfValues,
+											   Path spillDirectory) {
+		long sizeInBytes = 8L * (keys.length + offsets.length + numberOfValues);
+		if (sizeInBytes > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Map of " + sizeInBytes + " bytes is too large to memory-map");
+		}
+
+		try {
+			Files.createDirectories(spillDirectory);
+			Path mappedFilePath = Files.createTempFile(spillDirectory, "long-set-map", ".bin");
+			MappedByteBuffer mappedBuffer;
+			try (FileChannel fileChannel = FileChannel.open(
+				mappedFilePath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, sizeInBytes);
+			} finally {
+				// The mapping outlives the file on POSIX file systems; elsewhere the file is removed on exit
+				try {
+					Files.delete(mappedFilePath);
+				} catch (IOException e) {
+					mappedFilePath.toFile().deleteOnExit();
+				}
+			}
+
+			LongBuffer mappedLongs = mappedBuffer.asLongBuffer();
+			mappedLongs.put(keys).put(offsets).put(values, 0, numberOfValues);
+			return new CompactLongSetMap(
+				sliceOf(mappedBuffer, 0, keys.length),
+				sliceOf(mappedBuffer, keys.length, offsets.length),
+				sliceOf(mappedBuffer, keys.length + offsets.length, numberOfValues),
+				true
+			);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to memory-map map in " + spillDirectory, e);
+		}
+	}
+
+	private static LongBuffer sliceOf(ByteBuffer buffer, int longOffset, int numberOfLongs) {
+		ByteBuffer slice = buffer.duplicate();
+		// Called through Buffer, as ByteBuffer only overrides position and limit from Java 9 (NoSuchMethodError on 8)
+		((Buffer) slice).position(8 * longOffset);
+		((Buffer) slice).limit(8 * (longOffset + numberOfLongs));
+		return slice.slice().asLongBuffer();
+	}
+
+	/**
+	 * Removes repeated values from a sorted range of an array, moving the distinct values to the start of the range
+	 * @return Number of distinct values in the range
+	 */
+	private static int removeRepeatedValues(long[] sortedValues, int start, int end) {
+		int distinctEnd = start;
+		for (int i = start; i < end; i++) {
+			if (i == start || sortedValues[i] != sortedValues[distinctEnd - 1]) {
+				sortedValues[distinctEnd++] = sortedValues[i];
+			}
+		}
+		return distinctEnd - start;
+	}
+
+	private static int indexOf(LongBuffer sortedValues, int start, int end, long value) {
+		int low = start;
+		int high = end - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long middleValue = sortedValues.get(middle);
+			if (middleValue < value) {
+				low = middle + 1;
+			} else if (middleValue > value) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Reserves heap for the arrays of a map
+	 */
+	@FunctionalInterface
+	interface HeapReservation {
+		boolean tryReserve(long bytes);
+	}
+
+	/**
+	 * Read-only set of the values of a key, a range of the values array
+	 */
+	private class ValueSet extends AbstractSet<Long> {
+		private final int start;
+		private final int end;
+
+		private ValueSet(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return value instanceof Long && indexOf(values, this.start, this.end, (Long) value) >= 0;
+		}
+
+		@Override
+		public Iterator<Long> iterator() {
+			return new Iterator<Long>() {
+				private int valueIndex = start;
+
+				@Override
+				public boolean hasNext() {
+					return this.valueIndex < end;
+				}
+
+				@Override
+				public Long next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return values.get(this.valueIndex++);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return this.end - this.start;
+		}
+	}
+}
@@ -13,11 +13,16 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * General Utilities class.  This class contains methods needed for general manipulation of data or common operations
@@ -67,6 +72,59 @@ public class DataExportUtilities {
 		return splitSets;
 	}
 
+	/**
+	 * Sorts the elements of a collection, in parallel, by a sort key.  The key of each element is extracted once into
+	 * an array of (key, element) pairs which is sorted with Arrays.parallelSort, so the keys (e.g. UniProt accessions)
+	 * are not re-computed on each comparison.  The sort is stable: elements with equal keys keep the order in which
+	 * they are iterated from the collection.
+	 * @param elements Collection of elements to sort
+	 * @param sortKeyExtractor Function returning the sort key of an element
+	 * @param <T> Type of the elements
+	 * @param <K> Type of the sort key
+	 * @return List of the elements in ascending order of their sort keys
+	 */
+	public static <T, K extends Comparable<? super K>> List<T> parallelSortByKey(
+		Collection<T> elements, Function<? super T, ? extends K> sortKeyExtractor) {
+
+		SortEntry<T, K>[] sortEntryArray = newSortEntryArray(elements.size());
+		int elementIndex = 0;
+		for (T element : elements) {
+			sortEntryArray[elementIndex++] = new SortEntry<>(element);
+		}
+
+		Arrays.parallelSetAll(sortEntryArray, index -> sortEntryArray[index].withKey(sortKeyExtractor));
+		Arrays.parallelSort(sortEntryArray, Comparator.comparing(sortEntry -> sortEntry.sortKey));
+
+		List<T> sortedElements = new ArrayList<>(sortEntryArray.length);
+		for (SortEntry<T, K> sortEntry : sortEntryArray) {
+			sortedElements.add(sortEntry.element);
+		}
+		return sortedElements;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T, K> SortEntry<T, K>[] newSortEntryArray(int length) {
+		// Arrays of a parameterized type can not be created directly; an array of the wildcard type holds any entry
+		return (SortEntry<T, K>[]) new SortEntry<?, ?>[length];
+	}
+
+	/**
+	 * Pair of an element and its extracted sort key
+	 */
+	private static class SortEntry<T, K> {
+		private final T element;
+		private K sortKey;
+
+		private SortEntry(T element) {
+			this.element = element;
+		}
+
+		private SortEntry<T, K> withKey(Function<? super T, ? extends K> sortKeyExtractor) {
+			this.sortKey = sortKeyExtractor.apply(element);
+			return this;
+		}
+	}
+
 	/**
 	 * Deletes the file at the path provided (if it exists) and creates an empty file
 	 * @param filePath Path of file to delete (if it already exists) and re-create
@@ -104,6 +162,124 @@ public class DataExportUtilities {
 		}
 	}
 
+	/**
+	 * Writes a String value to a writer followed by a new line character (determined by OS)
+	 * @param lineToWrite Line to write
+	 * @param writer Writer to which to write the line
+	 * @throws IOException Thrown if unable to write to the writer
+	 */
+	public static void writeWithNewLine(String lineToWrite, Writer writer) throws IOException {
+		writer.write(lineToWrite);
+		writer.write(System.lineSeparator());
+	}
+
+	/**
+	 * Escapes the characters of a String which can not appear as such in the text of an XML element
+	 * @param text Text to escape
+	 * @return Text with each '&amp;', '&lt;' and '&gt;' replaced by its XML entity reference
+	 */
+	public static String escapeXML(String text) {
+		StringBuilder escapedText = null;
+		for (int i = 0; i < text.length(); i++) {
+			String entityReference;
+			switch (text.charAt(i)) {
+				case '&':
+					entityReference = "&amp;";
+					break;
+				case '<':
+					entityReference = "&lt;";
+					break;
+				case '>':
+					entityReference = "&gt;";
+					break;
+				default:
+					if (escapedText != null) {
+						escapedText.append(text.charAt(i));
+					}
+					continue;
+			}
+
+			if (escapedText == null) {
+				escapedText = new StringBuilder(text.length() + 16).append(text, 0, i);
+			}
+			escapedText.append(entityReference);
+		}
+		return escapedText != null ? escapedText.toString() : text;
+	}
+
+	/**
+	 * Computes the number of bytes of a String when encoded as UTF-8, without encoding it
+	 * @param text Text for which to compute the encoded size
+	 * @return Number of bytes of the UTF-8 encoding of the text
+	 */
+	public static int getUTF8Length(CharSequence text) {
+		int length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char character = text.charAt(i);
+			if (character < 0x80) {
+				length += 1;
+			} else if (character < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(character) && i + 1 < text.length() &&
+				Character.isLowSurrogate(text.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else if (Character.isSurrogate(character)) {
+				// Unpaired surrogates are encoded as the single byte replacement '?'
+				length += 1;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Computes the SHA-256 checksum of the contents of a file
+	 * @param filePath Path of file for which to compute the checksum
+	 * @return SHA-256 checksum of the file as a lower case hexadecimal String
+	 * @throws IOException Thrown if unable to read file at path provided
+	 */
+	public static String sha256(Path filePath) throws IOException {
+		MessageDigest messageDigest = newSHA256Digest();
+
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream fileInputStream = Files.newInputStream(filePath)) {
+			int bytesRead;
+			while ((bytesRead = fileInputStream.read(buffer)) != -1) {
+				messageDigest.update(buffer, 0, bytesRead);
+			}
+		}
+
+		return toHexString(messageDigest.digest());
+	}
+
+	/**
+	 * Creates a message digest computing SHA-256 checksums
+	 * @return SHA-256 message digest
+	 * @throws IllegalStateException Thrown if the Java runtime does not support SHA-256
+	 */
+	public static MessageDigest newSHA256Digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this Java runtime", e);
+		}
+	}
+
+	/**
+	 * Formats a digest (e.g. a SHA-256 checksum) as a hexadecimal String
+	 * @param digest Bytes of the digest
+	 * @return Digest as a lower case hexadecimal String
+	 */
+	public static String toHexString(byte[] digest) {
+		StringBuilder hexString = new StringBuilder(digest.length * 2);
+		for (byte digestByte : digest) {
+			hexString.append(String.format("%02x", digestByte));
+		}
+		return hexString.toString();
+	}
+
 	/**
 	 * Returns an empty W3C Document object for a standalone XML document
 	 * @return W3C Document object representing an XML structure
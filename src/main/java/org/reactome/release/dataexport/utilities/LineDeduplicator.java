@@ -0,0 +1,378 @@
+package org.reactome.release.dataexport.utilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.writeWithNewLine;
+
+/**
+ * Set of output lines which writes the distinct lines added to it in the order they were first added, holding at most
+ * a configured memory budget of lines in heap.  Lines are kept in memory until their estimated size exceeds the
+ * budget; the set then spills to disk as an external sort:
+ *
+ * 1. Each time the budget is exceeded, the lines in memory are written to a run file in a temporary directory, sorted
+ * by the 64-bit fingerprint of the line and tagged with the sequence number of the line (the order in which it was
+ * first added).
+ * 2. The runs are k-way merged by fingerprint.  Lines with equal fingerprints come together and are compared in full,
+ * so a fingerprint collision never drops a line; the first occurrence of each distinct line is kept.
+ * 3. The distinct lines are written to runs sorted by sequence number which are k-way merged (see SortedLineMerger)
+ * into the writer, restoring the order in which the lines were first added.
+ *
+ * The output is therefore the same, byte for byte, whether or not the set spilled.
+ */
+public class LineDeduplicator implements Closeable {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+
+	private static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+	// Estimated heap used by each line besides its characters (String, char array header and LinkedHashMap entry)
+	private static final long LINE_OVERHEAD_IN_BYTES = 96;
+	private static final int HEX_FIELD_LENGTH = 16;
+
+	private static long memoryBudget = DEFAULT_MEMORY_BUDGET;
+	private static Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+	private final long instanceMemoryBudget;
+	private final Path instanceSpillDirectory;
+	private final ToLongFunction<String> fingerprinter;
+
+	private Set<String> lines = new LinkedHashSet<>();
+	private long estimatedSizeInBytes;
+	private long nextSequenceNumber;
+	private Path runDirectory;
+	private final List<Path> runFilePaths = new ArrayList<>();
+	private boolean written;
+
+	/**
+	 * Sets the memory budget of each line set (lineSetMemoryBudget, in bytes; default 256MB) and the directory in
+	 * which line sets exceeding it spill their runs (lineSetSpillDirectory; default the temporary directory of the
+	 * Java runtime) from the configuration properties of the data export
+	 * @param props Configuration properties for the data export
+	 * @throws IllegalArgumentException Thrown if the memory budget is not positive
+	 */
+	public static void configure(Properties props) {
+		long configuredMemoryBudget = Long.parseLong(
+			props.getProperty("lineSetMemoryBudget", Long.toString(DEFAULT_MEMORY_BUDGET))
+		);
+		if (configuredMemoryBudget <= 0) {
+			throw new IllegalArgumentException(
+				"lineSetMemoryBudget must be positive but was " + configuredMemoryBudget
+			);
+		}
+
+		memoryBudget = configuredMemoryBudget;
+		spillDirectory = Paths.get(props.getProperty("lineSetSpillDirectory", System.getProperty("java.io.tmpdir")));
+	}
+
+	/**
+	 * Creates an empty line set with the configured memory budget and spill directory
+	 * @return Empty line set (to be closed once its lines are written, to delete any spilled runs)
+	 */
+	public static LineDeduplicator getInstance() {
+		return new LineDeduplicator(memoryBudget, spillDirectory, LineDeduplicator::fingerprint);
+	}
+
+	LineDeduplicator(long memoryBudget, Path spillDirectory, ToLongFunction<String> fingerprinter) {
+		this.instanceMemoryBudget = memoryBudget;
+		this.instanceSpillDirectory = spillDirectory;
+		this.fingerprinter = fingerprinter;
+	}
+
+	/**
+	 * Adds a line to the set, spilling the lines in memory to a run if the memory budget is exceeded
+	 * @param line Line to add (without a line separator)
+	 * @throws IOException Thrown if unable to write a run
+	 * @throws IllegalArgumentException Thrown if the line contains a line break
+	 * @throws IllegalStateException Thrown if the lines of the set were already written
+	 */
+	public void add(String line) throws IOException {
+		if (this.written) {
+			throw new IllegalStateException("Lines can not be added after they are written");
+		}
+		if (line.indexOf('\n') != -1 || line.indexOf('\r') != -1) {
+			throw new IllegalArgumentException("Line contains a line break: " + line);
+		}
+
+		if (this.lines.add(line)) {
+			this.estimatedSizeInBytes += getEstimatedSizeInBytes(line);
+			if (this.estimatedSizeInBytes > this.instanceMemoryBudget) {
+				spillRun();
+			}
+		}
+	}
+
+	/**
+	 * Checks if the lines of the set exceeded the memory budget and were spilled to disk
+	 * @return <code>true</code> if at least one run was written; <code>false</code> otherwise
+	 */
+	public boolean isSpilled() {
+		return !this.runFilePaths.isEmpty();
+	}
+
+	/**
+	 * Writes the distinct lines of the set, each followed by a line separator, in the order they were first added.
+	 * The lines can only be written once.
+	 * @param writer Writer to which to write the lines
+	 * @return Number of lines written
+	 * @throws IOException Thrown if unable to read or write a run or write to the writer
+	 * @throws IllegalStateException Thrown if the lines of the set were already written
+	 */
+	public long writeDistinctLines(Writer writer) throws IOException {
+		if (this.written) {
+			throw new IllegalStateException("Lines have already been written");
+		}
+		this.written = true;
+
+		if (!isSpilled()) {
+			for (String line : this.lines) {
+				writeWithNewLine(line, writer);
+			}
+			return this.lines.size();
+		}
+
+		if (!this.lines.isEmpty()) {
+			spillRun();
+		}
+		this.lines = Collections.emptySet();
+
+		List<Path> sequenceRunFilePaths = writeDistinctLinesBySequenceNumber();
+		logger.info("Merging {} run(s) of distinct lines spilled to {}",
+			sequenceRunFilePaths.size(), this.runDirectory);
+		return SortedLineMerger.merge(
+			sequenceRunFilePaths, writer, sequenceLine -> sequenceLine.substring(HEX_FIELD_LENGTH + 1)
+		);
+	}
+
+	/**
+	 * Deletes the runs spilled by the set, if any
+	 * @throws IOException Thrown if unable to delete a run or the directory of the runs
+	 */
+	@Override
+	public void close() throws IOException {
+		this.lines = Collections.emptySet();
+		if (this.runDirectory == null) {
+			return;
+		}
+
+		try (Stream<Path> runDirectoryFiles = Files.list(this.runDirectory)) {
+			for (Path runDirectoryFile : (Iterable<Path>) runDirectoryFiles::iterator) {
+				Files.deleteIfExists(runDirectoryFile);
+			}
+		}
+		Files.deleteIfExists(this.runDirectory);
+		this.runDirectory = null;
+	}
+
+	/**
+	 * Computes the 64-bit fingerprint of a line: the FNV-1a hash of its characters, finalized with the MurmurHash3
+	 * mixing function so all bits of the fingerprint depend on every character
+	 * @param line Line for which to compute the fingerprint
+	 * @return Fingerprint of the line
+	 */
+	static long fingerprint(String line) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < line.length(); i++) {
+			hash ^= line.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	private static long getEstimatedSizeInBytes(String line) {
+		return LINE_OVERHEAD_IN_BYTES + 2L * line.length();
+	}
+
+	/**
+	 * Writes the lines in memory, sorted by fingerprint, to a run and empties the set in memory.  The lines are in
+	 * the order they were first added, so numbering them in that order continues the sequence of the earlier runs.
+	 */
+	private void spillRun() throws IOException {
+		if (this.runDirectory == null) {
+			Files.createDirectories(this.instanceSpillDirectory);
+			this.runDirectory = Files.createTempDirectory(this.instanceSpillDirectory, "line-set");
+		}
+
+		List<SpilledLine> spilledLines = new ArrayList<>(this.lines.size());
+		for (String line : this.lines) {
+			spilledLines.add(new SpilledLine(this.fingerprinter.applyAsLong(line), this.nextSequenceNumber++, line));
+		}
+		spilledLines.sort(null);
+
+		Path runFilePath = this.runDirectory.resolve("fingerprint_run_" + this.runFilePaths.size() + ".tsv");
+		try (BufferedWriter runWriter = Files.newBufferedWriter(runFilePath, StandardCharsets.UTF_8)) {
+			for (SpilledLine spilledLine : spilledLines) {
+				writeWithNewLine(spilledLine.toRunLine(), runWriter);
+			}
+		}
+		this.runFilePaths.add(runFilePath);
+		logger.debug("Spilled {} line(s) (about {} bytes) to {}",
+			spilledLines.size(), this.estimatedSizeInBytes, runFilePath);
+
+		this.lines = new LinkedHashSet<>();
+		this.estimatedSizeInBytes = 0;
+	}
+
+	/**
+	 * Merges the fingerprint runs, keeping the first occurrence of each distinct line, and writes the distinct lines,
+	 * prefixed by their sequence numbers, to runs sorted by sequence number
+	 * @return Paths of the runs sorted by sequence number
+	 */
+	private List<Path> writeDistinctLinesBySequenceNumber() throws IOException {
+		List<Path> sequenceRunFilePaths = new ArrayList<>();
+		List<String> sequenceLines = new ArrayList<>();
+		long sequenceLinesSizeInBytes = 0;
+
+		List<BufferedReader> readers = new ArrayList<>();
+		try {
+			PriorityQueue<RunHead> runHeads = new PriorityQueue<>();
+			for (Path runFilePath : this.runFilePaths) {
+				BufferedReader reader = Files.newBufferedReader(runFilePath, StandardCharsets.UTF_8);
+				readers.add(reader);
+				RunHead runHead = new RunHead(readers.size() - 1, reader);
+				if (runHead.advance()) {
+					runHeads.add(runHead);
+				}
+			}
+
+			Long currentFingerprint = null;
+			Set<String> currentFingerprintLines = new HashSet<>();
+			while (!runHeads.isEmpty()) {
+				RunHead runHead = runHeads.poll();
+				SpilledLine spilledLine = runHead.spilledLine;
+				if (currentFingerprint == null || currentFingerprint != spilledLine.fingerprint) {
+					currentFingerprint = spilledLine.fingerprint;
+					currentFingerprintLines.clear();
+				}
+				// Runs are merged in the order they were spilled, so the first occurrence of a line comes first
+				if (currentFingerprintLines.add(spilledLine.line)) {
+					String sequenceLine = toHexField(spilledLine.sequenceNumber) + "\t" + spilledLine.line;
+					sequenceLines.add(sequenceLine);
+					sequenceLinesSizeInBytes += getEstimatedSizeInBytes(sequenceLine);
+					if (sequenceLinesSizeInBytes > this.instanceMemoryBudget) {
+						sequenceRunFilePaths.add(writeSequenceRun(sequenceLines, sequenceRunFilePaths.size()));
+						sequenceLines.clear();
+						sequenceLinesSizeInBytes = 0;
+					}
+				}
+
+				if (runHead.advance()) {
+					runHeads.add(runHead);
+				}
+			}
+		} finally {
+			for (BufferedReader reader : readers) {
+				reader.close();
+			}
+		}
+
+		if (!sequenceLines.isEmpty() || sequenceRunFilePaths.isEmpty()) {
+			sequenceRunFilePaths.add(writeSequenceRun(sequenceLines, sequenceRunFilePaths.size()));
+		}
+		return sequenceRunFilePaths;
+	}
+
+	private Path writeSequenceRun(List<String> sequenceLines, int runNumber) throws IOException {
+		// Sequence numbers are unique and fixed width, so sorting the lines sorts them by sequence number
+		Collections.sort(sequenceLines);
+
+		Path sequenceRunFilePath = this.runDirectory.resolve("sequence_run_" + runNumber + ".tsv");
+		try (BufferedWriter runWriter = Files.newBufferedWriter(sequenceRunFilePath, StandardCharsets.UTF_8)) {
+			for (String sequenceLine : sequenceLines) {
+				writeWithNewLine(sequenceLine, runWriter);
+			}
+		}
+		return sequenceRunFilePath;
+	}
+
+	private static String toHexField(long value) {
+		String hexValue = Long.toHexString(value);
+		StringBuilder hexField = new StringBuilder(HEX_FIELD_LENGTH);
+		for (int i = hexValue.length(); i < HEX_FIELD_LENGTH; i++) {
+			hexField.append('0');
+		}
+		return hexField.append(hexValue).toString();
+	}
+
+	/**
+	 * Line spilled to a fingerprint run, ordered by fingerprint (as an unsigned value) and then sequence number
+	 */
+	private static class SpilledLine implements Comparable<SpilledLine> {
+		private final long fingerprint;
+		private final long sequenceNumber;
+		private final String line;
+
+		private SpilledLine(long fingerprint, long sequenceNumber, String line) {
+			this.fingerprint = fingerprint;
+			this.sequenceNumber = sequenceNumber;
+			this.line = line;
+		}
+
+		private static SpilledLine fromRunLine(String runLine) {
+			return new SpilledLine(
+				Long.parseUnsignedLong(runLine.substring(0, HEX_FIELD_LENGTH), 16),
+				Long.parseLong(runLine.substring(HEX_FIELD_LENGTH + 1, 2 * HEX_FIELD_LENGTH + 1), 16),
+				runLine.substring(2 * HEX_FIELD_LENGTH + 2)
+			);
+		}
+
+		private String toRunLine() {
+			return toHexField(this.fingerprint) + "\t" + toHexField(this.sequenceNumber) + "\t" + this.line;
+		}
+
+		@Override
+		public int compareTo(SpilledLine other) {
+			int fingerprintComparison = Long.compareUnsigned(this.fingerprint, other.fingerprint);
+			return fingerprintComparison != 0 ?
+				fingerprintComparison : Long.compare(this.sequenceNumber, other.sequenceNumber);
+		}
+	}
+
+	/**
+	 * Current line of a fingerprint run being merged
+	 */
+	private static class RunHead implements Comparable<RunHead> {
+		private final int runIndex;
+		private final BufferedReader reader;
+		private SpilledLine spilledLine;
+
+		private RunHead(int runIndex, BufferedReader reader) {
+			this.runIndex = runIndex;
+			this.reader = reader;
+		}
+
+		private boolean advance() throws IOException {
+			String runLine = this.reader.readLine();
+			if (runLine == null) {
+				return false;
+			}
+
+			this.spilledLine = SpilledLine.fromRunLine(runLine);
+			return true;
+		}
+
+		@Override
+		public int compareTo(RunHead other) {
+			int fingerprintComparison =
+				Long.compareUnsigned(this.spilledLine.fingerprint, other.spilledLine.fingerprint);
+			return fingerprintComparison != 0 ? fingerprintComparison : Integer.compare(this.runIndex, other.runIndex);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package org.reactome.release.dataexport.utilities;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Growable buffer of pairs of primitive longs (e.g. the database identifiers of a ReactionLikeEvent and one of its
+ * Pathways) filled while decoding query rows.  The pairs are stored in a single long array, so decoding a row costs
+ * no object allocation; boxing only happens once, when the pairs are grouped into a map.
+ */
+public class LongPairBuffer {
+	private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+	private long[] pairs;
+	private int size;
+
+	/**
+	 * Creates an empty buffer
+	 */
+	public LongPairBuffer() {
+		this.pairs = new long[DEFAULT_INITIAL_CAPACITY * 2];
+		this.size = 0;
+	}
+
+	/**
+	 * Adds a pair to the buffer
+	 * @param first First value of the pair (e.g. the key when grouped)
+	 * @param second Second value of the pair
+	 */
+	public void add(long first, long second) {
+		if ((size + 1) * 2 > pairs.length) {
+			pairs = Arrays.copyOf(pairs, pairs.length * 2);
+		}
+
+		pairs[size * 2] = first;
+		pairs[size * 2 + 1] = second;
+		size++;
+	}
+
+	/**
+	 * Retrieves the number of pairs in the buffer
+	 * @return Number of pairs
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Retrieves the first value of a pair
+	 * @param index Index of the pair (in the order added)
+	 * @return First value of the pair
+	 */
+	public long getFirst(int index) {
+		return pairs[checkIndex(index) * 2];
+	}
+
+	/**
+	 * Retrieves the second value of a pair
+	 * @param index Index of the pair (in the order added)
+	 * @return Second value of the pair
+	 */
+	public long getSecond(int index) {
+		return pairs[checkIndex(index) * 2 + 1];
+	}
+
+	/**
+	 * Groups the pairs into a map of each first value to the set of second values with which it was paired
+	 * @return Map of first value to set of second values
+	 */
+	public Map<Long, Set<Long>> groupByFirst() {
+		Map<Long, Set<Long>> groupedPairs = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			groupedPairs.computeIfAbsent(pairs[i * 2], k -> new HashSet<>()).add(pairs[i * 2 + 1]);
+		}
+		return groupedPairs;
+	}
+
+	private int checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size);
+		}
+		return index;
+	}
+}
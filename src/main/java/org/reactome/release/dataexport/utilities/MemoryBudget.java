@@ -0,0 +1,203 @@
+package org.reactome.release.dataexport.utilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap budget of a low-memory export run (the "--memory-budget" command line option or the memoryBudget configuration
+ * value).  When a budget is set, the export picks the structures which keep its heap use bounded:
+ *
+ * - Events are loaded lazily (see ReactomeEvent), into least recently used caches, rather than all at once
+ * - The RLE to Pathway and Pathway hierarchy indexes are held in compact primitive maps (see CompactLongSetMap) which
+ * are memory-mapped outside the heap if the index share of the budget has no room for them
+ * - Output line sets spill to disk past a sixteenth of the budget (see LineDeduplicator)
+ *
+ * Settings which are explicitly configured are kept.  The writers stream their files, so the budget only has to hold
+ * the indexes and the entries being written.  The peak heap use of the run is logged, and compared with the budget,
+ * when the run ends.
+ */
+public class MemoryBudget {
+	private static final Logger logger = LogManager.getLogger("mainLog");
+
+	// Share of the budget which the indexes may reserve; the rest is left to the entries, events and driver buffers
+	private static final double INDEX_SHARE_OF_BUDGET = 0.5;
+	private static final int LINE_SET_FRACTION_OF_BUDGET = 16;
+
+	private static long budgetInBytes;
+	private static Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+	private static final AtomicLong reservedBytes = new AtomicLong();
+
+	private MemoryBudget() {}
+
+	/**
+	 * Sets the heap budget (memoryBudget, in bytes or with a "k", "m" or "g" suffix; default no budget) and the
+	 * directory of the files memory-mapped outside the heap (memoryBudgetSpillDirectory; default the temporary
+	 * directory of the Java runtime) from the configuration properties of the data export.  If a budget is set, the
+	 * low-memory defaults of the settings which are not explicitly configured are added to the properties, so this must
+	 * be called before the classes reading those settings are configured.
+	 * @param props Configuration properties for the data export
+	 * @throws IllegalArgumentException Thrown if the budget is not a positive size
+	 */
+	public static synchronized void configure(Properties props) {
+		String configuredBudget = props.getProperty("memoryBudget", "").trim();
+		budgetInBytes = configuredBudget.isEmpty() ? 0 : parseSize(configuredBudget);
+		spillDirectory = Paths.get(
+			props.getProperty("memoryBudgetSpillDirectory", System.getProperty("java.io.tmpdir"))
+		);
+		reservedBytes.set(0);
+		resetPeakHeapUsage();
+
+		if (!isEnabled()) {
+			return;
+		}
+
+		setDefault(props, "eventLoading", "lazy");
+		setDefault(props, "lineSetMemoryBudget", Long.toString(budgetInBytes / LINE_SET_FRACTION_OF_BUDGET));
+		setDefault(props, "lineSetSpillDirectory", spillDirectory.toString());
+
+		logger.info("Exporting within a heap budget of {} bytes (event loading: {}, line set budget: {} bytes)",
+			budgetInBytes, props.getProperty("eventLoading"), props.getProperty("lineSetMemoryBudget"));
+		long maxHeapInBytes = Runtime.getRuntime().maxMemory();
+		if (maxHeapInBytes != Long.MAX_VALUE && maxHeapInBytes > budgetInBytes) {
+			logger.warn("The maximum heap ({} bytes) is larger than the budget; set -Xmx{} to enforce the budget",
+				maxHeapInBytes, configuredBudget);
+		}
+	}
+
+	/**
+	 * Checks if the export runs within a heap budget
+	 * @return <code>true</code> if a budget is configured; <code>false</code> otherwise
+	 */
+	public static boolean isEnabled() {
+		return budgetInBytes > 0;
+	}
+
+	/**
+	 * Retrieves the heap budget
+	 * @return Budget in bytes or 0 if no budget is configured
+	 */
+	public static long getBudgetInBytes() {
+		return budgetInBytes;
+	}
+
+	/**
+	 * Retrieves the directory in which to create the files memory-mapped outside the heap
+	 * @return Path of the spill directory
+	 */
+	public static Path getSpillDirectory() {
+		return spillDirectory;
+	}
+
+	/**
+	 * Reserves heap for an index, if the index share of the budget has room for it.  Reservations are held for the
+	 * rest of the run, as the indexes are cached for the run.
+	 * @param bytes Number of bytes of heap the index needs
+	 * @return <code>true</code> if there is no budget or the heap was reserved; <code>false</code> if the index
+	 * should be held outside the heap
+	 */
+	public static boolean tryReserve(long bytes) {
+		if (!isEnabled()) {
+			return true;
+		}
+
+		long indexBudgetInBytes = (long) (budgetInBytes * INDEX_SHARE_OF_BUDGET);
+		long reserved;
+		do {
+			reserved = reservedBytes.get();
+			if (reserved + bytes > indexBudgetInBytes) {
+				return false;
+			}
+		} while (!reservedBytes.compareAndSet(reserved, reserved + bytes));
+		return true;
+	}
+
+	/**
+	 * Retrieves the number of bytes of heap reserved by indexes
+	 * @return Reserved bytes
+	 */
+	public static long getReservedBytes() {
+		return reservedBytes.get();
+	}
+
+	/**
+	 * Retrieves the peak heap use since the budget was configured: the sum of the peak use of each heap memory pool
+	 * (an upper bound, as the pools do not all peak at the same time)
+	 * @return Peak heap use in bytes
+	 */
+	public static long getPeakHeapUsage() {
+		long peakHeapUsage = 0;
+		for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (memoryPool.getType() == MemoryType.HEAP && memoryPool.isValid()) {
+				peakHeapUsage += memoryPool.getPeakUsage().getUsed();
+			}
+		}
+		return peakHeapUsage;
+	}
+
+	/**
+	 * Logs the peak heap use of the run, warning if it exceeded the budget
+	 */
+	public static void logPeakHeapUsage() {
+		long peakHeapUsage = getPeakHeapUsage();
+		if (isEnabled() && peakHeapUsage > budgetInBytes) {
+			logger.warn("Peak heap use of {} bytes exceeded the heap budget of {} bytes", peakHeapUsage, budgetInBytes);
+		} else {
+			logger.info("Peak heap use: {} bytes{}", peakHeapUsage,
+				isEnabled() ? " (heap budget: " + budgetInBytes + " bytes)" : "");
+		}
+	}
+
+	/**
+	 * Parses a size in bytes, optionally suffixed by "k", "m" or "g" (case insensitive, e.g. "512m" or "4G")
+	 * @param size Size to parse
+	 * @return Size in bytes
+	 * @throws IllegalArgumentException Thrown if the size is not a positive number of bytes, kilobytes, megabytes or
+	 * gigabytes
+	 */
+	public static long parseSize(String size) {
+		String normalizedSize = size.trim().toLowerCase(Locale.ROOT);
+		long multiplier = 1;
+		if (normalizedSize.endsWith("k")) {
+			multiplier = 1024L;
+		} else if (normalizedSize.endsWith("m")) {
+			multiplier = 1024L * 1024;
+		} else if (normalizedSize.endsWith("g")) {
+			multiplier = 1024L * 1024 * 1024;
+		}
+		String number = multiplier == 1 ? normalizedSize : normalizedSize.substring(0, normalizedSize.length() - 1);
+
+		long sizeInBytes;
+		try {
+			sizeInBytes = Math.multiplyExact(Long.parseLong(number), multiplier);
+		} catch (NumberFormatException | ArithmeticException e) {
+			throw new IllegalArgumentException("Unable to parse memory size '" + size + "' (e.g. 4g or 512m)", e);
+		}
+		if (sizeInBytes <= 0) {
+			throw new IllegalArgumentException("Memory size must be positive but was '" + size + "'");
+		}
+		return sizeInBytes;
+	}
+
+	private static void setDefault(Properties props, String key, String value) {
+		if (!props.containsKey(key)) {
+			props.setProperty(key, value);
+		}
+	}
+
+	private static void resetPeakHeapUsage() {
+		for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (memoryPool.getType() == MemoryType.HEAP && memoryPool.isValid()) {
+				memoryPool.resetPeakUsage();
+			}
+		}
+	}
+}
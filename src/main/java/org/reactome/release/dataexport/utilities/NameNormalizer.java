@@ -0,0 +1,168 @@
+package org.reactome.release.dataexport.utilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Replaces names containing any of a set of texts with standardized names.  The rules (text to search for and the name
+ * to use instead) are compiled once into an Aho-Corasick automaton, so normalizing a name scans it a single time
+ * whatever the number of rules.
+ *
+ * If a name contains the text of several rules, the rule whose text sorts last (by String.compareTo) is applied.
+ */
+public class NameNormalizer {
+	private static final int ROOT = 0;
+	private static final int NO_RULE = -1;
+
+	private final List<String> replacements;
+	private final List<Map<Character, Integer>> transitions;
+	private final int[] failureStates;
+	private final int[] bestRuleAtState;
+
+	/**
+	 * Creates a name normalizer for the rules
+	 * @param textToReplacement Map of the text to search for in names to the name to use for names containing it
+	 * @throws IllegalArgumentException Thrown if any text to search for is empty
+	 */
+	public NameNormalizer(Map<String, String> textToReplacement) {
+		// Rules are ranked in sorted text order so the rule with the highest rank found in a name is applied
+		List<String> texts = new ArrayList<>(new TreeSet<>(textToReplacement.keySet()));
+		this.replacements = new ArrayList<>();
+		this.transitions = new ArrayList<>();
+		this.transitions.add(new HashMap<>());
+
+		List<Integer> ruleAtState = new ArrayList<>();
+		ruleAtState.add(NO_RULE);
+		for (int rank = 0; rank < texts.size(); rank++) {
+			String text = texts.get(rank);
+			if (text.isEmpty()) {
+				throw new IllegalArgumentException("Text to search for in names can not be empty");
+			}
+			this.replacements.add(textToReplacement.get(text));
+
+			int state = ROOT;
+			for (char character : text.toCharArray()) {
+				Integer nextState = this.transitions.get(state).get(character);
+				if (nextState == null) {
+					nextState = this.transitions.size();
+					this.transitions.add(new HashMap<>());
+					ruleAtState.add(NO_RULE);
+					this.transitions.get(state).put(character, nextState);
+				}
+				state = nextState;
+			}
+			ruleAtState.set(state, rank);
+		}
+
+		this.failureStates = new int[this.transitions.size()];
+		this.bestRuleAtState = new int[this.transitions.size()];
+		for (int state = 0; state < this.bestRuleAtState.length; state++) {
+			this.bestRuleAtState[state] = ruleAtState.get(state);
+		}
+		computeFailureStates();
+	}
+
+	/**
+	 * Creates a name normalizer with the rules in a class path resource.  Each rule is a line with the text to search
+	 * for and the replacement name separated by a tab; blank lines and lines starting with '#' are ignored.
+	 * @param resourceName Name of the class path resource containing the rules
+	 * @return NameNormalizer for the rules in the resource
+	 * @throws IllegalStateException Thrown if the resource can not be found or read or contains a malformed rule
+	 */
+	public static NameNormalizer fromResource(String resourceName) {
+		InputStream rulesStream = NameNormalizer.class.getClassLoader().getResourceAsStream(resourceName);
+		if (rulesStream == null) {
+			throw new IllegalStateException("Unable to find name normalization rules resource " + resourceName);
+		}
+
+		Map<String, String> textToReplacement = new LinkedHashMap<>();
+		try (BufferedReader rulesReader =
+				 new BufferedReader(new InputStreamReader(rulesStream, StandardCharsets.UTF_8))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = rulesReader.readLine()) != null) {
+				lineNumber++;
+				if (line.trim().isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+
+				String[] rule = line.split("\t");
+				if (rule.length != 2 || rule[0].isEmpty()) {
+					throw new IllegalStateException(
+						"Malformed name normalization rule on line " + lineNumber + " of " + resourceName + ": " + line
+					);
+				}
+				textToReplacement.put(rule[0], rule[1]);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read name normalization rules resource " + resourceName, e);
+		}
+
+		return new NameNormalizer(textToReplacement);
+	}
+
+	/**
+	 * Returns the standardized name for a name
+	 * @param name Name to normalize
+	 * @return Replacement name of the applicable rule if the name contains the text of any rule or the name passed,
+	 * otherwise
+	 */
+	public String normalize(String name) {
+		int bestRule = NO_RULE;
+		int state = ROOT;
+		for (int i = 0; i < name.length(); i++) {
+			state = nextState(state, name.charAt(i));
+			bestRule = Math.max(bestRule, bestRuleAtState[state]);
+		}
+
+		return bestRule == NO_RULE ? name : replacements.get(bestRule);
+	}
+
+	/**
+	 * Retrieves the number of rules
+	 * @return Number of rules
+	 */
+	public int getNumberOfRules() {
+		return this.replacements.size();
+	}
+
+	private int nextState(int state, char character) {
+		while (true) {
+			Integer nextState = transitions.get(state).get(character);
+			if (nextState != null) {
+				return nextState;
+			}
+			if (state == ROOT) {
+				return ROOT;
+			}
+			state = failureStates[state];
+		}
+	}
+
+	/**
+	 * Computes, breadth first, the failure state of each state (the state of the longest proper suffix of its text
+	 * which is also a prefix of a rule's text) and merges the best rule found through failure states into each state
+	 */
+	private void computeFailureStates() {
+		Deque<Integer> states = new ArrayDeque<>();
+		for (int childState : transitions.get(ROOT).values()) {
+			failureStates[childState] = ROOT;
+			states.add(childState);
+		}
+
+		while (!states.isEmpty()) {
+			int state = states.poll();
+			for (Map.Entry<Character, Integer> transition : transitions.get(state).entrySet()) {
+				int childState = transition.getValue();
+				int failureState = nextState(failureStates[state], transition.getKey());
+				failureStates[childState] = failureState;
+				bestRuleAtState[childState] = Math.max(bestRuleAtState[childState], bestRuleAtState[failureState]);
+				states.add(childState);
+			}
+		}
+	}
+}
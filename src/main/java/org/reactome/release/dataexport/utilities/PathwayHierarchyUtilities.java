@@ -2,9 +2,10 @@ package org.reactome.release.dataexport.utilities;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.neo4j.driver.Record;
 import org.neo4j.driver.Session;
-import org.neo4j.driver.Result;
+import org.reactome.release.dataexport.monitoring.IndexBuildEvent;
+import org.reactome.release.dataexport.queries.ExportQuery;
+import org.reactome.release.dataexport.queries.GraphQueryExecutor;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -18,6 +19,12 @@ import java.util.stream.Collectors;
 public class PathwayHierarchyUtilities {
 	private static final Logger logger = LogManager.getLogger("mainLog");
 
+	private static final int RLE_ID_COLUMN = ExportQuery.RLE_TO_PATHWAY.getColumn("rle.dbId");
+	private static final int RLE_PATHWAY_ID_COLUMN = ExportQuery.RLE_TO_PATHWAY.getColumn("p.dbId");
+	private static final int PATHWAY_ID_COLUMN = ExportQuery.PATHWAY_HIERARCHY.getColumn("p.dbId");
+	private static final int PARENT_PATHWAY_ID_COLUMN = ExportQuery.PATHWAY_HIERARCHY.getColumn("pp.dbId");
+	private static final int TOP_LEVEL_PATHWAY_ID_COLUMN = ExportQuery.TOP_LEVEL_PATHWAYS.getColumn("p.dbId");
+
 	private static Map<Session, Map<Long, Set<Long>>> rleToPathwayIdCache = new HashMap<>();
 	private static Map<Session, Map<Long, Set<Long>>> pathwayHierarchyCache = new HashMap<>();
 	private static Map<Session, Set<Long>> topLevelPathwayIdsCache = new HashMap<>();
@@ -40,24 +47,16 @@ public class PathwayHierarchyUtilities {
 
 		logger.info("Computing RLE id to Pathway id");
 
-		Result result = graphDBSession.run(
-			String.join(System.lineSeparator(),
-				"MATCH (rle:ReactionLikeEvent)<-[:hasEvent*]-(p:Pathway)",
-				"RETURN DISTINCT rle.dbId, p.dbId"
+		IndexBuildEvent indexBuildEvent = IndexBuildEvent.start("RLE id to Pathway id");
+		LongPairBuffer rleIdAndPathwayIds = new LongPairBuffer();
+		GraphQueryExecutor.forEachRecord(graphDBSession, ExportQuery.RLE_TO_PATHWAY,
+			record -> rleIdAndPathwayIds.add(
+				record.get(RLE_ID_COLUMN).asLong(),
+				record.get(RLE_PATHWAY_ID_COLUMN).asLong()
 			)
 		);
-
-		Map<Long, Set<Long>> rleToPathwayId = new HashMap<>();
-		while (result.hasNext()) {
-			Record record = result.next();
-
-			long reactionLikeEventId = record.get("rle.dbId").asLong();
-			long pathwayId = record.get("p.dbId").asLong();
-
-			rleToPathwayId
-				.computeIfAbsent(reactionLikeEventId, k -> new HashSet<>())
-				.add(pathwayId);
-		}
+		Map<Long, Set<Long>> rleToPathwayId = groupByFirst(rleIdAndPathwayIds);
+		indexBuildEvent.finish(rleToPathwayId.size());
 
 		rleToPathwayIdCache.put(graphDBSession, rleToPathwayId);
 
@@ -85,23 +84,16 @@ public class PathwayHierarchyUtilities {
 
 		logger.info("Computing Pathway Hierarchy");
 
-		Result result = graphDBSession.run(
-			String.join(System.lineSeparator(),
-				"MATCH (p:Pathway)<-[:hasEvent]-(pp:Pathway)",
-				"RETURN DISTINCT p.dbId, pp.dbId"
+		IndexBuildEvent indexBuildEvent = IndexBuildEvent.start("Pathway Hierarchy");
+		LongPairBuffer pathwayAndParentPathwayIds = new LongPairBuffer();
+		GraphQueryExecutor.forEachRecord(graphDBSession, ExportQuery.PATHWAY_HIERARCHY,
+			record -> pathwayAndParentPathwayIds.add(
+				record.get(PATHWAY_ID_COLUMN).asLong(),
+				record.get(PARENT_PATHWAY_ID_COLUMN).asLong()
 			)
 		);
-
-		Map<Long, Set<Long>> pathwayHierarchy = new HashMap<>();
-		while (result.hasNext()) {
-			Record record = result.next();
-
-			long pathwayId = record.get("p.dbId").asLong();
-			long parentPathwayId = record.get("pp.dbId").asLong();
-
-			Set<Long> parentPathwayIds = pathwayHierarchy.computeIfAbsent(pathwayId, k -> new HashSet<>());
-			parentPathwayIds.add(parentPathwayId);
-		}
+		Map<Long, Set<Long>> pathwayHierarchy = groupByFirst(pathwayAndParentPathwayIds);
+		indexBuildEvent.finish(pathwayHierarchy.size());
 
 		pathwayHierarchyCache.put(graphDBSession, pathwayHierarchy);
 
@@ -110,6 +102,14 @@ public class PathwayHierarchyUtilities {
 		return pathwayHierarchy;
 	}
 
+	/**
+	 * Groups the pairs of an index into a map of each first value to the set of second values with which it was
+	 * paired: a compact primitive map when exporting within a memory budget and a HashMap of HashSets otherwise
+	 */
+	private static Map<Long, Set<Long>> groupByFirst(LongPairBuffer pairs) {
+		return MemoryBudget.isEnabled() ? CompactLongSetMap.groupByFirst(pairs) : pairs.groupByFirst();
+	}
+
 	/**
 	 * Retrieves, from the graph database, the Set of Pathway database identifiers that
 	 * are marked with the label TopLevelPathway
@@ -123,15 +123,10 @@ public class PathwayHierarchyUtilities {
 
 		logger.info("Computing Top Level Pathway ids");
 
-		Set<Long> topLevelPathwayIds = graphDBSession.run(
-			String.join(System.lineSeparator(),
-				"MATCH (p:TopLevelPathway)",
-				"RETURN p.dbId"
-			)
-		)
-		.stream()
-		.map(record -> record.get("p.dbId").asLong())
-		.collect(Collectors.toSet());
+		Set<Long> topLevelPathwayIds = new HashSet<>();
+		GraphQueryExecutor.forEachRecord(graphDBSession, ExportQuery.TOP_LEVEL_PATHWAYS,
+			record -> topLevelPathwayIds.add(record.get(TOP_LEVEL_PATHWAY_ID_COLUMN).asLong())
+		);
 
 		topLevelPathwayIdsCache.put(graphDBSession, topLevelPathwayIds);
 
@@ -0,0 +1,139 @@
+package org.reactome.release.dataexport.utilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.writeWithNewLine;
+
+/**
+ * K-way merge of text files whose lines are sorted by key, where the key of a line is its text before the first tab
+ * (or the whole line if it has no tab).  The files are read a line at a time, so only one line per file, and the
+ * distinct lines of the key being merged, are held in memory.  Lines with equal keys are written in the order of the
+ * files and a line repeated for the same key (e.g. by two files) is only written once.
+ */
+public class SortedLineMerger {
+	private SortedLineMerger() {}
+
+	/**
+	 * Merges the sorted files, writing their lines unchanged
+	 * @param sortedFilePaths Paths of the files to merge, each sorted by key
+	 * @param writer Writer to which to write the merged lines
+	 * @return Number of lines written
+	 * @throws IOException Thrown if unable to read a file or write to the writer
+	 * @throws IllegalStateException Thrown if a file is not sorted by key
+	 */
+	public static long merge(List<Path> sortedFilePaths, Writer writer) throws IOException {
+		return merge(sortedFilePaths, writer, UnaryOperator.identity());
+	}
+
+	/**
+	 * Merges the sorted files, transforming each line before it is written (e.g. to remove a key only used to sort)
+	 * @param sortedFilePaths Paths of the files to merge, each sorted by key
+	 * @param writer Writer to which to write the merged lines
+	 * @param lineTransformer Function applied to each line to write
+	 * @return Number of lines written
+	 * @throws IOException Thrown if unable to read a file or write to the writer
+	 * @throws IllegalStateException Thrown if a file is not sorted by key
+	 */
+	public static long merge(List<Path> sortedFilePaths, Writer writer, UnaryOperator<String> lineTransformer)
+		throws IOException {
+
+		List<BufferedReader> readers = new ArrayList<>();
+		try {
+			PriorityQueue<FileHead> fileHeads = new PriorityQueue<>();
+			for (Path sortedFilePath : sortedFilePaths) {
+				BufferedReader reader = Files.newBufferedReader(sortedFilePath, StandardCharsets.UTF_8);
+				readers.add(reader);
+				FileHead fileHead = new FileHead(sortedFilePath, readers.size() - 1, reader);
+				if (fileHead.advance()) {
+					fileHeads.add(fileHead);
+				}
+			}
+
+			long linesWritten = 0;
+			String currentKey = null;
+			Set<String> currentKeyLines = new HashSet<>();
+			while (!fileHeads.isEmpty()) {
+				FileHead fileHead = fileHeads.poll();
+				if (!fileHead.key.equals(currentKey)) {
+					currentKey = fileHead.key;
+					currentKeyLines.clear();
+				}
+				if (currentKeyLines.add(fileHead.line)) {
+					writeWithNewLine(lineTransformer.apply(fileHead.line), writer);
+					linesWritten++;
+				}
+
+				if (fileHead.advance()) {
+					fileHeads.add(fileHead);
+				}
+			}
+			return linesWritten;
+		} finally {
+			for (BufferedReader reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the key by which a line is sorted
+	 * @param line Line of a sorted file
+	 * @return Text of the line before the first tab or the whole line if it has no tab
+	 */
+	public static String getKey(String line) {
+		int tabIndex = line.indexOf('\t');
+		return tabIndex == -1 ? line : line.substring(0, tabIndex);
+	}
+
+	/**
+	 * Current line of a file being merged
+	 */
+	private static class FileHead implements Comparable<FileHead> {
+		private final Path filePath;
+		private final int fileIndex;
+		private final BufferedReader reader;
+		private String line;
+		private String key;
+
+		private FileHead(Path filePath, int fileIndex, BufferedReader reader) {
+			this.filePath = filePath;
+			this.fileIndex = fileIndex;
+			this.reader = reader;
+		}
+
+		/**
+		 * Reads the next line of the file
+		 * @return <code>true</code> if a line was read; <code>false</code> if the end of the file was reached
+		 * @throws IOException Thrown if unable to read the file
+		 * @throws IllegalStateException Thrown if the key of the line read is less than the key of the previous line
+		 */
+		private boolean advance() throws IOException {
+			String previousKey = this.key;
+			this.line = this.reader.readLine();
+			if (this.line == null) {
+				return false;
+			}
+
+			this.key = getKey(this.line);
+			if (previousKey != null && this.key.compareTo(previousKey) < 0) {
+				throw new IllegalStateException(
+					this.filePath + " is not sorted: key " + this.key + " follows key " + previousKey
+				);
+			}
+			return true;
+		}
+
+		@Override
+		public int compareTo(FileHead other) {
+			int keyComparison = this.key.compareTo(other.key);
+			return keyComparison != 0 ? keyComparison : Integer.compare(this.fileIndex, other.fileIndex);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package org.reactome.release.dataexport.archive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExportArchiveTest {
+	private final String FILE_CONTENT = "UniProt ID\tGene id" + System.lineSeparator() + "P04637\t7157";
+
+	@TempDir
+	Path outputDirectory;
+
+	@AfterEach
+	public void disableArchiving() {
+		ExportArchive.configure(new Properties());
+	}
+
+	@Test
+	public void exportFileIsWrittenWithGzipArchiveCopyAndManifest() throws IOException {
+		ExportArchive.configure(getArchiveProperties("gzip"));
+
+		Path filePath = writeExportFile("proteins_version80");
+		Path manifestPath = ExportArchive.writeManifest();
+
+		Path archiveFilePath = outputDirectory.resolve("archive80").resolve("proteins_version80.gz");
+		assertThat(new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8), is(equalTo(FILE_CONTENT)));
+		try (InputStream archiveInputStream = new GZIPInputStream(Files.newInputStream(archiveFilePath))) {
+			assertThat(readFully(archiveInputStream), is(equalTo(FILE_CONTENT)));
+		}
+
+		List<String> manifestLines = Files.readAllLines(manifestPath, StandardCharsets.UTF_8);
+		assertThat(manifestLines.get(1), is(equalTo(String.join("\t",
+			"proteins_version80", "proteins_version80.gz", "gzip",
+			Long.toString(Files.size(filePath)), Long.toString(Files.size(archiveFilePath))
+		))));
+	}
+
+	@Test
+	public void manifestKeepsEntriesOfFilesArchivedByEarlierRuns() throws IOException {
+		ExportArchive.configure(getArchiveProperties("gzip"));
+		writeExportFile("ucsc_entity80");
+		ExportArchive.writeManifest();
+
+		// A new run only archives the files of the stages it runs
+		ExportArchive.configure(getArchiveProperties("gzip"));
+		writeExportFile("ucsc_events80");
+		Path manifestPath = ExportArchive.writeManifest();
+
+		List<String> manifestLines = Files.readAllLines(manifestPath, StandardCharsets.UTF_8);
+		assertThat(manifestLines.size(), is(equalTo(3)));
+		assertThat(manifestLines.get(1).split("\t")[0], is(equalTo("ucsc_entity80")));
+		assertThat(manifestLines.get(2).split("\t")[0], is(equalTo("ucsc_events80")));
+	}
+
+	@Test
+	public void noArchiveCodecWritesOnlyTheExportFile() throws IOException {
+		ExportArchive.configure(getArchiveProperties("none"));
+		writeExportFile("ucsc_entity80");
+
+		try (Stream<Path> outputFiles = Files.list(outputDirectory)) {
+			assertThat(
+				outputFiles.map(filePath -> filePath.getFileName().toString()).collect(Collectors.toList()),
+				contains("ucsc_entity80")
+			);
+		}
+		assertThat(ExportArchive.writeManifest(), is(equalTo(null)));
+	}
+
+	@Test
+	public void failedExportFileWriteLeavesNoArchiveCopy() {
+		ExportArchive.configure(getArchiveProperties("gzip"));
+
+		assertThrows(IOException.class, () -> ExportManifest.writeFile(
+			outputDirectory.resolve("ucsc_entity80"), outputStream -> {
+				outputStream.write(FILE_CONTENT.getBytes(StandardCharsets.UTF_8));
+				throw new IOException("Unable to read partition file");
+			}
+		));
+
+		assertThat(outputDirectory.resolve("archive80").toFile().list(), is(equalTo(new String[0])));
+	}
+
+	@Test
+	public void unknownArchiveCodecThrowsIllegalArgumentException() {
+		assertThrows(IllegalArgumentException.class, () -> ExportArchive.configure(getArchiveProperties("bzip2")));
+	}
+
+	private Properties getArchiveProperties(String archiveCodec) {
+		Properties props = new Properties();
+		props.setProperty("outputDir", outputDirectory.toString());
+		props.setProperty("releaseNumber", "80");
+		props.setProperty("archiveCodec", archiveCodec);
+		props.setProperty("archiveBlockSize", "1024");
+		return props;
+	}
+
+	private Path writeExportFile(String fileName) throws IOException {
+		Path filePath = outputDirectory.resolve(fileName);
+		ExportManifest.writeFile(
+			filePath, outputStream -> outputStream.write(FILE_CONTENT.getBytes(StandardCharsets.UTF_8))
+		);
+		return filePath;
+	}
+
+	private String readFully(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int bytesRead;
+		while ((bytesRead = inputStream.read(buffer)) != -1) {
+			content.write(buffer, 0, bytesRead);
+		}
+		return new String(content.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
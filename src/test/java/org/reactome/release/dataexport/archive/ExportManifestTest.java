@@ -0,0 +1,94 @@
+package org.reactome.release.dataexport.archive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.reactome.release.dataexport.utilities.DataExportUtilities.sha256;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExportManifestTest {
+	private final String FILE_CONTENT = "query:\tP04637\t[pacc]" + System.lineSeparator();
+
+	@TempDir
+	Path outputDirectory;
+
+	@BeforeEach
+	public void configureExportManifest() {
+		Properties props = new Properties();
+		props.setProperty("outputDir", outputDirectory.toString());
+		props.setProperty("releaseNumber", "80");
+		ExportManifest.configure(props);
+	}
+
+	@Test
+	public void writtenFilesAreListedInManifestWithChecksumAndSize() throws IOException {
+		Path filePath = outputDirectory.resolve("protein_reactome80.ft");
+		ExportManifest.writeTextFile(filePath, writer -> writer.write(FILE_CONTENT));
+		ExportManifest.writeManifest();
+
+		Map<String, ExportManifest.Entry> fileNameToEntry = ExportManifest.readManifest(outputDirectory, 80);
+
+		assertThat(new ArrayList<>(fileNameToEntry.keySet()), contains("protein_reactome80.ft"));
+		ExportManifest.Entry entry = fileNameToEntry.get("protein_reactome80.ft");
+		assertThat(entry.getSize(), is(equalTo(Files.size(filePath))));
+		assertThat(entry.getSha256(), is(equalTo(sha256(filePath))));
+		assertThat(ExportManifest.getChecksum(filePath), is(equalTo(sha256(filePath))));
+	}
+
+	@Test
+	public void failedWriteLeavesExistingFileUnchanged() throws IOException {
+		Path filePath = outputDirectory.resolve("gene_reactome80-1.xml");
+		ExportManifest.writeTextFile(filePath, writer -> writer.write(FILE_CONTENT));
+
+		assertThrows(IOException.class, () -> ExportManifest.writeTextFile(filePath, writer -> {
+			writer.write("<LinkSet>");
+			throw new IOException("Unable to write Link XML");
+		}));
+
+		assertThat(new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8), is(equalTo(FILE_CONTENT)));
+		try (Stream<Path> outputFiles = Files.list(outputDirectory)) {
+			assertThat(
+				outputFiles.map(outputFile -> outputFile.getFileName().toString()).collect(Collectors.toList()),
+				contains("gene_reactome80-1.xml")
+			);
+		}
+	}
+
+	@Test
+	public void manifestKeepsEntriesOfUnchangedFilesWrittenByEarlierRuns() throws IOException {
+		ExportManifest.writeTextFile(outputDirectory.resolve("ucsc_entity80"), writer -> writer.write(FILE_CONTENT));
+		ExportManifest.writeTextFile(outputDirectory.resolve("ucsc_events80"), writer -> writer.write(FILE_CONTENT));
+		ExportManifest.writeManifest();
+
+		// A new run only writes the files of the stages it runs and a file of a skipped stage is changed
+		configureExportManifest();
+		ExportManifest.writeTextFile(outputDirectory.resolve("protein_reactome80.ft"), writer -> writer.write("x"));
+		Files.write(outputDirectory.resolve("ucsc_events80"), "changed".getBytes(StandardCharsets.UTF_8));
+		ExportManifest.writeManifest();
+
+		assertThat(
+			new ArrayList<>(ExportManifest.readManifest(outputDirectory, 80).keySet()),
+			contains("protein_reactome80.ft", "ucsc_entity80")
+		);
+	}
+
+	@Test
+	public void missingManifestIsReadAsNull() throws IOException {
+		assertThat(ExportManifest.readManifest(outputDirectory, 80), is(equalTo(null)));
+	}
+}
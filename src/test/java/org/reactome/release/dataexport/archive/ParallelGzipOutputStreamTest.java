@@ -0,0 +1,74 @@
+package org.reactome.release.dataexport.archive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ParallelGzipOutputStreamTest {
+	private ExecutorService compressionExecutor;
+
+	@BeforeEach
+	public void createCompressionExecutor() {
+		compressionExecutor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	public void shutDownCompressionExecutor() {
+		compressionExecutor.shutdownNow();
+	}
+
+	@Test
+	public void multipleBlocksDecompressToTheBytesWritten() throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			content.append("P").append(i % 997).append("\tR-HSA-").append(i).append("\tCell Cycle β").append('\n');
+		}
+		final byte[] CONTENT = content.toString().getBytes(StandardCharsets.UTF_8);
+
+		ByteArrayOutputStream compressedContent = new ByteArrayOutputStream();
+		try (ParallelGzipOutputStream gzipOutputStream =
+			new ParallelGzipOutputStream(compressedContent, compressionExecutor, 32 * 1024, 6, 3)) {
+			// Writes of varying sizes straddle the block boundaries
+			for (int offset = 0, length = 1; offset < CONTENT.length; offset += length, length = length * 3 % 70001) {
+				gzipOutputStream.write(CONTENT, offset, Math.min(length, CONTENT.length - offset));
+			}
+		}
+
+		assertThat(decompress(compressedContent.toByteArray()), is(equalTo(CONTENT)));
+		assertThat(compressedContent.size(), is(lessThan(CONTENT.length / 4)));
+	}
+
+	@Test
+	public void emptyStreamIsAValidGzipStream() throws IOException {
+		ByteArrayOutputStream compressedContent = new ByteArrayOutputStream();
+		new ParallelGzipOutputStream(compressedContent, compressionExecutor, 1024, 6, 2).close();
+
+		assertThat(decompress(compressedContent.toByteArray()).length, is(equalTo(0)));
+	}
+
+	private byte[] decompress(byte[] compressedContent) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try (InputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(compressedContent))) {
+			byte[] buffer = new byte[8192];
+			int bytesRead;
+			while ((bytesRead = gzipInputStream.read(buffer)) != -1) {
+				content.write(buffer, 0, bytesRead);
+			}
+		}
+		return content.toByteArray();
+	}
+}
@@ -0,0 +1,99 @@
+package org.reactome.release.dataexport.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.internal.InternalRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reactome.release.dataexport.queries.ExportQuery;
+import org.reactome.release.dataexport.utilities.LongPairBuffer;
+
+/**
+ * Compares decoding the rows of the "RLE id to Pathway id" query by column name (record.get("rle.dbId")) into a map
+ * of boxed values with decoding them by declared column index into a LongPairBuffer.
+ *
+ * The benchmark is not run by the build; run its main method on the test classpath (e.g. from an IDE).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordDecodingBenchmark {
+	private static final int RLE_COLUMN = ExportQuery.RLE_TO_PATHWAY.getColumn("rle.dbId");
+	private static final int PATHWAY_COLUMN = ExportQuery.RLE_TO_PATHWAY.getColumn("p.dbId");
+
+	@Param({"100000", "1000000"})
+	private int numberOfRecords;
+
+	private List<Record> records;
+
+	@Setup
+	public void createRecords() {
+		List<String> columns = ExportQuery.RLE_TO_PATHWAY.getColumns();
+
+		records = new ArrayList<>(numberOfRecords);
+		for (int i = 0; i < numberOfRecords; i++) {
+			long rleDbId = i / 4;
+			long pathwayDbId = 1_000_000L + (i % 4) * 1000 + (i % 997);
+			records.add(new InternalRecord(columns, new Value[] {Values.value(rleDbId), Values.value(pathwayDbId)}));
+		}
+	}
+
+	@Benchmark
+	public Map<Long, Set<Long>> decodeByColumnName() {
+		Map<Long, Set<Long>> rleToPathwayIds = new HashMap<>();
+		for (Record record : records) {
+			long rleDbId = record.get("rle.dbId").asLong();
+			long pathwayDbId = record.get("p.dbId").asLong();
+			rleToPathwayIds.computeIfAbsent(rleDbId, k -> new HashSet<>()).add(pathwayDbId);
+		}
+		return rleToPathwayIds;
+	}
+
+	@Benchmark
+	public Map<Long, Set<Long>> decodeByColumnIndex() {
+		LongPairBuffer rleToPathwayIds = new LongPairBuffer();
+		for (Record record : records) {
+			rleToPathwayIds.add(record.get(RLE_COLUMN).asLong(), record.get(PATHWAY_COLUMN).asLong());
+		}
+		return rleToPathwayIds.groupByFirst();
+	}
+
+	@Benchmark
+	public LongPairBuffer decodeByColumnIndexWithoutGrouping() {
+		LongPairBuffer rleToPathwayIds = new LongPairBuffer();
+		for (Record record : records) {
+			rleToPathwayIds.add(record.get(RLE_COLUMN).asLong(), record.get(PATHWAY_COLUMN).asLong());
+		}
+		return rleToPathwayIds;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(
+			new OptionsBuilder().include(RecordDecodingBenchmark.class.getSimpleName()).build()
+		).run();
+	}
+}
@@ -0,0 +1,98 @@
+package org.reactome.release.dataexport.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reactome.release.dataexport.datastructures.UniProtReactomeEntry;
+import org.reactome.release.dataexport.datastructures.UniProtReactomeEntryRegistry;
+
+/**
+ * Measures the throughput of looking up UniProt entries from several threads at once in the concurrent
+ * UniProtReactomeEntryRegistry compared with a HashMap guarded by a single lock, and the time to intern a whole
+ * query column with UniProtReactomeEntryRegistry.internAll.
+ *
+ * The benchmark is not run by the build; run its main method on the test classpath (e.g. from an IDE).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class UniProtReactomeEntryRegistryBenchmark {
+	@Param({"100000"})
+	private int numberOfEntries;
+
+	private long[] dbIds;
+	private String[] accessions;
+	private String[] displayNames;
+
+	private UniProtReactomeEntryRegistry registry;
+	private Map<Long, UniProtReactomeEntry> lockedMap;
+
+	@Setup
+	public void createEntries() {
+		dbIds = new long[numberOfEntries];
+		accessions = new String[numberOfEntries];
+		displayNames = new String[numberOfEntries];
+		for (int i = 0; i < numberOfEntries; i++) {
+			dbIds[i] = i;
+			accessions[i] = String.format("P%05d", i);
+			displayNames[i] = "UniProt:" + accessions[i];
+		}
+
+		registry = new UniProtReactomeEntryRegistry();
+		UniProtReactomeEntry[] uniProtReactomeEntries = registry.internAll(dbIds, accessions, displayNames);
+
+		lockedMap = new HashMap<>();
+		for (UniProtReactomeEntry uniProtReactomeEntry : uniProtReactomeEntries) {
+			lockedMap.put(uniProtReactomeEntry.getDbId(), uniProtReactomeEntry);
+		}
+	}
+
+	@Benchmark
+	public UniProtReactomeEntry getFromRegistry() {
+		int i = ThreadLocalRandom.current().nextInt(numberOfEntries);
+		return registry.get(dbIds[i], accessions[i], displayNames[i]);
+	}
+
+	@Benchmark
+	public UniProtReactomeEntry getFromLockedHashMap() {
+		int i = ThreadLocalRandom.current().nextInt(numberOfEntries);
+		synchronized (lockedMap) {
+			return lockedMap.get(dbIds[i]);
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public UniProtReactomeEntry[] internColumnIntoNewRegistry() {
+		return new UniProtReactomeEntryRegistry().internAll(dbIds, accessions, displayNames);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(
+			new OptionsBuilder().include(UniProtReactomeEntryRegistryBenchmark.class.getSimpleName()).build()
+		).run();
+	}
+}
@@ -5,6 +5,9 @@ import org.reactome.release.dataexport.datastructures.NCBIEntry;
 import org.reactome.release.dataexport.datastructures.ReactomeEvent;
 import org.reactome.release.dataexport.testutils.DummyGraphDBServer;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -27,6 +30,20 @@ public class NCBIEntryTest {
 		entry2 = NCBIEntryTestFixture.createNCBIEntry(SECOND_UNIPROT_ACCESSION, SECOND_DUMMY_SET_OF_NCBI_IDS);
 	}
 
+	@Test
+	public void ncbiGeneIdsAreCopiedAndUnmodifiable() {
+		final String NCBI_GENE_ID = "5";
+
+		Set<String> ncbiGeneIds = new HashSet<>(Collections.singletonList(NCBI_GENE_ID));
+		NCBIEntry ncbiEntry = NCBIEntryTestFixture.createNCBIEntry("Q67890", ncbiGeneIds);
+		int originalHashCode = ncbiEntry.hashCode();
+		ncbiGeneIds.add("6");
+
+		assertThat(ncbiEntry.getNcbiGeneIds(), contains(NCBI_GENE_ID));
+		assertThat(ncbiEntry.hashCode(), is(equalTo(originalHashCode)));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> ncbiEntry.getNcbiGeneIds().add("7"));
+	}
+
 	@Test
 	public void noNCBIEntriesForEmptyDatabase() {
 		DummyGraphDBServer dummyGraphDBServer = DummyGraphDBServer.getInstance();
@@ -106,6 +123,24 @@ public class NCBIEntryTest {
 		}
 	}
 
+	@Test
+	public void writtenEventLinkXMLMatchesEventLinkXMLAndSize() throws IOException {
+		final String NCBI_GENE_ID = "12345";
+		final long LINK_ID = 42L;
+		final ReactomeEvent EVENT_WITH_MARKUP = new ReactomeEvent(getNextDBID(), "RAF & <MAP> kinase", "R-HSA-5673001");
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		entry1.writeEventLinkXML(NCBI_GENE_ID, EVENT_WITH_MARKUP, LINK_ID, outputStream);
+
+		String eventLinkXML = entry1.getEventLinkXML(NCBI_GENE_ID, EVENT_WITH_MARKUP, LINK_ID);
+		assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), is(equalTo(eventLinkXML)));
+		assertThat(eventLinkXML, containsString("<UrlName>Reactome Event:RAF &amp; &lt;MAP&gt; kinase</UrlName>"));
+		assertThat(
+			(long) outputStream.size(),
+			is(equalTo(entry1.getEventLinkXMLSize(NCBI_GENE_ID, EVENT_WITH_MARKUP, LINK_ID)))
+		);
+	}
+
 	private static class NCBIEntryTestFixture {
 		private NCBIEntry entry;
 
@@ -4,10 +4,13 @@ import org.junit.jupiter.api.Test;
 import org.reactome.release.dataexport.datastructures.ReactomeEvent;
 import org.reactome.release.dataexport.testutils.DummyGraphDBServer;
 
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Properties;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class ReactomeEventTest {
 
@@ -42,6 +45,54 @@ public class ReactomeEventTest {
 		assertThat(reactomeEventCache, hasEntry(EVENT_DB_ID, expectedEvent));
 	}
 
+	@Test
+	public void loadsOnlyRequestedReachableEventsFromDummyGraphDB() {
+		final long EVENT_DB_ID = 69563L;
+		final long NON_EVENT_DB_ID = -1L;
+
+		DummyGraphDBServer dummyGraphDBServer = DummyGraphDBServer.getInstance();
+		dummyGraphDBServer.initializeNeo4j();
+		dummyGraphDBServer.populateDummyGraphDB();
+
+		Properties props = new Properties();
+		props.setProperty("eventLoading", "reachable");
+		props.setProperty("eventBatchSize", "1");
+		ReactomeEvent.configure(props);
+
+		Map<Long, ReactomeEvent> reactomeEvents = ReactomeEvent.fetchReactomeEvents(
+			Arrays.asList(EVENT_DB_ID, NON_EVENT_DB_ID), dummyGraphDBServer.getSession()
+		);
+
+		assertThat(reactomeEvents, is(aMapWithSize(1)));
+		assertThat(reactomeEvents, hasEntry(
+			EVENT_DB_ID, new ReactomeEvent(EVENT_DB_ID, "p53-Dependent G1 DNA Damage Response", "R-HSA-69563")
+		));
+	}
+
+	@Test
+	public void lazyEventsOfReleasedSessionAreNotHeld() {
+		DummyGraphDBServer dummyGraphDBServer = DummyGraphDBServer.getInstance();
+		dummyGraphDBServer.initializeNeo4j();
+
+		LazyEventResolver lazyEventResolver = LazyEventResolver.getInstance(dummyGraphDBServer.getSession());
+		assertThat(LazyEventResolver.getInstance(dummyGraphDBServer.getSession()), is(sameInstance(lazyEventResolver)));
+
+		ReactomeEvent.releaseLazyEvents(dummyGraphDBServer.getSession());
+
+		assertThat(
+			LazyEventResolver.getInstance(dummyGraphDBServer.getSession()), is(not(sameInstance(lazyEventResolver)))
+		);
+		ReactomeEvent.releaseLazyEvents(dummyGraphDBServer.getSession());
+	}
+
+	@Test
+	public void unknownEventLoadingThrowsIllegalArgumentException() {
+		Properties props = new Properties();
+		props.setProperty("eventLoading", "some");
+
+		assertThrows(IllegalArgumentException.class, () -> ReactomeEvent.configure(props));
+	}
+
 	@Test
 	public void reactomeEventNameCorrection() {
 		final long DUMMY_DB_ID = 1L;
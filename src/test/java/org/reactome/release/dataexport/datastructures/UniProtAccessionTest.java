@@ -0,0 +1,81 @@
+package org.reactome.release.dataexport.datastructures;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class UniProtAccessionTest {
+
+	@Test
+	public void canonicalAccessionsAreValid() {
+		for (String accession : Arrays.asList("P04637", "O75916", "Q9Y6K9", "A0A024RBG1", "A2BC19")) {
+			assertThat(accession, UniProtAccession.isValidCanonical(accession), is(equalTo(true)));
+			assertThat(accession, UniProtAccession.isValidIsoform(accession), is(equalTo(false)));
+		}
+	}
+
+	@Test
+	public void isoformAccessionsAreValid() {
+		for (String accession : Arrays.asList("P04637-1", "O75916-3", "A0A024RBG1-12")) {
+			assertThat(accession, UniProtAccession.isValidIsoform(accession), is(equalTo(true)));
+			assertThat(accession, UniProtAccession.isValidCanonical(accession), is(equalTo(false)));
+		}
+	}
+
+	@Test
+	public void illegalAccessionsAreInvalid() {
+		// Too short, lower case, 10 characters starting with O/P/Q, missing isoform number, letter in isoform number
+		for (String accession : Arrays.asList("P0463", "p04637", "P0A024RBG1", "P04637-", "P04637-1A", "P04637X")) {
+			assertThat(accession, UniProtAccession.isValid(accession), is(equalTo(false)));
+		}
+		assertThat(UniProtAccession.isValid(null), is(equalTo(false)));
+	}
+
+	@Test
+	public void packedAccessionUnpacksToSameAccession() {
+		for (String accession : Arrays.asList("P04637", "P04637-10", "A0A024RBG1", "A0A024RBG1-2")) {
+			long accessionKey = UniProtAccession.getAccessionKey(accession);
+			long isoformKey = UniProtAccession.getIsoformKey(accession);
+
+			assertThat(UniProtAccession.toAccession(accessionKey, isoformKey), is(equalTo(accession)));
+		}
+	}
+
+	@Test
+	public void isoformsShareAccessionKeyOfCanonicalAccession() {
+		assertThat(
+			UniProtAccession.getAccessionKey("P04637-2"),
+			is(equalTo(UniProtAccession.getAccessionKey("P04637")))
+		);
+		assertThat(UniProtAccession.getIsoformKey("P04637"), is(equalTo(0L)));
+	}
+
+	@Test
+	public void packedKeysSortInSameOrderAsAccessionStrings() {
+		List<String> accessions = new ArrayList<>(Arrays.asList(
+			"P12345-2", "A0A024RBG1", "P12345-10", "P12345", "A0A024-1", "Q00001", "A0A024", "P12345-1"
+		));
+
+		accessions.sort((accession1, accession2) -> UniProtAccession.compare(
+			UniProtAccession.getAccessionKey(accession1), UniProtAccession.getIsoformKey(accession1),
+			UniProtAccession.getAccessionKey(accession2), UniProtAccession.getIsoformKey(accession2)
+		));
+
+		assertThat(accessions, contains(
+			"A0A024", "A0A024-1", "A0A024RBG1", "P12345", "P12345-1", "P12345-10", "P12345-2", "Q00001"
+		));
+	}
+
+	@Test
+	public void packingIllegalAccessionThrowsIllegalArgumentException() {
+		assertThrows(IllegalArgumentException.class, () -> UniProtAccession.getAccessionKey("not an accession"));
+	}
+}
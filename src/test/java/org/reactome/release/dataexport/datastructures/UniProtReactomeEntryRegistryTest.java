@@ -0,0 +1,130 @@
+package org.reactome.release.dataexport.datastructures;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class UniProtReactomeEntryRegistryTest {
+	private final long DUMMY_UNIPROT_DB_ID = 69487L;
+	private final String DUMMY_UNIPROT_ACCESSION = "P04637";
+	private final String DUMMY_UNIPROT_DISPLAY_NAME = "UniProt:P04637 TP53";
+
+	private UniProtReactomeEntryRegistry registry;
+
+	@BeforeEach
+	public void createRegistry() {
+		registry = new UniProtReactomeEntryRegistry();
+	}
+
+	@Test
+	public void sameDbIdReturnsSameEntry() {
+		UniProtReactomeEntry uniProtReactomeEntry =
+			registry.get(DUMMY_UNIPROT_DB_ID, DUMMY_UNIPROT_ACCESSION, DUMMY_UNIPROT_DISPLAY_NAME);
+
+		assertThat(
+			registry.get(DUMMY_UNIPROT_DB_ID, DUMMY_UNIPROT_ACCESSION, DUMMY_UNIPROT_DISPLAY_NAME),
+			is(sameInstance(uniProtReactomeEntry))
+		);
+		assertThat(registry.size(), is(equalTo(1)));
+	}
+
+	@Test
+	public void mismatchedAccessionThrowsIllegalArgumentException() {
+		registry.get(DUMMY_UNIPROT_DB_ID, DUMMY_UNIPROT_ACCESSION, DUMMY_UNIPROT_DISPLAY_NAME);
+
+		assertThrows(IllegalArgumentException.class,
+			() -> registry.get(DUMMY_UNIPROT_DB_ID, "Q54321", DUMMY_UNIPROT_DISPLAY_NAME)
+		);
+	}
+
+	@Test
+	public void mismatchedDisplayNameThrowsIllegalArgumentException() {
+		registry.get(DUMMY_UNIPROT_DB_ID, DUMMY_UNIPROT_ACCESSION, DUMMY_UNIPROT_DISPLAY_NAME);
+
+		assertThrows(IllegalArgumentException.class,
+			() -> registry.get(DUMMY_UNIPROT_DB_ID, DUMMY_UNIPROT_ACCESSION, "UniProt:P04637 OTHER")
+		);
+	}
+
+	@Test
+	public void internAllReturnsCanonicalEntriesInColumnOrder() {
+		final int NUMBER_OF_ROWS = 20000;
+		final int NUMBER_OF_DISTINCT_ENTRIES = 1000;
+
+		long[] dbIds = new long[NUMBER_OF_ROWS];
+		String[] accessions = new String[NUMBER_OF_ROWS];
+		String[] displayNames = new String[NUMBER_OF_ROWS];
+		for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+			int entryNumber = row % NUMBER_OF_DISTINCT_ENTRIES;
+			dbIds[row] = entryNumber;
+			accessions[row] = String.format("P%05d", entryNumber);
+			displayNames[row] = "UniProt:" + accessions[row];
+		}
+
+		UniProtReactomeEntry[] uniProtReactomeEntries = registry.internAll(dbIds, accessions, displayNames);
+
+		assertThat(registry.size(), is(equalTo(NUMBER_OF_DISTINCT_ENTRIES)));
+		for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+			assertThat(uniProtReactomeEntries[row].getAccession(), is(equalTo(accessions[row])));
+			assertThat(
+				uniProtReactomeEntries[row],
+				is(sameInstance(uniProtReactomeEntries[row % NUMBER_OF_DISTINCT_ENTRIES]))
+			);
+		}
+	}
+
+	@Test
+	public void internAllWithColumnsOfDifferentLengthsThrowsIllegalArgumentException() {
+		assertThrows(IllegalArgumentException.class,
+			() -> registry.internAll(new long[] {1L, 2L}, new String[] {"P04637"}, new String[] {"UniProt:P04637"})
+		);
+	}
+
+	@Test
+	public void concurrentGetsReturnSameEntry() throws Exception {
+		final int NUMBER_OF_THREADS = 8;
+
+		ExecutorService executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+		try {
+			List<Callable<UniProtReactomeEntry>> lookups = new ArrayList<>();
+			for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+				lookups.add(
+					() -> registry.get(DUMMY_UNIPROT_DB_ID, DUMMY_UNIPROT_ACCESSION, DUMMY_UNIPROT_DISPLAY_NAME)
+				);
+			}
+
+			List<Future<UniProtReactomeEntry>> results = executorService.invokeAll(lookups);
+			UniProtReactomeEntry firstEntry = results.get(0).get(10, TimeUnit.SECONDS);
+			for (Future<UniProtReactomeEntry> result : results) {
+				assertThat(result.get(10, TimeUnit.SECONDS), is(sameInstance(firstEntry)));
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	public void newRunHasNewCurrentRegistry() {
+		UniProtReactomeEntryRegistry previousRegistry = UniProtReactomeEntryRegistry.current();
+
+		UniProtReactomeEntryRegistry newRegistry = UniProtReactomeEntryRegistry.startNewRun();
+
+		assertThat(newRegistry, is(not(sameInstance(previousRegistry))));
+		assertThat(UniProtReactomeEntryRegistry.current(), is(sameInstance(newRegistry)));
+		assertThat(newRegistry.size(), is(equalTo(0)));
+	}
+}
@@ -64,6 +64,19 @@ public class UniProtReactomeEntryTest {
 		);
 	}
 
+	@Test
+	public void sameUniProtObjectIsStructurallyEqualWithSameHashCode() {
+		UniProtReactomeEntry sameUniProtReactomeEntry = UniProtReactomeEntry.get(
+			canonicalUniProtReactomeEntry.getDbId(),
+			canonicalUniProtReactomeEntry.getAccession(),
+			canonicalUniProtReactomeEntry.getDisplayName()
+		);
+
+		assertThat(canonicalUniProtReactomeEntry.structurallyEquals(sameUniProtReactomeEntry), is(equalTo(true)));
+		assertThat(canonicalUniProtReactomeEntry.structurallyEquals(isoformUniProtReactomeEntry), is(equalTo(false)));
+		assertThat(canonicalUniProtReactomeEntry.hashCode(), is(equalTo(sameUniProtReactomeEntry.hashCode())));
+	}
+
 	@Test
 	public void sortsByUniProtAccessionAscendingly() {
 		final String UNIPROT_ACCESSION_THAT_SHOULD_BE_FIRST = "A0A234";
@@ -173,6 +173,22 @@ public class NCBIFileUploaderTest {
 		);
 	}
 
+	@Test
+	public void uploadFilesToServerReturnsFalseWhenFilesDoNotMatchExportManifest()
+		throws IOException, URISyntaxException {
+
+		final List<String> mockFileNamesToUpload = getCurrentNCBIFilePathsInDummyLocalFilesOutputDirectory();
+
+		Mockito.doReturn(mockFileNamesToUpload).when(ncbiFileUploader).getLocalFileNamesToUpload();
+		Mockito.doReturn(false).when(ncbiFileUploader).filesToUploadMatchExportManifest(mockFileNamesToUpload);
+
+		assertThat(
+			ncbiFileUploader.uploadFilesToServer(),
+			is(equalTo(false))
+		);
+		Mockito.verify(ncbiFileUploader, Mockito.never()).uploadFileToServer(anyString());
+	}
+
 	@Test
 	public void uploadFilesToServerReturnsTrueWhenAllFilesAreUploaded() throws IOException, URISyntaxException {
 		final List<String> mockFileNamesToUpload = getCurrentNCBIFilePathsInDummyLocalFilesOutputDirectory();
@@ -0,0 +1,119 @@
+package org.reactome.release.dataexport.index;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.reactome.release.dataexport.testutils.DbIdGenerator.getNextDBID;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactome.release.dataexport.archive.ExportManifest;
+import org.reactome.release.dataexport.datastructures.ReactomeEvent;
+import org.reactome.release.dataexport.datastructures.UniProtReactomeEntry;
+
+public class UniProtEventIndexTest {
+	private final ReactomeEvent CELL_CYCLE = new ReactomeEvent(1640170L, "Cell Cycle", "R-HSA-1640170");
+	private final ReactomeEvent SIGNAL_TRANSDUCTION = new ReactomeEvent(162582L, "Signal Transduction", "R-HSA-162582");
+	private final ReactomeEvent REACTION = new ReactomeEvent(69620L, "Cell Cycle Checkpoints", "R-HSA-69620");
+	private final Set<Long> TOP_LEVEL_PATHWAY_IDS = new HashSet<>(Arrays.asList(1640170L, 162582L));
+
+	@TempDir
+	Path outputDirectory;
+
+	@BeforeEach
+	public void configureExportManifest() {
+		Properties props = new Properties();
+		props.setProperty("outputDir", outputDirectory.toString());
+		props.setProperty("releaseNumber", "80");
+		ExportManifest.configure(props);
+	}
+
+	@Test
+	public void writtenMappingsAreLookedUpByAccession() throws IOException {
+		Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniProtReactomeEntryToEvents = new HashMap<>();
+		UniProtReactomeEntry p04637 = UniProtReactomeEntry.get(getNextDBID(), "P04637", "UniProt:P04637 TP53");
+		uniProtReactomeEntryToEvents.put(p04637, new HashSet<>(Arrays.asList(REACTION, CELL_CYCLE)));
+		uniProtReactomeEntryToEvents.put(
+			UniProtReactomeEntry.get(getNextDBID(), "P04637-2", "UniProt:P04637-2 TP53"),
+			new HashSet<>(Arrays.asList(SIGNAL_TRANSDUCTION))
+		);
+		uniProtReactomeEntryToEvents.put(
+			UniProtReactomeEntry.get(getNextDBID(), "O75916", "UniProt:O75916 RGS9"), new HashSet<>()
+		);
+
+		UniProtEventIndex uniProtEventIndex = writeAndOpenIndex(uniProtReactomeEntryToEvents);
+
+		assertThat(uniProtEventIndex.getReleaseNumber(), is(equalTo(80)));
+		assertThat(uniProtEventIndex.size(), is(equalTo(3)));
+		assertThat(uniProtEventIndex.getEventIds("P04637"), is(equalTo(new long[] {69620L, 1640170L})));
+		assertThat(uniProtEventIndex.getTopLevelPathwayIds("P04637"), is(equalTo(new long[] {1640170L})));
+		assertThat(uniProtEventIndex.getTopLevelPathwayIds("P04637-2"), is(equalTo(new long[] {162582L})));
+		assertThat(uniProtEventIndex.getEventIds("O75916"), is(equalTo(new long[0])));
+		assertThat(uniProtEventIndex.contains("O75916"), is(equalTo(true)));
+		assertThat(
+			uniProtEventIndex.getUniProtDbId(uniProtEventIndex.indexOf("P04637")), is(equalTo(p04637.getDbId()))
+		);
+	}
+
+	@Test
+	public void entriesAreInAccessionOrder() throws IOException {
+		Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniProtReactomeEntryToEvents = new HashMap<>();
+		for (String accession : Arrays.asList("Q9Y6K9", "P04637-2", "A0A075B6P5", "P04637")) {
+			uniProtReactomeEntryToEvents.put(
+				UniProtReactomeEntry.get(getNextDBID(), accession, "UniProt:" + accession),
+				new HashSet<>(Arrays.asList(REACTION))
+			);
+		}
+
+		UniProtEventIndex uniProtEventIndex = writeAndOpenIndex(uniProtReactomeEntryToEvents);
+
+		String[] accessions = new String[uniProtEventIndex.size()];
+		for (int i = 0; i < accessions.length; i++) {
+			accessions[i] = uniProtEventIndex.getAccession(i);
+		}
+		assertThat(accessions, is(equalTo(new String[] {"A0A075B6P5", "P04637", "P04637-2", "Q9Y6K9"})));
+	}
+
+	@Test
+	public void missingOrInvalidAccessionsAreNotFound() throws IOException {
+		Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniProtReactomeEntryToEvents = new HashMap<>();
+		uniProtReactomeEntryToEvents.put(
+			UniProtReactomeEntry.get(getNextDBID(), "P04637", "UniProt:P04637 TP53"),
+			new HashSet<>(Arrays.asList(REACTION))
+		);
+
+		UniProtEventIndex uniProtEventIndex = writeAndOpenIndex(uniProtReactomeEntryToEvents);
+
+		assertThat(uniProtEventIndex.indexOf("Q9Y6K9"), is(equalTo(-1)));
+		assertThat(uniProtEventIndex.indexOf("not an accession"), is(equalTo(-1)));
+		assertThat(uniProtEventIndex.getEventIds("Q9Y6K9"), is(equalTo(new long[0])));
+		assertThrows(IndexOutOfBoundsException.class, () -> uniProtEventIndex.getEventIds(1));
+	}
+
+	@Test
+	public void fileWhichIsNotAnIndexIsRejected() throws IOException {
+		Path notAnIndexPath = Files.write(outputDirectory.resolve("not_an_index.bin"), new byte[64]);
+
+		assertThrows(IllegalStateException.class, () -> UniProtEventIndex.open(notAnIndexPath));
+	}
+
+	private UniProtEventIndex writeAndOpenIndex(
+		Map<UniProtReactomeEntry, Set<ReactomeEvent>> uniProtReactomeEntryToEvents) throws IOException {
+
+		Path indexPath = UniProtEventIndex.getIndexPath(outputDirectory, 80);
+		UniProtEventIndexWriter.write(indexPath, uniProtReactomeEntryToEvents, TOP_LEVEL_PATHWAY_IDS, 80);
+		return UniProtEventIndex.open(indexPath);
+	}
+}
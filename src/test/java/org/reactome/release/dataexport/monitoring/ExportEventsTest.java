@@ -0,0 +1,98 @@
+package org.reactome.release.dataexport.monitoring;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ExportEventsTest {
+	@TempDir
+	Path outputDirectory;
+
+	@Test
+	public void exportPhaseEventIsCommittedWithItsPhase() throws IOException {
+		final String PHASE = "NCBI Gene XML Files";
+
+		List<RecordedEvent> recordedEvents = record(() -> ExportPhaseEvent.start(PHASE).finish());
+
+		List<RecordedEvent> phaseEvents = getEventsOfType(recordedEvents, "ExportPhase");
+		assertThat(phaseEvents, hasSize(1));
+		assertThat(phaseEvents.get(0).getString("phase"), is(equalTo(PHASE)));
+	}
+
+	@Test
+	public void graphQueryEventIsCommittedWithItsQueryNameAndRows() throws IOException {
+		final String QUERY_NAME = "UniProt to RLE id";
+		final long ROWS = 42;
+
+		List<RecordedEvent> recordedEvents = record(() -> GraphQueryEvent.start(QUERY_NAME).finish(ROWS));
+
+		List<RecordedEvent> queryEvents = getEventsOfType(recordedEvents, "GraphQuery");
+		assertThat(queryEvents, hasSize(1));
+		assertThat(queryEvents.get(0).getString("queryName"), is(equalTo(QUERY_NAME)));
+		assertThat(queryEvents.get(0).getLong("rows"), is(equalTo(ROWS)));
+	}
+
+	@Test
+	public void fileWriteEventIsCommittedWithItsPathAndFileSize() throws IOException {
+		final byte[] FILE_CONTENT = "P04637\t5673\n".getBytes();
+		Path exportFilePath = outputDirectory.resolve("ucsc_entity74");
+
+		List<RecordedEvent> recordedEvents = record(() -> {
+			FileWriteEvent fileWriteEvent = FileWriteEvent.start(exportFilePath);
+			Files.write(exportFilePath, FILE_CONTENT);
+			fileWriteEvent.finish();
+		});
+
+		List<RecordedEvent> fileWriteEvents = getEventsOfType(recordedEvents, "FileWrite");
+		assertThat(fileWriteEvents, hasSize(1));
+		assertThat(fileWriteEvents.get(0).getString("path"), is(equalTo(exportFilePath.toString())));
+		assertThat(fileWriteEvents.get(0).getLong("bytes"), is(equalTo((long) FILE_CONTENT.length)));
+	}
+
+	@Test
+	public void eventsAreNotCommittedWithoutAnActiveRecording() throws IOException {
+		ExportPhaseEvent exportPhaseEvent = ExportPhaseEvent.start("Europe PMC Upload");
+		exportPhaseEvent.finish();
+
+		assertThat(exportPhaseEvent.shouldCommit(), is(equalTo(false)));
+	}
+
+	private List<RecordedEvent> record(RecordedWork recordedWork) throws IOException {
+		Path recordingFilePath = outputDirectory.resolve("test.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(ExportPhaseEvent.class).withThreshold(Duration.ZERO);
+			recording.enable(GraphQueryEvent.class).withThreshold(Duration.ZERO);
+			recording.enable(FileWriteEvent.class).withThreshold(Duration.ZERO);
+			recording.start();
+			recordedWork.run();
+			recording.stop();
+			recording.dump(recordingFilePath);
+		}
+		return RecordingFile.readAllEvents(recordingFilePath);
+	}
+
+	private List<RecordedEvent> getEventsOfType(List<RecordedEvent> recordedEvents, String eventName) {
+		final String EVENT_TYPE_NAME = "org.reactome.release.dataexport." + eventName;
+
+		return recordedEvents.stream()
+			.filter(recordedEvent -> recordedEvent.getEventType().getName().equals(EVENT_TYPE_NAME))
+			.collect(Collectors.toList());
+	}
+
+	@FunctionalInterface
+	private interface RecordedWork {
+		void run() throws IOException;
+	}
+}
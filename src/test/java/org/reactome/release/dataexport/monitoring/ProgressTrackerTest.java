@@ -0,0 +1,82 @@
+package org.reactome.release.dataexport.monitoring;
+
+import org.apache.logging.log4j.LogManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ProgressTrackerTest {
+	private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+	private static final long TOTAL_ITEMS = 1000;
+
+	private AtomicLong fakeClock;
+	private ProgressTracker progressTracker;
+
+	@BeforeEach
+	public void createProgressTracker() {
+		fakeClock = new AtomicLong(0);
+		progressTracker = new ProgressTracker(
+			LogManager.getLogger("mainLog"), "test stage", "items", TOTAL_ITEMS, REPORT_INTERVAL_NANOS,
+			fakeClock::get
+		);
+	}
+
+	@Test
+	public void countsIncrementsAndAdditions() {
+		final int INCREMENTS = 5;
+		final long ADDITION = 10;
+
+		for (int i = 0; i < INCREMENTS; i++) {
+			progressTracker.increment();
+		}
+		progressTracker.add(ADDITION);
+
+		assertThat(progressTracker.getItemsProcessed(), is(equalTo(INCREMENTS + ADDITION)));
+	}
+
+	@Test
+	public void computesThroughputAndEstimatedTimeRemaining() {
+		final long ITEMS_PROCESSED = 250;
+		final long SECONDS_ELAPSED = 10;
+
+		progressTracker.add(ITEMS_PROCESSED);
+		fakeClock.set(TimeUnit.SECONDS.toNanos(SECONDS_ELAPSED));
+
+		assertThat(progressTracker.getThroughputPerSecond(), is(closeTo(25.0, 0.001)));
+		assertThat(progressTracker.getElapsed(), is(equalTo(Duration.ofSeconds(SECONDS_ELAPSED))));
+
+		// 750 items remaining at 25 items per second
+		assertThat(progressTracker.getEstimatedTimeRemaining(), is(equalTo(Duration.ofSeconds(30))));
+	}
+
+	@Test
+	public void noEstimatedTimeRemainingForUnknownTotal() {
+		ProgressTracker unknownTotalProgressTracker = ProgressTracker.start(
+			LogManager.getLogger("mainLog"), "test stage", "rows"
+		);
+		unknownTotalProgressTracker.increment();
+
+		assertThat(unknownTotalProgressTracker.getEstimatedTimeRemaining(), is(nullValue()));
+	}
+
+	@Test
+	public void noEstimatedTimeRemainingBeforeAnyItemIsProcessed() {
+		fakeClock.set(TimeUnit.SECONDS.toNanos(1));
+
+		assertThat(progressTracker.getEstimatedTimeRemaining(), is(nullValue()));
+	}
+
+	@Test
+	public void formatsDurationAsHoursMinutesAndSeconds() {
+		final Duration DURATION = Duration.ofHours(2).plusMinutes(5).plusSeconds(9);
+
+		assertThat(ProgressTracker.formatDuration(DURATION), is(equalTo("2:05:09")));
+		assertThat(ProgressTracker.formatDuration(null), is(equalTo("unknown")));
+	}
+}
@@ -0,0 +1,113 @@
+package org.reactome.release.dataexport.queries;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class BoundedQueueSubscriberTest {
+	private static final int BATCH_SIZE = 10;
+	private static final int TOTAL_ITEMS = 1000;
+
+	@Test
+	public void allItemsAreConsumedInOrder() {
+		CountingPublisher publisher = new CountingPublisher(TOTAL_ITEMS);
+		BoundedQueueSubscriber<Integer> subscriber = new BoundedQueueSubscriber<>(BATCH_SIZE);
+		publisher.subscribe(subscriber);
+
+		List<Integer> consumedItems = new ArrayList<>();
+		subscriber.drainTo(consumedItems::add);
+
+		assertThat(consumedItems.size(), is(equalTo(TOTAL_ITEMS)));
+		for (int i = 0; i < TOTAL_ITEMS; i++) {
+			assertThat(consumedItems.get(i), is(equalTo(i)));
+		}
+	}
+
+	@Test
+	public void outstandingDemandNeverExceedsBatchSize() {
+		CountingPublisher publisher = new CountingPublisher(TOTAL_ITEMS);
+		BoundedQueueSubscriber<Integer> subscriber = new BoundedQueueSubscriber<>(BATCH_SIZE);
+		publisher.subscribe(subscriber);
+
+		subscriber.drainTo(item -> {});
+
+		assertThat(publisher.getMaximumOutstandingDemand(), is(lessThanOrEqualTo((long) BATCH_SIZE)));
+	}
+
+	@Test
+	public void publisherErrorIsRethrownToConsumingThread() {
+		BoundedQueueSubscriber<Integer> subscriber = new BoundedQueueSubscriber<>(BATCH_SIZE);
+		subscriber.onSubscribe(new NoOpSubscription());
+		subscriber.onError(new IllegalStateException("Query failed"));
+
+		assertThrows(IllegalStateException.class, () -> subscriber.drainTo(item -> {}));
+	}
+
+	@Test
+	public void nonPositiveBatchSizeThrowsIllegalArgumentException() {
+		assertThrows(IllegalArgumentException.class, () -> new BoundedQueueSubscriber<Integer>(0));
+	}
+
+	/**
+	 * Publishes the integers from 0 to totalItems - 1 on its own thread, honouring the subscriber's demand
+	 */
+	private static class CountingPublisher implements Publisher<Integer> {
+		private final int totalItems;
+		private final AtomicLong requested = new AtomicLong(0);
+		private final AtomicLong emitted = new AtomicLong(0);
+		private final AtomicLong maximumOutstandingDemand = new AtomicLong(0);
+
+		private CountingPublisher(int totalItems) {
+			this.totalItems = totalItems;
+		}
+
+		@Override
+		public void subscribe(Subscriber<? super Integer> subscriber) {
+			subscriber.onSubscribe(new Subscription() {
+				@Override
+				public void request(long n) {
+					long outstandingDemand = requested.addAndGet(n) - emitted.get();
+					maximumOutstandingDemand.accumulateAndGet(outstandingDemand, Math::max);
+				}
+
+				@Override
+				public void cancel() {}
+			});
+
+			Thread publishingThread = new Thread(() -> {
+				while (emitted.get() < totalItems) {
+					if (emitted.get() < requested.get()) {
+						subscriber.onNext((int) emitted.getAndIncrement());
+					} else {
+						Thread.yield();
+					}
+				}
+				subscriber.onComplete();
+			});
+			publishingThread.start();
+		}
+
+		private long getMaximumOutstandingDemand() {
+			return maximumOutstandingDemand.get();
+		}
+	}
+
+	private static class NoOpSubscription implements Subscription {
+		@Override
+		public void request(long n) {}
+
+		@Override
+		public void cancel() {}
+	}
+}
@@ -0,0 +1,120 @@
+package org.reactome.release.dataexport.queries;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.Session;
+import org.reactome.release.dataexport.testutils.DummyGraphDBServer;
+
+public class IndexAdvisorTest {
+	private static final RequiredIndex DISPLAY_NAME_INDEX =
+		RequiredIndex.propertyIndex("ReferenceDatabase", "displayName", "Test Query");
+	private static final RequiredIndex TOP_LEVEL_PATHWAY_LOOKUP =
+		RequiredIndex.labelLookup("TopLevelPathway", "Test Query");
+	private static final List<RequiredIndex> REQUIRED_INDEXES =
+		Arrays.asList(DISPLAY_NAME_INDEX, TOP_LEVEL_PATHWAY_LOOKUP);
+
+	@Test
+	public void noIndexesMissingWhenAllPresent() {
+		Set<RequiredIndex> onlineIndexes = new HashSet<>(Collections.singletonList(
+			RequiredIndex.propertyIndex("ReferenceDatabase", "displayName")
+		));
+
+		assertThat(IndexAdvisor.getMissingIndexes(REQUIRED_INDEXES, onlineIndexes, true), is(empty()));
+	}
+
+	@Test
+	public void propertyIndexOnOtherLabelIsReportedMissing() {
+		Set<RequiredIndex> onlineIndexes = new HashSet<>(Collections.singletonList(
+			RequiredIndex.propertyIndex("Pathway", "displayName")
+		));
+
+		assertThat(
+			IndexAdvisor.getMissingIndexes(REQUIRED_INDEXES, onlineIndexes, true),
+			contains(DISPLAY_NAME_INDEX)
+		);
+	}
+
+	@Test
+	public void labelLookupIsReportedMissingWhenUnavailable() {
+		Set<RequiredIndex> onlineIndexes = new HashSet<>(Collections.singletonList(
+			RequiredIndex.propertyIndex("ReferenceDatabase", "displayName")
+		));
+
+		assertThat(
+			IndexAdvisor.getMissingIndexes(REQUIRED_INDEXES, onlineIndexes, false),
+			contains(TOP_LEVEL_PATHWAY_LOOKUP)
+		);
+	}
+
+	@Test
+	public void createIndexStatementUsesLabelAndProperty() {
+		final String EXPECTED_STATEMENT = "CREATE INDEX data_exporter_ReferenceDatabase_displayName IF NOT EXISTS " +
+			"FOR (n:ReferenceDatabase) ON (n.displayName)";
+
+		assertThat(IndexAdvisor.getCreateIndexStatement(DISPLAY_NAME_INDEX), is(equalTo(EXPECTED_STATEMENT)));
+	}
+
+	@Test
+	public void unknownModeThrowsIllegalArgumentException() {
+		assertThrows(IllegalArgumentException.class, () -> IndexAdvisor.Mode.fromConfigurationValue("sometimes"));
+	}
+
+	@Test
+	public void modeIsCaseInsensitive() {
+		assertThat(IndexAdvisor.Mode.fromConfigurationValue("Fail"), is(equalTo(IndexAdvisor.Mode.FAIL)));
+	}
+
+	@Test
+	public void warnModeCheckCompletesAgainstGraphDBWithoutIndexes() {
+		Session graphDBSession = getDummyGraphDBSession();
+
+		assertDoesNotThrow(() -> getIndexAdvisor("warn").checkIndexes(graphDBSession));
+	}
+
+	@Test
+	public void failModeCheckThrowsIllegalStateExceptionForGraphDBWithoutIndexes() {
+		Session graphDBSession = getDummyGraphDBSession();
+
+		// The indexes of the graph database are retrieved, so the check fails on the missing indexes themselves
+		assertThrows(IllegalStateException.class, () -> getIndexAdvisor("fail").checkIndexes(graphDBSession));
+	}
+
+	@Test
+	public void onlinePropertyIndexesAreRetrievedFromGraphDB() {
+		Session graphDBSession = getDummyGraphDBSession();
+		graphDBSession.run("CREATE INDEX ON :ReferenceDatabase(displayName)").consume();
+		graphDBSession.run("CALL db.awaitIndexes(60)").consume();
+
+		assertThat(
+			getIndexAdvisor("warn").getOnlinePropertyIndexes(graphDBSession),
+			hasItem(RequiredIndex.propertyIndex("ReferenceDatabase", "displayName"))
+		);
+	}
+
+	private Session getDummyGraphDBSession() {
+		DummyGraphDBServer dummyGraphDBServer = DummyGraphDBServer.getInstance();
+		dummyGraphDBServer.initializeNeo4j();
+		return dummyGraphDBServer.getSession();
+	}
+
+	private IndexAdvisor getIndexAdvisor(String mode) {
+		Properties props = new Properties();
+		props.setProperty("indexAdvisorMode", mode);
+		return IndexAdvisor.getInstance(props);
+	}
+}
@@ -0,0 +1,53 @@
+package org.reactome.release.dataexport.queries;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PaginatedExtractionTest {
+
+	@Test
+	public void rangesAreContiguousAndCoverWholeRange() {
+		final long MINIMUM = 5;
+		final long MAXIMUM = 1003;
+		final int NUMBER_OF_RANGES = 16;
+
+		List<long[]> ranges = PaginatedExtraction.splitRange(MINIMUM, MAXIMUM, NUMBER_OF_RANGES);
+
+		assertThat(ranges.size(), is(equalTo(NUMBER_OF_RANGES)));
+		assertThat(ranges.get(0)[0], is(equalTo(MINIMUM)));
+		assertThat(ranges.get(ranges.size() - 1)[1], is(equalTo(MAXIMUM)));
+		for (int i = 1; i < ranges.size(); i++) {
+			assertThat(ranges.get(i)[0], is(equalTo(ranges.get(i - 1)[1] + 1)));
+		}
+	}
+
+	@Test
+	public void smallRangeIsNotSplitIntoEmptyRanges() {
+		final long MINIMUM = 10;
+		final long MAXIMUM = 12;
+		final int NUMBER_OF_RANGES = 16;
+
+		List<long[]> ranges = PaginatedExtraction.splitRange(MINIMUM, MAXIMUM, NUMBER_OF_RANGES);
+
+		assertThat(ranges.size(), is(equalTo(3)));
+		for (long[] range : ranges) {
+			assertThat(range[0], is(equalTo(range[1])));
+		}
+	}
+
+	@Test
+	public void singleValueRangeHasOneRange() {
+		final long VALUE = 42;
+
+		List<long[]> ranges = PaginatedExtraction.splitRange(VALUE, VALUE, 4);
+
+		assertThat(ranges.size(), is(equalTo(1)));
+		assertThat(ranges.get(0)[0], is(equalTo(VALUE)));
+		assertThat(ranges.get(0)[1], is(equalTo(VALUE)));
+	}
+}
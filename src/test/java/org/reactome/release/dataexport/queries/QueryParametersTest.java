@@ -0,0 +1,58 @@
+package org.reactome.release.dataexport.queries;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class QueryParametersTest {
+
+	@AfterEach
+	public void restoreDefaultParameters() {
+		QueryParameters.configure(new Properties());
+	}
+
+	@Test
+	public void everyCatalogQueryHasValuesForItsParameters() {
+		for (ExportQuery exportQuery : ExportQuery.values()) {
+			Map<String, Object> parameters = QueryParameters.forQuery(exportQuery);
+
+			assertThat(parameters.keySet(), is(equalTo(exportQuery.getParameterNames())));
+		}
+	}
+
+	@Test
+	public void defaultUCSCSpeciesAreHumanRatAndMouse() {
+		assertThat(
+			QueryParameters.getUCSCSpecies(),
+			contains("Homo sapiens", "Rattus norvegicus", "Mus musculus")
+		);
+	}
+
+	@Test
+	public void ucscSpeciesAreConfigurable() {
+		Properties props = new Properties();
+		props.setProperty("ucscSpecies", "Homo sapiens, Danio rerio");
+		QueryParameters.configure(props);
+
+		assertThat(
+			QueryParameters.forQuery(ExportQuery.UCSC_UNIPROT_ENTRIES).get("ucscSpecies"),
+			is(equalTo(QueryParameters.getUCSCSpecies()))
+		);
+		assertThat(QueryParameters.getUCSCSpecies(), contains("Homo sapiens", "Danio rerio"));
+	}
+
+	@Test
+	public void parameterNamesAreFoundInQueryText() {
+		assertThat(
+			ExportQuery.UNIPROT_TO_NCBI_GENE.getParameterNames(),
+			contains("referenceDatabase", "geneDatabase")
+		);
+	}
+}
@@ -0,0 +1,60 @@
+package org.reactome.release.dataexport.queries;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.neo4j.driver.summary.ProfiledPlan;
+
+public class QueryProfileFormatterTest {
+	private ProfiledPlan rootPlan;
+
+	@BeforeEach
+	public void createProfiledPlan() {
+		ProfiledPlan nodeIndexSeek = mockProfiledPlan("NodeIndexSeek", 10, 11, Collections.emptyList());
+		ProfiledPlan expand = mockProfiledPlan("Expand(All)", 20, 40, Collections.singletonList(nodeIndexSeek));
+		this.rootPlan = mockProfiledPlan("ProduceResults", 20, 0, Collections.singletonList(expand));
+	}
+
+	@Test
+	public void sumsDbHitsOfAllOperators() {
+		final long EXPECTED_TOTAL_DB_HITS = 51;
+
+		assertThat(QueryProfileFormatter.getTotalDbHits(rootPlan), is(equalTo(EXPECTED_TOTAL_DB_HITS)));
+	}
+
+	@Test
+	public void reportContainsQueryAndIndentedOperators() {
+		final String QUERY = "MATCH (p:Pathway) RETURN p.dbId";
+
+		String report = QueryProfileFormatter.format(
+			"Test Query", QUERY, Collections.emptyMap(), 100, rootPlan
+		);
+
+		assertThat(report, containsString("Query: Test Query"));
+		assertThat(report, containsString("Total database hits: 51"));
+		assertThat(report, containsString(QUERY));
+		assertThat(report, containsString("+ProduceResults"));
+		assertThat(report, containsString("| +Expand(All)"));
+		assertThat(report, containsString("| | +NodeIndexSeek"));
+	}
+
+	private ProfiledPlan mockProfiledPlan(String operatorType, long records, long dbHits, List<ProfiledPlan> children) {
+		ProfiledPlan profiledPlan = Mockito.mock(ProfiledPlan.class);
+		Mockito.when(profiledPlan.operatorType()).thenReturn(operatorType);
+		Mockito.when(profiledPlan.records()).thenReturn(records);
+		Mockito.when(profiledPlan.dbHits()).thenReturn(dbHits);
+		Mockito.when(profiledPlan.arguments()).thenReturn(Collections.emptyMap());
+		Mockito.when(profiledPlan.identifiers()).thenReturn(Arrays.asList("p"));
+		Mockito.doReturn(children).when(profiledPlan).children();
+		return profiledPlan;
+	}
+}
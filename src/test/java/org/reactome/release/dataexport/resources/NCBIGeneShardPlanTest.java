@@ -0,0 +1,137 @@
+package org.reactome.release.dataexport.resources;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.reactome.release.dataexport.testutils.DbIdGenerator.getNextDBID;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.reactome.release.dataexport.datastructures.NCBIEntry;
+import org.reactome.release.dataexport.datastructures.ReactomeEvent;
+import org.reactome.release.dataexport.datastructures.UniProtReactomeEntry;
+
+public class NCBIGeneShardPlanTest {
+	private final String LINE_SEPARATOR = System.lineSeparator();
+	private final long SHARD_OVERHEAD_IN_BYTES = getUTF8Size(
+		NCBIGene.getXMLHeader() + LINE_SEPARATOR + NCBIGene.getOpenRootTag() + LINE_SEPARATOR +
+		NCBIGene.getCloseRootTag() + LINE_SEPARATOR
+	);
+	private final List<ReactomeEvent> TOP_LEVEL_PATHWAYS = Arrays.asList(
+		new ReactomeEvent(1640170L, "Cell Cycle", "R-HSA-1640170"),
+		new ReactomeEvent(162582L, "Signal Transduction", "R-HSA-162582"),
+		// Escaped and multi-byte characters make the encoded size differ from the length of the name
+		new ReactomeEvent(9006934L, "Signaling by Receptor Tyrosine Kinases & β-catenin <test>", "R-HSA-9006934")
+	);
+
+	@Test
+	public void plannedShardSizesAreExactEncodedSizes() throws IOException {
+		NCBIGeneShardPlan shardPlan = NCBIGeneShardPlan.plan(
+			createLinkBlocks(200), 20000, SHARD_OVERHEAD_IN_BYTES, getUTF8Size(LINE_SEPARATOR)
+		);
+
+		assertThat(shardPlan.getShards().size(), is(greaterThan(1)));
+		for (NCBIGeneShardPlan.Shard shard : shardPlan.getShards()) {
+			assertThat(getUTF8Size(getShardContent(shard)), is(equalTo(shard.getSizeInBytes())));
+			assertThat(shard.getSizeInBytes(), is(lessThanOrEqualTo(20000L)));
+		}
+		assertThat(shardPlan.getOversizedShards(), is(empty()));
+	}
+
+	@Test
+	public void linkIdsAreConsecutiveAcrossShards() {
+		NCBIGeneShardPlan shardPlan = NCBIGeneShardPlan.plan(
+			createLinkBlocks(200), 20000, SHARD_OVERHEAD_IN_BYTES, getUTF8Size(LINE_SEPARATOR)
+		);
+
+		long expectedLinkId = 1;
+		for (NCBIGeneShardPlan.Shard shard : shardPlan.getShards()) {
+			for (NCBIGeneShardPlan.LinkBlock linkBlock : shard.getLinkBlocks()) {
+				assertThat(linkBlock.getFirstLinkId(), is(equalTo(expectedLinkId)));
+				expectedLinkId += linkBlock.getNumberOfLinks();
+			}
+		}
+	}
+
+	@Test
+	public void linksOfAGeneAreInOneShard() {
+		List<NCBIGeneShardPlan.LinkBlock> linkBlocks = createLinkBlocks(200);
+		// The first and last entries share a gene, so they must be planned together
+		linkBlocks.add(createLinkBlock(1000, "gene0", "gene999"));
+
+		NCBIGeneShardPlan shardPlan = NCBIGeneShardPlan.plan(
+			linkBlocks, 20000, SHARD_OVERHEAD_IN_BYTES, getUTF8Size(LINE_SEPARATOR)
+		);
+
+		Map<String, Integer> ncbiGeneIdToShardNumber = new HashMap<>();
+		for (NCBIGeneShardPlan.Shard shard : shardPlan.getShards()) {
+			for (NCBIGeneShardPlan.LinkBlock linkBlock : shard.getLinkBlocks()) {
+				for (String ncbiGeneId : linkBlock.getNcbiEntry().getNcbiGeneIds()) {
+					Integer shardNumber = ncbiGeneIdToShardNumber.putIfAbsent(ncbiGeneId, shard.getShardNumber());
+					if (shardNumber != null) {
+						assertThat(shardNumber, is(equalTo(shard.getShardNumber())));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void noLinkBlocksPlanOneEmptyShard() {
+		NCBIGeneShardPlan shardPlan = NCBIGeneShardPlan.plan(
+			new ArrayList<>(), 20000, SHARD_OVERHEAD_IN_BYTES, getUTF8Size(LINE_SEPARATOR)
+		);
+
+		assertThat(shardPlan.getShards().size(), is(equalTo(1)));
+		assertThat(shardPlan.getShards().get(0).getSizeInBytes(), is(equalTo(SHARD_OVERHEAD_IN_BYTES)));
+	}
+
+	private List<NCBIGeneShardPlan.LinkBlock> createLinkBlocks(int numberOfEntries) {
+		List<NCBIGeneShardPlan.LinkBlock> linkBlocks = new ArrayList<>();
+		for (int i = 0; i < numberOfEntries; i++) {
+			linkBlocks.add(createLinkBlock(i, "gene" + i));
+		}
+		return linkBlocks;
+	}
+
+	private NCBIGeneShardPlan.LinkBlock createLinkBlock(int entryNumber, String... ncbiGeneIds) {
+		String accession = String.format("P%05d", entryNumber);
+		NCBIEntry ncbiEntry = new NCBIEntry(
+			UniProtReactomeEntry.get(getNextDBID(), accession, "UniProt:" + accession),
+			new LinkedHashSet<>(Arrays.asList(ncbiGeneIds))
+		);
+		List<ReactomeEvent> topLevelPathways =
+			entryNumber % 2 == 0 ? TOP_LEVEL_PATHWAYS : Collections.singletonList(TOP_LEVEL_PATHWAYS.get(0));
+		return new NCBIGeneShardPlan.LinkBlock(ncbiEntry, topLevelPathways);
+	}
+
+	private String getShardContent(NCBIGeneShardPlan.Shard shard) throws IOException {
+		ByteArrayOutputStream shardContent = new ByteArrayOutputStream();
+		shardContent.write(
+			(NCBIGene.getXMLHeader() + LINE_SEPARATOR + NCBIGene.getOpenRootTag() + LINE_SEPARATOR)
+				.getBytes(StandardCharsets.UTF_8)
+		);
+		for (NCBIGeneShardPlan.LinkBlock linkBlock : shard.getLinkBlocks()) {
+			linkBlock.writeLinkXMLNodes(shardContent, LINE_SEPARATOR.getBytes(StandardCharsets.UTF_8));
+		}
+		shardContent.write((NCBIGene.getCloseRootTag() + LINE_SEPARATOR).getBytes(StandardCharsets.UTF_8));
+		return new String(shardContent.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private long getUTF8Size(String text) {
+		return text.getBytes(StandardCharsets.UTF_8).length;
+	}
+}
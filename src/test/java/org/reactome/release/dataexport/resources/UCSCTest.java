@@ -1,11 +1,19 @@
 package org.reactome.release.dataexport.resources;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.reactome.release.dataexport.datastructures.UniProtReactomeEntry;
 import org.reactome.release.dataexport.resources.UCSC;
 import org.reactome.release.dataexport.testutils.DummyGraphDBServer;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -14,6 +22,8 @@ public class UCSCTest {
 	private final String DUMMY_DIR = "outputDir";
 	private final int DUMMY_REACTOME_VERSION = 999;
 
+	@TempDir
+	Path outputDirectory;
 
 	@Test
 	public void noUniProtReactomeEntriesRetrievedFromEmptyDatabase() {
@@ -64,4 +74,32 @@ public class UCSCTest {
 
 		assertThat(uniProtReactomeEntries, hasItem(expectedUniProtReactomeEntry));
 	}
+
+	@Test
+	public void ucscEventLinesAreWrittenInAccessionOrderAcrossBatches() throws IOException {
+		DummyGraphDBServer dummyGraphDBServer = DummyGraphDBServer.getInstance();
+		dummyGraphDBServer.initializeNeo4j();
+		dummyGraphDBServer.populateDummyGraphDB();
+
+		Properties props = new Properties();
+		props.setProperty("ucscEventBatchSize", "1");
+		UCSC.configure(props, null);
+		try {
+			UCSC.getInstance(outputDirectory.toString(), DUMMY_REACTOME_VERSION)
+				.writeUCSCFiles(dummyGraphDBServer.getSession());
+		} finally {
+			UCSC.configure(new Properties(), null);
+		}
+
+		List<String> eventLineAccessions = Files.readAllLines(
+			outputDirectory.resolve("ucsc_events" + DUMMY_REACTOME_VERSION), StandardCharsets.UTF_8
+		)
+			.stream()
+			.filter(line -> line.split("\t").length == 3 && line.contains("R-"))
+			.map(line -> line.split("\t")[0])
+			.collect(Collectors.toList());
+
+		assertThat(eventLineAccessions, is(not(empty())));
+		assertThat(eventLineAccessions, contains(eventLineAccessions.stream().sorted().toArray()));
+	}
 }
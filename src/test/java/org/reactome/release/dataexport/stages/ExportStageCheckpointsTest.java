@@ -0,0 +1,93 @@
+package org.reactome.release.dataexport.stages;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExportStageCheckpointsTest {
+	private final int DUMMY_RELEASE_NUMBER = 78;
+
+	@TempDir
+	Path outputDirectory;
+
+	@Test
+	public void stageWithoutCheckpointIsNotComplete() throws IOException {
+		ExportStageCheckpoints checkpoints = new ExportStageCheckpoints(outputDirectory, DUMMY_RELEASE_NUMBER);
+
+		assertThat(checkpoints.isComplete(ExportStage.UCSC_GENERATE), is(equalTo(false)));
+		assertThat(checkpoints.getCheckpointedFiles(ExportStage.UCSC_GENERATE), is(empty()));
+	}
+
+	@Test
+	public void stageWithUnchangedFilesIsComplete() throws IOException {
+		Path ucscFile = Files.write(outputDirectory.resolve("ucsc_entity78"), "P04637".getBytes());
+		ExportStageCheckpoints checkpoints = new ExportStageCheckpoints(outputDirectory, DUMMY_RELEASE_NUMBER);
+
+		checkpoints.writeCheckpoint(ExportStage.UCSC_GENERATE, Collections.singletonList(ucscFile));
+
+		assertThat(checkpoints.isComplete(ExportStage.UCSC_GENERATE), is(equalTo(true)));
+		assertThat(checkpoints.getCheckpointedFiles(ExportStage.UCSC_GENERATE), contains(ucscFile));
+	}
+
+	@Test
+	public void stageWithChangedFileIsNotComplete() throws IOException {
+		Path ucscFile = Files.write(outputDirectory.resolve("ucsc_entity78"), "P04637".getBytes());
+		ExportStageCheckpoints checkpoints = new ExportStageCheckpoints(outputDirectory, DUMMY_RELEASE_NUMBER);
+		checkpoints.writeCheckpoint(ExportStage.UCSC_GENERATE, Collections.singletonList(ucscFile));
+
+		Files.write(ucscFile, "Q54321".getBytes());
+
+		assertThat(checkpoints.isComplete(ExportStage.UCSC_GENERATE), is(equalTo(false)));
+	}
+
+	@Test
+	public void checkpointOfOtherReleaseIsIgnored() throws IOException {
+		Path ucscFile = Files.write(outputDirectory.resolve("ucsc_entity77"), "P04637".getBytes());
+		new ExportStageCheckpoints(outputDirectory, DUMMY_RELEASE_NUMBER - 1)
+			.writeCheckpoint(ExportStage.UCSC_GENERATE, Collections.singletonList(ucscFile));
+
+		ExportStageCheckpoints checkpoints = new ExportStageCheckpoints(outputDirectory, DUMMY_RELEASE_NUMBER);
+
+		assertThat(checkpoints.isComplete(ExportStage.UCSC_GENERATE), is(equalTo(false)));
+	}
+
+	@Test
+	public void uploadIsNotCompleteWhenGeneratedFilesChangedAfterUpload() throws IOException {
+		Path proteinFile = Files.write(outputDirectory.resolve("protein_reactome78.ft"), "P04637".getBytes());
+		ExportStageCheckpoints checkpoints = new ExportStageCheckpoints(outputDirectory, DUMMY_RELEASE_NUMBER);
+		checkpoints.writeCheckpoint(ExportStage.NCBI_GENERATE, Collections.singletonList(proteinFile));
+		checkpoints.writeCheckpoint(ExportStage.NCBI_UPLOAD, Collections.singletonList(proteinFile));
+		assertThat(checkpoints.isComplete(ExportStage.NCBI_UPLOAD), is(equalTo(true)));
+
+		Files.write(proteinFile, "Q54321".getBytes());
+		checkpoints.writeCheckpoint(ExportStage.NCBI_GENERATE, Collections.singletonList(proteinFile));
+
+		assertThat(checkpoints.isComplete(ExportStage.NCBI_UPLOAD), is(equalTo(false)));
+	}
+
+	@Test
+	public void filesChangedSinceSnapshotAreFound() throws IOException {
+		Files.write(outputDirectory.resolve("unchanged"), "unchanged".getBytes());
+		Path modifiedFile = Files.write(outputDirectory.resolve("modified"), "before".getBytes());
+		ExportStageCheckpoints checkpoints = new ExportStageCheckpoints(outputDirectory, DUMMY_RELEASE_NUMBER);
+
+		Map<Path, String> snapshot = checkpoints.snapshotOutputFiles();
+		Files.write(modifiedFile, "after".getBytes());
+		Files.setLastModifiedTime(modifiedFile, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+		Path createdFile = Files.write(outputDirectory.resolve("created"), "created".getBytes());
+
+		assertThat(checkpoints.getFilesChangedSince(snapshot), contains(createdFile, modifiedFile));
+	}
+}
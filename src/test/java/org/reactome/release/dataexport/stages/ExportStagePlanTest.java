@@ -0,0 +1,129 @@
+package org.reactome.release.dataexport.stages;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExportStagePlanTest {
+	private final int DUMMY_RELEASE_NUMBER = 78;
+
+	@TempDir
+	Path outputDirectory;
+
+	private ExportStageCheckpoints checkpoints;
+
+	@BeforeEach
+	public void createCheckpoints() {
+		checkpoints = new ExportStageCheckpoints(outputDirectory, DUMMY_RELEASE_NUMBER);
+	}
+
+	@Test
+	public void allStagesRunWithoutCheckpoints() throws IOException {
+		ExportStagePlan stagePlan = ExportStagePlan.getInstance(new Properties(), checkpoints);
+
+		assertThat(stagePlan.getStagesToRun(), is(equalTo(EnumSet.allOf(ExportStage.class))));
+		assertThat(stagePlan.requiresGraphDatabase(), is(equalTo(true)));
+	}
+
+	@Test
+	public void onlyIncompleteUploadRunsWhenFilesAreGenerated() throws IOException {
+		completeAllStagesExcept(ExportStage.NCBI_UPLOAD);
+
+		ExportStagePlan stagePlan = ExportStagePlan.getInstance(new Properties(), checkpoints);
+
+		assertThat(stagePlan.getStagesToRun(), contains(ExportStage.NCBI_UPLOAD));
+		assertThat(stagePlan.requiresGraphDatabase(), is(equalTo(false)));
+	}
+
+	@Test
+	public void incompleteGenerateStageAlsoRunsPreparatoryStages() throws IOException {
+		completeAllStagesExcept(ExportStage.UCSC_GENERATE);
+
+		ExportStagePlan stagePlan = ExportStagePlan.getInstance(new Properties(), checkpoints);
+
+		assertThat(
+			stagePlan.getStagesToRun(),
+			contains(ExportStage.EXTRACT, ExportStage.BUILD_INDEXES, ExportStage.UCSC_GENERATE)
+		);
+	}
+
+	@Test
+	public void onlyStagesRunEvenIfComplete() throws IOException {
+		completeAllStagesExcept(ExportStage.EXTRACT);
+		Properties props = new Properties();
+		props.setProperty("onlyStages", "ncbi-upload");
+
+		ExportStagePlan stagePlan = ExportStagePlan.getInstance(props, checkpoints);
+
+		assertThat(stagePlan.getStagesToRun(), contains(ExportStage.NCBI_UPLOAD));
+	}
+
+	@Test
+	public void skippedStagesDoNotRun() throws IOException {
+		Properties props = new Properties();
+		props.setProperty("skipStages", "extract, europe-pmc-upload,ncbi-upload");
+
+		ExportStagePlan stagePlan = ExportStagePlan.getInstance(props, checkpoints);
+
+		assertThat(
+			stagePlan.getStagesToRun(),
+			contains(
+				ExportStage.BUILD_INDEXES,
+				ExportStage.NCBI_GENERATE,
+				ExportStage.UCSC_GENERATE,
+				ExportStage.EUROPE_PMC_GENERATE
+			)
+		);
+	}
+
+	@Test
+	public void checkpointsAreIgnoredWhenNotResuming() throws IOException {
+		completeAllStagesExcept(ExportStage.EXTRACT);
+		Properties props = new Properties();
+		props.setProperty("resumeFromCheckpoints", "false");
+
+		ExportStagePlan stagePlan = ExportStagePlan.getInstance(props, checkpoints);
+
+		assertThat(stagePlan.getStagesToRun(), is(equalTo(EnumSet.allOf(ExportStage.class))));
+	}
+
+	@Test
+	public void unknownStageNameThrowsIllegalArgumentException() {
+		Properties props = new Properties();
+		props.setProperty("onlyStages", "ncbi-download");
+
+		assertThrows(IllegalArgumentException.class, () -> ExportStagePlan.getInstance(props, checkpoints));
+	}
+
+	private void completeAllStagesExcept(ExportStage incompleteStage) throws IOException {
+		for (ExportStage exportStage : ExportStage.values()) {
+			if (exportStage == incompleteStage || exportStage.isPreparatory()) {
+				continue;
+			}
+
+			if (exportStage.isUpload()) {
+				checkpoints.writeCheckpoint(
+					exportStage, checkpoints.getCheckpointedFiles(exportStage.getSourceStage())
+				);
+			} else {
+				Path stageFile = Files.write(
+					outputDirectory.resolve(exportStage.getName() + ".txt"), exportStage.getName().getBytes()
+				);
+				checkpoints.writeCheckpoint(exportStage, Collections.singletonList(stageFile));
+			}
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package org.reactome.release.dataexport.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class CoalescingBatchLoaderTest {
+
+	@Test
+	public void keysAreLoadedInBatchesOfAtMostMaxBatchSize() {
+		List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+		CoalescingBatchLoader<Integer, String> loader = new CoalescingBatchLoader<>(
+			keys -> { batches.add(keys); return toStrings(keys); }, 2, 100
+		);
+
+		Map<Integer, String> values = loader.loadAll(Arrays.asList(1, 2, 3, 4, 5));
+
+		assertThat(values.size(), is(equalTo(5)));
+		assertThat(values, hasEntry(5, "5"));
+		assertThat(loader.getBatchesLoaded(), is(equalTo(3L)));
+	}
+
+	@Test
+	public void cachedKeysAreNotLoadedAgain() {
+		CoalescingBatchLoader<Integer, String> loader = new CoalescingBatchLoader<>(this::toStrings, 10, 100);
+
+		loader.loadAll(Arrays.asList(1, 2));
+		loader.loadAll(Arrays.asList(1, 2));
+
+		assertThat(loader.getBatchesLoaded(), is(equalTo(1L)));
+	}
+
+	@Test
+	public void keysWithoutValuesAreCachedAndOmitted() {
+		CoalescingBatchLoader<Integer, String> loader = new CoalescingBatchLoader<>(keys -> new HashMap<>(), 10, 100);
+
+		assertThat(loader.loadAll(Collections.singletonList(1)), is(anEmptyMap()));
+		assertThat(loader.load(1), is(nullValue()));
+		assertThat(loader.getBatchesLoaded(), is(equalTo(1L)));
+	}
+
+	@Test
+	public void leastRecentlyUsedKeyIsEvictedWhenCacheIsFull() {
+		List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+		CoalescingBatchLoader<Integer, String> loader = new CoalescingBatchLoader<>(
+			keys -> { batches.add(keys); return toStrings(keys); }, 10, 2
+		);
+
+		loader.load(1);
+		loader.load(2);
+		loader.load(1); // Key 2 is now the least recently used
+		loader.load(3);
+		loader.load(1);
+		loader.load(2);
+
+		assertThat(loader.getCachedKeyCount(), is(equalTo(2)));
+		assertThat(batches.get(batches.size() - 1), contains(2));
+		assertThat(loader.getBatchesLoaded(), is(equalTo(4L)));
+	}
+
+	@Test
+	public void concurrentRequestsAreCoalescedIntoOneBatch() throws Exception {
+		final int NUMBER_OF_WAITING_REQUESTS = 4;
+
+		CountDownLatch firstBatchStarted = new CountDownLatch(1);
+		CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+		CoalescingBatchLoader<Integer, String> loader = new CoalescingBatchLoader<>(keys -> {
+			if (keys.contains(0)) {
+				firstBatchStarted.countDown();
+				await(releaseFirstBatch);
+			}
+			return toStrings(keys);
+		}, 100, 100);
+
+		ExecutorService executorService = Executors.newFixedThreadPool(NUMBER_OF_WAITING_REQUESTS + 1);
+		try {
+			Future<String> firstRequest = executorService.submit(() -> loader.load(0));
+			firstBatchStarted.await();
+
+			List<Future<String>> waitingRequests = new ArrayList<>();
+			for (int key = 1; key <= NUMBER_OF_WAITING_REQUESTS; key++) {
+				final int KEY = key;
+				waitingRequests.add(executorService.submit(() -> loader.load(KEY)));
+			}
+			// Give the waiting requests time to queue their keys behind the first batch
+			Thread.sleep(200);
+			releaseFirstBatch.countDown();
+
+			assertThat(firstRequest.get(10, TimeUnit.SECONDS), is(equalTo("0")));
+			for (int key = 1; key <= NUMBER_OF_WAITING_REQUESTS; key++) {
+				assertThat(waitingRequests.get(key - 1).get(10, TimeUnit.SECONDS), is(equalTo(Integer.toString(key))));
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		assertThat(loader.getBatchesLoaded(), is(equalTo(2L)));
+	}
+
+	@Test
+	public void batchFailureIsRethrownAndKeysCanBeRetried() {
+		boolean[] fail = {true};
+		CoalescingBatchLoader<Integer, String> loader = new CoalescingBatchLoader<>(keys -> {
+			if (fail[0]) {
+				throw new IllegalStateException("Query failed");
+			}
+			return toStrings(keys);
+		}, 10, 100);
+
+		assertThrows(IllegalStateException.class, () -> loader.load(1));
+
+		fail[0] = false;
+		assertThat(loader.load(1), is(equalTo("1")));
+	}
+
+	private Map<Integer, String> toStrings(List<Integer> keys) {
+		Map<Integer, String> values = new HashMap<>();
+		keys.forEach(key -> values.put(key, Integer.toString(key)));
+		return values;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package org.reactome.release.dataexport.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CompactLongSetMapTest {
+	@TempDir
+	Path tempDirectory;
+
+	@Test
+	public void mapInHeapEqualsGroupedPairs() {
+		LongPairBuffer pairs = createPairsWithRepeats(10000);
+
+		CompactLongSetMap compactMap = CompactLongSetMap.groupByFirst(pairs, bytes -> true, tempDirectory);
+
+		assertThat(compactMap.isMemoryMapped(), is(equalTo(false)));
+		assertThat(compactMap, is(equalTo(pairs.groupByFirst())));
+	}
+
+	@Test
+	public void memoryMappedMapEqualsGroupedPairsAndTakesNoHeap() {
+		LongPairBuffer pairs = createPairsWithRepeats(10000);
+
+		CompactLongSetMap compactMap = CompactLongSetMap.groupByFirst(pairs, bytes -> false, tempDirectory);
+
+		assertThat(compactMap.isMemoryMapped(), is(equalTo(true)));
+		assertThat(compactMap.getHeapSizeInBytes(), is(equalTo(0L)));
+		assertThat(compactMap, is(equalTo(pairs.groupByFirst())));
+	}
+
+	@Test
+	public void valuesOfAKeyAreDistinctAndSorted() {
+		LongPairBuffer pairs = new LongPairBuffer();
+		pairs.add(69620L, 1640170L);
+		pairs.add(69620L, 162582L);
+		pairs.add(69620L, 1640170L);
+
+		Map<Long, Set<Long>> compactMap = CompactLongSetMap.groupByFirst(pairs, bytes -> true, tempDirectory);
+
+		assertThat(compactMap.get(69620L), contains(162582L, 1640170L));
+		assertThat(compactMap.get(69620L).contains(162582L), is(equalTo(true)));
+		assertThat(compactMap.get(69621L), is(nullValue()));
+		assertThat(compactMap.getOrDefault(69621L, Collections.emptySet()).isEmpty(), is(equalTo(true)));
+	}
+
+	@Test
+	public void mapCanNotBeModified() {
+		LongPairBuffer pairs = new LongPairBuffer();
+		pairs.add(69620L, 1640170L);
+
+		Map<Long, Set<Long>> compactMap = CompactLongSetMap.groupByFirst(pairs, bytes -> true, tempDirectory);
+
+		assertThrows(UnsupportedOperationException.class, () -> compactMap.put(69621L, Collections.emptySet()));
+		assertThrows(UnsupportedOperationException.class, () -> compactMap.get(69620L).add(162582L));
+	}
+
+	@Test
+	public void heapReservedIsTheSizeOfTheArrays() {
+		final long[] RESERVED_BYTES = new long[1];
+		LongPairBuffer pairs = new LongPairBuffer();
+		pairs.add(1L, 10L);
+		pairs.add(1L, 11L);
+		pairs.add(2L, 20L);
+
+		CompactLongSetMap compactMap = CompactLongSetMap.groupByFirst(pairs, bytes -> {
+			RESERVED_BYTES[0] += bytes;
+			return true;
+		}, tempDirectory);
+
+		// 2 keys, 3 offsets and 3 values
+		assertThat(RESERVED_BYTES[0], is(equalTo(8L * (2 + 3 + 3))));
+		assertThat(compactMap.getHeapSizeInBytes(), is(equalTo(RESERVED_BYTES[0])));
+	}
+
+	private LongPairBuffer createPairsWithRepeats(int numberOfPairs) {
+		Random random = new Random(76);
+		LongPairBuffer pairs = new LongPairBuffer();
+		for (int i = 0; i < numberOfPairs; i++) {
+			pairs.add(random.nextInt(numberOfPairs / 10), random.nextInt(numberOfPairs / 100));
+		}
+		return pairs;
+	}
+}
@@ -32,6 +32,25 @@ public class DataExportUtilitiesTest {
 		this.stringSet = new HashSet<>(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h"));
 	}
 
+	@Test
+	public void parallelSortByKeyOrdersByKey() {
+		final List<String> UNSORTED_ACCESSIONS = Arrays.asList("Q9Y6K9", "O75916-3", "P04637", "O75916");
+		final List<String> EXPECTED_ORDER = Arrays.asList("O75916", "O75916-3", "P04637", "Q9Y6K9");
+
+		assertThat(parallelSortByKey(UNSORTED_ACCESSIONS, accession -> accession), is(equalTo(EXPECTED_ORDER)));
+	}
+
+	@Test
+	public void parallelSortByKeyKeepsOrderOfEqualKeys() {
+		final List<String> UNSORTED_LINES = Arrays.asList("b\t2", "a\t1", "b\t1", "a\t2");
+		final List<String> EXPECTED_ORDER = Arrays.asList("a\t1", "a\t2", "b\t2", "b\t1");
+
+		assertThat(
+			parallelSortByKey(UNSORTED_LINES, line -> line.split("\t")[0]),
+			is(equalTo(EXPECTED_ORDER))
+		);
+	}
+
 	@Test
 	public void splitSetWithEvenSubSetSizes() {
 		final int EXPECTED_NUMBER_OF_SUBSETS = 4;
@@ -154,6 +173,18 @@ public class DataExportUtilitiesTest {
 		assertThat(fileContent, is(equalTo(EXPECTED_TEST_FILE_TEXT)));
 	}
 
+	@Test
+	public void escapeXMLReplacesMarkupCharacters() {
+		assertThat(escapeXML("Signaling by <RTK> & ERBB2"), is(equalTo("Signaling by &lt;RTK&gt; &amp; ERBB2")));
+	}
+
+	@Test
+	public void escapeXMLReturnsTextWithoutMarkupCharactersUnchanged() {
+		final String EVENT_NAME = "p53-Dependent G1 DNA Damage Response";
+
+		assertThat(escapeXML(EVENT_NAME), is(sameInstance(EVENT_NAME)));
+	}
+
 	@AfterEach
 	public void deleteTestFile() throws IOException {
 		Files.deleteIfExists(TEST_FILE);
@@ -0,0 +1,138 @@
+package org.reactome.release.dataexport.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LineDeduplicatorTest {
+	private final String LINE_SEPARATOR = System.lineSeparator();
+
+	@TempDir
+	Path tempDirectory;
+
+	@Test
+	public void distinctLinesAreWrittenInOrderFirstAdded() throws IOException {
+		try (LineDeduplicator lineDeduplicator = newLineDeduplicator(Long.MAX_VALUE)) {
+			for (String line : Arrays.asList("P04637\t7157", "Q9Y6K9\t8517", "P04637\t7157", "O75916\t8786")) {
+				lineDeduplicator.add(line);
+			}
+			StringWriter writer = new StringWriter();
+
+			long linesWritten = lineDeduplicator.writeDistinctLines(writer);
+
+			assertThat(linesWritten, is(equalTo(3L)));
+			assertThat(lineDeduplicator.isSpilled(), is(equalTo(false)));
+			assertThat(
+				Arrays.asList(writer.toString().split(LINE_SEPARATOR)),
+				contains("P04637\t7157", "Q9Y6K9\t8517", "O75916\t8786")
+			);
+		}
+	}
+
+	@Test
+	public void spilledLinesAreWrittenAsIfHeldInMemory() throws IOException {
+		final List<String> LINES = createLinesWithRepeats(5000);
+
+		try (LineDeduplicator lineDeduplicator = newLineDeduplicator(4096)) {
+			for (String line : LINES) {
+				lineDeduplicator.add(line);
+			}
+			StringWriter writer = new StringWriter();
+
+			long linesWritten = lineDeduplicator.writeDistinctLines(writer);
+
+			assertThat(lineDeduplicator.isSpilled(), is(equalTo(true)));
+			assertThat(writer.toString(), is(equalTo(getExpectedOutput(LINES))));
+			assertThat(linesWritten, is(equalTo((long) new LinkedHashSet<>(LINES).size())));
+		}
+	}
+
+	@Test
+	public void fingerprintCollisionsDoNotDropLines() throws IOException {
+		final List<String> LINES = createLinesWithRepeats(2000);
+
+		// Every line has the same fingerprint, so lines are only told apart by their full text
+		try (LineDeduplicator lineDeduplicator = new LineDeduplicator(4096, tempDirectory, line -> 42L)) {
+			for (String line : LINES) {
+				lineDeduplicator.add(line);
+			}
+			StringWriter writer = new StringWriter();
+
+			lineDeduplicator.writeDistinctLines(writer);
+
+			assertThat(writer.toString(), is(equalTo(getExpectedOutput(LINES))));
+		}
+	}
+
+	@Test
+	public void closingDeletesSpilledRuns() throws IOException {
+		LineDeduplicator lineDeduplicator = newLineDeduplicator(1024);
+		for (String line : createLinesWithRepeats(500)) {
+			lineDeduplicator.add(line);
+		}
+		lineDeduplicator.writeDistinctLines(new StringWriter());
+
+		lineDeduplicator.close();
+
+		try (Stream<Path> tempDirectoryFiles = Files.list(tempDirectory)) {
+			assertThat(tempDirectoryFiles.count(), is(equalTo(0L)));
+		}
+	}
+
+	@Test
+	public void lineWithLineBreakIsRejected() {
+		LineDeduplicator lineDeduplicator = newLineDeduplicator(Long.MAX_VALUE);
+
+		assertThrows(IllegalArgumentException.class, () -> lineDeduplicator.add("P04637" + LINE_SEPARATOR + "7157"));
+	}
+
+	@Test
+	public void linesCanNotBeAddedAfterTheyAreWritten() throws IOException {
+		LineDeduplicator lineDeduplicator = newLineDeduplicator(Long.MAX_VALUE);
+		lineDeduplicator.add("P04637\t7157");
+		lineDeduplicator.writeDistinctLines(new StringWriter());
+
+		assertThrows(IllegalStateException.class, () -> lineDeduplicator.add("Q9Y6K9\t8517"));
+	}
+
+	private LineDeduplicator newLineDeduplicator(long memoryBudget) {
+		return new LineDeduplicator(memoryBudget, tempDirectory, LineDeduplicator::fingerprint);
+	}
+
+	private List<String> createLinesWithRepeats(int numberOfLines) {
+		Random random = new Random(76);
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < numberOfLines; i++) {
+			// Drawing from fewer values than lines repeats lines, within and across runs
+			int entryNumber = random.nextInt(numberOfLines / 2);
+			lines.add(String.format("P%05d\t%d", entryNumber, entryNumber % 7));
+		}
+		return lines;
+	}
+
+	private String getExpectedOutput(List<String> lines) {
+		Set<String> distinctLines = new LinkedHashSet<>(lines);
+		StringBuilder expectedOutput = new StringBuilder();
+		for (String line : distinctLines) {
+			expectedOutput.append(line).append(LINE_SEPARATOR);
+		}
+		return expectedOutput.toString();
+	}
+}
@@ -0,0 +1,62 @@
+package org.reactome.release.dataexport.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class LongPairBufferTest {
+
+	@Test
+	public void pairsAreRetrievedInOrderAdded() {
+		LongPairBuffer longPairBuffer = new LongPairBuffer();
+		longPairBuffer.add(1L, 10L);
+		longPairBuffer.add(2L, 20L);
+
+		assertThat(longPairBuffer.size(), is(equalTo(2)));
+		assertThat(longPairBuffer.getFirst(1), is(equalTo(2L)));
+		assertThat(longPairBuffer.getSecond(1), is(equalTo(20L)));
+	}
+
+	@Test
+	public void bufferGrowsBeyondInitialCapacity() {
+		final int NUMBER_OF_PAIRS = 5000;
+
+		LongPairBuffer longPairBuffer = new LongPairBuffer();
+		for (long i = 0; i < NUMBER_OF_PAIRS; i++) {
+			longPairBuffer.add(i, -i);
+		}
+
+		assertThat(longPairBuffer.size(), is(equalTo(NUMBER_OF_PAIRS)));
+		assertThat(longPairBuffer.getSecond(NUMBER_OF_PAIRS - 1), is(equalTo(-(NUMBER_OF_PAIRS - 1L))));
+	}
+
+	@Test
+	public void pairsAreGroupedByFirstValue() {
+		LongPairBuffer longPairBuffer = new LongPairBuffer();
+		longPairBuffer.add(1L, 10L);
+		longPairBuffer.add(1L, 11L);
+		longPairBuffer.add(1L, 10L);
+		longPairBuffer.add(2L, 20L);
+
+		Map<Long, Set<Long>> groupedPairs = longPairBuffer.groupByFirst();
+
+		assertThat(groupedPairs.keySet(), containsInAnyOrder(1L, 2L));
+		assertThat(groupedPairs.get(1L), containsInAnyOrder(10L, 11L));
+		assertThat(groupedPairs.get(2L), containsInAnyOrder(20L));
+	}
+
+	@Test
+	public void indexOutsideBufferThrowsIndexOutOfBoundsException() {
+		LongPairBuffer longPairBuffer = new LongPairBuffer();
+		longPairBuffer.add(1L, 10L);
+
+		assertThrows(IndexOutOfBoundsException.class, () -> longPairBuffer.getFirst(1));
+	}
+}
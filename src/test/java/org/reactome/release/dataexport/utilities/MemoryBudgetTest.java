@@ -0,0 +1,88 @@
+package org.reactome.release.dataexport.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class MemoryBudgetTest {
+
+	@AfterEach
+	public void removeBudget() {
+		MemoryBudget.configure(new Properties());
+	}
+
+	@Test
+	public void sizesAreParsedWithOrWithoutSuffix() {
+		assertThat(MemoryBudget.parseSize("4g"), is(equalTo(4L * 1024 * 1024 * 1024)));
+		assertThat(MemoryBudget.parseSize("512M"), is(equalTo(512L * 1024 * 1024)));
+		assertThat(MemoryBudget.parseSize("64k"), is(equalTo(64L * 1024)));
+		assertThat(MemoryBudget.parseSize("1000"), is(equalTo(1000L)));
+	}
+
+	@Test
+	public void invalidSizesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> MemoryBudget.parseSize("4gb"));
+		assertThrows(IllegalArgumentException.class, () -> MemoryBudget.parseSize("0m"));
+		assertThrows(IllegalArgumentException.class, () -> MemoryBudget.parseSize("-1g"));
+	}
+
+	@Test
+	public void budgetSetsLowMemoryDefaultsButKeepsConfiguredSettings() {
+		Properties props = new Properties();
+		props.setProperty("memoryBudget", "2g");
+		props.setProperty("lineSetMemoryBudget", "1000");
+
+		MemoryBudget.configure(props);
+
+		assertThat(MemoryBudget.isEnabled(), is(equalTo(true)));
+		assertThat(props.getProperty("eventLoading"), is(equalTo("lazy")));
+		assertThat(props.getProperty("lineSetMemoryBudget"), is(equalTo("1000")));
+	}
+
+	@Test
+	public void noBudgetSetsNoDefaults() {
+		Properties props = new Properties();
+
+		MemoryBudget.configure(props);
+
+		assertThat(MemoryBudget.isEnabled(), is(equalTo(false)));
+		assertThat(props.isEmpty(), is(equalTo(true)));
+		assertThat(MemoryBudget.tryReserve(Long.MAX_VALUE), is(equalTo(true)));
+	}
+
+	@Test
+	public void reservationsStayWithinTheIndexShareOfTheBudget() {
+		Properties props = new Properties();
+		props.setProperty("memoryBudget", "1m");
+		MemoryBudget.configure(props);
+
+		assertThat(MemoryBudget.tryReserve(256 * 1024), is(equalTo(true)));
+		assertThat(MemoryBudget.tryReserve(256 * 1024), is(equalTo(true)));
+		assertThat(MemoryBudget.tryReserve(1), is(equalTo(false)));
+		assertThat(MemoryBudget.getReservedBytes(), is(lessThanOrEqualTo(MemoryBudget.getBudgetInBytes())));
+	}
+
+	@Test
+	public void indexesBeyondTheBudgetAreHeldOutsideTheHeap() {
+		Properties props = new Properties();
+		props.setProperty("memoryBudget", "64k");
+		MemoryBudget.configure(props);
+		LongPairBuffer pairs = new LongPairBuffer();
+		for (long i = 0; i < 10000; i++) {
+			pairs.add(i, i % 100);
+		}
+
+		CompactLongSetMap compactMap = CompactLongSetMap.groupByFirst(pairs);
+
+		assertThat(compactMap.isMemoryMapped(), is(equalTo(true)));
+		assertThat(compactMap.getHeapSizeInBytes() + MemoryBudget.getReservedBytes(),
+			is(lessThanOrEqualTo(MemoryBudget.getBudgetInBytes())));
+	}
+}
@@ -0,0 +1,74 @@
+package org.reactome.release.dataexport.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class NameNormalizerTest {
+
+	@Test
+	public void nameContainingRuleTextIsReplaced() {
+		NameNormalizer nameNormalizer = new NameNormalizer(getRules());
+
+		assertThat(nameNormalizer.normalize("Metabolism of amino acids and derivatives"),
+			is(equalTo("Metabolism of nitrogenous molecules")));
+	}
+
+	@Test
+	public void nameWithoutRuleTextIsUnchanged() {
+		final String NAME = "Signal Transduction";
+
+		NameNormalizer nameNormalizer = new NameNormalizer(getRules());
+
+		assertThat(nameNormalizer.normalize(NAME), is(equalTo(NAME)));
+	}
+
+	@Test
+	public void ruleWithLastSortedTextIsAppliedWhenSeveralMatch() {
+		NameNormalizer nameNormalizer = new NameNormalizer(getRules());
+
+		// "sugars" sorts after "amino acids" (and lower case after upper case)
+		assertThat(nameNormalizer.normalize("amino acids and sugars"), is(equalTo("Metabolism of sugars")));
+		assertThat(nameNormalizer.normalize("sugars and amino acids"), is(equalTo("Metabolism of sugars")));
+	}
+
+	@Test
+	public void overlappingRuleTextsAreAllFound() {
+		Map<String, String> rules = new HashMap<>();
+		rules.put("abcd", "first");
+		rules.put("bc", "second");
+
+		NameNormalizer nameNormalizer = new NameNormalizer(rules);
+
+		// "abcx" fails the "abcd" rule part way through but must still find "bc"
+		assertThat(nameNormalizer.normalize("abcx"), is(equalTo("second")));
+		assertThat(nameNormalizer.normalize("abcd"), is(equalTo("second")));
+	}
+
+	@Test
+	public void rulesAreLoadedFromResource() {
+		NameNormalizer nameNormalizer = NameNormalizer.fromResource("event_name_normalization.tsv");
+
+		final int EXPECTED_NUMBER_OF_RULES = 7;
+		assertThat(nameNormalizer.getNumberOfRules(), is(equalTo(EXPECTED_NUMBER_OF_RULES)));
+		assertThat(nameNormalizer.normalize("Cell Cycle, Mitotic"), is(equalTo("Cell Cycle (Mitotic)")));
+	}
+
+	@Test
+	public void missingResourceThrowsIllegalStateException() {
+		assertThrows(IllegalStateException.class, () -> NameNormalizer.fromResource("no_such_rules.tsv"));
+	}
+
+	private Map<String, String> getRules() {
+		Map<String, String> rules = new HashMap<>();
+		rules.put("amino acids", "Metabolism of nitrogenous molecules");
+		rules.put("sugars", "Metabolism of sugars");
+		return rules;
+	}
+}
@@ -0,0 +1,76 @@
+package org.reactome.release.dataexport.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SortedLineMergerTest {
+	private final String LINE_SEPARATOR = System.lineSeparator();
+
+	@TempDir
+	Path tempDirectory;
+
+	@Test
+	public void linesAreMergedInKeyOrderAndInFileOrderForEqualKeys() throws IOException {
+		Path firstFile = Files.write(
+			tempDirectory.resolve("first"), Arrays.asList("P04637\tR-HSA-1", "Q9Y6K9\tR-HSA-3")
+		);
+		Path secondFile = Files.write(
+			tempDirectory.resolve("second"), Arrays.asList("O75916\tR-RNO-2", "P04637\tR-MMU-4")
+		);
+		StringWriter writer = new StringWriter();
+
+		long linesWritten = SortedLineMerger.merge(Arrays.asList(firstFile, secondFile), writer);
+
+		assertThat(linesWritten, is(equalTo(4L)));
+		assertThat(
+			Arrays.asList(writer.toString().split(LINE_SEPARATOR)),
+			contains("O75916\tR-RNO-2", "P04637\tR-HSA-1", "P04637\tR-MMU-4", "Q9Y6K9\tR-HSA-3")
+		);
+	}
+
+	@Test
+	public void repeatedLineOfAKeyIsWrittenOnce() throws IOException {
+		Path firstFile = Files.write(tempDirectory.resolve("first"), Collections.singletonList("P04637"));
+		Path secondFile = Files.write(tempDirectory.resolve("second"), Arrays.asList("P04637", "Q9Y6K9"));
+		StringWriter writer = new StringWriter();
+
+		SortedLineMerger.merge(Arrays.asList(firstFile, secondFile), writer);
+
+		assertThat(Arrays.asList(writer.toString().split(LINE_SEPARATOR)), contains("P04637", "Q9Y6K9"));
+	}
+
+	@Test
+	public void lineTransformerIsAppliedToWrittenLines() throws IOException {
+		Path file = Files.write(tempDirectory.resolve("errors"), Collections.singletonList("P04637\tNo events"));
+		StringWriter writer = new StringWriter();
+
+		SortedLineMerger.merge(
+			Collections.singletonList(file), writer, line -> line.substring(line.indexOf('\t') + 1)
+		);
+
+		assertThat(writer.toString(), is(equalTo("No events" + LINE_SEPARATOR)));
+	}
+
+	@Test
+	public void unsortedFileThrowsIllegalStateException() throws IOException {
+		Path file = Files.write(tempDirectory.resolve("unsorted"), Arrays.asList("Q9Y6K9", "P04637"));
+
+		assertThrows(
+			IllegalStateException.class,
+			() -> SortedLineMerger.merge(Collections.singletonList(file), new StringWriter())
+		);
+	}
+}